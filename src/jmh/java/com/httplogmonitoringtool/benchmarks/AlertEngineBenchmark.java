@@ -0,0 +1,97 @@
+package com.httplogmonitoringtool.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.httplogmonitoringtool.AlertEngine;
+import com.httplogmonitoringtool.models.AlertRule;
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+
+/**
+ * Per request cost of the alert rules signals, and cost of evaluating all the
+ * rules, by rules count
+ *
+ * @author Remi c
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertEngineBenchmark {
+
+	private final static int[] STATUS_CODES = { 200, 200, 200, 200, 301, 404, 500 };
+	private final static int[] WINDOWS = { 60, 120, 300 };
+
+	@Param({ "0", "10", "100" })
+	private int ruleCount;
+
+	private AlertEngine engine;
+	private String[] sections;
+	private final List<HTTPStatsAlert> alerts = new ArrayList<HTTPStatsAlert>();
+	private long time;
+	private int request = 0;
+
+	@Setup
+	public void setUp() {
+		engine = new AlertEngine();
+		sections = new String[50];
+		for (int i = 0; i < sections.length; i++) {
+			sections[i] = "/section" + i;
+		}
+		// mix of rules over a few windows, as in a rules file
+		for (int i = 0; i < ruleCount; i++) {
+			int window = WINDOWS[i % WINDOWS.length];
+			switch (i % 5) {
+			case 0:
+				engine.addRule(AlertRule.parse("rule" + i + " request_rate " + window + " 1000 800"));
+				break;
+			case 1:
+				engine.addRule(AlertRule.parse("rule" + i + " bytes_rate " + window + " 1000000 800000"));
+				break;
+			case 2:
+				engine.addRule(AlertRule.parse("rule" + i + " status_rate 404 " + window + " 100 80"));
+				break;
+			case 3:
+				engine.addRule(AlertRule.parse("rule" + i + " status_class_ratio 5 " + window + " 5 3"));
+				break;
+			default:
+				engine.addRule(
+						AlertRule.parse("rule" + i + " section_rate " + sections[i % sections.length] + " " + window
+								+ " 100 80"));
+			}
+		}
+		time = System.currentTimeMillis();
+	}
+
+	@Benchmark
+	public void add() {
+		int i = request++;
+		// 1000 requests per second
+		engine.add(time + i, STATUS_CODES[i % STATUS_CODES.length], 1000, sections[i % sections.length]);
+	}
+
+	@Benchmark
+	public void check() {
+		time += 1000;
+		engine.add(time, 200, 1000, sections[0]);
+		engine.check(time, alerts);
+		alerts.clear();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.httplogmonitoringtool.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.HTTPLogFields;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.HTTPLogParser;
+
+/**
+ * Log line parsing cost of the String parser and of the byte parser used by
+ * the ingestion, on valid and malformed lines
+ *
+ * @author Remi c
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPLogParserBenchmark {
+
+	@Param({ "valid", "bad_status", "truncated" })
+	private String lineType;
+
+	private String line;
+	private byte[] lineBytes;
+	private final HTTPLogFields fields = new HTTPLogFields();
+
+	@Setup
+	public void setUp() {
+		switch (lineType) {
+		case "bad_status":// fails late: all fields are read
+			line = "127.0.0.1 - james [09/May/2018:16:00:39 +0000] \"GET /report HTTP/1.0\" 2x0 123";
+			break;
+		case "truncated":// fails early
+			line = "127.0.0.1 - james [09/May/2018:16:00";
+			break;
+		default:
+			line = "127.0.0.1 - james [09/May/2018:16:00:39 +0000] \"GET /report/daily HTTP/1.0\" 200 123";
+		}
+		lineBytes = line.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	public Object parseString() {
+		try {
+			return HTTPLogParser.parse(line);
+		} catch (HTTPLogRowFormatException e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public void parseBytes(Blackhole blackhole) {
+		try {
+			HTTPLogByteParser.parse(lineBytes, 0, lineBytes.length, fields);
+			blackhole.consume(fields);
+		} catch (HTTPLogRowFormatException e) {
+			blackhole.consume(e);
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.httplogmonitoringtool.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.httplogmonitoringtool.models.HTTPStats;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+
+/**
+ * Statistics aggregation cost at several section cardinalities: counters,
+ * section hits and most hit sections reads
+ *
+ * @author Remi c
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPStatsBenchmark {
+
+	/**
+	 * Pre-generated sections count, keys are picked in a power of two sized
+	 * cycle
+	 */
+	private final static int SECTIONS_CYCLE = 1 << 16;
+
+	/**
+	 * distinct sections count: below, around and far above the counted sections
+	 * capacity
+	 */
+	@Param({ "10", "1000", "100000" })
+	private int cardinality;
+
+	private final HTTPStats stats = new HTTPStats();
+	private final String[] sections = new String[SECTIONS_CYCLE];
+	private int next = 0;
+
+	@Setup
+	public void setUp() {
+		// skewed keys: low indexes are picked more often
+		Random random = new Random(42);
+		for (int i = 0; i < SECTIONS_CYCLE; i++) {
+			int index = (int) (Math.pow(random.nextDouble(), 3) * cardinality);
+			sections[i] = ("/section" + index).intern();
+		}
+		// counted sections filled before measuring reads
+		for (String section : sections) {
+			stats.addSection(section);
+		}
+	}
+
+	@Benchmark
+	public void increase() {
+		stats.increase(HTTPStatsType.TOTAL_REQUESTS);
+	}
+
+	@Benchmark
+	public void addSection() {
+		stats.addSection(sections[next++ & (SECTIONS_CYCLE - 1)]);
+	}
+
+	@Benchmark
+	public Object getMostHitSection() {
+		return stats.getMostHitSection();
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.httplogmonitoringtool.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.utils.SyntheticLogGenerator;
+
+/**
+ * End-to-end cost of one {@link MonitorLog#updateStats()} reading a whole
+ * pre-generated log file: read, parse, statistics and alert window. The file
+ * is generated once per trial by {@link SyntheticLogGenerator} and stays in the
+ * page cache.
+ *
+ * @author Remi c
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MonitorLogBenchmark {
+
+	/**
+	 * Generated requests dates range, inside the alert time window
+	 */
+	private final static int DATES_RANGE = 1000 * 60 * 50;
+
+	/**
+	 * Alert time window: every generated line is counted
+	 */
+	private final static int ALERT_TIME_WINDOW = 1000 * 60 * 60;
+
+	@Param({ "1000000", "10000000" })
+	private int lineCount;
+
+	private Path logFile;
+
+	@Setup(Level.Trial)
+	public void generateLogFile() throws IOException, InterruptedException {
+		logFile = Files.createTempFile("http-log-benchmark-", ".log");
+		SyntheticLogGenerator generator = new SyntheticLogGenerator(42);
+		generator.setStartTime(System.currentTimeMillis() - DATES_RANGE);
+		generator.setLinesPerSecond(lineCount * 1000d / DATES_RANGE);
+		generator.setBadLineRatio(0.001);
+		generator.write(logFile, lineCount);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteLogFile() throws IOException {
+		Files.deleteIfExists(logFile);
+	}
+
+	@Benchmark
+	public long updateStats() throws IOException {
+		MonitorLog monitorLog = new MonitorLog();
+		monitorLog.setLogFilePath(logFile.toString());
+		monitorLog.setAlertTimeWindow(ALERT_TIME_WINDOW);
+		try {
+			monitorLog.updateStats();
+			return monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS);
+		} finally {
+			monitorLog.close();
+		}
+	}
+
+}
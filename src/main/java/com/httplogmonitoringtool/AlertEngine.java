@@ -0,0 +1,452 @@
+package com.httplogmonitoringtool;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.httplogmonitoringtool.models.AlertRule;
+import com.httplogmonitoringtool.models.AlertRuleStatus;
+import com.httplogmonitoringtool.models.EwmaRate;
+import com.httplogmonitoringtool.models.HTTPStats;
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+import com.httplogmonitoringtool.models.SlidingWindowCounter;
+
+/**
+ * Multi-rule alerting: evaluates {@link AlertRule}s on top of the single high
+ * traffic alert of {@link MonitorLog}.
+ * <p>
+ * Rules share their signals: one {@link SlidingWindowCounter} per counted value
+ * (requests, bytes, a status code, a status class or a section) and window
+ * size, or one {@link EwmaRate} per counted value and horizon, whatever the
+ * rules count. Adding a request only touches these distinct signals, and
+ * evaluating a rule reads one or two of them, so many rules cost little per log
+ * line. Not thread safe: used by the statistics writer thread.
+ *
+ * @author Remi c
+ *
+ */
+public class AlertEngine {
+
+	/**
+	 * Rules file comment line prefix
+	 */
+	private final static String COMMENT_PREFIX = "#";
+
+	/**
+	 * Evaluated rules
+	 */
+	private final List<EvaluatedRule> rules = new ArrayList<EvaluatedRule>();
+
+	/**
+	 * Shared counters by signal key, see {@link #counter(String, int)}
+	 */
+	private final Map<String, SlidingWindowCounter> counters = new HashMap<String, SlidingWindowCounter>();
+
+	/**
+	 * Shared moving rates by signal key, see {@link #ewmaRate(String, int)}
+	 */
+	private final Map<String, EwmaRate> ewmaRates = new HashMap<String, EwmaRate>();
+
+	/**
+	 * Distinct moving rates of all requests
+	 */
+	private EwmaRate[] requestEwmaRates = new EwmaRate[0];
+
+	/**
+	 * Distinct moving rates by status class, null when no rule rates the class
+	 */
+	private final EwmaRate[][] statusClassEwmaRates = new EwmaRate[HTTPStats.MAX_STATUS_CODE / 100 + 1][];
+
+	/**
+	 * Distinct counters of all requests
+	 */
+	private SlidingWindowCounter[] requestCounters = new SlidingWindowCounter[0];
+
+	/**
+	 * Distinct counters of response bytes
+	 */
+	private SlidingWindowCounter[] bytesCounters = new SlidingWindowCounter[0];
+
+	/**
+	 * Distinct counters by status code - {@link HTTPStats#MIN_STATUS_CODE}, null
+	 * when no rule counts the code
+	 */
+	private final SlidingWindowCounter[][] statusCounters = new SlidingWindowCounter[HTTPStats.MAX_STATUS_CODE
+			- HTTPStats.MIN_STATUS_CODE + 1][];
+
+	/**
+	 * Distinct counters by status class, null when no rule counts the class
+	 */
+	private final SlidingWindowCounter[][] statusClassCounters = new SlidingWindowCounter[HTTPStats.MAX_STATUS_CODE
+			/ 100 + 1][];
+
+	/**
+	 * Distinct counters by section
+	 */
+	private final Map<String, SlidingWindowCounter[]> sectionCounters = new HashMap<String, SlidingWindowCounter[]>();
+
+	/**
+	 * First added request time (epoch milliseconds): rules are evaluated once
+	 * their window has elapsed since then
+	 */
+	private long startTime = SlidingWindowCounter.NO_TIME;
+
+	/**
+	 * Rule state: its signals, last value and raised flag
+	 */
+	private static class EvaluatedRule {
+		private final AlertRule rule;
+
+		/**
+		 * counted value: requests, bytes, status, status class or section, null for
+		 * moving rates
+		 */
+		private final SlidingWindowCounter counter;
+
+		/**
+		 * all requests of the window for ratios, null for rates
+		 */
+		private final SlidingWindowCounter total;
+
+		/**
+		 * moving rate, null for window counts
+		 */
+		private final EwmaRate ewmaRate;
+
+		private double value = 0;
+		private boolean raised = false;
+
+		private EvaluatedRule(AlertRule rule, SlidingWindowCounter counter, SlidingWindowCounter total,
+				EwmaRate ewmaRate) {
+			this.rule = rule;
+			this.counter = counter;
+			this.total = total;
+			this.ewmaRate = ewmaRate;
+		}
+	}
+
+	/**
+	 * load rules file: one {@link AlertRule} per line, blank lines and lines
+	 * starting with {@value #COMMENT_PREFIX} are ignored
+	 *
+	 * @param rulesFilePath
+	 * @return engine evaluating the file rules
+	 * @throws IOException: while reading file, or bad rule
+	 */
+	public static AlertEngine load(Path rulesFilePath) throws IOException {
+		AlertEngine engine = new AlertEngine();
+		try (BufferedReader reader = Files.newBufferedReader(rulesFilePath, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+					continue;
+				}
+				try {
+					engine.addRule(AlertRule.parse(line));
+				} catch (IllegalArgumentException e) {
+					throw new IOException(rulesFilePath + " line " + lineNumber + ": " + e.getMessage());
+				}
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * add rule, before adding requests
+	 *
+	 * @param rule
+	 * @throws IllegalArgumentException: rule name already used
+	 */
+	public void addRule(AlertRule rule) {
+		for (EvaluatedRule evaluatedRule : rules) {
+			if (evaluatedRule.rule.getName().equals(rule.getName())) {
+				throw new IllegalArgumentException("Duplicated alert rule name " + rule.getName());
+			}
+		}
+		int window = rule.getWindowSeconds();
+		SlidingWindowCounter counter = null;
+		SlidingWindowCounter total = null;
+		EwmaRate ewmaRate = null;
+		switch (rule.getMetric()) {
+		case REQUEST_RATE:
+			counter = counter("requests", window);
+			requestCounters = append(requestCounters, counter);
+			break;
+		case BYTES_RATE:
+			counter = counter("bytes", window);
+			bytesCounters = append(bytesCounters, counter);
+			break;
+		case STATUS_RATE:
+			int code = Integer.parseInt(rule.getArgument());
+			counter = counter("status " + code, window);
+			int statusIndex = code - HTTPStats.MIN_STATUS_CODE;
+			statusCounters[statusIndex] = append(statusCounters[statusIndex], counter);
+			break;
+		case STATUS_CLASS_RATIO:
+			int statusClass = Integer.parseInt(rule.getArgument());
+			counter = counter("class " + statusClass, window);
+			statusClassCounters[statusClass] = append(statusClassCounters[statusClass], counter);
+			total = counter("requests", window);
+			requestCounters = append(requestCounters, total);
+			break;
+		case SECTION_RATE:
+			counter = counter("section " + rule.getArgument(), window);
+			sectionCounters.put(rule.getArgument(), append(sectionCounters.get(rule.getArgument()), counter));
+			break;
+		case EWMA_REQUEST_RATE:
+			ewmaRate = ewmaRate("requests", window);
+			requestEwmaRates = append(requestEwmaRates, ewmaRate);
+			break;
+		case EWMA_STATUS_CLASS_RATE:
+			statusClass = Integer.parseInt(rule.getArgument());
+			ewmaRate = ewmaRate("class " + statusClass, window);
+			statusClassEwmaRates[statusClass] = append(statusClassEwmaRates[statusClass], ewmaRate);
+			break;
+		default:
+			throw new IllegalArgumentException("Unsupported alert metric " + rule.getMetric());
+		}
+		rules.add(new EvaluatedRule(rule, counter, total, ewmaRate));
+	}
+
+	/**
+	 * get or create shared counter
+	 *
+	 * @param signal:        counted value key
+	 * @param windowSeconds
+	 * @return counter
+	 */
+	private SlidingWindowCounter counter(String signal, int windowSeconds) {
+		return counters.computeIfAbsent(signal + " " + windowSeconds, key -> new SlidingWindowCounter(windowSeconds));
+	}
+
+	/**
+	 * get or create shared moving rate
+	 *
+	 * @param signal:         counted value key
+	 * @param horizonSeconds
+	 * @return moving rate
+	 */
+	private EwmaRate ewmaRate(String signal, int horizonSeconds) {
+		return ewmaRates.computeIfAbsent(signal + " " + horizonSeconds, key -> new EwmaRate(horizonSeconds));
+	}
+
+	/**
+	 * append moving rate unless already there
+	 *
+	 * @param array:    null when empty
+	 * @param ewmaRate
+	 * @return distinct moving rates
+	 */
+	private static EwmaRate[] append(EwmaRate[] array, EwmaRate ewmaRate) {
+		if (array == null) {
+			return new EwmaRate[] { ewmaRate };
+		}
+		for (EwmaRate arrayRate : array) {
+			if (arrayRate == ewmaRate) {
+				return array;
+			}
+		}
+		EwmaRate[] appended = Arrays.copyOf(array, array.length + 1);
+		appended[array.length] = ewmaRate;
+		return appended;
+	}
+
+	/**
+	 * append counter unless already there
+	 *
+	 * @param array:   null when empty
+	 * @param counter
+	 * @return distinct counters
+	 */
+	private static SlidingWindowCounter[] append(SlidingWindowCounter[] array, SlidingWindowCounter counter) {
+		if (array == null) {
+			return new SlidingWindowCounter[] { counter };
+		}
+		for (SlidingWindowCounter arrayCounter : array) {
+			if (arrayCounter == counter) {
+				return array;
+			}
+		}
+		SlidingWindowCounter[] appended = new SlidingWindowCounter[array.length + 1];
+		System.arraycopy(array, 0, appended, 0, array.length);
+		appended[array.length] = counter;
+		return appended;
+	}
+
+	/**
+	 * count a request in the signals of the rules
+	 *
+	 * @param time:          request time (epoch milliseconds)
+	 * @param status:        HTTP status code
+	 * @param contentLength: response bytes
+	 * @param section
+	 */
+	public void add(long time, int status, long contentLength, String section) {
+		if (rules.isEmpty()) {
+			return;
+		}
+		if (startTime == SlidingWindowCounter.NO_TIME) {
+			startTime = time;
+		}
+		add(requestCounters, time, 1);
+		add(bytesCounters, time, contentLength);
+		add(requestEwmaRates, time);
+		if (status >= HTTPStats.MIN_STATUS_CODE && status <= HTTPStats.MAX_STATUS_CODE) {
+			add(statusCounters[status - HTTPStats.MIN_STATUS_CODE], time, 1);
+			add(statusClassCounters[status / 100], time, 1);
+			add(statusClassEwmaRates[status / 100], time);
+		}
+		if (!sectionCounters.isEmpty() && section != null) {
+			add(sectionCounters.get(section), time, 1);
+		}
+	}
+
+	/**
+	 * @param counters: null when none
+	 * @param time
+	 * @param count
+	 */
+	private static void add(SlidingWindowCounter[] counters, long time, long count) {
+		if (counters != null) {
+			for (SlidingWindowCounter counter : counters) {
+				counter.add(time, count);
+			}
+		}
+	}
+
+	/**
+	 * @param ewmaRates: null when none
+	 * @param time
+	 */
+	private static void add(EwmaRate[] ewmaRates, long time) {
+		if (ewmaRates != null) {
+			for (EwmaRate ewmaRate : ewmaRates) {
+				ewmaRate.add(time, 1);
+			}
+		}
+	}
+
+	/**
+	 * update the rules moving rates, see {@link EwmaRate#tick(long)}: called on
+	 * every statistics publication, with the console moving rates
+	 *
+	 * @param time: epoch milliseconds
+	 */
+	public void tick(long time) {
+		for (EwmaRate ewmaRate : ewmaRates.values()) {
+			ewmaRate.tick(time);
+		}
+	}
+
+	/**
+	 * evaluate rules whose window has elapsed since the first request: a rule
+	 * alert is raised when its value exceeds the raise threshold, then recovered
+	 * when it goes under the recover threshold. Moving rates are read as of the
+	 * last {@link #tick(long)}.
+	 *
+	 * @param time:         evaluation time (epoch milliseconds)
+	 * @param raisedAlerts: RULE_RAISED and RULE_RECOVERED alerts are added to it
+	 */
+	public void check(long time, List<HTTPStatsAlert> raisedAlerts) {
+		if (startTime == SlidingWindowCounter.NO_TIME) {
+			return;
+		}
+		// expire requests older than the windows
+		for (SlidingWindowCounter counter : counters.values()) {
+			counter.advance(time);
+		}
+		for (EvaluatedRule evaluatedRule : rules) {
+			AlertRule rule = evaluatedRule.rule;
+			if (time - startTime < rule.getWindowSeconds() * 1000l) {// rule window not aimed yet
+				continue;
+			}
+			double value;
+			if (evaluatedRule.ewmaRate != null) {
+				value = evaluatedRule.ewmaRate.getRate();
+			} else if (evaluatedRule.total == null) {
+				value = (double) evaluatedRule.counter.getSum() / rule.getWindowSeconds();
+			} else {
+				long total = evaluatedRule.total.getSum();
+				value = total == 0 ? 0 : 100.0 * evaluatedRule.counter.getSum() / total;
+			}
+			evaluatedRule.value = value;
+			if (!evaluatedRule.raised && value > rule.getRaiseThreshold()) {
+				evaluatedRule.raised = true;
+				raisedAlerts.add(new HTTPStatsAlert(HTTPStatsAlertType.RULE_RAISED, rule.getName(), value,
+						new Date(time)));
+			} else if (evaluatedRule.raised && value < rule.getRecoverThreshold()) {
+				evaluatedRule.raised = false;
+				raisedAlerts.add(new HTTPStatsAlert(HTTPStatsAlertType.RULE_RECOVERED, rule.getName(), value,
+						new Date(time)));
+			}
+		}
+	}
+
+	/**
+	 * restore rules raised state from restored alerts: the last alert of a rule
+	 * tells whether it is raised. Signals are not restored, rules are evaluated
+	 * again once their window has elapsed.
+	 *
+	 * @param raisedAlerts: restored alerts, oldest first
+	 */
+	public void restore(List<HTTPStatsAlert> raisedAlerts) {
+		HashSet<String> restoredRules = new HashSet<String>();
+		for (int i = raisedAlerts.size() - 1; i >= 0; i--) {
+			HTTPStatsAlert alert = raisedAlerts.get(i);
+			if (alert.getRule() == null || !restoredRules.add(alert.getRule())) {
+				continue;
+			}
+			for (EvaluatedRule evaluatedRule : rules) {
+				if (evaluatedRule.rule.getName().equals(alert.getRule())) {
+					evaluatedRule.raised = HTTPStatsAlertType.RULE_RAISED.equals(alert.getType());
+					evaluatedRule.value = alert.getValue();
+				}
+			}
+		}
+	}
+
+	/**
+	 * copy rules state
+	 *
+	 * @return rules status in rules order
+	 */
+	public List<AlertRuleStatus> getStatuses() {
+		if (rules.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<AlertRuleStatus> statuses = new ArrayList<AlertRuleStatus>(rules.size());
+		for (EvaluatedRule evaluatedRule : rules) {
+			statuses.add(new AlertRuleStatus(evaluatedRule.rule, evaluatedRule.value, evaluatedRule.raised));
+		}
+		return Collections.unmodifiableList(statuses);
+	}
+
+	/**
+	 * @return rules count
+	 */
+	public int getRuleCount() {
+		return rules.size();
+	}
+
+	/**
+	 * @return distinct counters and moving rates count shared by the rules
+	 */
+	public int getCounterCount() {
+		return counters.size() + ewmaRates.size();
+	}
+
+}
@@ -0,0 +1,313 @@
+package com.httplogmonitoringtool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.httplogmonitoringtool.models.AlertRuleStatus;
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsSnapshot;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.models.IngestStats;
+import com.httplogmonitoringtool.models.QuantileSketch;
+import com.httplogmonitoringtool.models.TrafficRates;
+import com.httplogmonitoringtool.utils.JsonWriter;
+
+/**
+ * Headless statistics output: each {@link MonitorLog} published
+ * {@link HTTPStatsSnapshot} and each newly raised {@link HTTPStatsAlert} is
+ * written as a newline-delimited JSON record.
+ * <p>
+ * Snapshots are polled on a dedicated thread and encoded by a
+ * {@link JsonWriter}: records of a poll are written to the stream in one
+ * batch.
+ *
+ * @author Remi c
+ *
+ */
+public class JsonStatsWriter implements Closeable {
+
+	/**
+	 * Encoded records buffer size (bytes)
+	 */
+	private final static int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Writing thread stop timeout (milliseconds)
+	 */
+	private final static long CLOSE_TIMEOUT = 1000;
+
+	/**
+	 * Monitor publishing the statistics snapshots
+	 */
+	private final MonitorLog monitorLog;
+
+	private final OutputStream out;
+	private final JsonWriter jsonWriter;
+
+	/**
+	 * snapshots poll period (milliseconds)
+	 */
+	private final long period;
+
+	private final ScheduledThreadPoolExecutor executor;
+
+	/**
+	 * last written snapshot sequence
+	 */
+	private long writtenSequence = -1;
+
+	/**
+	 * written alerts count of the snapshots raised alerts
+	 */
+	private int writtenAlertCount = 0;
+
+	/**
+	 * write error, stops writing
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * init writer, see {@link #start()}
+	 *
+	 * @param monitorLog: monitor publishing statistics snapshots
+	 * @param out:        records stream, closed with this writer
+	 * @param period:     snapshots poll period (milliseconds)
+	 */
+	public JsonStatsWriter(MonitorLog monitorLog, OutputStream out, long period) {
+		this.monitorLog = monitorLog;
+		this.out = out;
+		this.jsonWriter = new JsonWriter(out, BUFFER_SIZE);
+		this.period = period;
+		this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "json-stats-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/**
+	 * starts polling published snapshots every {@link #period}
+	 */
+	public void start() {
+		executor.scheduleAtFixedRate(() -> {
+			try {
+				writeSnapshot(monitorLog.getStatsSnapshot());
+			} catch (IOException e) {
+				failure = e;
+				executor.shutdown();
+			}
+		}, 0, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * write new raised alerts then snapshot statistics, unless the snapshot has
+	 * already been written
+	 *
+	 * @param snapshot
+	 * @return records have been written
+	 * @throws IOException: while writing records
+	 */
+	public boolean writeSnapshot(HTTPStatsSnapshot snapshot) throws IOException {
+		if (snapshot.getSequence() == writtenSequence) {
+			return false;
+		}
+		writtenSequence = snapshot.getSequence();
+
+		List<HTTPStatsAlert> alerts = snapshot.getRaisedAlerts();
+		if (alerts.size() < writtenAlertCount) {
+			// alerts of another monitoring
+			writtenAlertCount = 0;
+		}
+		for (HTTPStatsAlert alert : alerts.subList(writtenAlertCount, alerts.size())) {
+			writeAlert(alert);
+		}
+		writtenAlertCount = alerts.size();
+		writeStats(snapshot);
+		jsonWriter.flush();
+		return true;
+	}
+
+	/**
+	 * write alert record
+	 *
+	 * @param alert
+	 * @throws IOException: while writing record
+	 */
+	private void writeAlert(HTTPStatsAlert alert) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name("type").value("alert");
+		jsonWriter.name("alert").value(alert.getType().name());
+		if (alert.getRule() == null) {
+			jsonWriter.name("trafficAverage").value(alert.getTrafficAverage());
+		} else {
+			jsonWriter.name("rule").value(alert.getRule());
+			jsonWriter.name("value").value(alert.getValue());
+		}
+		jsonWriter.name("time").value(alert.getDate().getTime());
+		jsonWriter.endObject().endRecord();
+	}
+
+	/**
+	 * write statistics record
+	 *
+	 * @param snapshot
+	 * @throws IOException: while writing record
+	 */
+	private void writeStats(HTTPStatsSnapshot snapshot) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name("type").value("stats");
+		jsonWriter.name("sequence").value(snapshot.getSequence());
+		jsonWriter.name("time").value(snapshot.getTime());
+		jsonWriter.name("intervalStart").value(snapshot.getIntervalStart());
+		jsonWriter.name("requests").value(snapshot.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		jsonWriter.name("badFormatLogs").value(snapshot.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG));
+		jsonWriter.name("intervalContentBytes").value(snapshot.getStatsValue(HTTPStatsType.TOTAL_CONTENT));
+		jsonWriter.name("contentSize");
+		writeSizes(snapshot.getContentSizes());
+
+		// requests by status code
+		jsonWriter.name("status").beginObject();
+		for (Entry<Integer, Long> entry : snapshot.getStatusCounts().entrySet()) {
+			jsonWriter.name(entry.getKey().toString()).value(entry.getValue());
+		}
+		jsonWriter.endObject();
+
+		// last interval top values
+		jsonWriter.name("topUser").value(snapshot.getTopUser());
+		jsonWriter.name("topRemoteHost").value(snapshot.getTopRemoteHost());
+		jsonWriter.name("sections").beginObject();
+		for (Entry<String, Integer> entry : snapshot.getMostHitSection().entrySet()) {
+			jsonWriter.name(entry.getKey()).value(entry.getValue());
+		}
+		jsonWriter.endObject();
+		jsonWriter.name("sectionContentSizes").beginObject();
+		for (Entry<String, QuantileSketch> entry : snapshot.getSectionContentSizes().entrySet()) {
+			jsonWriter.name(entry.getKey());
+			writeSizes(entry.getValue());
+		}
+		jsonWriter.endObject();
+
+		// requests moving rates
+		TrafficRates trafficRates = snapshot.getTrafficRates();
+		jsonWriter.name("rates").beginObject();
+		jsonWriter.name("requests");
+		writeRates(trafficRates, 0);
+		for (int statusClass = TrafficRates.MIN_STATUS_CLASS; statusClass <= TrafficRates.MAX_STATUS_CLASS;
+				statusClass++) {
+			jsonWriter.name(statusClass + "xx");
+			writeRates(trafficRates, statusClass);
+		}
+		jsonWriter.endObject();
+
+		// alerting
+		jsonWriter.name("alertAverage").value(snapshot.getAlertAverage());
+		jsonWriter.name("highTrafficAlert").value(snapshot.isHighTrafficAlert());
+		jsonWriter.name("alertRules").beginObject();
+		for (AlertRuleStatus status : snapshot.getAlertRuleStatuses()) {
+			jsonWriter.name(status.getRule().getName()).beginObject();
+			jsonWriter.name("value").value(status.getValue());
+			jsonWriter.name("raised").value(status.isRaised());
+			jsonWriter.endObject();
+		}
+		jsonWriter.endObject();
+
+		// ingest health
+		IngestStats ingestStats = snapshot.getIngestStats();
+		jsonWriter.name("ingest").beginObject();
+		jsonWriter.name("lagMillis").value(snapshot.getIngestLag());
+		jsonWriter.name("lines").value(ingestStats.getLineCount());
+		jsonWriter.name("bytes").value(ingestStats.getByteCount());
+		jsonWriter.name("linesPerSecond").value(ingestStats.getLinesPerSecond());
+		jsonWriter.name("bytesPerSecond").value(ingestStats.getBytesPerSecond());
+		jsonWriter.name("badLinesPerSecond").value(ingestStats.getBadLinesPerSecond());
+		jsonWriter.name("lagBytes").value(ingestStats.getByteLag());
+		jsonWriter.name("parseP50Nanos").value(ingestStats.getParsePercentile(50));
+		jsonWriter.name("parseP99Nanos").value(ingestStats.getParsePercentile(99));
+		jsonWriter.name("parseMaxNanos").value(ingestStats.getParseMax());
+		jsonWriter.endObject();
+
+		jsonWriter.endObject().endRecord();
+	}
+
+	/**
+	 * write response sizes count and quantiles object
+	 *
+	 * @param sizes
+	 * @throws IOException: while writing record
+	 */
+	private void writeSizes(QuantileSketch sizes) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name("count").value(sizes.getCount());
+		jsonWriter.name("p50").value(sizes.getQuantile(0.5));
+		jsonWriter.name("p95").value(sizes.getQuantile(0.95));
+		jsonWriter.name("p99").value(sizes.getQuantile(0.99));
+		jsonWriter.name("max").value(sizes.getMax());
+		jsonWriter.endObject();
+	}
+
+	/**
+	 * write moving rates by horizon object
+	 *
+	 * @param rates
+	 * @param statusClass: rated status class, 0 for all requests
+	 * @throws IOException: while writing record
+	 */
+	private void writeRates(TrafficRates rates, int statusClass) throws IOException {
+		jsonWriter.beginObject();
+		for (int horizon = 0; horizon < TrafficRates.HORIZONS.length; horizon++) {
+			jsonWriter.name(TrafficRates.HORIZON_NAMES[horizon]).value(statusClass == 0
+					? rates.getRequestRate(horizon) : rates.getStatusClassRate(statusClass, horizon));
+		}
+		jsonWriter.endObject();
+	}
+
+	/**
+	 * throw write error
+	 *
+	 * @throws IOException: while writing records
+	 */
+	public void checkFailure() throws IOException {
+		IOException e = failure;
+		if (e != null) {
+			throw e;
+		}
+	}
+
+	/**
+	 * {@link JsonWriter#getRecordCount()}
+	 *
+	 * @return written records count
+	 */
+	public long getRecordCount() {
+		return jsonWriter.getRecordCount();
+	}
+
+	/**
+	 * stop polling, write the last published snapshot and close the stream
+	 *
+	 * @throws IOException: while writing records
+	 */
+	@Override
+	public void close() throws IOException {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			if (failure == null) {
+				writeSnapshot(monitorLog.getStatsSnapshot());
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+}
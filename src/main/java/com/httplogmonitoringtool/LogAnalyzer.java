@@ -0,0 +1,576 @@
+package com.httplogmonitoringtool;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.GZIPInputStream;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.HTTPLogFields;
+import com.httplogmonitoringtool.models.HTTPLogRow;
+import com.httplogmonitoringtool.models.HTTPStats;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.LineHandler;
+import com.httplogmonitoringtool.utils.LineSplitter;
+
+/**
+ * HTTP log batch analyzer: computes the statistics of whole log files at once.
+ * Files are memory mapped in chunks split on line boundaries, chunks are parsed
+ * in parallel in a fork-join pool into partial {@link HTTPStats} which are then
+ * merged. Compressed files (".gz") cannot be split: each one is decompressed
+ * and parsed as a stream, in parallel with the other files.
+ * <p>
+ * Rows are counted as by {@link MonitorLog}, except that there is no alert
+ * window: only rows without date or with a date in the future are counted as
+ * bad format.
+ *
+ * @author Remi c
+ *
+ */
+public class LogAnalyzer {
+
+	/**
+	 * Default chunk size: 64MB
+	 */
+	public final static long DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Line boundary search block size
+	 */
+	private final static int BOUNDARY_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Compressed bytes read buffer size
+	 */
+	private final static int GZIP_BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * Compressed log file name suffix
+	 */
+	private final static String GZIP_SUFFIX = ".gz";
+
+	/**
+	 * Analyzed log file paths
+	 */
+	private final List<Path> paths;
+
+	/**
+	 * Parsing threads count
+	 */
+	private final int parallelism;
+
+	/**
+	 * Maximum mapped bytes per chunk, chunks are extended to the end of their
+	 * last line
+	 */
+	private final long chunkSize;
+
+	/**
+	 * Analyzed bytes count of the last analysis, decompressed bytes for compressed
+	 * files
+	 */
+	private long analyzedBytes = 0;
+
+	/**
+	 * Last analysis duration (nanoseconds)
+	 */
+	private long analysisTime = 0;
+
+	/**
+	 * Last analysis results of each file, in paths order
+	 */
+	private List<FileAnalysis> fileAnalyses = Collections.emptyList();
+
+	/**
+	 * Analysis result of one log file
+	 */
+	public static class FileAnalysis {
+
+		private final Path path;
+		private final long fileBytes;
+		private final long decompressedBytes;
+		private final long lineCount;
+		private final long analysisTime;
+
+		private FileAnalysis(Path path, long fileBytes, long decompressedBytes, long lineCount, long analysisTime) {
+			this.path = path;
+			this.fileBytes = fileBytes;
+			this.decompressedBytes = decompressedBytes;
+			this.lineCount = lineCount;
+			this.analysisTime = analysisTime;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * @return file size (bytes)
+		 */
+		public long getFileBytes() {
+			return fileBytes;
+		}
+
+		/**
+		 * @return parsed log bytes count: file size when not compressed
+		 */
+		public long getDecompressedBytes() {
+			return decompressedBytes;
+		}
+
+		/**
+		 * @return parsed lines count
+		 */
+		public long getLineCount() {
+			return lineCount;
+		}
+
+		/**
+		 * @return file analysis duration (nanoseconds)
+		 */
+		public long getAnalysisTime() {
+			return analysisTime;
+		}
+
+		/**
+		 * @return parsed log bytes per second
+		 */
+		public double getBytesPerSecond() {
+			return analysisTime == 0 ? 0 : decompressedBytes * 1e9 / analysisTime;
+		}
+
+		/**
+		 * @return parsed lines per second
+		 */
+		public double getLinesPerSecond() {
+			return analysisTime == 0 ? 0 : lineCount * 1e9 / analysisTime;
+		}
+	}
+
+	/**
+	 * init analyzer with {@link #DEFAULT_CHUNK_SIZE}
+	 *
+	 * @param logFilePath: analyzed log file
+	 * @param parallelism: parsing threads count
+	 */
+	public LogAnalyzer(String logFilePath, int parallelism) {
+		this(logFilePath, parallelism, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * init analyzer
+	 *
+	 * @param logFilePath: analyzed log file
+	 * @param parallelism: parsing threads count
+	 * @param chunkSize:   maximum mapped bytes per chunk (< 2GB)
+	 */
+	public LogAnalyzer(String logFilePath, int parallelism, long chunkSize) {
+		this(Collections.singletonList(Paths.get(logFilePath)), parallelism, chunkSize);
+	}
+
+	/**
+	 * init analyzer of several files with {@link #DEFAULT_CHUNK_SIZE}
+	 *
+	 * @param logFilePaths: analyzed log files, plain or compressed (".gz")
+	 * @param parallelism:  parsing threads count
+	 */
+	public LogAnalyzer(List<Path> logFilePaths, int parallelism) {
+		this(logFilePaths, parallelism, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * init analyzer of several files
+	 *
+	 * @param logFilePaths: analyzed log files, plain or compressed (".gz")
+	 * @param parallelism:  parsing threads count
+	 * @param chunkSize:    maximum mapped bytes per chunk (< 2GB)
+	 */
+	public LogAnalyzer(List<Path> logFilePaths, int parallelism, long chunkSize) {
+		if (logFilePaths.isEmpty()) {
+			throw new IllegalArgumentException("No log file to analyze");
+		}
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be > 0");
+		}
+		if (chunkSize <= 0 || chunkSize >= Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Chunk size must be in ]0, 2GB[");
+		}
+		this.paths = new ArrayList<Path>(logFilePaths);
+		this.parallelism = parallelism;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * analyze all log files: files are analyzed in parallel, then their statistics
+	 * are merged in paths order
+	 *
+	 * @return merged statistics
+	 * @throws FileNotFoundException: a log file does not exist
+	 * @throws IOException:           while reading log files
+	 */
+	public HTTPStats analyze() throws FileNotFoundException, IOException {
+		long startTime = System.nanoTime();
+		long clockTime = System.currentTimeMillis();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<FileTask> tasks = new ArrayList<FileTask>();
+			for (Path path : paths) {
+				FileTask task = new FileTask(path, clockTime);
+				tasks.add(task);
+				pool.execute(task);
+			}
+			HTTPStats stats = new HTTPStats();
+			List<FileAnalysis> analyses = new ArrayList<FileAnalysis>();
+			for (FileTask task : tasks) {
+				HTTPStats fileStats = task.join();
+				analyses.add(task.analysis);
+				stats.merge(fileStats);
+			}
+			long bytes = 0;
+			for (FileAnalysis analysis : analyses) {
+				bytes += analysis.decompressedBytes;
+			}
+			analyzedBytes = bytes;
+			fileAnalyses = Collections.unmodifiableList(analyses);
+			analysisTime = System.nanoTime() - startTime;
+			return stats;
+		} catch (ChunkReadException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * check whether a log file is compressed
+	 *
+	 * @param path
+	 * @return file name ends with {@link #GZIP_SUFFIX}
+	 */
+	public static boolean isCompressed(Path path) {
+		return path.getFileName().toString().endsWith(GZIP_SUFFIX);
+	}
+
+	/**
+	 * Analyzes one log file: mapped chunks of a plain file are analyzed in
+	 * parallel, a compressed file is streamed
+	 */
+	private class FileTask extends RecursiveTask<HTTPStats> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Path path;
+		private final long clockTime;
+		private FileAnalysis analysis;
+
+		/**
+		 * @param path:      analyzed file
+		 * @param clockTime: dates after it are incoherent (epoch milliseconds)
+		 */
+		private FileTask(Path path, long clockTime) {
+			this.path = path;
+			this.clockTime = clockTime;
+		}
+
+		@Override
+		protected HTTPStats compute() {
+			long startTime = System.nanoTime();
+			try {
+				long fileBytes = Files.size(path);
+				HTTPStats stats;
+				long decompressedBytes;
+				if (isCompressed(path)) {
+					ChunkConsumer consumer = new ChunkConsumer(clockTime);
+					decompressedBytes = analyzeStream(consumer);
+					stats = consumer.stats;
+				} else {
+					stats = analyzeChunks();
+					decompressedBytes = fileBytes;
+				}
+				long lineCount = stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS)
+						+ stats.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
+				analysis = new FileAnalysis(path, fileBytes, decompressedBytes, lineCount,
+						System.nanoTime() - startTime);
+				return stats;
+			} catch (NoSuchFileException e) {
+				throw new ChunkReadException(new FileNotFoundException(e.getMessage()));
+			} catch (IOException e) {
+				throw new ChunkReadException(e);
+			}
+		}
+
+		/**
+		 * decompress and parse the whole file
+		 *
+		 * @param consumer: lines consumer
+		 * @return decompressed bytes count
+		 * @throws IOException
+		 */
+		private long analyzeStream(ChunkConsumer consumer) throws IOException {
+			LineSplitter lineSplitter = new LineSplitter();
+			try (InputStream input = new GZIPInputStream(Files.newInputStream(path), GZIP_BUFFER_SIZE)) {
+				long decompressedBytes = lineSplitter.feed(input, consumer);
+				lineSplitter.finish(consumer);
+				return decompressedBytes;
+			}
+		}
+
+		/**
+		 * map and parse file chunks in parallel
+		 *
+		 * @return file statistics
+		 * @throws IOException
+		 */
+		private HTTPStats analyzeChunks() throws IOException {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				List<Long> boundaries = findChunkBoundaries(channel, channel.size());
+				if (boundaries.size() < 2) {// empty file
+					return new HTTPStats();
+				}
+				return new ChunkTask(channel, boundaries, 0, boundaries.size() - 1, clockTime).compute();
+			}
+		}
+	}
+
+	/**
+	 * split file in chunks of about {@link #chunkSize} ending on a line end
+	 *
+	 * @param channel
+	 * @param size:   file size
+	 * @return chunk boundaries: chunk i is [boundaries[i], boundaries[i+1][
+	 * @throws IOException
+	 */
+	private List<Long> findChunkBoundaries(FileChannel channel, long size) throws IOException {
+		List<Long> boundaries = new ArrayList<Long>();
+		if (size == 0) {
+			return boundaries;
+		}
+		ByteBuffer block = ByteBuffer.allocate(BOUNDARY_BLOCK_SIZE);
+		long position = 0;
+		boundaries.add(position);
+		while (position < size) {
+			long end = position + chunkSize;
+			if (end >= size) {
+				end = size;
+			} else {
+				// extend chunk to its last line end
+				end = findLineEnd(channel, block, end - 1, size);
+			}
+			boundaries.add(end);
+			position = end;
+		}
+		return boundaries;
+	}
+
+	/**
+	 * find the position following the first '\n' from position
+	 *
+	 * @param channel
+	 * @param block:    reused read buffer
+	 * @param position: search start
+	 * @param size:     file size
+	 * @return position after line end, size when there is none
+	 * @throws IOException
+	 */
+	private static long findLineEnd(FileChannel channel, ByteBuffer block, long position, long size)
+			throws IOException {
+		while (position < size) {
+			block.clear();
+			int count = channel.read(block, position);
+			if (count <= 0) {
+				break;
+			}
+			for (int i = 0; i < count; i++) {
+				if (block.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += count;
+		}
+		return size;
+	}
+
+	/**
+	 * Chunk reading error wrapper
+	 */
+	private static class ChunkReadException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private ChunkReadException(IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+	/**
+	 * Analyzes a chunk range: splits it in two halves until one chunk is left,
+	 * then merges both halves statistics
+	 */
+	private static class ChunkTask extends RecursiveTask<HTTPStats> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+		private final List<Long> boundaries;
+		private final int fromChunk;
+		private final int toChunk;
+		private final long clockTime;
+
+		/**
+		 * @param channel:    analyzed file
+		 * @param boundaries: chunk boundaries
+		 * @param fromChunk:  first chunk index
+		 * @param toChunk:    last chunk index + 1
+		 * @param clockTime:  dates after it are incoherent (epoch milliseconds)
+		 */
+		private ChunkTask(FileChannel channel, List<Long> boundaries, int fromChunk, int toChunk, long clockTime) {
+			this.channel = channel;
+			this.boundaries = boundaries;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+			this.clockTime = clockTime;
+		}
+
+		@Override
+		protected HTTPStats compute() {
+			if (toChunk - fromChunk == 1) {
+				return analyzeChunk(boundaries.get(fromChunk), boundaries.get(toChunk));
+			}
+			int middle = (fromChunk + toChunk) >>> 1;
+			ChunkTask left = new ChunkTask(channel, boundaries, fromChunk, middle, clockTime);
+			left.fork();
+			HTTPStats stats = new ChunkTask(channel, boundaries, middle, toChunk, clockTime).compute();
+			HTTPStats leftStats = left.join();
+			// keep file order: left part first
+			leftStats.merge(stats);
+			return leftStats;
+		}
+
+		/**
+		 * map and parse one chunk
+		 *
+		 * @param start: chunk first byte position
+		 * @param end:   chunk last byte position + 1
+		 * @return chunk statistics
+		 */
+		private HTTPStats analyzeChunk(long start, long end) {
+			ChunkConsumer consumer = new ChunkConsumer(clockTime);
+			LineSplitter lineSplitter = new LineSplitter();
+			try {
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+				lineSplitter.feed(chunk, consumer);
+				lineSplitter.finish(consumer);
+			} catch (IOException e) {
+				throw new ChunkReadException(e);
+			}
+			return consumer.stats;
+		}
+	}
+
+	/**
+	 * Parses chunk lines into chunk statistics
+	 */
+	private static class ChunkConsumer implements LineHandler {
+
+		private final HTTPStats stats = new HTTPStats();
+		private final HTTPLogFields fields = new HTTPLogFields();
+		private final HTTPLogRow row = new HTTPLogRow();
+		private final long clockTime;
+
+		private ChunkConsumer(long clockTime) {
+			this.clockTime = clockTime;
+		}
+
+		@Override
+		public void onLine(byte[] buffer, int offset, int length) {
+			try {
+				HTTPLogByteParser.parse(buffer, offset, length, fields);
+			} catch (HTTPLogRowFormatException e) {
+				stats.increase(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
+				return;
+			}
+			long reqTime = fields.getReqEpochMillis();
+			if (reqTime == HTTPLogFields.NO_DATE || reqTime > clockTime) {
+				// Incoherente date
+				stats.increase(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
+				return;
+			}
+			row.bind(fields);
+			stats.addLogRow(row);
+		}
+	}
+
+	/**
+	 * get first analyzed log file
+	 *
+	 * @return first path of {@link #paths}
+	 */
+	public Path getPath() {
+		return paths.get(0);
+	}
+
+	/**
+	 * {@link #paths}
+	 *
+	 * @return paths
+	 */
+	public List<Path> getPaths() {
+		return Collections.unmodifiableList(paths);
+	}
+
+	/**
+	 * {@link #fileAnalyses}
+	 *
+	 * @return fileAnalyses
+	 */
+	public List<FileAnalysis> getFileAnalyses() {
+		return fileAnalyses;
+	}
+
+	/**
+	 * {@link #parallelism}
+	 *
+	 * @return parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * {@link #analyzedBytes}
+	 *
+	 * @return analyzedBytes
+	 */
+	public long getAnalyzedBytes() {
+		return analyzedBytes;
+	}
+
+	/**
+	 * {@link #analysisTime}
+	 *
+	 * @return analysisTime (nanoseconds)
+	 */
+	public long getAnalysisTime() {
+		return analysisTime;
+	}
+
+}
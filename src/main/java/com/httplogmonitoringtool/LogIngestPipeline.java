@@ -0,0 +1,500 @@
+package com.httplogmonitoringtool;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.IngestMetrics;
+import com.httplogmonitoringtool.models.LogLineBatch;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.LineHandler;
+import com.httplogmonitoringtool.utils.LogFileWatcher;
+import com.httplogmonitoringtool.utils.RingBufferQueue;
+
+/**
+ * Multi-threaded log ingestion: one reader thread copies new log lines into
+ * batches, parser threads parse the batches and one aggregator thread applies
+ * them in file order to the {@link MonitorLog} statistics and alerts. Stages
+ * exchange reusable {@link LogLineBatch} through bounded lock-free queues.
+ * <p>
+ * The aggregator is the {@link MonitorLog} statistics writer thread: it also
+ * publishes statistics snapshots, which readers use instead of the statistics.
+ *
+ * @author Remi c
+ *
+ */
+public class LogIngestPipeline implements Closeable {
+
+	/**
+	 * Default batches count, bounds lines in flight
+	 */
+	public final static int DEFAULT_BATCH_COUNT = 64;
+
+	/**
+	 * Idle loops before parking a thread
+	 */
+	private final static int IDLE_SPIN_COUNT = 100;
+
+	/**
+	 * Idle park time growth per idle loop (nanoseconds)
+	 */
+	private final static long IDLE_PARK_NANOS = 50_000;
+
+	/**
+	 * Idle park time maximum (nanoseconds)
+	 */
+	private final static long MAX_IDLE_PARK_NANOS = 10_000_000;
+
+	/**
+	 * Pipeline stage counters
+	 */
+	public static class IngestStage {
+
+		private final String name;
+
+		/**
+		 * queue showing the stage backlog: its input queue, the filled batches
+		 * queue for the reader
+		 */
+		private final RingBufferQueue<LogLineBatch> queue;
+		private final AtomicLong lineCount = new AtomicLong();
+		private final AtomicLong batchCount = new AtomicLong();
+
+		// last throughput sample
+		private long sampleTime = System.nanoTime();
+		private long sampleLineCount = 0;
+
+		private IngestStage(String name, RingBufferQueue<LogLineBatch> queue) {
+			this.name = name;
+			this.queue = queue;
+		}
+
+		/**
+		 * count a processed batch
+		 *
+		 * @param lines: batch lines count
+		 */
+		private void count(int lines) {
+			lineCount.addAndGet(lines);
+			batchCount.incrementAndGet();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return processed lines count
+		 */
+		public long getLineCount() {
+			return lineCount.get();
+		}
+
+		/**
+		 * @return processed batches count
+		 */
+		public long getBatchCount() {
+			return batchCount.get();
+		}
+
+		/**
+		 * get stage backlog, read batches not parsed yet for the reader: a full
+		 * queue shows backpressure
+		 *
+		 * @return batches waiting in {@link #queue}
+		 */
+		public int getQueueDepth() {
+			return queue.size();
+		}
+
+		/**
+		 * get processed lines per second since the previous sample
+		 *
+		 * @return throughput (lines/s)
+		 */
+		public synchronized double sampleThroughput() {
+			long time = System.nanoTime();
+			long lines = lineCount.get();
+			double throughput = time == sampleTime ? 0
+					: (lines - sampleLineCount) * 1_000_000_000d / (time - sampleTime);
+			sampleTime = time;
+			sampleLineCount = lines;
+			return throughput;
+		}
+	}
+
+	/**
+	 * Fed log monitor
+	 */
+	private final MonitorLog monitorLog;
+
+	/**
+	 * Log file wake-up layer used by the reader
+	 */
+	private final LogFileWatcher logFileWatcher;
+
+	/**
+	 * Parser threads count
+	 */
+	private final int parserThreads;
+
+	/**
+	 * Empty batches ready for the reader
+	 */
+	private final RingBufferQueue<LogLineBatch> freeBatches;
+
+	/**
+	 * Read batches waiting for a parser
+	 */
+	private final RingBufferQueue<LogLineBatch> parseQueue;
+
+	/**
+	 * Parsed batches waiting for the aggregator, in any order
+	 */
+	private final RingBufferQueue<LogLineBatch> aggregateQueue;
+
+	/**
+	 * Parsed batches waiting for their turn, indexed by sequence % length
+	 */
+	private final LogLineBatch[] reorderedBatches;
+
+	private final IngestStage readStage;
+	private final IngestStage parseStage;
+	private final IngestStage aggregateStage;
+
+	/**
+	 * Pipeline threads
+	 */
+	private final List<Thread> threads = new ArrayList<Thread>();
+
+	private volatile boolean running = false;
+
+	/**
+	 * Reader error, stops ingestion
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * Batch filled by the reader
+	 */
+	private LogLineBatch readBatch;
+
+	/**
+	 * Next read batch sequence
+	 */
+	private long readSequence = 0;
+
+	/**
+	 * Next aggregated batch sequence
+	 */
+	private long aggregateSequence = 0;
+
+	/**
+	 * Reader lines consumer
+	 */
+	private final LineHandler readLineHandler = this::readLine;
+
+	/**
+	 * init pipeline with {@link #DEFAULT_BATCH_COUNT}
+	 *
+	 * @param monitorLog:     fed log monitor
+	 * @param logFileWatcher: log file wake-up layer, started by the reader
+	 * @param parserThreads:  parser threads count
+	 */
+	public LogIngestPipeline(MonitorLog monitorLog, LogFileWatcher logFileWatcher, int parserThreads) {
+		this(monitorLog, logFileWatcher, parserThreads, DEFAULT_BATCH_COUNT);
+	}
+
+	/**
+	 * init pipeline
+	 *
+	 * @param monitorLog:     fed log monitor
+	 * @param logFileWatcher: log file wake-up layer, started by the reader
+	 * @param parserThreads:  parser threads count
+	 * @param batchCount:     batches count
+	 */
+	public LogIngestPipeline(MonitorLog monitorLog, LogFileWatcher logFileWatcher, int parserThreads,
+			int batchCount) {
+		if (parserThreads <= 0) {
+			throw new IllegalArgumentException("Parser threads must be > 0");
+		}
+		this.monitorLog = monitorLog;
+		this.logFileWatcher = logFileWatcher;
+		this.parserThreads = parserThreads;
+		// queues can hold all batches: offers never fail
+		freeBatches = new RingBufferQueue<LogLineBatch>(batchCount);
+		parseQueue = new RingBufferQueue<LogLineBatch>(batchCount);
+		aggregateQueue = new RingBufferQueue<LogLineBatch>(batchCount);
+		reorderedBatches = new LogLineBatch[batchCount];
+		for (int i = 0; i < batchCount; i++) {
+			freeBatches.offer(new LogLineBatch());
+		}
+		readStage = new IngestStage("read", parseQueue);
+		parseStage = new IngestStage("parse", parseQueue);
+		aggregateStage = new IngestStage("aggregate", aggregateQueue);
+	}
+
+	/**
+	 * start pipeline threads
+	 */
+	public void start() {
+		running = true;
+		threads.add(new Thread(this::runReader, "ingest-reader"));
+		for (int i = 0; i < parserThreads; i++) {
+			threads.add(new Thread(this::runParser, "ingest-parser-" + i));
+		}
+		threads.add(new Thread(this::runAggregator, "ingest-aggregator"));
+		for (Thread thread : threads) {
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * reader loop: read new lines, publish them and wait for log file changes
+	 */
+	private void runReader() {
+		logFileWatcher.start();
+		try {
+			while (running) {
+				long readBytes = monitorLog.readLogLines(readLineHandler);
+				publishReadBatch();
+				if (readBytes == 0) {
+					logFileWatcher.awaitChange();
+					logFileWatcher.copyTo(monitorLog.getIngestMetrics());
+				} else {
+					logFileWatcher.reset();
+				}
+			}
+		} catch (InterruptedException e) {
+			// pipeline stopped
+		} catch (IOException e) {
+			if (running) {
+				failure = e;
+			}
+		}
+	}
+
+	/**
+	 * copy line into the read batch, publish it when full
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param length
+	 */
+	private void readLine(byte[] buffer, int offset, int length) {
+		if (readBatch == null) {
+			readBatch = takeFreeBatch();
+		}
+		if (!readBatch.add(buffer, offset, length)) {
+			publishReadBatch();
+			readBatch = takeFreeBatch();
+			readBatch.add(buffer, offset, length);
+		}
+	}
+
+	/**
+	 * wait for an empty batch: slows the reader down when the next stages are
+	 * late
+	 *
+	 * @return empty batch
+	 */
+	private LogLineBatch takeFreeBatch() {
+		LogLineBatch batch;
+		int idleCount = 0;
+		while ((batch = freeBatches.poll()) == null) {
+			if (!running) {// stopping: drop lines
+				return new LogLineBatch();
+			}
+			idle(idleCount++);
+		}
+		return batch;
+	}
+
+	/**
+	 * send the read batch to parsers
+	 */
+	private void publishReadBatch() {
+		if (readBatch == null || readBatch.isEmpty()) {
+			return;
+		}
+		readBatch.setSequence(readSequence++);
+		readStage.count(readBatch.getLineCount());
+		offer(parseQueue, readBatch);
+		readBatch = null;
+	}
+
+	/**
+	 * parser loop
+	 */
+	private void runParser() {
+		int idleCount = 0;
+		while (running) {
+			LogLineBatch batch = parseQueue.poll();
+			if (batch == null) {
+				idle(idleCount++);
+				continue;
+			}
+			idleCount = 0;
+			parse(batch);
+			parseStage.count(batch.getLineCount());
+			offer(aggregateQueue, batch);
+		}
+	}
+
+	/**
+	 * parse batch lines into their fields, timing some of them
+	 *
+	 * @param batch
+	 */
+	private void parse(LogLineBatch batch) {
+		IngestMetrics ingestMetrics = monitorLog.getIngestMetrics();
+		byte[] data = batch.getData();
+		for (int i = 0; i < batch.getLineCount(); i++) {
+			boolean timed = IngestMetrics.isParseSampled(i);
+			long parseStart = timed ? System.nanoTime() : 0;
+			try {
+				HTTPLogByteParser.parse(data, batch.getLineOffset(i), batch.getLineLength(i), batch.getFields(i));
+				batch.setParsed(i, true);
+			} catch (HTTPLogRowFormatException e) {
+				batch.setParsed(i, false);
+			}
+			if (timed) {
+				ingestMetrics.recordParse(System.nanoTime() - parseStart);
+			}
+		}
+	}
+
+	/**
+	 * aggregator loop: apply parsed batches in read order, publish statistics
+	 */
+	private void runAggregator() {
+		int idleCount = 0;
+		while (running) {
+			monitorLog.publishStats();
+			LogLineBatch batch = aggregateQueue.poll();
+			if (batch == null) {
+				idle(idleCount++);
+				continue;
+			}
+			idleCount = 0;
+			reorderedBatches[(int) (batch.getSequence() % reorderedBatches.length)] = batch;
+			// apply all batches ready in sequence
+			int index = (int) (aggregateSequence % reorderedBatches.length);
+			while ((batch = reorderedBatches[index]) != null && batch.getSequence() == aggregateSequence) {
+				reorderedBatches[index] = null;
+				aggregate(batch);
+				aggregateSequence++;
+				index = (int) (aggregateSequence % reorderedBatches.length);
+			}
+		}
+	}
+
+	/**
+	 * apply batch to monitor statistics and alerts, then release it
+	 *
+	 * @param batch
+	 */
+	private void aggregate(LogLineBatch batch) {
+		boolean consumed = false;
+		for (int i = 0; i < batch.getLineCount(); i++) {
+			if (!batch.isParsed(i)) {
+				monitorLog.consumeBadLogLine();
+			} else if (monitorLog.consumeLogFields(batch.getFields(i))) {
+				consumed = true;
+			}
+		}
+		if (consumed) {
+			monitorLog.checkAlerts();
+		}
+		aggregateStage.count(batch.getLineCount());
+		batch.clear();
+		offer(freeBatches, batch);
+	}
+
+	/**
+	 * offer batch, waiting while queue is full
+	 *
+	 * @param queue
+	 * @param batch
+	 */
+	private void offer(RingBufferQueue<LogLineBatch> queue, LogLineBatch batch) {
+		int idleCount = 0;
+		while (!queue.offer(batch) && running) {
+			idle(idleCount++);
+		}
+	}
+
+	/**
+	 * back off while there is nothing to do: spin first, then park longer and
+	 * longer
+	 *
+	 * @param idleCount: consecutive idle loops
+	 */
+	private static void idle(int idleCount) {
+		if (idleCount < IDLE_SPIN_COUNT) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(Math.min(MAX_IDLE_PARK_NANOS, IDLE_PARK_NANOS * (idleCount - IDLE_SPIN_COUNT + 1)));
+		}
+	}
+
+	/**
+	 * throw reader error
+	 *
+	 * @throws IOException:           while reading log file
+	 * @throws FileNotFoundException: while reading log file
+	 */
+	public void checkFailure() throws FileNotFoundException, IOException {
+		IOException e = failure;
+		if (e != null) {
+			throw e;
+		}
+	}
+
+	/**
+	 * @return read, parse and aggregate stages
+	 */
+	public List<IngestStage> getStages() {
+		List<IngestStage> stages = new ArrayList<IngestStage>();
+		stages.add(readStage);
+		stages.add(parseStage);
+		stages.add(aggregateStage);
+		return stages;
+	}
+
+	/**
+	 * {@link #parserThreads}
+	 *
+	 * @return parserThreads
+	 */
+	public int getParserThreads() {
+		return parserThreads;
+	}
+
+	/**
+	 * stop pipeline threads, lines in flight are dropped
+	 */
+	@Override
+	public void close() {
+		running = false;
+		for (Thread thread : threads) {
+			thread.interrupt();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		threads.clear();
+	}
+
+}
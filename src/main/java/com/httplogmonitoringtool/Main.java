@@ -1,22 +1,48 @@
 package com.httplogmonitoringtool;
 
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.core.util.Integers;
 import org.fusesource.jansi.Ansi;
-import org.fusesource.jansi.Ansi.Erase;
 import org.fusesource.jansi.AnsiConsole;
 
+import com.httplogmonitoringtool.LogAnalyzer.FileAnalysis;
+import com.httplogmonitoringtool.LogIngestPipeline.IngestStage;
+import com.httplogmonitoringtool.MultiLogMonitor.LogSource;
+import com.httplogmonitoringtool.models.AlertRule;
+import com.httplogmonitoringtool.models.AlertRuleStatus;
 import com.httplogmonitoringtool.models.HTTPStats;
 import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsSnapshot;
 import com.httplogmonitoringtool.models.HTTPStatsStatus;
 import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.models.IngestStats;
+import com.httplogmonitoringtool.models.QuantileSketch;
+import com.httplogmonitoringtool.models.TrafficRates;
+import com.httplogmonitoringtool.models.TrafficRollup;
+import com.httplogmonitoringtool.utils.ConsoleRenderer;
+import com.httplogmonitoringtool.utils.LogFileMatcher;
+import com.httplogmonitoringtool.utils.LogFileWatcher;
+import com.httplogmonitoringtool.utils.RollupStore;
+import com.httplogmonitoringtool.utils.RollupStore.Tier;
+import com.httplogmonitoringtool.utils.SyntheticLogGenerator;
 
 /**
  * 
@@ -44,10 +70,132 @@ public class Main {
 	private static MonitorLog monitorLogs = new MonitorLog();
 
 	/**
-	 * last statistic refreshing time since the last
-	 * {@link #STATS_REFRESHING_FREQUENCY}
+	 * failure and traffic history poll interval of the multi-threaded ingestion
+	 * (milliseconds)
 	 */
-	private static Date lastStatsRefreshingTime = new Date();
+	private final static int STATS_SNAPSHOT_POLL_INTERVAL = 200;
+
+	/**
+	 * console statistics frame period (milliseconds)
+	 */
+	private final static int CONSOLE_RENDERING_PERIOD = 500;
+
+	/**
+	 * console statistics renderer, running while monitoring
+	 */
+	private static ConsoleRenderer consoleRenderer;
+
+	/**
+	 * statistics output format: JSON records instead of console log
+	 */
+	private static boolean jsonOutput = false;
+
+	/**
+	 * JSON records file path: standard output when not set
+	 */
+	private static String outputFilePath;
+
+	/**
+	 * JSON statistics records writer, running while monitoring in
+	 * {@link #jsonOutput}
+	 */
+	private static JsonStatsWriter jsonStatsWriter;
+
+	/**
+	 * log file poll interval maximum value when no change is notified
+	 * (milliseconds)
+	 */
+	private static long maxPollInterval = LogFileWatcher.DEFAULT_MAX_POLL_INTERVAL;
+
+	/**
+	 * parser threads count: 0 reads, parses and aggregates logs on the main thread
+	 */
+	private static int parserThreads = 0;
+
+	/**
+	 * multi-threaded ingestion: null until monitoring starts or when
+	 * {@link #parserThreads} is 0
+	 */
+	private static LogIngestPipeline logIngestPipeline;
+
+	/**
+	 * analyze the whole log file once instead of monitoring it
+	 */
+	private static boolean analyzeMode = false;
+
+	/**
+	 * checkpoint file path of the single-threaded monitoring: null when
+	 * checkpoints are disabled
+	 */
+	private static String checkpointFilePath;
+
+	/**
+	 * alert rules file path: null when only the high traffic alert is raised
+	 */
+	private static String alertRulesFilePath;
+
+	/**
+	 * traffic history directory: null when history is disabled
+	 */
+	private static String storeDirectoryPath;
+
+	/**
+	 * traffic history writer: null until monitoring starts or when history is
+	 * disabled
+	 */
+	private static RollupStore rollupStore;
+
+	/**
+	 * shown traffic history duration instead of monitoring: 0 to monitor
+	 * (minutes)
+	 */
+	private static int historyMinutes = 0;
+
+	/**
+	 * traffic history rows count
+	 */
+	private final static int HISTORY_ROWS = 30;
+
+	/**
+	 * Prometheus metrics endpoint port: -1 when disabled
+	 */
+	private static int metricsPort = -1;
+
+	/**
+	 * synthetic traffic rate written to the log file instead of monitoring: 0 to
+	 * monitor (lines per second)
+	 */
+	private static int generateRate = 0;
+
+	/**
+	 * synthetic traffic bursts: rate multiplied by {@link #GENERATE_BURST_FACTOR}
+	 * during the first {@link #GENERATE_BURST_DURATION} seconds of every
+	 * {@link #GENERATE_BURST_PERIOD} seconds
+	 */
+	private final static int GENERATE_BURST_FACTOR = 5;
+	private final static int GENERATE_BURST_PERIOD = 600;
+	private final static int GENERATE_BURST_DURATION = 180;
+
+	/**
+	 * monitored log file paths and glob patterns given with -log
+	 */
+	private static List<String> logPatterns = new ArrayList<String>();
+
+	/**
+	 * several log files monitoring: null until monitoring starts or when a single
+	 * log file is monitored
+	 */
+	private static MultiLogMonitor multiLogMonitor;
+
+	/**
+	 * log statistics of each monitored log file
+	 */
+	private static boolean perFileMode = false;
+
+	/**
+	 * monitored log files displayed maximum count in per file statistics
+	 */
+	private final static int PER_FILE_DISPLAYED = 10;
 
 	/**
 	 * 
@@ -68,6 +216,11 @@ public class Main {
 						return;
 					} else {
 						monitorLogs.setLogFilePath(args[i + 1]);
+						// following values are more paths or glob patterns
+						logPatterns.clear();
+						for (int j = i + 1; j < args.length && !args[j].startsWith("-"); j++) {
+							logPatterns.add(args[j]);
+						}
 					}
 				} else if (arg.equals("-alert_threshold") || arg.equals("-at")) {// Alert threshold option
 					if (args.length <= i + 1) {// bad parameter
@@ -82,15 +235,161 @@ public class Main {
 							showBadParameterLog();
 						}
 					}
+				} else if (arg.equals("-poll_interval") || arg.equals("-pi")) {// poll interval option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						try {
+							maxPollInterval = Long.parseLong(args[i + 1]);
+							if (maxPollInterval <= 0) {// bad parameter
+								showBadParameterLog();
+							}
+						} catch (NumberFormatException e) {// bad parameter
+							showBadParameterLog();
+						}
+					}
+				} else if (arg.equals("-analyze") || arg.equals("-a")) {// analyze option
+					analyzeMode = true;
+				} else if (arg.equals("-checkpoint") || arg.equals("-cp")) {// checkpoint file option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						checkpointFilePath = args[i + 1];
+					}
+				} else if (arg.equals("-alert_rules") || arg.equals("-ar")) {// alert rules file option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						alertRulesFilePath = args[i + 1];
+					}
+				} else if (arg.equals("-store") || arg.equals("-s")) {// traffic history option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						storeDirectoryPath = args[i + 1];
+					}
+				} else if (arg.equals("-history") || arg.equals("-hi")) {// show traffic history option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						try {
+							historyMinutes = Integers.parseInt(args[i + 1]);
+							if (historyMinutes <= 0) {// bad parameter
+								showBadParameterLog();
+							}
+						} catch (NumberFormatException e) {// bad parameter
+							showBadParameterLog();
+						}
+					}
+				} else if (arg.equals("-metrics_port") || arg.equals("-mp")) {// metrics endpoint option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						try {
+							metricsPort = Integers.parseInt(args[i + 1]);
+							if (metricsPort < 0 || metricsPort > 65535) {// bad parameter
+								showBadParameterLog();
+							}
+						} catch (NumberFormatException e) {// bad parameter
+							showBadParameterLog();
+						}
+					}
+				} else if (arg.equals("-generate") || arg.equals("-g")) {// synthetic traffic option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						try {
+							generateRate = Integers.parseInt(args[i + 1]);
+							if (generateRate <= 0) {// bad parameter
+								showBadParameterLog();
+							}
+						} catch (NumberFormatException e) {// bad parameter
+							showBadParameterLog();
+						}
+					}
+				} else if (arg.startsWith("--output=") || arg.equals("-output") || arg.equals("-o")) {// output format option
+					String format = arg.startsWith("--output=") ? arg.substring("--output=".length())
+							: args.length > i + 1 ? args[i + 1] : "";
+					if (format.equals("json")) {
+						jsonOutput = true;
+					} else if (format.equals("console")) {
+						jsonOutput = false;
+					} else {// bad parameter
+						showBadParameterLog();
+					}
+				} else if (arg.equals("-output_file") || arg.equals("-of")) {// JSON records file option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						outputFilePath = args[i + 1];
+					}
+				} else if (arg.equals("-per_file") || arg.equals("-pf")) {// per file statistics option
+					perFileMode = true;
+				} else if (arg.equals("-parser_threads") || arg.equals("-pt")) {// parser threads option
+					if (args.length <= i + 1) {// bad parameter
+						showBadParameterLog();
+					} else {
+						try {
+							parserThreads = Integers.parseInt(args[i + 1]);
+							if (parserThreads < 0) {// bad parameter
+								showBadParameterLog();
+							}
+						} catch (NumberFormatException e) {// bad parameter
+							showBadParameterLog();
+						}
+					}
 				}
 			}
 
-			// test if file does not exists
-			if (!Files.exists(Paths.get(monitorLogs.getLogFilePath()))) {
+			// show traffic history
+			if (historyMinutes > 0) {
+				if (storeDirectoryPath == null) {// history needs a store
+					showBadParameterLog();
+				}
+				try {
+					showHistory();
+				} catch (IOException e) {
+					appendLog("An error was raised when reading traffic history ", e.getMessage(), ".");
+				}
+				return;
+			}
+
+			// write synthetic traffic
+			if (generateRate > 0) {
+				try {
+					startGeneration();
+				} catch (IOException e) {
+					appendLog("An error was raised when writing log file ", e.getMessage(), ".");
+				}
+				return;
+			}
+
+			// test if file does not exists: patterns may match files created later
+			if (!MultiLogMonitor.isMultiLog(logPatterns) && !Files.exists(Paths.get(monitorLogs.getLogFilePath()))) {
 				appendLog("File ", monitorLogs.getLogFilePath(), " does not exists.");
 				System.exit(0);
 			}
 
+			// analyze whole log file
+			if (analyzeMode) {
+				try {
+					startAnalysis();
+				} catch (IOException e) {
+					appendLog("An error was raised when reading log file ", e.getMessage(), ".");
+				}
+				return;
+			}
+
+			// load alert rules
+			if (alertRulesFilePath != null) {
+				try {
+					monitorLogs.setAlertEngine(AlertEngine.load(Paths.get(alertRulesFilePath)));
+				} catch (IOException e) {
+					appendLog("An error was raised when reading alert rules ", e.getMessage(), ".");
+					return;
+				}
+			}
+
 			// starts monitoring logs
 			try {
 				startMonitoring();
@@ -100,7 +399,9 @@ public class Main {
 				appendLog("An error was raised when reading log file ", e.getMessage(), ".");
 			}
 		} finally {
-			AnsiConsole.out.println(Ansi.ansi().reset());
+			if (!jsonOutput) {
+				AnsiConsole.out.println(Ansi.ansi().reset());
+			}
 			AnsiConsole.systemUninstall();
 		}
 	}
@@ -116,8 +417,28 @@ public class Main {
 		appendLogFilled();
 		AnsiConsole.out.println("  USAGE: HTTPLogMonitoringTool [option...] [--help] ");
 		AnsiConsole.out.println("   -?, -h, --help \t\tShows this help message.");
-		AnsiConsole.out.println("   -log, -l \t\t\tSet HTTP log file fullpath (default: \"/var/log/access.log\").");
+		AnsiConsole.out.println(
+				"   -log, -l \t\t\tSet HTTP log file fullpaths or glob patterns (default: \"/var/log/access.log\").");
 		AnsiConsole.out.println("   -alert_threshold, -at \tSet alert threshold (>0) (default: 2 minutes).");
+		AnsiConsole.out.println(
+				"   -alert_rules, -ar \t\tSet alert rules file: \"name metric [argument] window raise [recover]\" lines.");
+		AnsiConsole.out.println(
+				"   -poll_interval, -pi \t\tSet log file maximum poll interval (>0) (default: 1000 milliseconds).");
+		AnsiConsole.out.println(
+				"   -parser_threads, -pt \tSet log parser threads, 0 for single-threaded ingestion (>=0) (default: 0).");
+		AnsiConsole.out.println(
+				"   -analyze, -a \t\tAnalyze whole log files (.gz too) once with -parser_threads threads (default: all cores).");
+		AnsiConsole.out.println("   -per_file, -pf \t\tShow statistics of each monitored log file.");
+		AnsiConsole.out.println(
+				"   -checkpoint, -cp \t\tSet checkpoint file to resume single-threaded monitoring after a restart.");
+		AnsiConsole.out.println("   -store, -s \t\t\tSet directory recording per second traffic history.");
+		AnsiConsole.out.println("   -history, -hi \t\tShow last minutes (>0) of -store traffic history.");
+		AnsiConsole.out.println("   -metrics_port, -mp \t\tServe Prometheus metrics at http://host:port/metrics.");
+		AnsiConsole.out.println(
+				"   -output, -o, --output= \tSet statistics output: console or json records (default: console).");
+		AnsiConsole.out.println("   -output_file, -of \t\tAppend json records to a file (default: standard output).");
+		AnsiConsole.out.println(
+				"   -generate, -g \t\tWrite synthetic traffic (lines/s >0, x5 bursts) to -log file, \"-\" for stdout.");
 		appendLogFilled();
 		appendLogFilled();
 		System.exit(0);
@@ -139,37 +460,384 @@ public class Main {
 	 */
 	private static void startMonitoring() throws FileNotFoundException, IOException {
 
-		// initialize console statistics console log
-		refreshStatsLog();
+		// short statistics are published every #STATS_REFRESHING_FREQUENCY
+		monitorLogs.setStatsInterval(STATS_REFRESHING_FREQUENCY);
 
-		// infinite loop continually updating statistics and refreshing console log
-		// every #STATS_REFRESHING_FREQUENCY
-		while (true) {
+		// record traffic history
+		if (storeDirectoryPath != null) {
+			rollupStore = new RollupStore(storeDirectoryPath);
+			monitorLogs.setRollupStore(rollupStore);
+		}
+		MetricsServer metricsServer = null;
+		try {
+			// serve published statistics
+			if (metricsPort >= 0) {
+				metricsServer = new MetricsServer(monitorLogs, metricsPort);
+				metricsServer.start();
+			}
+			// statistics are rendered or written on their own thread, independently of
+			// the ingestion
+			if (jsonOutput) {
+				OutputStream out = outputFilePath == null ? new FileOutputStream(FileDescriptor.out)
+						: new FileOutputStream(outputFilePath, true);
+				jsonStatsWriter = new JsonStatsWriter(monitorLogs, out, STATS_SNAPSHOT_POLL_INTERVAL);
+			} else {
+				AnsiConsole.out.print(Ansi.ansi().fgBrightGreen());
+				consoleRenderer = new ConsoleRenderer(AnsiConsole.out, renderer -> logStatsFrame(),
+						CONSOLE_RENDERING_PERIOD);
+			}
+			if (MultiLogMonitor.isMultiLog(logPatterns)) {
+				startMultiLogMonitoring();
+			} else if (parserThreads > 0) {
+				startPipelineMonitoring();
+			} else {
+				startSingleThreadMonitoring();
+			}
+		} finally {
+			// last frame stays displayed
+			if (consoleRenderer != null) {
+				consoleRenderer.close();
+			}
+			if (jsonStatsWriter != null) {
+				jsonStatsWriter.close();
+			}
+			if (metricsServer != null) {
+				metricsServer.close();
+			}
+			if (rollupStore != null) {
+				rollupStore.close();
+			}
+		}
+	}
 
-			// read logs and update statistics
-			boolean fileLogHasChanged = monitorLogs.updateStats();
+	/**
+	 * starts monitoring HTTP logs on the main thread
+	 * 
+	 * @throws IOException:           while reading log file
+	 * @throws FileNotFoundException: while reading log file
+	 */
+	private static void startSingleThreadMonitoring() throws FileNotFoundException, IOException {
 
-			// continue while log file has not changed
-			if (!fileLogHasChanged) {
-				continue;
+		// resume from last checkpoint
+		if (checkpointFilePath != null) {
+			monitorLogs.setCheckpointFilePath(checkpointFilePath);
+			try {
+				monitorLogs.loadCheckpoint();
+			} catch (FileNotFoundException e) {
+				throw e;
+			} catch (IOException e) {
+				appendLog("Checkpoint ignored: ", e.getMessage(), ".");
 			}
+		}
+
+		try (LogFileWatcher watcher = new LogFileWatcher(monitorLogs.getLogFilePath(), maxPollInterval)) {
+			watcher.start();
+			startStatsOutput();
+
+			// infinite loop updating statistics when log file changes, the console log
+			// is rendered from published statistics
+			while (true) {
 
-			// refresh statistics every #STATS_REFRESHING_FREQUENCY
-			Date currentTime = new Date();
-			if (currentTime.getTime() - lastStatsRefreshingTime.getTime() >= STATS_REFRESHING_FREQUENCY) {
-				lastStatsRefreshingTime = currentTime;
-				// refresh console statistics console log
-				refreshStatsLog();
+				// read logs and update statistics
+				boolean fileLogHasChanged = monitorLogs.updateStats();
+				checkRollupStore();
+				checkStatsOutput();
+
+				// wait while log file has not changed
+				if (!fileLogHasChanged) {
+					watcher.awaitChange();
+					watcher.copyTo(monitorLogs.getIngestMetrics());
+					continue;
+				}
+				watcher.reset();
 			}
+		} catch (InterruptedException e) {
+			// monitoring stopped
+			Thread.currentThread().interrupt();
+		} finally {
+			monitorLogs.close();
 		}
 	}
 
 	/**
-	 * refresh console statistics console log
+	 * starts monitoring HTTP logs with {@link #parserThreads} parser threads, the
+	 * main thread only refreshes console statistics
+	 * 
+	 * @throws IOException:           while reading log file
+	 * @throws FileNotFoundException: while reading log file
 	 */
-	private static void refreshStatsLog() {
+	private static void startPipelineMonitoring() throws FileNotFoundException, IOException {
 
-		clearConsole();
+		try (LogFileWatcher watcher = new LogFileWatcher(monitorLogs.getLogFilePath(), maxPollInterval);
+				LogIngestPipeline pipeline = new LogIngestPipeline(monitorLogs, watcher, parserThreads)) {
+			logIngestPipeline = pipeline;
+
+			startStatsOutput();
+			logIngestPipeline.start();
+
+			// infinite loop checking ingestion failures, traffic history and statistics
+			// output
+			while (true) {
+				TimeUnit.MILLISECONDS.sleep(STATS_SNAPSHOT_POLL_INTERVAL);
+				logIngestPipeline.checkFailure();
+				checkRollupStore();
+				checkStatsOutput();
+			}
+		} catch (InterruptedException e) {
+			// monitoring stopped
+			Thread.currentThread().interrupt();
+		} finally {
+			monitorLogs.close();
+		}
+	}
+
+	/**
+	 * starts monitoring all log files matching {@link #logPatterns}, the main
+	 * thread only refreshes console statistics
+	 * 
+	 * @throws IOException: while writing traffic history
+	 */
+	private static void startMultiLogMonitoring() throws IOException {
+
+		try (MultiLogMonitor monitor = new MultiLogMonitor(monitorLogs, logPatterns, maxPollInterval)) {
+			multiLogMonitor = monitor;
+
+			startStatsOutput();
+			multiLogMonitor.start();
+
+			// infinite loop checking traffic history and statistics output
+			while (true) {
+				TimeUnit.MILLISECONDS.sleep(STATS_SNAPSHOT_POLL_INTERVAL);
+				checkRollupStore();
+				checkStatsOutput();
+			}
+		} catch (InterruptedException e) {
+			// monitoring stopped
+			Thread.currentThread().interrupt();
+		} finally {
+			monitorLogs.close();
+		}
+	}
+
+	/**
+	 * write synthetic traffic at {@link #generateRate} to the log file, or to the
+	 * standard output when its path is "-", until stopped
+	 * 
+	 * @throws IOException: while writing log file
+	 */
+	private static void startGeneration() throws IOException {
+		SyntheticLogGenerator generator = new SyntheticLogGenerator(System.currentTimeMillis());
+		generator.setLinesPerSecond(generateRate);
+		generator.setBursts(GENERATE_BURST_FACTOR, GENERATE_BURST_PERIOD, GENERATE_BURST_DURATION);
+		generator.setBadLineRatio(0.01);
+		generator.setRealTime(true);
+		try {
+			if ("-".equals(monitorLogs.getLogFilePath())) {// raw output, not filtered by the console
+				generator.write(new FileOutputStream(FileDescriptor.out), 0);
+			} else {
+				appendLog("Writing ", generateRate + "", " lines/s to ", monitorLogs.getLogFilePath(), "...");
+				generator.write(Paths.get(monitorLogs.getLogFilePath()), 0);
+			}
+		} catch (InterruptedException e) {
+			// generation stopped
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * throw traffic history writing error
+	 * 
+	 * @throws IOException: while writing traffic history
+	 */
+	private static void checkRollupStore() throws IOException {
+		if (rollupStore != null) {
+			rollupStore.checkFailure();
+		}
+	}
+
+	/**
+	 * log traffic history of the last {@link #historyMinutes} read from
+	 * {@link #storeDirectoryPath}
+	 * 
+	 * @throws IOException: while reading traffic history
+	 */
+	private static void showHistory() throws IOException {
+		long toSecond = System.currentTimeMillis() / 1000 + 1;
+		int bucketSeconds = (int) Math.max(1, (historyMinutes * 60l + HISTORY_ROWS - 1) / HISTORY_ROWS);
+		// buckets made of whole minutes or hours: read from the coarse tiers
+		for (Tier tier : Tier.values()) {
+			if (bucketSeconds >= tier.getSeconds()) {
+				bucketSeconds = (bucketSeconds + tier.getSeconds() - 1) / tier.getSeconds() * tier.getSeconds();
+			}
+		}
+		long fromSecond = Math.floorDiv(toSecond - historyMinutes * 60l, (long) bucketSeconds) * bucketSeconds;
+		List<TrafficRollup> rollups = new RollupStore(storeDirectoryPath).query(fromSecond, toSecond, bucketSeconds);
+
+		// log title
+		appendLogFilled();
+		appendLogTitle(" HTTP TRAFFIC HISTORY ");
+		appendLogFilled();
+		appendLog(" ");
+		appendLog("Last ", historyMinutes + "", " minutes by ", bucketSeconds + "", "s:");
+		appendLog(" ");
+		SimpleDateFormat timeFormat = new SimpleDateFormat("dd/MM HH:mm:ss");
+		for (TrafficRollup rollup : rollups) {
+			Map<String, Long> topSections = rollup.getTopSections(1);
+			appendLog(timeFormat.format(new Date(rollup.getStartSecond() * 1000)), "  ", rollup.getRequests() + "",
+					" req, ", rollup.getBytes() + "", " bytes, 2xx/3xx/4xx/5xx: ", rollup.getStatusClassCount(2) + "",
+					"/", rollup.getStatusClassCount(3) + "", "/", rollup.getStatusClassCount(4) + "", "/",
+					rollup.getStatusClassCount(5) + "",
+					topSections.isEmpty() ? "" : ", top: " + topSections.keySet().iterator().next());
+		}
+		if (rollups.isEmpty()) {
+			appendLog("No traffic recorded.");
+		}
+		appendLog(" ");
+		appendLogFilled();
+	}
+
+	/**
+	 * analyze the whole HTTP log file and log its statistics
+	 * 
+	 * @throws IOException:           while reading log file
+	 * @throws FileNotFoundException: while reading log file
+	 */
+	private static void startAnalysis() throws FileNotFoundException, IOException {
+		int parallelism = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+		List<Path> paths = new ArrayList<Path>();
+		if (MultiLogMonitor.isMultiLog(logPatterns)) {
+			paths.addAll(new LogFileMatcher(logPatterns).match());
+			if (paths.isEmpty()) {
+				appendLog("No file matches ", String.join(" ", logPatterns), ".");
+				return;
+			}
+		} else {
+			paths.add(Paths.get(monitorLogs.getLogFilePath()));
+		}
+		LogAnalyzer logAnalyzer = new LogAnalyzer(paths, parallelism);
+		HTTPStats stats = logAnalyzer.analyze();
+
+		// log title
+		appendLogFilled();
+		appendLogTitle(" HTTP TRAFFIC LOG ANALYSIS ");
+		appendLogFilled();
+		appendLog(" ");
+		if (paths.size() == 1) {
+			appendLog("File: ", paths.get(0).toString());
+		} else {
+			// log each file throughput
+			appendLog("Files: ", paths.size() + "");
+			for (FileAnalysis analysis : logAnalyzer.getFileAnalyses()) {
+				appendLog(" ", analysis.getPath().getFileName().toString(), ": ", analysis.getLineCount() + "",
+						" lines, ", analysis.getDecompressedBytes() + "", " bytes (",
+						String.format(Locale.US, "%.1f", analysis.getBytesPerSecond() / 1e6), " MB/s, ",
+						String.format(Locale.US, "%.0f", analysis.getLinesPerSecond()), " lines/s)");
+			}
+		}
+		double seconds = logAnalyzer.getAnalysisTime() / 1_000_000_000d;
+		long lineCount = stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS)
+				+ stats.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
+		appendLog("Analyzed ", logAnalyzer.getAnalyzedBytes() + "", " bytes, ", lineCount + "", " lines in ",
+				String.format(Locale.US, "%.2f", seconds), "s with ", parallelism + "", " threads (",
+				String.format(Locale.US, "%.1f", seconds == 0 ? 0 : logAnalyzer.getAnalyzedBytes() / seconds / 1e6),
+				" MB/s, ", String.format(Locale.US, "%.0f", seconds == 0 ? 0 : lineCount / seconds), " lines/s)");
+		appendLog(" ");
+
+		// log totals
+		appendLogTitle(" TOTALS ");
+		appendLog(" ");
+		StringBuilder statLogRow = beginLogRow(' ');
+		appendValueStatsPart(statLogRow, HTTPStatsType.TOTAL_REQUESTS.toString(),
+				stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS), 2);
+		appendValueStatsPart(statLogRow, HTTPStatsType.TOTAL_BAD_FORMAT_LOG.toString(),
+				stats.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG), 2);
+		endLogRow(statLogRow, ' ');
+		statLogRow = beginLogRow(' ');
+		int partStart = statLogRow.length();
+		statLogRow.append(HTTPStatsType.TOTAL_CONTENT).append(": ")
+				.append(stats.getStatsValue(HTTPStatsType.TOTAL_CONTENT)).append(" bytes");
+		fillValueStatsPart(statLogRow, partStart, 2);
+		endLogRow(statLogRow, ' ');
+		statLogRow = beginLogRow(' ').append("Response size p50/p95/p99: ");
+		endLogRow(appendSizes(statLogRow, stats.getContentSizes()).append(" bytes"), ' ');
+		appendLog(" ");
+
+		// log all status codes
+		appendLogTitle(" STATUS CODES ");
+		appendLog(" ");
+		int count = 0;
+		TreeMap<Integer, Long> statusCounts = stats.getStatusCounts();
+		for (Entry<Integer, Long> entryStatus : statusCounts.entrySet()) {
+			if (count % 4 == 0) {
+				statLogRow = beginLogRow(' ');
+			}
+			count++;
+			appendValueStatsPart(statLogRow, entryStatus.getKey().toString(), entryStatus.getValue(), 4);
+			if (count % 4 == 0 || count == statusCounts.size()) {
+				endLogRow(statLogRow, ' ');
+			}
+		}
+		appendLog(" ");
+
+		// log top sections, user and remote host
+		appendLogTitle(" TOP ");
+		appendLog(" ");
+		appendLog("Most present user: ", stats.getTopUser());
+		appendLog("Most present remote host: ", stats.getTopRemoteHost());
+		HashMap<String, Integer> hitSections = stats.getMostHitSection();
+		appendLog("Most hit section (", "" + hitSections.size(), "/", "" + hitSections.size(), "):");
+		count = 0;
+		for (Entry<String, Integer> entry : hitSections.entrySet()) {
+			if (count % 3 == 0) {
+				statLogRow = beginLogRow(' ');
+			}
+			count++;
+			partStart = statLogRow.length();
+			statLogRow.append('"').append(entry.getKey()).append("\": ").append(entry.getValue().intValue());
+			fillValueStatsPart(statLogRow, partStart, 3);
+			if (count % 3 == 0 || count == hitSections.size()) {
+				endLogRow(statLogRow, ' ');
+			}
+		}
+		for (String section : hitSections.keySet()) {
+			QuantileSketch sizes = stats.getSectionContentSizes(section);
+			if (sizes != null) {
+				statLogRow = beginLogRow(' ').append('"').append(section).append("\" size p50/p95/p99: ");
+				endLogRow(appendSizes(statLogRow, sizes).append(" bytes"), ' ');
+			}
+		}
+		appendLog(" ");
+		appendLogFilled();
+	}
+
+	/**
+	 * starts statistics console rendering or JSON records writing
+	 */
+	private static void startStatsOutput() {
+		if (jsonStatsWriter != null) {
+			jsonStatsWriter.start();
+		} else {
+			consoleRenderer.start();
+		}
+	}
+
+	/**
+	 * throw JSON records write error
+	 * 
+	 * @throws IOException: while writing JSON records
+	 */
+	private static void checkStatsOutput() throws IOException {
+		if (jsonStatsWriter != null) {
+			jsonStatsWriter.checkFailure();
+		}
+	}
+
+	/**
+	 * write console statistics frame from the last published statistics
+	 * snapshot, called on the {@link #consoleRenderer} thread
+	 */
+	private static void logStatsFrame() {
+		HTTPStatsSnapshot snapshot = monitorLogs.getStatsSnapshot();
 
 		// log title
 		appendLogFilled();
@@ -177,39 +845,62 @@ public class Main {
 		appendLogFilled();
 
 		// log all raised alerts
-		logAlerts();
+		logAlerts(snapshot);
 
 		// log stats
-		logStats();
+		logStats(snapshot);
 
 		// end border
 		appendLogFilled();
-
-		// clear short statistics
-		monitorLogs.getLogStats().clearSections();
-		monitorLogs.getLogStats().clearUsers();
-		monitorLogs.getLogStats().clearRemoteHosts();
-		monitorLogs.getLogStats().clearTotalContent();
 	}
 
 	/**
 	 * log all raised alerts
+	 * 
+	 * @param snapshot: logged statistics
 	 */
-	private static void logAlerts() {
-		if (!monitorLogs.getRaisedAlerts().isEmpty()) {
+	private static void logAlerts(HTTPStatsSnapshot snapshot) {
+		if (!snapshot.getRaisedAlerts().isEmpty()) {
 			appendLogTitle(" !!! ALERTS !!! ");
 			appendLog(" ");
-			for (HTTPStatsAlert alert : monitorLogs.getRaisedAlerts()) {
+			for (HTTPStatsAlert alert : snapshot.getRaisedAlerts()) {
 				appendLog(alert.toString());
 			}
 			appendLog(" ");
 		}
+		List<AlertRuleStatus> ruleStatuses = snapshot.getAlertRuleStatuses();
+		if (!ruleStatuses.isEmpty()) {
+			int raisedCount = 0;
+			for (AlertRuleStatus status : ruleStatuses) {
+				if (status.isRaised()) {
+					raisedCount++;
+				}
+			}
+			endLogRow(beginLogRow(' ').append("Alert rules: ").append(ruleStatuses.size()).append(", raised: ")
+					.append(raisedCount), ' ');
+			for (AlertRuleStatus status : ruleStatuses) {
+				if (status.isRaised()) {
+					AlertRule rule = status.getRule();
+					StringBuilder logSB = beginLogRow(' ');
+					logSB.append(' ').append(rule.getName()).append(": ");
+					ConsoleRenderer.appendFixed(logSB, status.getValue(), 2).append(' ')
+							.append(rule.getMetric().getUnit())
+							.append(" (recovers under ")
+							.append(rule.getRecoverThreshold())
+							.append(')');
+					endLogRow(logSB, ' ');
+				}
+			}
+			appendLog(" ");
+		}
 	}
 
 	/**
 	 * log statistics
+	 * 
+	 * @param snapshot: logged statistics
 	 */
-	private static void logStats() {
+	private static void logStats(HTTPStatsSnapshot snapshot) {
 
 		// log overall requests
 		appendLogTitle(" OVERALL REQUESTS ");
@@ -217,33 +908,34 @@ public class Main {
 
 		// log stats value
 		int count = 0;
-		StringBuilder statLogRow = new StringBuilder();
-		HashMap<HTTPStatsType, Long> statsValues = monitorLogs.getLogStats().getStatsValues();
+		StringBuilder statLogRow = beginLogRow(' ');
+		Map<HTTPStatsType, Long> statsValues = snapshot.getStatsValues();
 
-		// append TOTAL_CONTENT part
-		statLogRow.append(getValueStatsPart(HTTPStatsType.TOTAL_REQUESTS.toString(),
-				statsValues.get(HTTPStatsType.TOTAL_REQUESTS).toString(), 2));
+		// append TOTAL_REQUESTS part
+		appendValueStatsPart(statLogRow, HTTPStatsType.TOTAL_REQUESTS.toString(),
+				statsValues.get(HTTPStatsType.TOTAL_REQUESTS), 2);
 
-		// append TOTAL_CONTENT part
-		statLogRow.append(getValueStatsPart(HTTPStatsType.TOTAL_BAD_FORMAT_LOG.toString(),
-				statsValues.get(HTTPStatsType.TOTAL_BAD_FORMAT_LOG).toString(), 2));
+		// append TOTAL_BAD_FORMAT_LOG part
+		appendValueStatsPart(statLogRow, HTTPStatsType.TOTAL_BAD_FORMAT_LOG.toString(),
+				statsValues.get(HTTPStatsType.TOTAL_BAD_FORMAT_LOG), 2);
 
 		// append row values
-		appendLog(statLogRow.toString());
-		statLogRow.setLength(0);// clear string builder
+		endLogRow(statLogRow, ' ');
 
 		appendLog(" ");
 
 		// log stats status
 		count = 0;
-		HashMap<HTTPStatsStatus, Long> statsStatus = monitorLogs.getLogStats().getStatsStatus();
+		Map<HTTPStatsStatus, Long> statsStatus = snapshot.getStatsStatus();
 		for (Entry<HTTPStatsStatus, Long> entryStatus : statsStatus.entrySet()) {
+			if (count % 2 == 0) {
+				statLogRow = beginLogRow(' ');
+			}
 			count++;
 			// append value part
-			statLogRow.append(getValueStatsPart(entryStatus.getKey().toString(), entryStatus.getValue().toString(), 2));
+			appendValueStatsPart(statLogRow, entryStatus.getKey().toString(), entryStatus.getValue(), 2);
 			if (count % 2 == 0 || count == statsStatus.size()) {
-				appendLog(statLogRow.toString());
-				statLogRow.setLength(0);// clear string builder
+				endLogRow(statLogRow, ' ');
 			}
 		}
 
@@ -255,10 +947,75 @@ public class Main {
 			reducedAlertTimeWindow = reducedAlertTimeWindow / 60;
 		}
 		appendLog(" ");
-		String averageValue = monitorLogs.getLogStats().getAlertAverage() == 0 ? "-"
-				: monitorLogs.getLogStats().getAlertAverage() + "";
-		appendLog("Last ", reducedAlertTimeWindow + "", alertTimeWindowUnit + "", " traffic average: ", averageValue,
-				" requests/s");
+		StringBuilder logSB = beginLogRow(' ').append("Last ").append(reducedAlertTimeWindow)
+				.append(alertTimeWindowUnit).append(" traffic average: ");
+		if (snapshot.getAlertAverage() == 0) {
+			logSB.append('-');
+		} else {
+			logSB.append(snapshot.getAlertAverage());
+		}
+		endLogRow(logSB.append(" requests/s"), ' ');
+
+		// log moving rates: short spikes and slow drifts
+		TrafficRates trafficRates = snapshot.getTrafficRates();
+		logSB = beginLogRow(' ').append("Traffic rates 1m/5m/15m: ");
+		endLogRow(appendRates(logSB, trafficRates, 0).append(" requests/s"), ' ');
+		logSB = beginLogRow(' ').append("Status rates 1m/5m/15m:");
+		for (int statusClass = TrafficRates.MIN_STATUS_CLASS; statusClass <= TrafficRates.MAX_STATUS_CLASS;
+				statusClass++) {
+			if (trafficRates.getStatusClassRate(statusClass, TrafficRates.HORIZONS.length - 1) > 0) {
+				appendRates(logSB.append(' ').append(statusClass).append("xx "), trafficRates, statusClass);
+			}
+		}
+		endLogRow(logSB, ' ');
+		appendLog(" ");
+
+		// log monitor wake-ups and CPU usage
+		IngestStats ingestStats = snapshot.getIngestStats();
+		if (ingestStats.isWatched()) {
+			logSB = beginLogRow(' ').append("Monitor wake-ups: ").append(ingestStats.getWakeUpCount())
+					.append(" (events: ").append(ingestStats.getEventWakeUpCount()).append(", timeouts: ")
+					.append(ingestStats.getTimeoutWakeUpCount()).append("), CPU: ");
+			if (ingestStats.getCpuUsage() < 0) {
+				logSB.append('-');
+			} else {
+				ConsoleRenderer.appendFixed(logSB, ingestStats.getCpuUsage(), 2);
+			}
+			endLogRow(logSB.append('%'), ' ');
+		}
+		// log ingest throughput, read lag and parse durations
+		logSB = beginLogRow(' ').append("Ingest: ");
+		ConsoleRenderer.appendFixed(logSB, ingestStats.getLinesPerSecond(), 0).append(" lines/s, ");
+		ConsoleRenderer.appendFixed(logSB, ingestStats.getBytesPerSecond() / 1e6, 2).append(" MB/s, bad lines: ");
+		ConsoleRenderer.appendFixed(logSB, ingestStats.getBadLinesPerSecond(), 1).append("/s, lag: ")
+				.append(ingestStats.getByteLag()).append(" bytes");
+		endLogRow(logSB, ' ');
+		logSB = beginLogRow(' ').append("Parse time p50/p99/max: ");
+		appendMicros(logSB, ingestStats.getParsePercentile(50)).append('/');
+		appendMicros(logSB, ingestStats.getParsePercentile(99)).append('/');
+		appendMicros(logSB, ingestStats.getParseMax()).append(" us (").append(ingestStats.getParseCount())
+				.append(" timed lines)");
+		endLogRow(logSB, ' ');
+		// log handled log rotations
+		if (ingestStats.isTailed()) {
+			endLogRow(beginLogRow(' ').append("Log rotations: ").append(ingestStats.getRotationCount())
+					.append(", truncations: ").append(ingestStats.getTruncationCount()), ' ');
+		}
+		// log ingestion stages queue depth and throughput
+		if (logIngestPipeline != null) {
+			logSB = beginLogRow(' ').append("Ingest (").append(logIngestPipeline.getParserThreads())
+					.append(" parsers):");
+			for (IngestStage stage : logIngestPipeline.getStages()) {
+				logSB.append(' ').append(stage.getName()).append(' ');
+				ConsoleRenderer.appendFixed(logSB, stage.sampleThroughput(), 0).append(" lines/s (queue ")
+						.append(stage.getQueueDepth()).append(')');
+			}
+			endLogRow(logSB, ' ');
+		}
+		// log monitored log files
+		if (multiLogMonitor != null) {
+			logSources();
+		}
 		appendLog(" ");
 
 		// log last #STATS_REFRESHING_FREQUENCY statistics
@@ -266,74 +1023,163 @@ public class Main {
 		appendLog(" ");
 
 		// log TOTAL_CONTENT part
-		Long totalContent = statsValues.get(HTTPStatsType.TOTAL_CONTENT);
-		String unit = totalContent > 0 ? " bytes" : " byte";
-		statLogRow.append(getValueStatsPart(HTTPStatsType.TOTAL_CONTENT.toString(), totalContent.toString() + unit, 2));
+		long totalContent = statsValues.get(HTTPStatsType.TOTAL_CONTENT);
+		statLogRow = beginLogRow(' ');
+		int partStart = statLogRow.length();
+		statLogRow.append(HTTPStatsType.TOTAL_CONTENT).append(": ").append(totalContent)
+				.append(totalContent > 0 ? " bytes" : " byte");
+		fillValueStatsPart(statLogRow, partStart, 2);
 
 		// append row values
-		appendLog(statLogRow.toString());
-		statLogRow.setLength(0);// clear string builder
+		endLogRow(statLogRow, ' ');
+		logSB = beginLogRow(' ').append("Response size p50/p95/p99: ");
+		endLogRow(appendSizes(logSB, snapshot.getContentSizes()).append(" bytes"), ' ');
 
 		// log most present user
-		appendLog("Most present user: ", monitorLogs.getLogStats().getTopUser());
+		appendLog("Most present user: ", snapshot.getTopUser());
 
 		// log most present remote host
-		appendLog("Most present remote host: ", monitorLogs.getLogStats().getTopRemoteHost());
+		appendLog("Most present remote host: ", snapshot.getTopRemoteHost());
 
 		appendLog(" ");
 		// log most hit sections
-		HashMap<String, Integer> hitSections = monitorLogs.getLogStats().getMostHitSection();
-		appendLog("Most hit section (", "" + hitSections.size(), "/", "" + hitSections.size(), "):");
+		Map<String, Integer> hitSections = snapshot.getMostHitSection();
+		endLogRow(beginLogRow(' ').append("Most hit section (").append(hitSections.size()).append('/')
+				.append(hitSections.size()).append("):"), ' ');
 
 		count = 0;
 		for (Entry<String, Integer> entry : hitSections.entrySet()) {
+			if (count % 3 == 0) {
+				statLogRow = beginLogRow(' ');
+			}
 			count++;
 			// append value part
-			statLogRow
-					.append(getValueStatsPart("\"" + entry.getKey().toString() + "\"", entry.getValue().toString(), 3));
+			partStart = statLogRow.length();
+			statLogRow.append('"').append(entry.getKey()).append("\": ").append(entry.getValue().intValue());
+			fillValueStatsPart(statLogRow, partStart, 3);
 			if (count % 3 == 0 || count == hitSections.size()) {
-				appendLog(statLogRow.toString());
-				statLogRow.setLength(0);
+				endLogRow(statLogRow, ' ');
 			}
 		}
 		// add empty log row when there is no value present
 		for (int i = 0; i < (HTTPStats.MOST_HIT_SECTION_DISPLAYED - hitSections.size()) / 3; i++) {
 			appendLog(" ");
 		}
+		// log most hit sections response sizes
+		for (Entry<String, QuantileSketch> entry : snapshot.getSectionContentSizes().entrySet()) {
+			logSB = beginLogRow(' ').append('"').append(entry.getKey()).append("\" size p50/p95/p99: ");
+			endLogRow(appendSizes(logSB, entry.getValue()).append(" bytes"), ' ');
+		}
 
 		appendLog(" ");
 	}
 
 	/**
-	 * get string builder of key: value row log part
+	 * append nanoseconds as microseconds
+	 * 
+	 * @param logSB
+	 * @param nanos
+	 * @return logSB with microseconds with 2 decimals
+	 */
+	private static StringBuilder appendMicros(StringBuilder logSB, long nanos) {
+		return ConsoleRenderer.appendFixed(logSB, nanos / 1000d, 2);
+	}
+
+	/**
+	 * append moving rates of each horizon
+	 * 
+	 * @param logSB
+	 * @param rates
+	 * @param statusClass: rated status class, 0 for all requests
+	 * @return logSB with "1m/5m/15m" rates
+	 */
+	private static StringBuilder appendRates(StringBuilder logSB, TrafficRates rates, int statusClass) {
+		for (int horizon = 0; horizon < TrafficRates.HORIZONS.length; horizon++) {
+			if (horizon > 0) {
+				logSB.append('/');
+			}
+			double rate = statusClass == 0 ? rates.getRequestRate(horizon)
+					: rates.getStatusClassRate(statusClass, horizon);
+			ConsoleRenderer.appendFixed(logSB, rate, 2);
+		}
+		return logSB;
+	}
+
+	/**
+	 * append response sizes quantiles
 	 * 
+	 * @param logSB
+	 * @param sizes
+	 * @return logSB with "p50/p95/p99", "-" when no response has been counted
+	 */
+	private static StringBuilder appendSizes(StringBuilder logSB, QuantileSketch sizes) {
+		if (sizes.getCount() == 0) {
+			return logSB.append('-');
+		}
+		return logSB.append(sizes.getQuantile(0.5)).append('/').append(sizes.getQuantile(0.95)).append('/')
+				.append(sizes.getQuantile(0.99));
+	}
+
+	/**
+	 * log monitored log files count and, in {@link #perFileMode}, statistics of
+	 * the most active ones
+	 */
+	private static void logSources() {
+		List<LogSource> sources = multiLogMonitor.getSources();
+		endLogRow(beginLogRow(' ').append("Monitored log files: ").append(sources.size()), ' ');
+		if (!perFileMode) {
+			return;
+		}
+		sources.sort((s1, s2) -> Long.compare(s2.getRequestCount(), s1.getRequestCount()));
+		for (LogSource source : sources.subList(0, Math.min(PER_FILE_DISPLAYED, sources.size()))) {
+			StringBuilder logSB = beginLogRow(' ').append(' ').append(source.getPath().getFileName()).append(": ")
+					.append(source.getRequestCount()).append(" requests, ").append(source.getBadLineCount())
+					.append(" bad lines, ").append(source.getContentLength()).append(" bytes, ")
+					.append(source.getRotationCount()).append(" rotations");
+			if (source.getLastError() != null) {
+				logSB.append(" (error: ").append(source.getLastError()).append(')');
+			}
+			endLogRow(logSB, ' ');
+		}
+	}
+
+	/**
+	 * append key: value row log part
+	 * 
+	 * @param logSB:              log row from {@link #beginLogRow(char)}
 	 * @param key
 	 * @param value
-	 * @param       consoleColumnCount: console column divider
-	 * @return "key: value" StringBuilder
-	 */
-	private static StringBuilder getValueStatsPart(String key, String value, int consoleColumnCount) {
-		StringBuilder valueStatsPart = new StringBuilder();
-		valueStatsPart.append(key);
-		valueStatsPart.append(": ");
-		valueStatsPart.append(value);
-		// fill last part
-		for (int i = CONSOLE_WIDTH / consoleColumnCount - valueStatsPart.length() - 4; i >= 0; i--) {
-			valueStatsPart.append(" ");
+	 * @param consoleColumnCount: console column divider
+	 */
+	private static void appendValueStatsPart(StringBuilder logSB, String key, long value, int consoleColumnCount) {
+		int partStart = logSB.length();
+		logSB.append(key).append(": ").append(value);
+		fillValueStatsPart(logSB, partStart, consoleColumnCount);
+	}
+
+	/**
+	 * fill row log part up to its column width
+	 * 
+	 * @param logSB:              log row from {@link #beginLogRow(char)}
+	 * @param partStart:          part first char position in logSB
+	 * @param consoleColumnCount: console column divider
+	 */
+	private static void fillValueStatsPart(StringBuilder logSB, int partStart, int consoleColumnCount) {
+		for (int i = CONSOLE_WIDTH / consoleColumnCount - (logSB.length() - partStart) - 4; i >= 0; i--) {
+			logSB.append(' ');
 		}
-		return valueStatsPart;
 	}
 
 	/**
 	 * fill log row with '-' on {@link #CONSOLE_WIDTH}
 	 */
 	private static void appendLogFilled() {
-		StringBuilder logSB = new StringBuilder();
+		StringBuilder logSB = newLogRow();
 		logSB.append(' ');
 		for (int i = 0; i < CONSOLE_WIDTH - 1; i++) {
 			logSB.append('-');
 		}
-		AnsiConsole.out.println(logSB.toString());
+		printLogRow(logSB);
 	}
 
 	/**
@@ -342,13 +1188,13 @@ public class Main {
 	 * @param title
 	 */
 	private static void appendLogTitle(String title) {
-		StringBuilder logSB = new StringBuilder();
+		StringBuilder logSB = beginLogRow('-');
 		// fill last part
 		for (int i = CONSOLE_WIDTH / 2 - title.length() / 2 - 6; i >= 0; i--) {
 			logSB.append('-');
 		}
 		logSB.append(title);
-		appendLog('-', logSB.toString());
+		endLogRow(logSB, '-');
 	}
 
 	/**
@@ -367,30 +1213,64 @@ public class Main {
 	 * @param messages
 	 */
 	private static void appendLog(char fillChar, String... messages) {
-		StringBuilder logSB = new StringBuilder();
+		StringBuilder logSB = beginLogRow(fillChar);
+		for (String message : messages) {
+			logSB.append(message);
+		}
+		endLogRow(logSB, fillChar);
+	}
+
+	/**
+	 * begin log row bordered by '-', the message is appended to it then the row
+	 * is ended by {@link #endLogRow(StringBuilder, char)}
+	 * 
+	 * @param fillChar
+	 * @return log row
+	 */
+	private static StringBuilder beginLogRow(char fillChar) {
+		StringBuilder logSB = newLogRow();
 		logSB.append(' ');
 		logSB.append('-');
 		logSB.append(fillChar);
 		logSB.append(fillChar);
-		for (String message : messages) {
-			logSB.append(message);
-		}
-		// complete row with -
+		return logSB;
+	}
+
+	/**
+	 * complete log row with #fillChar and '-' border, then print it
+	 * 
+	 * @param logSB:    log row from {@link #beginLogRow(char)}
+	 * @param fillChar
+	 */
+	private static void endLogRow(StringBuilder logSB, char fillChar) {
 		int sbLength = logSB.length();
 		for (int i = 0; i < CONSOLE_WIDTH - sbLength - 1; i++) {
 			logSB.append(fillChar);
 		}
 		logSB.append('-');
-		AnsiConsole.out.println(logSB.toString());
+		printLogRow(logSB);
 	}
 
 	/**
-	 * clear console window
+	 * get log row buffer: next {@link #consoleRenderer} frame row when rendering
+	 * 
+	 * @return empty log row
+	 */
+	private static StringBuilder newLogRow() {
+		if (consoleRenderer != null && consoleRenderer.isRendering()) {
+			return consoleRenderer.nextLine();
+		}
+		return new StringBuilder(CONSOLE_WIDTH);
+	}
+
+	/**
+	 * print log row, frame rows are printed by {@link #consoleRenderer}
+	 * 
+	 * @param logSB: log row from {@link #newLogRow()}
 	 */
-	private static void clearConsole() {
-		AnsiConsole.out.println(Ansi.ansi().eraseScreen(Erase.ALL).fgBrightGreen());
-		for (int i = 0; i < 20; ++i) {
-			AnsiConsole.out.println();
+	private static void printLogRow(StringBuilder logSB) {
+		if (consoleRenderer == null || !consoleRenderer.isRendering()) {
+			AnsiConsole.out.println(logSB);
 		}
 	}
 }
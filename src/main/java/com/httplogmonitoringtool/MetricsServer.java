@@ -0,0 +1,388 @@
+package com.httplogmonitoringtool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.httplogmonitoringtool.models.AlertRuleStatus;
+import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+import com.httplogmonitoringtool.models.HTTPStatsSnapshot;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.models.IngestStats;
+import com.httplogmonitoringtool.models.LatencyHistogram;
+import com.httplogmonitoringtool.models.QuantileSketch;
+import com.httplogmonitoringtool.models.TrafficRates;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP endpoint serving {@link MonitorLog} statistics at
+ * {@link #METRICS_PATH} in Prometheus text format.
+ * <p>
+ * Metrics are rendered from the last published {@link HTTPStatsSnapshot}: the
+ * rendered bytes are cached until a new snapshot is published, so a scrape
+ * never touches the statistics writer thread.
+ *
+ * @author Remi c
+ *
+ */
+public class MetricsServer implements Closeable {
+
+	/**
+	 * Metrics endpoint path
+	 */
+	public final static String METRICS_PATH = "/metrics";
+
+	/**
+	 * Prometheus text format content type
+	 */
+	private final static String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	/**
+	 * Metrics names prefix
+	 */
+	private final static String PREFIX = "http_log_";
+
+	/**
+	 * Exposed response sizes quantiles
+	 */
+	private final static double[] SIZE_QUANTILES = { 0.5, 0.95, 0.99 };
+
+	/**
+	 * First exposed parse duration bucket: shorter durations are only counted by
+	 * the next buckets
+	 */
+	private final static int PARSE_FIRST_BUCKET = 6;
+
+	/**
+	 * Rendered metrics of a snapshot
+	 */
+	private static class RenderedMetrics {
+
+		private final long sequence;
+		private final byte[] content;
+
+		private RenderedMetrics(long sequence, byte[] content) {
+			this.sequence = sequence;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * Monitor publishing the statistics snapshots
+	 */
+	private final MonitorLog monitorLog;
+
+	/**
+	 * HTTP server, answering on its own dispatcher thread
+	 */
+	private final HttpServer server;
+
+	/**
+	 * Last rendered metrics: null until the first scrape
+	 */
+	private final AtomicReference<RenderedMetrics> renderedMetrics = new AtomicReference<RenderedMetrics>();
+
+	/**
+	 * init metrics server, see {@link #start()}
+	 *
+	 * @param monitorLog: monitor publishing statistics snapshots
+	 * @param port:       listened port, 0 for any free port
+	 * @throws IOException: port cannot be bound
+	 */
+	public MetricsServer(MonitorLog monitorLog, int port) throws IOException {
+		this.monitorLog = monitorLog;
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.server.createContext(METRICS_PATH, this::handle);
+	}
+
+	/**
+	 * starts answering scrapes
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * answer a metrics request
+	 *
+	 * @param exchange
+	 * @throws IOException: while writing response
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String method = exchange.getRequestMethod();
+			if (!"GET".equals(method) && !"HEAD".equals(method)) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] content = getMetrics();
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			if ("HEAD".equals(method)) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, content.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(content);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * get metrics of the last published snapshot, rendered once per snapshot
+	 *
+	 * @return Prometheus text format content
+	 */
+	public byte[] getMetrics() {
+		HTTPStatsSnapshot snapshot = monitorLog.getStatsSnapshot();
+		RenderedMetrics rendered = renderedMetrics.get();
+		if (rendered == null || rendered.sequence != snapshot.getSequence()) {
+			// concurrent scrapes may render the same snapshot: both results are equal
+			rendered = new RenderedMetrics(snapshot.getSequence(),
+					render(snapshot).getBytes(StandardCharsets.UTF_8));
+			renderedMetrics.set(rendered);
+		}
+		return rendered.content;
+	}
+
+	/**
+	 * render snapshot in Prometheus text format
+	 *
+	 * @param snapshot
+	 * @return metrics
+	 */
+	public static String render(HTTPStatsSnapshot snapshot) {
+		StringBuilder metrics = new StringBuilder(1024);
+		appendMetric(metrics, "requests_total", "counter", "Consumed requests.",
+				snapshot.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		appendMetric(metrics, "bad_format_logs_total", "counter", "Log lines which could not be parsed or dated.",
+				snapshot.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG));
+		appendMetric(metrics, "interval_content_bytes", "gauge",
+				"Response bytes of the last statistics interval.",
+				snapshot.getStatsValue(HTTPStatsType.TOTAL_CONTENT));
+		appendSizeMetrics(metrics, snapshot);
+
+		// requests by status code
+		appendHeader(metrics, "status_requests_total", "counter", "Consumed requests by HTTP status code.");
+		for (Entry<Integer, Long> entry : snapshot.getStatusCounts().entrySet()) {
+			metrics.append(PREFIX).append("status_requests_total{code=\"").append(entry.getKey()).append("\"} ")
+					.append(entry.getValue()).append('\n');
+		}
+
+		appendRateMetrics(metrics, snapshot.getTrafficRates());
+
+		// alerting
+		appendMetric(metrics, "alert_average_requests_per_second", "gauge",
+				"Traffic average of the alert time window.", snapshot.getAlertAverage());
+		appendMetric(metrics, "alert_high_traffic", "gauge", "1 while a high traffic alert is raised.",
+				snapshot.isHighTrafficAlert() ? 1 : 0);
+		long highTrafficAlerts = snapshot.getRaisedAlerts().stream()
+				.filter(alert -> HTTPStatsAlertType.HIGH_TRAFFIC.equals(alert.getType())).count();
+		appendMetric(metrics, "high_traffic_alerts_total", "counter", "Raised high traffic alerts.",
+				highTrafficAlerts);
+		appendAlertRuleMetrics(metrics, snapshot);
+
+		// ingest health
+		appendMetric(metrics, "ingest_lag_seconds", "gauge",
+				"Delay between the newest consumed request and the statistics publication.",
+				snapshot.getIngestLag() / 1000d);
+		appendMetric(metrics, "snapshot_timestamp_seconds", "gauge", "Statistics publication time.",
+				snapshot.getTime() / 1000d);
+		appendMetric(metrics, "snapshot_sequence", "counter", "Published statistics snapshots.",
+				snapshot.getSequence());
+		appendIngestMetrics(metrics, snapshot.getIngestStats());
+		return metrics.toString();
+	}
+
+	/**
+	 * append response sizes summaries of the last interval and of the most hit
+	 * sections
+	 *
+	 * @param metrics
+	 * @param snapshot
+	 */
+	private static void appendSizeMetrics(StringBuilder metrics, HTTPStatsSnapshot snapshot) {
+		String name = PREFIX + "interval_content_size_bytes";
+		appendHeader(metrics, "interval_content_size_bytes", "summary",
+				"Response sizes of the last statistics interval.");
+		QuantileSketch sizes = snapshot.getContentSizes();
+		for (double quantile : SIZE_QUANTILES) {
+			metrics.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+					.append(sizes.getQuantile(quantile)).append('\n');
+		}
+		metrics.append(name).append("_sum ").append(sizes.getSum()).append('\n');
+		metrics.append(name).append("_count ").append(sizes.getCount()).append('\n');
+
+		name = PREFIX + "section_content_size_bytes";
+		appendHeader(metrics, "section_content_size_bytes", "summary",
+				"Response sizes of the most hit sections of the last statistics interval.");
+		for (Entry<String, QuantileSketch> entry : snapshot.getSectionContentSizes().entrySet()) {
+			String section = escapeLabel(entry.getKey());
+			sizes = entry.getValue();
+			for (double quantile : SIZE_QUANTILES) {
+				metrics.append(name).append("{section=\"").append(section).append("\",quantile=\"").append(quantile)
+						.append("\"} ").append(sizes.getQuantile(quantile)).append('\n');
+			}
+			metrics.append(name).append("_sum{section=\"").append(section).append("\"} ").append(sizes.getSum())
+					.append('\n');
+			metrics.append(name).append("_count{section=\"").append(section).append("\"} ")
+					.append(sizes.getCount()).append('\n');
+		}
+	}
+
+	/**
+	 * append requests moving rates of each horizon
+	 *
+	 * @param metrics
+	 * @param rates
+	 */
+	private static void appendRateMetrics(StringBuilder metrics, TrafficRates rates) {
+		appendHeader(metrics, "request_rate", "gauge", "Exponentially weighted requests per second.");
+		for (int horizon = 0; horizon < TrafficRates.HORIZONS.length; horizon++) {
+			metrics.append(PREFIX).append("request_rate{horizon=\"").append(TrafficRates.HORIZON_NAMES[horizon])
+					.append("\"} ").append(rates.getRequestRate(horizon)).append('\n');
+		}
+		appendHeader(metrics, "status_class_request_rate", "gauge",
+				"Exponentially weighted requests per second by HTTP status class.");
+		for (int statusClass = TrafficRates.MIN_STATUS_CLASS; statusClass <= TrafficRates.MAX_STATUS_CLASS;
+				statusClass++) {
+			for (int horizon = 0; horizon < TrafficRates.HORIZONS.length; horizon++) {
+				metrics.append(PREFIX).append("status_class_request_rate{class=\"").append(statusClass)
+						.append("xx\",horizon=\"").append(TrafficRates.HORIZON_NAMES[horizon]).append("\"} ")
+						.append(rates.getStatusClassRate(statusClass, horizon)).append('\n');
+			}
+		}
+	}
+
+	/**
+	 * append alert rules last values and raised states
+	 *
+	 * @param metrics
+	 * @param snapshot
+	 */
+	private static void appendAlertRuleMetrics(StringBuilder metrics, HTTPStatsSnapshot snapshot) {
+		if (snapshot.getAlertRuleStatuses().isEmpty()) {
+			return;
+		}
+		appendHeader(metrics, "alert_rule_value", "gauge", "Last evaluated value of the alert rules.");
+		for (AlertRuleStatus status : snapshot.getAlertRuleStatuses()) {
+			metrics.append(PREFIX).append("alert_rule_value{rule=\"").append(escapeLabel(status.getRule().getName()))
+					.append("\"} ").append(status.getValue()).append('\n');
+		}
+		appendHeader(metrics, "alert_rule_raised", "gauge", "1 while the alert rule is raised.");
+		for (AlertRuleStatus status : snapshot.getAlertRuleStatuses()) {
+			metrics.append(PREFIX).append("alert_rule_raised{rule=\"").append(escapeLabel(status.getRule().getName()))
+					.append("\"} ").append(status.isRaised() ? 1 : 0).append('\n');
+		}
+	}
+
+	/**
+	 * escape label value backslashes, quotes and line feeds
+	 *
+	 * @param value
+	 * @return escaped value
+	 */
+	private static String escapeLabel(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	/**
+	 * append ingest path throughput, read lag and parse durations
+	 *
+	 * @param metrics
+	 * @param ingestStats
+	 */
+	private static void appendIngestMetrics(StringBuilder metrics, IngestStats ingestStats) {
+		appendMetric(metrics, "ingest_lines_total", "counter", "Read log lines.", ingestStats.getLineCount());
+		appendMetric(metrics, "ingest_bytes_total", "counter", "Read log bytes.", ingestStats.getByteCount());
+		appendMetric(metrics, "ingest_lines_per_second", "gauge", "Read log lines rate of the last interval.",
+				ingestStats.getLinesPerSecond());
+		appendMetric(metrics, "ingest_bytes_per_second", "gauge", "Read log bytes rate of the last interval.",
+				ingestStats.getBytesPerSecond());
+		appendMetric(metrics, "ingest_bad_lines_per_second", "gauge", "Bad log lines rate of the last interval.",
+				ingestStats.getBadLinesPerSecond());
+		appendMetric(metrics, "ingest_lag_bytes", "gauge", "Log bytes appended but not read yet.",
+				ingestStats.getByteLag());
+
+		// cumulative buckets of the sampled parse durations
+		String name = PREFIX + "parse_duration_seconds";
+		appendHeader(metrics, "parse_duration_seconds", "histogram", "Sampled log line parse durations.");
+		long[] counts = ingestStats.getParseCounts();
+		long cumulativeCount = 0;
+		for (int i = 0; i < counts.length - 1; i++) {
+			cumulativeCount += counts[i];
+			if (i >= PARSE_FIRST_BUCKET) {
+				metrics.append(name).append("_bucket{le=\"")
+						.append(LatencyHistogram.getBucketUpperBound(i) / 1_000_000_000d).append("\"} ")
+						.append(cumulativeCount).append('\n');
+			}
+		}
+		cumulativeCount += counts[counts.length - 1];
+		metrics.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulativeCount).append('\n');
+		metrics.append(name).append("_sum ").append(ingestStats.getParseSum() / 1_000_000_000d).append('\n');
+		metrics.append(name).append("_count ").append(cumulativeCount).append('\n');
+	}
+
+	/**
+	 * append a metric without labels
+	 *
+	 * @param metrics
+	 * @param name:   name without prefix
+	 * @param type:   counter or gauge
+	 * @param help:   description
+	 * @param value
+	 */
+	private static void appendMetric(StringBuilder metrics, String name, String type, String help, long value) {
+		appendHeader(metrics, name, type, help);
+		metrics.append(PREFIX).append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * append a metric without labels
+	 *
+	 * @param metrics
+	 * @param name:   name without prefix
+	 * @param type:   counter or gauge
+	 * @param help:   description
+	 * @param value
+	 */
+	private static void appendMetric(StringBuilder metrics, String name, String type, String help, double value) {
+		appendHeader(metrics, name, type, help);
+		metrics.append(PREFIX).append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * append metric HELP and TYPE lines
+	 *
+	 * @param metrics
+	 * @param name:   name without prefix
+	 * @param type:   counter or gauge
+	 * @param help:   description
+	 */
+	private static void appendHeader(StringBuilder metrics, String name, String type, String help) {
+		metrics.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+		metrics.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+	}
+
+	/**
+	 * {@link #server} listened port
+	 *
+	 * @return port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+}
@@ -1,31 +1,54 @@
 package com.httplogmonitoringtool;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.EwmaRate;
+import com.httplogmonitoringtool.models.HTTPLogFields;
 import com.httplogmonitoringtool.models.HTTPLogRow;
 import com.httplogmonitoringtool.models.HTTPStats;
 import com.httplogmonitoringtool.models.HTTPStatsAlert;
 import com.httplogmonitoringtool.models.HTTPStatsAlertType;
-import com.httplogmonitoringtool.models.HTTPStatsStatus;
+import com.httplogmonitoringtool.models.HTTPStatsSnapshot;
 import com.httplogmonitoringtool.models.HTTPStatsType;
-import com.httplogmonitoringtool.utils.HTTPLogParser;
+import com.httplogmonitoringtool.models.IngestMetrics;
+import com.httplogmonitoringtool.models.MonitorCheckpoint;
+import com.httplogmonitoringtool.models.SlidingWindowCounter;
+import com.httplogmonitoringtool.models.TrafficRates;
+import com.httplogmonitoringtool.utils.CheckpointFile;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.LineHandler;
+import com.httplogmonitoringtool.utils.LogFileTailer;
+import com.httplogmonitoringtool.utils.RollupStore;
 
 /***
  * HTTP log monitor: Managing the HTTP traffic log parsing and statistics
  * processing
+ * <p>
+ * Statistics and alerts are written by one thread (the one updating
+ * statistics) and published to readers of any thread as immutable
+ * {@link HTTPStatsSnapshot} at the end of each {@link #statsInterval}.
  * 
  * @author Remi c
  *
  */
-public class MonitorLog {
+public class MonitorLog implements Closeable {
+
+	/**
+	 * Default short statistics interval: 10 seconds (milliseconds)
+	 */
+	public final static int DEFAULT_STATS_INTERVAL = 1000 * 10;
+
+	/**
+	 * Default checkpoint interval: 5 seconds (milliseconds)
+	 */
+	public final static int DEFAULT_CHECKPOINT_INTERVAL = 1000 * 5;
 
 	/**
 	 * Time windows in which the average is monitored traffic to issue alerts.
@@ -44,28 +67,121 @@ public class MonitorLog {
 	private int alertAverageThreshold = 10;
 
 	/**
-	 * Alert monitoring time: Stores all the times during {@link #alertTimeWindow}
-	 * It allows to calculate the average
+	 * Alert monitoring counts: requests per second during the last
+	 * {@link #alertTimeWindow}. It allows to calculate the average
 	 */
-	private List<Long> alertMonitoringTimes = new ArrayList<Long>();
+	private SlidingWindowCounter alertMonitoringCounts = newAlertMonitoringCounts(alertTimeWindow);
 
 	/**
-	 * All raised alerts. It will always starts with a HIGH_TRAFFIC alert, followed
-	 * by a LOW_TRAFFIC if traffic goes back under {@link #alertAverageThreshold}
+	 * All raised alerts. Traffic alerts always start with a HIGH_TRAFFIC alert,
+	 * followed by a LOW_TRAFFIC if traffic goes back under
+	 * {@link #alertAverageThreshold}. Rule alerts of {@link #alertEngine} are
+	 * interleaved.
 	 */
 	private final ArrayList<HTTPStatsAlert> raisedAlerts = new ArrayList<HTTPStatsAlert>();
 
+	/**
+	 * Requests moving rates over 1, 5 and 15 minutes, updated every
+	 * {@link EwmaRate#TICK_INTERVAL}
+	 */
+	private final TrafficRates trafficRates = new TrafficRates();
+
+	/**
+	 * Alert rules evaluated on top of the high traffic alert, none by default
+	 */
+	private AlertEngine alertEngine = new AlertEngine();
+
 	/***
-	 * Last readed line count. It allows to go back to new log line when the log
-	 * file is updated
+	 * Log file incremental reader. It allows to go back to new log line when the
+	 * log file is updated
+	 */
+	private LogFileTailer logFileTailer;
+
+	/**
+	 * Reused parsed fields of the current log line
 	 */
-	private long lastReadedLine = 0;
+	private final HTTPLogFields logFields = new HTTPLogFields();
+
+	/**
+	 * Reused row of the current log line
+	 */
+	private final HTTPLogRow logRow = new HTTPLogRow();
+
+	/**
+	 * Clock time used to check log dates, refreshed on each update and when a log
+	 * date is ahead of it (epoch milliseconds)
+	 */
+	private long clockTime = 0;
+
+	/**
+	 * Log file lines consumer
+	 */
+	private final LineHandler logLineHandler = this::consumeLogLine;
+
+	/**
+	 * At least one line of the current update has been consumed
+	 */
+	private boolean fileLogsHasChanged = false;
 
 	/**
 	 * HTTP statistics
 	 */
 	private final HTTPStats logStats = new HTTPStats();
 
+	/**
+	 * Short statistics interval: sections, users, remote hosts and content are
+	 * published then cleared at the end of each interval (milliseconds)
+	 */
+	private int statsInterval = DEFAULT_STATS_INTERVAL;
+
+	/**
+	 * Current short statistics interval start (epoch milliseconds)
+	 */
+	private long statsIntervalStart = System.currentTimeMillis();
+
+	/**
+	 * Newest consumed request time (epoch milliseconds)
+	 */
+	private long lastRequestTime = HTTPStatsSnapshot.NO_TIME;
+
+	/**
+	 * Ingest path instrumentation: read throughput, read lag and parse durations
+	 */
+	private final IngestMetrics ingestMetrics = new IngestMetrics();
+
+	/**
+	 * Lines parsed by {@link #consumeLogLine(byte[], int, int)}, selects timed
+	 * lines
+	 */
+	private long parsedLineCount = 0;
+
+	/**
+	 * Last published statistics
+	 */
+	private final AtomicReference<HTTPStatsSnapshot> statsSnapshot = new AtomicReference<HTTPStatsSnapshot>(
+			new HTTPStatsSnapshot(0, statsIntervalStart, statsIntervalStart, lastRequestTime, logStats,
+					trafficRates, raisedAlerts, alertEngine.getStatuses(), ingestMetrics.sample(0, System.nanoTime())));
+
+	/**
+	 * Checkpoint file: null when checkpoints are disabled
+	 */
+	private CheckpointFile checkpointFile;
+
+	/**
+	 * Checkpoint interval (milliseconds)
+	 */
+	private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+	/**
+	 * Last checkpoint time (epoch milliseconds)
+	 */
+	private long lastCheckpointTime = 0;
+
+	/**
+	 * Per second traffic history: null when disabled
+	 */
+	private RollupStore rollupStore;
+
 	/**
 	 * Update statistics. Parse log file and extract interesting data
 	 * 
@@ -75,53 +191,175 @@ public class MonitorLog {
 	 */
 	public boolean updateStats() throws FileNotFoundException, IOException {
 
-		// read log file from the last row parsed
-		boolean fileLogsHasChanged = false;
-
-		try (FileInputStream fstream = new FileInputStream(logFilePath)) {// auto closable
-			BufferedReader br = new BufferedReader(new InputStreamReader(fstream));
-			int lineCount = 0;
-			String strLine;
-			while ((strLine = br.readLine()) != null) {
-				if (lastReadedLine < lineCount) {// read to last readed line
-					// parses line and enriches statistics
-					Date logDate = consumeLogLine(strLine);
-					// ignore line if no date found
-					if (logDate != null) {
-						// collect date for alerting
-						alertMonitoringTimes.add(logDate.getTime());
-						// the stats have changed
-						fileLogsHasChanged = true;
-					}
-				}
-				lineCount++;
-			}
-			// store last readed line
-			lastReadedLine = lineCount - 1;
+		// read log file from the last byte parsed
+		fileLogsHasChanged = false;
+		clockTime = System.currentTimeMillis();
+		readLogLines(logLineHandler);
+
+		// managing the alerts if change appended
+		if (fileLogsHasChanged) {
+			checkAlerts();
+		}
+
+		publishStats();
+
+		// save state every #checkpointInterval
+		if (checkpointFile != null && clockTime - lastCheckpointTime >= checkpointInterval) {
+			writeCheckpoint();
 		}
+		return fileLogsHasChanged;
+	}
 
-		// returns if no change appended
-		if (!fileLogsHasChanged) {
+	/**
+	 * Copy monitor state: log file position, alert window, cumulative counters and
+	 * raised alerts. Must be called by the statistics writer thread, between two
+	 * log reads.
+	 * 
+	 * @return checkpoint
+	 */
+	public MonitorCheckpoint createCheckpoint() {
+		String fileKey = "";
+		long offset = 0;
+		if (logFileTailer != null && logFileTailer.getFileKey() != null) {
+			fileKey = logFileTailer.getFileKey().toString();
+			// pending partial line will be read again
+			offset = logFileTailer.getOffset() - logFileTailer.getPending();
+		}
+		return new MonitorCheckpoint(System.currentTimeMillis(), logFilePath, fileKey, offset,
+				alertMonitoringCounts.getHeadSecond(), alertMonitoringCounts.getStartTime(),
+				alertMonitoringCounts.getCounts(), logStats.getStatsValues(), logStats.getStatusCounts(),
+				raisedAlerts);
+	}
+
+	/**
+	 * Restore a checkpoint of the monitored log file into this new monitor:
+	 * counters, alert window and raised alerts are restored, reading resumes at
+	 * the checkpoint offset if the log file has not been rotated since.
+	 * 
+	 * @param checkpoint
+	 * @return reading resumes at the checkpoint offset
+	 * @throws IOException:           while opening log file
+	 * @throws FileNotFoundException: log file does not exist
+	 */
+	public boolean restoreCheckpoint(MonitorCheckpoint checkpoint) throws FileNotFoundException, IOException {
+		if (!logFilePath.equals(checkpoint.getLogFilePath())) {// checkpoint of another log file
 			return false;
 		}
+		for (Entry<HTTPStatsType, Long> entry : checkpoint.getStatsValues().entrySet()) {
+			logStats.increase(entry.getKey(), entry.getValue());
+		}
+		for (Entry<Integer, Long> entry : checkpoint.getStatusCounts().entrySet()) {
+			logStats.increaseStatus(entry.getKey(), entry.getValue());
+		}
+		raisedAlerts.addAll(checkpoint.getRaisedAlerts());
+		alertEngine.restore(raisedAlerts);
+		alertMonitoringCounts.restore(checkpoint.getWindowHeadSecond(), checkpoint.getWindowStartTime(),
+				checkpoint.getWindowCounts());
+
+		closeLogFileTailer();
+		logFileTailer = new LogFileTailer(logFilePath);
+		return logFileTailer.resume(checkpoint.getFileKey(), checkpoint.getOffset());
+	}
+
+	/**
+	 * Write a checkpoint to {@link #checkpointFile}
+	 * 
+	 * @throws IOException: while writing checkpoint file
+	 */
+	public void writeCheckpoint() throws IOException {
+		lastCheckpointTime = System.currentTimeMillis();
+		checkpointFile.write(createCheckpoint());
+	}
 
-		// managing the alerts
-		if (alertMonitoringTimes.isEmpty()) {
-			return true;
+	/**
+	 * Restore {@link #checkpointFile} checkpoint if any, see
+	 * {@link #restoreCheckpoint(MonitorCheckpoint)}
+	 * 
+	 * @return reading resumes at the checkpoint offset
+	 * @throws IOException:           while reading checkpoint or log file, or
+	 *                                corrupted checkpoint
+	 * @throws FileNotFoundException: log file does not exist
+	 */
+	public boolean loadCheckpoint() throws FileNotFoundException, IOException {
+		MonitorCheckpoint checkpoint = checkpointFile.read();
+		return checkpoint != null && restoreCheckpoint(checkpoint);
+	}
+
+	/**
+	 * Evaluate the {@link #alertEngine} rules, whether requests were consumed or
+	 * not, and publish statistics snapshot when the current
+	 * {@link #statsInterval} is over, then clear short statistics. Must be called
+	 * by the statistics writer thread.
+	 * 
+	 * @return a snapshot has been published
+	 */
+	public boolean publishStats() {
+		long time = System.currentTimeMillis();
+		if (rollupStore != null) {// write seconds which are over
+			rollupStore.advance(time);
+		}
+		trafficRates.tick(time);
+		alertEngine.tick(time);
+		// quiet logs let raised rules recover
+		alertEngine.check(time, raisedAlerts);
+		if (time - statsIntervalStart < statsInterval) {
+			return false;
+		}
+		HTTPStatsSnapshot snapshot = new HTTPStatsSnapshot(statsSnapshot.get().getSequence() + 1, time,
+				statsIntervalStart, lastRequestTime, logStats, trafficRates, raisedAlerts, alertEngine.getStatuses(),
+				ingestMetrics.sample(logStats.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG), System.nanoTime()));
+		statsSnapshot.set(snapshot);
+
+		// clear short statistics
+		logStats.clearSections();
+		logStats.clearUsers();
+		logStats.clearRemoteHosts();
+		logStats.clearTotalContent();
+		statsIntervalStart = time;
+		return true;
+	}
+
+	/**
+	 * Read log file lines appended since the last read
+	 * 
+	 * @param handler: log lines consumer
+	 * @return read byte count
+	 * @throws IOException:           while reading log file
+	 * @throws FileNotFoundException: while reading log file
+	 */
+	public long readLogLines(LineHandler handler) throws FileNotFoundException, IOException {
+		if (logFileTailer == null) {
+			logFileTailer = new LogFileTailer(logFilePath);
+		}
+		long lineCount = logFileTailer.getLineCount();
+		long readBytes = logFileTailer.poll(handler);
+		ingestMetrics.addRead(readBytes, logFileTailer.getLineCount() - lineCount);
+		ingestMetrics.setByteLag(logFileTailer.getByteLag());
+		ingestMetrics.setRotations(logFileTailer.getRotationCount(), logFileTailer.getTruncationCount());
+		return readBytes;
+	}
+
+	/**
+	 * Check the traffic average of the {@link #alertTimeWindow} and raise alerts,
+	 * {@link #alertEngine} rules are checked by {@link #publishStats()}
+	 */
+	public void checkAlerts() {
+		clockTime = System.currentTimeMillis();
+		if (alertMonitoringCounts.getStartTime() == SlidingWindowCounter.NO_TIME) {
+			return;
 		}
 
-		Date currentTime = new Date();
-		long checkedTimePeriod = currentTime.getTime() - alertMonitoringTimes.get(0);
+		Date currentTime = new Date(clockTime);
+		// expire requests older than the window
+		alertMonitoringCounts.advance(clockTime);
+		long checkedTimePeriod = clockTime - alertMonitoringCounts.getStartTime();
 		if (checkedTimePeriod >= alertTimeWindow) {// alert time windows aimed
+			// round up traffic average
 			int trafficAverage = (int) Math
-					.ceil(((float) alertMonitoringTimes.size() / (float) (checkedTimePeriod / 1000)));// round up
-																										// traffic
-																										// average
+					.ceil((double) alertMonitoringCounts.getSum() / (double) alertMonitoringCounts.getWindowSeconds());
 			// store traffic average in stats data
 			logStats.setAlertAverage(trafficAverage);
-			boolean lastAlertIsLow = raisedAlerts.isEmpty()
-					|| !HTTPStatsAlertType.HIGH_TRAFFIC.equals(raisedAlerts.get(raisedAlerts.size() - 1).getType());
-			if (lastAlertIsLow) {
+			if (!HTTPStatsAlert.isHighTrafficRaised(raisedAlerts)) {
 				if (trafficAverage > alertAverageThreshold) {
 					raisedAlerts.add(new HTTPStatsAlert(HTTPStatsAlertType.HIGH_TRAFFIC, trafficAverage, currentTime));
 				}
@@ -130,62 +368,95 @@ public class MonitorLog {
 					raisedAlerts.add(new HTTPStatsAlert(HTTPStatsAlertType.LOW_TRAFFIC, trafficAverage, currentTime));
 				}
 			}
+		}
+	}
 
-			// remove all outdated alert monitoring times
-			int lastCheckedTimeIndex = 0;
-			for (long time : alertMonitoringTimes) {
-				if (checkedTimePeriod < currentTime.getTime() - time) {
-					break;
-				}
-				lastCheckedTimeIndex++;
+	/**
+	 * Parses log line and enriches statistics
+	 * 
+	 * @param buffer: line bytes holder
+	 * @param offset: line first byte position in buffer
+	 * @param length: line byte count
+	 */
+	private void consumeLogLine(byte[] buffer, int offset, int length) {
+		// time some lines parsing
+		boolean timed = IngestMetrics.isParseSampled(parsedLineCount++);
+		long parseStart = timed ? System.nanoTime() : 0;
+		try {
+			// parse line into reused fields
+			HTTPLogByteParser.parse(buffer, offset, length, logFields);
+		} catch (HTTPLogRowFormatException e) {
+			consumeBadLogLine();
+			return;
+		} finally {
+			if (timed) {
+				ingestMetrics.recordParse(System.nanoTime() - parseStart);
 			}
-			alertMonitoringTimes = alertMonitoringTimes.subList(lastCheckedTimeIndex, alertMonitoringTimes.size());
 		}
+		if (consumeLogFields(logFields)) {
+			// the stats have changed
+			fileLogsHasChanged = true;
+		}
+	}
 
-		return true;
+	/**
+	 * Counts a log line which could not be parsed
+	 */
+	public void consumeBadLogLine() {
+		// increase bad format counter
+		logStats.increase(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
 	}
 
 	/**
-	 * Parses log line and enriches statistics
+	 * Enriches statistics with byte parsed log fields, see
+	 * {@link #consumeLogRow(HTTPLogRow)}. The fields source bytes are only read
+	 * during the call.
 	 * 
-	 * @param log line
-	 * @return log date: null when bad line format
+	 * @param fields
+	 * @return row consumed: false when row date is incoherent or older than the
+	 *         alert time window
 	 */
-	private Date consumeLogLine(String line) {
+	public boolean consumeLogFields(HTTPLogFields fields) {
+		logRow.bind(fields);
+		return consumeLogRow(logRow);
+	}
 
-		try {
+	/**
+	 * Enriches statistics with a parsed log row and collects its date for
+	 * alerting. The row is only read during the call: the caller can reuse it for
+	 * the next line.
+	 * 
+	 * @param logRow
+	 * @return row consumed: false when row date is incoherent or older than the
+	 *         alert time window
+	 */
+	public boolean consumeLogRow(HTTPLogRow logRow) {
 
-			// parse line
-			HTTPLogRow logRow = HTTPLogParser.parse(line);
+		long reqTime = logRow.getReqEpochMillis();
+		if (reqTime > clockTime) {// refresh clock before rejecting
+			clockTime = System.currentTimeMillis();
+		}
+		// check time logic
+		if (reqTime == HTTPLogFields.NO_DATE || clockTime < reqTime || alertMonitoringCounts.isExpired(reqTime)) {
+			// Incoherente date: increase bad format counter
+			logStats.increase(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
+			return false;
+		}
 
-			Date currentTime = new Date();
-			// check time logic
-			if (currentTime.getTime() < logRow.getReqDate().getTime() || (!alertMonitoringTimes.isEmpty()
-					&& logRow.getReqDate().getTime() < alertMonitoringTimes.get(0))) {
-				throw new HTTPLogRowFormatException("Incoherente date");
-			}
+		// increase stats values
+		logStats.addLogRow(logRow);
+		if (rollupStore != null) {
+			rollupStore.record(reqTime, logRow.getReqSatus(), logRow.getContentLength(), logRow.getReqSection());
+		}
 
-			// increase stats values
-			logStats.increase(HTTPStatsType.TOTAL_CONTENT, logRow.getContentLength());
-			logStats.increase(HTTPStatsType.TOTAL_REQUESTS);
-			for (HTTPStatsStatus status : HTTPStatsStatus.values()) {
-				if (status.getCode() == logRow.getReqSatus()) {
-					logStats.increase(status);
-				}
-			}
-			// section add
-			logStats.addSection(logRow.getReqSection());
-			// user add
-			logStats.addUser(logRow.getAuthUser());
-			// remoteHost add
-			logStats.addRemoteHost(logRow.getRemoteHost());
-
-			return logRow.getReqDate();
-		} catch (HTTPLogRowFormatException e) {
-			//increase bad format counter
-			logStats.increase(HTTPStatsType.TOTAL_BAD_FORMAT_LOG);
+		// count request for alerting
+		alertMonitoringCounts.add(reqTime);
+		alertEngine.add(reqTime, logRow.getReqSatus(), logRow.getContentLength(), logRow.getReqSection());
+		trafficRates.add(reqTime, logRow.getReqSatus());
+		if (reqTime > lastRequestTime) {
+			lastRequestTime = reqTime;
 		}
-		return null;
+		return true;
 	}
 
 	/**
@@ -204,6 +475,8 @@ public class MonitorLog {
 	 */
 	public void setLogFilePath(String logFilePath) {
 		this.logFilePath = logFilePath;
+		// restart reading from the new file beginning
+		closeLogFileTailer();
 	}
 
 	/**
@@ -240,10 +513,149 @@ public class MonitorLog {
 	 */
 	public void setAlertTimeWindow(int alertTimeWindow) {
 		this.alertTimeWindow = alertTimeWindow;
+		// restart monitoring with the new window size
+		alertMonitoringCounts = newAlertMonitoringCounts(alertTimeWindow);
+	}
+
+	/**
+	 * init alert monitoring counts covering time window
+	 * 
+	 * @param alertTimeWindow: milliseconds, rounded up to seconds
+	 * @return alert monitoring counts
+	 */
+	private static SlidingWindowCounter newAlertMonitoringCounts(int alertTimeWindow) {
+		return new SlidingWindowCounter(Math.max(1, (alertTimeWindow + 999) / 1000));
+	}
+
+	/**
+	 * {@link #alertMonitoringCounts}
+	 * 
+	 * @return alertMonitoringCounts
+	 */
+	public SlidingWindowCounter getAlertMonitoringCounts() {
+		return alertMonitoringCounts;
+	}
+
+	/**
+	 * {@link #trafficRates}: only the statistics writer thread may use it
+	 * 
+	 * @return trafficRates
+	 */
+	public TrafficRates getTrafficRates() {
+		return trafficRates;
+	}
+
+	/**
+	 * {@link #alertEngine}
+	 * 
+	 * @return alertEngine
+	 */
+	public AlertEngine getAlertEngine() {
+		return alertEngine;
+	}
+
+	/**
+	 * {@link #alertEngine}: set before monitoring starts
+	 * 
+	 * @param alertEngine
+	 */
+	public void setAlertEngine(AlertEngine alertEngine) {
+		this.alertEngine = alertEngine;
+	}
+
+	/**
+	 * {@link #statsInterval}
+	 * 
+	 * @return statsInterval
+	 */
+	public int getStatsInterval() {
+		return statsInterval;
+	}
+
+	/**
+	 * {@link #statsInterval}
+	 * 
+	 * @param statsInterval
+	 */
+	public void setStatsInterval(int statsInterval) {
+		this.statsInterval = statsInterval;
+	}
+
+	/**
+	 * {@link #checkpointFile}
+	 * 
+	 * @return checkpointFile: null when checkpoints are disabled
+	 */
+	public CheckpointFile getCheckpointFile() {
+		return checkpointFile;
 	}
 
 	/**
-	 * {@link #logStats}
+	 * enable checkpoints, see {@link #checkpointFile}
+	 * 
+	 * @param checkpointFilePath: null to disable checkpoints
+	 */
+	public void setCheckpointFilePath(String checkpointFilePath) {
+		this.checkpointFile = checkpointFilePath == null ? null : new CheckpointFile(checkpointFilePath);
+	}
+
+	/**
+	 * {@link #rollupStore}
+	 * 
+	 * @return rollupStore: null when disabled
+	 */
+	public RollupStore getRollupStore() {
+		return rollupStore;
+	}
+
+	/**
+	 * {@link #rollupStore}: written by the statistics writer thread, closed by the
+	 * caller
+	 * 
+	 * @param rollupStore: null to disable history
+	 */
+	public void setRollupStore(RollupStore rollupStore) {
+		this.rollupStore = rollupStore;
+	}
+
+	/**
+	 * {@link #checkpointInterval}
+	 * 
+	 * @return checkpointInterval
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * {@link #checkpointInterval}
+	 * 
+	 * @param checkpointInterval
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * Last published statistics, readable from any thread
+	 * 
+	 * @return statsSnapshot
+	 */
+	public HTTPStatsSnapshot getStatsSnapshot() {
+		return statsSnapshot.get();
+	}
+
+	/**
+	 * {@link #ingestMetrics}: its counters are readable from any thread
+	 * 
+	 * @return ingestMetrics
+	 */
+	public IngestMetrics getIngestMetrics() {
+		return ingestMetrics;
+	}
+
+	/**
+	 * {@link #logStats}: only the statistics writer thread may use it
 	 * 
 	 * @returnlogStats
 	 */
@@ -251,6 +663,15 @@ public class MonitorLog {
 		return logStats;
 	}
 
+	/**
+	 * {@link #logFileTailer}
+	 * 
+	 * @return logFileTailer: null until first update
+	 */
+	public LogFileTailer getLogFileTailer() {
+		return logFileTailer;
+	}
+
 	/**
 	 * {@link #raisedAlerts}
 	 * 
@@ -260,4 +681,31 @@ public class MonitorLog {
 		return raisedAlerts;
 	}
 
+	/**
+	 * close log file reader
+	 */
+	private void closeLogFileTailer() {
+		if (logFileTailer != null) {
+			try {
+				logFileTailer.close();
+			} catch (IOException e) {
+				// ignore: reader is dropped
+			}
+			logFileTailer = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		// save last read position
+		if (checkpointFile != null && logFileTailer != null) {
+			try {
+				writeCheckpoint();
+			} catch (IOException e) {
+				// ignore: last periodic checkpoint is kept
+			}
+		}
+		closeLogFileTailer();
+	}
+
 }
@@ -0,0 +1,464 @@
+package com.httplogmonitoringtool;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.HTTPLogFields;
+import com.httplogmonitoringtool.models.IngestMetrics;
+import com.httplogmonitoringtool.models.LogLineBatch;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.LineHandler;
+import com.httplogmonitoringtool.utils.LogFileMatcher;
+import com.httplogmonitoringtool.utils.LogFileTailer;
+
+/**
+ * Monitors many log files feeding one {@link MonitorLog}. Log files are
+ * matched by paths and glob patterns, matched again periodically to pick up new
+ * files. Each file has its own tailer, polled by a small shared scheduled
+ * thread pool with a poll interval growing while the file does not change.
+ * <p>
+ * Lines are copied and parsed outside of any lock, parsed batches are then
+ * applied to the {@link MonitorLog} under its lock: the thread holding it is
+ * the statistics writer.
+ *
+ * @author Remi c
+ *
+ */
+public class MultiLogMonitor implements Closeable {
+
+	/**
+	 * Default polling threads count
+	 */
+	public final static int DEFAULT_POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * Default patterns matching interval (milliseconds)
+	 */
+	public final static long DEFAULT_RESCAN_INTERVAL = 5000;
+
+	/**
+	 * Poll interval minimum value (milliseconds)
+	 */
+	private final static long MIN_POLL_INTERVAL = 10;
+
+	/**
+	 * Statistics publishing check interval (milliseconds)
+	 */
+	private final static long PUBLISH_INTERVAL = 200;
+
+	/**
+	 * Tailer initial buffer size: small, many files are tailed
+	 */
+	private final static int SOURCE_BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Monitored log file
+	 */
+	public static class LogSource implements LineHandler {
+
+		private final MultiLogMonitor monitor;
+		private final Path path;
+		private final LogFileTailer tailer;
+
+		// batch of the polling thread while polling
+		private LogLineBatch batch;
+		private long pollInterval = MIN_POLL_INTERVAL;
+		private volatile boolean closed = false;
+		private volatile String lastError;
+
+		// counters written under the monitor log lock
+		private volatile long lineCount = 0;
+		private volatile long requestCount = 0;
+		private volatile long badLineCount = 0;
+		private volatile long contentLength = 0;
+
+		// unread bytes counted in the monitor ingest metrics, guarded by the source
+		private long byteLag = 0;
+
+		private LogSource(MultiLogMonitor monitor, Path path) {
+			this.monitor = monitor;
+			this.path = path;
+			this.tailer = new LogFileTailer(path.toString(), SOURCE_BUFFER_SIZE);
+		}
+
+		/**
+		 * count a poll in the monitor log ingest metrics
+		 *
+		 * @param readBytes
+		 * @param readLines
+		 */
+		private synchronized void countRead(long readBytes, long readLines) {
+			IngestMetrics ingestMetrics = monitor.monitorLog.getIngestMetrics();
+			ingestMetrics.addRead(readBytes, readLines);
+			long newByteLag = closed ? 0 : tailer.getByteLag();
+			ingestMetrics.addByteLag(newByteLag - byteLag);
+			byteLag = newByteLag;
+		}
+
+		@Override
+		public void onLine(byte[] buffer, int offset, int length) {
+			if (!batch.add(buffer, offset, length)) {
+				monitor.apply(this, batch);
+				batch.add(buffer, offset, length);
+			}
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * @return read lines count
+		 */
+		public long getLineCount() {
+			return lineCount;
+		}
+
+		/**
+		 * @return consumed requests count
+		 */
+		public long getRequestCount() {
+			return requestCount;
+		}
+
+		/**
+		 * @return bad format or incoherent date lines count
+		 */
+		public long getBadLineCount() {
+			return badLineCount;
+		}
+
+		/**
+		 * @return consumed requests content length sum (bytes)
+		 */
+		public long getContentLength() {
+			return contentLength;
+		}
+
+		/**
+		 * @return handled log rotations count
+		 */
+		public long getRotationCount() {
+			return tailer.getRotationCount();
+		}
+
+		/**
+		 * @return handled truncations count
+		 */
+		public long getTruncationCount() {
+			return tailer.getTruncationCount();
+		}
+
+		/**
+		 * @return last reading error message, null when none
+		 */
+		public String getLastError() {
+			return lastError;
+		}
+	}
+
+	/**
+	 * Fed log monitor
+	 */
+	private final MonitorLog monitorLog;
+
+	/**
+	 * Monitored paths and patterns
+	 */
+	private final LogFileMatcher logFileMatcher;
+
+	/**
+	 * Tailers polling pool
+	 */
+	private final ScheduledThreadPoolExecutor executor;
+
+	/**
+	 * Poll interval maximum value when a file does not change (milliseconds)
+	 */
+	private final long maxPollInterval;
+
+	/**
+	 * Patterns matching interval (milliseconds)
+	 */
+	private final long rescanInterval;
+
+	/**
+	 * Monitored files by path
+	 */
+	private final ConcurrentHashMap<Path, LogSource> sources = new ConcurrentHashMap<Path, LogSource>();
+
+	/**
+	 * Monitored file reading each read file, by file identity: a rotated file
+	 * matching a pattern is not read again under its new name while its file is
+	 * monitored. Identities are dropped with their file, or once no matched file
+	 * has them: a new file may reuse them.
+	 */
+	private final ConcurrentHashMap<Object, LogSource> readFileKeys = new ConcurrentHashMap<Object, LogSource>();
+
+	/**
+	 * Line batch of each polling thread
+	 */
+	private final ThreadLocal<LogLineBatch> batches = ThreadLocal.withInitial(LogLineBatch::new);
+
+	/**
+	 * init monitor with {@link #DEFAULT_POOL_SIZE} and
+	 * {@link #DEFAULT_RESCAN_INTERVAL}
+	 *
+	 * @param monitorLog:      fed log monitor
+	 * @param patterns:        log file paths or glob patterns
+	 * @param maxPollInterval: poll interval maximum value (milliseconds)
+	 */
+	public MultiLogMonitor(MonitorLog monitorLog, List<String> patterns, long maxPollInterval) {
+		this(monitorLog, patterns, maxPollInterval, DEFAULT_POOL_SIZE, DEFAULT_RESCAN_INTERVAL);
+	}
+
+	/**
+	 * init monitor
+	 *
+	 * @param monitorLog:      fed log monitor
+	 * @param patterns:        log file paths or glob patterns
+	 * @param maxPollInterval: poll interval maximum value (milliseconds)
+	 * @param poolSize:        polling threads count
+	 * @param rescanInterval:  patterns matching interval (milliseconds)
+	 */
+	public MultiLogMonitor(MonitorLog monitorLog, List<String> patterns, long maxPollInterval, int poolSize,
+			long rescanInterval) {
+		this.monitorLog = monitorLog;
+		this.logFileMatcher = new LogFileMatcher(patterns);
+		this.maxPollInterval = Math.max(MIN_POLL_INTERVAL, maxPollInterval);
+		this.rescanInterval = rescanInterval;
+		this.executor = new ScheduledThreadPoolExecutor(poolSize, runnable -> {
+			Thread thread = new Thread(runnable, "log-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * start matching patterns, polling files and publishing statistics
+	 */
+	public void start() {
+		executor.scheduleWithFixedDelay(this::rescan, 0, rescanInterval, TimeUnit.MILLISECONDS);
+		executor.scheduleWithFixedDelay(this::publishStats, PUBLISH_INTERVAL, PUBLISH_INTERVAL,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * match patterns: add new files, remove deleted ones
+	 */
+	public void rescan() {
+		Set<Path> paths = logFileMatcher.match();
+		Set<Object> fileKeys = new HashSet<Object>();
+		for (Path path : paths) {
+			Object fileKey;
+			try {
+				fileKey = getFileKey(Files.readAttributes(path, BasicFileAttributes.class));
+			} catch (IOException e) {
+				continue;// removed meanwhile
+			}
+			fileKeys.add(fileKey);
+			if (sources.containsKey(path)) {
+				continue;
+			}
+			LogSource reader = readFileKeys.get(fileKey);
+			if (reader != null && !reader.closed) {// rotated file already read
+				continue;
+			}
+			LogSource source = new LogSource(this, path);
+			if (sources.putIfAbsent(path, source) == null) {
+				schedule(source, 0);
+			}
+		}
+		// removed files
+		for (LogSource source : sources.values()) {
+			if (!paths.contains(source.path) && !Files.exists(source.path)) {
+				remove(source);
+			}
+		}
+		// deleted files: their identity may be reused
+		readFileKeys.keySet().retainAll(fileKeys);
+	}
+
+	/**
+	 * poll a file and schedule its next poll
+	 *
+	 * @param source
+	 */
+	private void poll(LogSource source) {
+		if (source.closed) {
+			return;
+		}
+		LogLineBatch batch = batches.get();
+		source.batch = batch;
+		try {
+			long lineCount = source.tailer.getLineCount();
+			long readBytes = source.tailer.poll(source);
+			apply(source, batch);
+			source.countRead(readBytes, source.tailer.getLineCount() - lineCount);
+			readFileKeys.put(source.tailer.getFileKey(), source);
+			source.lastError = null;
+			// poll changing files often, back off otherwise
+			source.pollInterval = readBytes > 0 ? MIN_POLL_INTERVAL
+					: Math.min(maxPollInterval, source.pollInterval * 2);
+		} catch (FileNotFoundException e) {
+			remove(source);
+		} catch (IOException e) {
+			source.lastError = e.getMessage();
+			source.pollInterval = maxPollInterval;
+		} finally {
+			batch.clear();
+			source.batch = null;
+		}
+		schedule(source, source.pollInterval);
+	}
+
+	/**
+	 * schedule a file poll
+	 *
+	 * @param source
+	 * @param delay:  milliseconds
+	 */
+	private void schedule(LogSource source, long delay) {
+		if (source.closed || executor.isShutdown()) {
+			return;
+		}
+		executor.schedule(() -> poll(source), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * parse batch lines, then apply them to the monitor log statistics
+	 *
+	 * @param source: batch file
+	 * @param batch:  cleared when applied
+	 */
+	private void apply(LogSource source, LogLineBatch batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		// parse outside of the lock, timing some lines
+		IngestMetrics ingestMetrics = monitorLog.getIngestMetrics();
+		byte[] data = batch.getData();
+		for (int i = 0; i < batch.getLineCount(); i++) {
+			boolean timed = IngestMetrics.isParseSampled(i);
+			long parseStart = timed ? System.nanoTime() : 0;
+			try {
+				HTTPLogByteParser.parse(data, batch.getLineOffset(i), batch.getLineLength(i), batch.getFields(i));
+				batch.setParsed(i, true);
+			} catch (HTTPLogRowFormatException e) {
+				batch.setParsed(i, false);
+			}
+			if (timed) {
+				ingestMetrics.recordParse(System.nanoTime() - parseStart);
+			}
+		}
+		synchronized (monitorLog) {
+			long requests = 0;
+			long content = 0;
+			for (int i = 0; i < batch.getLineCount(); i++) {
+				HTTPLogFields fields = batch.getFields(i);
+				if (!batch.isParsed(i)) {
+					monitorLog.consumeBadLogLine();
+				} else if (monitorLog.consumeLogFields(fields)) {
+					requests++;
+					content += fields.getContentLength();
+				}
+			}
+			if (requests > 0) {
+				monitorLog.checkAlerts();
+			}
+			monitorLog.publishStats();
+			source.lineCount += batch.getLineCount();
+			source.requestCount += requests;
+			source.badLineCount += batch.getLineCount() - requests;
+			source.contentLength += content;
+		}
+		batch.clear();
+	}
+
+	/**
+	 * publish statistics while files do not change
+	 */
+	private void publishStats() {
+		synchronized (monitorLog) {
+			monitorLog.publishStats();
+		}
+	}
+
+	/**
+	 * stop monitoring a file
+	 *
+	 * @param source
+	 */
+	private void remove(LogSource source) {
+		source.closed = true;
+		sources.remove(source.path, source);
+		readFileKeys.values().removeIf(reader -> reader == source);
+		source.countRead(0, 0);
+		try {
+			source.tailer.close();
+		} catch (IOException e) {
+			// ignore: tailer is dropped
+		}
+	}
+
+	/**
+	 * get file identity from file attributes
+	 *
+	 * @param attributes
+	 * @return file key (inode) or creation time when file keys are not supported
+	 */
+	private static Object getFileKey(BasicFileAttributes attributes) {
+		return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+	}
+
+	/**
+	 * get monitored files
+	 *
+	 * @return monitored files sorted by path
+	 */
+	public List<LogSource> getSources() {
+		List<LogSource> list = new ArrayList<LogSource>(sources.values());
+		Collections.sort(list, (s1, s2) -> s1.path.compareTo(s2.path));
+		return list;
+	}
+
+	/**
+	 * check whether a monitored path is a pattern
+	 *
+	 * @param patterns
+	 * @return several paths or at least one glob pattern
+	 */
+	public static boolean isMultiLog(List<String> patterns) {
+		return patterns.size() > 1 || (patterns.size() == 1 && LogFileMatcher.isGlob(patterns.get(0)));
+	}
+
+	/**
+	 * stop polling and close all files
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (LogSource source : sources.values()) {
+			remove(source);
+		}
+	}
+
+}
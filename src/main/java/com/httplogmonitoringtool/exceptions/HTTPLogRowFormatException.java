@@ -1,7 +1,8 @@
 package com.httplogmonitoringtool.exceptions;
 
 /**
- * Throwed when parsing http traffic log
+ * Throwed when parsing http traffic log. Thrown for each bad format line: stack
+ * trace is not filled to keep it cheap.
  * 
  * @author Remi c
  *
@@ -14,6 +15,6 @@ public class HTTPLogRowFormatException extends Exception {
 	private static final long serialVersionUID = 1L;
 
 	public HTTPLogRowFormatException(String message) {
-		super(message);
+		super(message, null, false, false);
 	}
 }
@@ -0,0 +1,88 @@
+package com.httplogmonitoringtool.models;
+
+/**
+ * Value monitored by an {@link AlertRule} over its time window
+ *
+ * @author Remi c
+ *
+ */
+public enum AlertMetric {
+
+	/**
+	 * requests per second
+	 */
+	REQUEST_RATE("request_rate", false, "requests/s"),
+	/**
+	 * response bytes per second
+	 */
+	BYTES_RATE("bytes_rate", false, "bytes/s"),
+	/**
+	 * requests of one status code (argument) per second
+	 */
+	STATUS_RATE("status_rate", true, "requests/s"),
+	/**
+	 * percentage of requests of one status class (argument: 1 to 5)
+	 */
+	STATUS_CLASS_RATIO("status_class_ratio", true, "%"),
+	/**
+	 * requests of one section (argument) per second
+	 */
+	SECTION_RATE("section_rate", true, "requests/s"),
+	/**
+	 * exponentially weighted requests per second, the window is the
+	 * {@link EwmaRate} horizon
+	 */
+	EWMA_REQUEST_RATE("ewma_request_rate", false, "requests/s"),
+	/**
+	 * exponentially weighted requests of one status class (argument: 1 to 5)
+	 * per second, the window is the {@link EwmaRate} horizon
+	 */
+	EWMA_STATUS_CLASS_RATE("ewma_status_class_rate", true, "requests/s");
+
+	private final String value;
+	private final boolean argument;
+	private final String unit;
+
+	/**
+	 * @param value:    rules file name
+	 * @param argument: metric needs an argument
+	 * @param unit
+	 */
+	private AlertMetric(final String value, final boolean argument, final String unit) {
+		this.value = value;
+		this.argument = argument;
+		this.unit = unit;
+	}
+
+	/**
+	 * get metric by rules file name
+	 *
+	 * @param value
+	 * @return metric
+	 * @throws IllegalArgumentException: unknown metric
+	 */
+	public static AlertMetric fromValue(String value) {
+		for (AlertMetric metric : values()) {
+			if (metric.value.equals(value)) {
+				return metric;
+			}
+		}
+		throw new IllegalArgumentException("Unknown alert metric " + value);
+	}
+
+	/**
+	 * @return metric needs an argument
+	 */
+	public boolean hasArgument() {
+		return argument;
+	}
+
+	public String getUnit() {
+		return unit;
+	}
+
+	@Override
+	public String toString() {
+		return value;
+	}
+}
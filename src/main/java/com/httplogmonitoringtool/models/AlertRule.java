@@ -0,0 +1,137 @@
+package com.httplogmonitoringtool.models;
+
+/**
+ * Alert rule definition: an {@link AlertMetric} monitored over a time window,
+ * raised when it exceeds {@link #raiseThreshold} and recovered when it goes
+ * back under {@link #recoverThreshold} (hysteresis: the recover threshold is
+ * not above the raise one).
+ * <p>
+ * Rules file line format:
+ * {@code name metric [argument] window_seconds raise_threshold [recover_threshold]},
+ * for example {@code errors status_class_ratio 5 60 5 3}.
+ *
+ * @author Remi c
+ *
+ */
+public class AlertRule {
+
+	private final String name;
+	private final AlertMetric metric;
+
+	/**
+	 * status code, status class or section, null when the metric has none
+	 */
+	private final String argument;
+
+	private final int windowSeconds;
+	private final double raiseThreshold;
+	private final double recoverThreshold;
+
+	/**
+	 * init rule
+	 *
+	 * @param name:             unique rule name, without spaces
+	 * @param metric
+	 * @param argument:         metric argument, null when none
+	 * @param windowSeconds:    monitored window (>0 seconds)
+	 * @param raiseThreshold:   alert is raised above this value
+	 * @param recoverThreshold: alert is recovered under this value (<=
+	 *                          raiseThreshold)
+	 * @throws IllegalArgumentException: bad rule
+	 */
+	public AlertRule(String name, AlertMetric metric, String argument, int windowSeconds, double raiseThreshold,
+			double recoverThreshold) {
+		if (name == null || name.isEmpty() || name.indexOf(' ') >= 0) {
+			throw new IllegalArgumentException("Bad alert rule name \"" + name + "\"");
+		}
+		if (metric.hasArgument() != (argument != null)) {
+			throw new IllegalArgumentException("Alert metric " + metric
+					+ (metric.hasArgument() ? " needs an argument" : " has no argument"));
+		}
+		if (metric == AlertMetric.STATUS_RATE) {
+			int code = Integer.parseInt(argument);
+			if (code < HTTPStats.MIN_STATUS_CODE || code > HTTPStats.MAX_STATUS_CODE) {
+				throw new IllegalArgumentException("Bad status code " + argument);
+			}
+		} else if (metric == AlertMetric.STATUS_CLASS_RATIO || metric == AlertMetric.EWMA_STATUS_CLASS_RATE) {
+			int statusClass = Integer.parseInt(argument);
+			if (statusClass < HTTPStats.MIN_STATUS_CODE / 100 || statusClass > HTTPStats.MAX_STATUS_CODE / 100) {
+				throw new IllegalArgumentException("Bad status class " + argument);
+			}
+		}
+		if (windowSeconds <= 0) {
+			throw new IllegalArgumentException("Alert window must be > 0 second");
+		}
+		if (recoverThreshold > raiseThreshold) {
+			throw new IllegalArgumentException("Recover threshold must not exceed raise threshold");
+		}
+		this.name = name;
+		this.metric = metric;
+		this.argument = argument;
+		this.windowSeconds = windowSeconds;
+		this.raiseThreshold = raiseThreshold;
+		this.recoverThreshold = recoverThreshold;
+	}
+
+	/**
+	 * parse a rules file line, see {@link AlertRule}: the recover threshold
+	 * defaults to the raise threshold
+	 *
+	 * @param line
+	 * @return rule
+	 * @throws IllegalArgumentException: bad rule
+	 */
+	public static AlertRule parse(String line) {
+		String[] fields = line.trim().split("\\s+");
+		if (fields.length < 4) {
+			throw new IllegalArgumentException("Incomplete alert rule \"" + line + "\"");
+		}
+		AlertMetric metric = AlertMetric.fromValue(fields[1]);
+		int index = 2;
+		String argument = metric.hasArgument() ? fields[index++] : null;
+		int expectedLength = index + 2;
+		if (fields.length != expectedLength && fields.length != expectedLength + 1) {
+			throw new IllegalArgumentException("Bad alert rule fields count \"" + line + "\"");
+		}
+		int windowSeconds = Integer.parseInt(fields[index++]);
+		double raiseThreshold = Double.parseDouble(fields[index++]);
+		double recoverThreshold = index < fields.length ? Double.parseDouble(fields[index]) : raiseThreshold;
+		return new AlertRule(fields[0], metric, argument, windowSeconds, raiseThreshold, recoverThreshold);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public AlertMetric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * {@link #argument}
+	 *
+	 * @return argument, null when none
+	 */
+	public String getArgument() {
+		return argument;
+	}
+
+	public int getWindowSeconds() {
+		return windowSeconds;
+	}
+
+	public double getRaiseThreshold() {
+		return raiseThreshold;
+	}
+
+	public double getRecoverThreshold() {
+		return recoverThreshold;
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + metric + (argument == null ? "" : " " + argument) + " " + windowSeconds + " "
+				+ raiseThreshold + " " + recoverThreshold;
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.httplogmonitoringtool.models;
+
+/**
+ * Immutable alert rule state at statistics snapshot time
+ *
+ * @author Remi c
+ *
+ */
+public class AlertRuleStatus {
+
+	private final AlertRule rule;
+
+	/**
+	 * last evaluated metric value
+	 */
+	private final double value;
+
+	/**
+	 * rule alert is raised
+	 */
+	private final boolean raised;
+
+	public AlertRuleStatus(AlertRule rule, double value, boolean raised) {
+		this.rule = rule;
+		this.value = value;
+		this.raised = raised;
+	}
+
+	public AlertRule getRule() {
+		return rule;
+	}
+
+	public double getValue() {
+		return value;
+	}
+
+	public boolean isRaised() {
+		return raised;
+	}
+
+}
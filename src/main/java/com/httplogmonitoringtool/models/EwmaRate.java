@@ -0,0 +1,141 @@
+package com.httplogmonitoringtool.models;
+
+/**
+ * Exponentially weighted moving events rate, as the Unix load averages: events
+ * are only counted, and the rate is updated once per {@link #TICK_INTERVAL}
+ * with the rate of that tick. Older ticks weigh exponentially less: a tick
+ * older than the horizon weighs about a third of the current one. The rate
+ * starts at 0 and events are counted by their own time, so a log backlog is
+ * not seen as a burst. Memory and update cost are constant. Not thread safe.
+ *
+ * @author Remi c
+ *
+ */
+public class EwmaRate {
+
+	/**
+	 * Rate update interval: 5 seconds (milliseconds)
+	 */
+	public final static long TICK_INTERVAL = 5000;
+
+	/**
+	 * No tick time marker
+	 */
+	private final static long NO_TIME = Long.MIN_VALUE;
+
+	/**
+	 * averaging horizon (seconds)
+	 */
+	private final int horizonSeconds;
+
+	/**
+	 * weight of a new tick rate: 1 - e^(-tick/horizon)
+	 */
+	private final double alpha;
+
+	/**
+	 * events counted since the last tick
+	 */
+	private long uncounted = 0;
+
+	/**
+	 * events per second
+	 */
+	private double rate = 0;
+
+	/**
+	 * current tick start time (epoch milliseconds), {@link #NO_TIME} before the
+	 * first {@link #tick(long)} or {@link #add(long, long)}
+	 */
+	private long lastTick = NO_TIME;
+
+	/**
+	 * init rate
+	 *
+	 * @param horizonSeconds: averaging horizon (>0 seconds)
+	 */
+	public EwmaRate(int horizonSeconds) {
+		if (horizonSeconds <= 0) {
+			throw new IllegalArgumentException("Horizon must be > 0 second");
+		}
+		this.horizonSeconds = horizonSeconds;
+		this.alpha = 1 - Math.exp(-TICK_INTERVAL / 1000d / horizonSeconds);
+	}
+
+	/**
+	 * copy rate
+	 *
+	 * @return independent copy
+	 */
+	public EwmaRate copy() {
+		EwmaRate copy = new EwmaRate(horizonSeconds);
+		copy.uncounted = uncounted;
+		copy.rate = rate;
+		copy.lastTick = lastTick;
+		return copy;
+	}
+
+	/**
+	 * count events at their time: events after the current tick close the
+	 * elapsed ticks first, late events of the previous tick are counted in the
+	 * current one, and older events (a backlog read after the rate started) are
+	 * ignored
+	 *
+	 * @param time:  events time (epoch milliseconds), the first call starts the
+	 *               first tick unless {@link #tick(long)} did
+	 * @param count
+	 */
+	public void add(long time, long count) {
+		if (lastTick == NO_TIME) {
+			lastTick = time;
+		} else if (time - lastTick >= TICK_INTERVAL) {
+			tick(time);
+		} else if (lastTick - time > TICK_INTERVAL) {// closed tick
+			return;
+		}
+		uncounted += count;
+	}
+
+	/**
+	 * update the rate with the ticks elapsed up to time: ticks without events
+	 * decay the rate at once
+	 *
+	 * @param time: epoch milliseconds, the first call starts the first tick
+	 */
+	public void tick(long time) {
+		if (lastTick == NO_TIME) {
+			lastTick = time;
+			return;
+		}
+		long ticks = (time - lastTick) / TICK_INTERVAL;
+		if (ticks <= 0) {
+			return;
+		}
+		lastTick += ticks * TICK_INTERVAL;
+		double tickRate = uncounted * 1000d / TICK_INTERVAL;
+		uncounted = 0;
+		rate += alpha * (tickRate - rate);
+		if (ticks > 1) {// next ticks had no events
+			rate *= Math.pow(1 - alpha, ticks - 1);
+		}
+	}
+
+	/**
+	 * {@link #rate}
+	 *
+	 * @return events per second, 0 before the first tick
+	 */
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * {@link #horizonSeconds}
+	 *
+	 * @return horizonSeconds
+	 */
+	public int getHorizonSeconds() {
+		return horizonSeconds;
+	}
+
+}
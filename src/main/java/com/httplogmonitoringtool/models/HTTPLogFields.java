@@ -0,0 +1,255 @@
+package com.httplogmonitoringtool.models;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP log row parsed fields positions: each text field is stored as an offset
+ * and a length in the source line bytes, numeric fields are stored as
+ * primitives. Instances are reusable, {@link #reset(byte[])} prepares them for
+ * the next line.
+ * <p>
+ * Request type and protocol may contain one ignored '"' byte (the request
+ * quotes): its position is stored in {@link #reqTypeSkip} and
+ * {@link #reqProtocolSkip} (-1 when none).
+ *
+ * @author Remi c
+ *
+ */
+public class HTTPLogFields {
+
+	/**
+	 * no request date parsed
+	 */
+	public final static long NO_DATE = Long.MIN_VALUE;
+
+	private byte[] source;
+	private int remoteHostOffset;
+	private int remoteHostLength;
+	private int remoteLogNameOffset;
+	private int remoteLogNameLength;
+	private int authUserOffset;
+	private int authUserLength;
+	private int reqTypeOffset;
+	private int reqTypeLength;
+	private int reqTypeSkip;
+	private int reqResourceOffset;
+	private int reqResourceLength;
+	private int reqSectionLength;
+	private int reqProtocolOffset;
+	private int reqProtocolLength;
+	private int reqProtocolSkip;
+	private long reqEpochMillis;
+	private int reqSatus;
+	private int contentLength;
+
+	/**
+	 * init empty fields
+	 */
+	public HTTPLogFields() {
+		reset(null);
+	}
+
+	/**
+	 * clear all fields before parsing a new line
+	 *
+	 * @param source: line bytes holder
+	 */
+	public void reset(byte[] source) {
+		this.source = source;
+		remoteHostLength = -1;
+		remoteLogNameLength = -1;
+		authUserLength = -1;
+		reqTypeLength = -1;
+		reqTypeSkip = -1;
+		reqResourceLength = -1;
+		reqSectionLength = -1;
+		reqProtocolLength = -1;
+		reqProtocolSkip = -1;
+		reqEpochMillis = NO_DATE;
+		reqSatus = -1;
+		contentLength = 0;
+	}
+
+	/**
+	 * decode a UTF-8 field as string
+	 *
+	 * @param offset
+	 * @param length: -1 when field is not set
+	 * @param skip:   ignored byte position, -1 when none
+	 * @return field value, null when not set
+	 */
+	private String decode(int offset, int length, int skip) {
+		if (length < 0) {
+			return null;
+		} else if (skip < 0) {
+			return new String(source, offset, length, StandardCharsets.UTF_8);
+		}
+		return new String(source, offset, skip - offset, StandardCharsets.UTF_8)
+				+ new String(source, skip + 1, offset + length - skip - 1, StandardCharsets.UTF_8);
+	}
+
+	public byte[] getSource() {
+		return source;
+	}
+
+	public int getRemoteHostOffset() {
+		return remoteHostOffset;
+	}
+
+	public int getRemoteHostLength() {
+		return remoteHostLength;
+	}
+
+	public String getRemoteHost() {
+		return decode(remoteHostOffset, remoteHostLength, -1);
+	}
+
+	public void setRemoteHost(int offset, int length) {
+		this.remoteHostOffset = offset;
+		this.remoteHostLength = length;
+	}
+
+	public int getRemoteLogNameOffset() {
+		return remoteLogNameOffset;
+	}
+
+	public int getRemoteLogNameLength() {
+		return remoteLogNameLength;
+	}
+
+	public String getRemoteLogName() {
+		return decode(remoteLogNameOffset, remoteLogNameLength, -1);
+	}
+
+	public void setRemoteLogName(int offset, int length) {
+		this.remoteLogNameOffset = offset;
+		this.remoteLogNameLength = length;
+	}
+
+	public int getAuthUserOffset() {
+		return authUserOffset;
+	}
+
+	public int getAuthUserLength() {
+		return authUserLength;
+	}
+
+	public String getAuthUser() {
+		return decode(authUserOffset, authUserLength, -1);
+	}
+
+	public void setAuthUser(int offset, int length) {
+		this.authUserOffset = offset;
+		this.authUserLength = length;
+	}
+
+	public int getReqTypeOffset() {
+		return reqTypeOffset;
+	}
+
+	public int getReqTypeLength() {
+		return reqTypeLength;
+	}
+
+	public int getReqTypeSkip() {
+		return reqTypeSkip;
+	}
+
+	public String getReqType() {
+		return decode(reqTypeOffset, reqTypeLength, reqTypeSkip);
+	}
+
+	public void setReqType(int offset, int length, int skip) {
+		this.reqTypeOffset = offset;
+		this.reqTypeLength = length;
+		this.reqTypeSkip = skip;
+	}
+
+	public int getReqResourceOffset() {
+		return reqResourceOffset;
+	}
+
+	public int getReqResourceLength() {
+		return reqResourceLength;
+	}
+
+	public String getReqResource() {
+		return decode(reqResourceOffset, reqResourceLength, -1);
+	}
+
+	public void setReqResource(int offset, int length) {
+		this.reqResourceOffset = offset;
+		this.reqResourceLength = length;
+	}
+
+	/**
+	 * section starts at {@link #reqResourceOffset}
+	 *
+	 * @return section offset
+	 */
+	public int getReqSectionOffset() {
+		return reqResourceOffset;
+	}
+
+	public int getReqSectionLength() {
+		return reqSectionLength;
+	}
+
+	public String getReqSection() {
+		return decode(reqResourceOffset, reqSectionLength, -1);
+	}
+
+	public void setReqSectionLength(int length) {
+		this.reqSectionLength = length;
+	}
+
+	public int getReqProtocolOffset() {
+		return reqProtocolOffset;
+	}
+
+	public int getReqProtocolLength() {
+		return reqProtocolLength;
+	}
+
+	public int getReqProtocolSkip() {
+		return reqProtocolSkip;
+	}
+
+	public String getReqProtocol() {
+		return decode(reqProtocolOffset, reqProtocolLength, reqProtocolSkip);
+	}
+
+	public void setReqProtocol(int offset, int length, int skip) {
+		this.reqProtocolOffset = offset;
+		this.reqProtocolLength = length;
+		this.reqProtocolSkip = skip;
+	}
+
+	/**
+	 * @return request date epoch milliseconds, {@link #NO_DATE} when not set
+	 */
+	public long getReqEpochMillis() {
+		return reqEpochMillis;
+	}
+
+	public void setReqEpochMillis(long reqEpochMillis) {
+		this.reqEpochMillis = reqEpochMillis;
+	}
+
+	public int getReqSatus() {
+		return reqSatus;
+	}
+
+	public void setReqSatus(int reqSatus) {
+		this.reqSatus = reqSatus;
+	}
+
+	public int getContentLength() {
+		return contentLength;
+	}
+
+	public void setContentLength(int contentLength) {
+		this.contentLength = contentLength;
+	}
+
+}
@@ -2,9 +2,16 @@ package com.httplogmonitoringtool.models;
 
 import java.util.Date;
 
+import com.httplogmonitoringtool.utils.AsciiStringCache;
+
 /**
  * HTTP log row parsed line
- * 
+ * <p>
+ * A row can be reused for each line: {@link #bind(HTTPLogFields)} takes the
+ * primitive values of byte parsed fields, text fields are only decoded when
+ * their getter is called. Decoded remote hosts, users and sections are cached
+ * so repeated values do not allocate.
+ *
  * @author remi c
  *
  */
@@ -13,7 +20,7 @@ public class HTTPLogRow {
 	private String remoteHost;
 	private String remoteLogName;
 	private String authUser;
-	private Date reqDate;
+	private long reqEpochMillis = HTTPLogFields.NO_DATE;
 	private String reqType;
 	private String reqSection;
 	private String reqResource;
@@ -21,7 +28,55 @@ public class HTTPLogRow {
 	private int reqSatus = -1;
 	private int contentLength = 0;
 
+	/**
+	 * bound byte parsed fields: text fields not yet decoded are read from them,
+	 * null when not bound
+	 */
+	private HTTPLogFields fields;
+
+	/**
+	 * decoded repeated text fields cache, created on first bind
+	 */
+	private AsciiStringCache stringCache;
+
+	/**
+	 * reuse row for byte parsed fields. The row must not be used after the fields
+	 * source bytes change.
+	 *
+	 * @param fields
+	 */
+	public void bind(HTTPLogFields fields) {
+		if (stringCache == null) {
+			stringCache = new AsciiStringCache();
+		}
+		this.fields = fields;
+		remoteHost = null;
+		remoteLogName = null;
+		authUser = null;
+		reqType = null;
+		reqSection = null;
+		reqResource = null;
+		reqProtocol = null;
+		reqEpochMillis = fields.getReqEpochMillis();
+		reqSatus = fields.getReqSatus();
+		contentLength = fields.getContentLength();
+	}
+
+	/**
+	 * decode bound text field with cache
+	 *
+	 * @param offset
+	 * @param length: -1 when not set
+	 * @return field value, null when not set
+	 */
+	private String decodeCached(int offset, int length) {
+		return length < 0 ? null : stringCache.get(fields.getSource(), offset, length);
+	}
+
 	public String getRemoteHost() {
+		if (remoteHost == null && fields != null) {
+			remoteHost = decodeCached(fields.getRemoteHostOffset(), fields.getRemoteHostLength());
+		}
 		return remoteHost;
 	}
 
@@ -30,6 +85,9 @@ public class HTTPLogRow {
 	}
 
 	public String getRemoteLogName() {
+		if (remoteLogName == null && fields != null) {
+			remoteLogName = fields.getRemoteLogName();
+		}
 		return remoteLogName;
 	}
 
@@ -38,6 +96,9 @@ public class HTTPLogRow {
 	}
 
 	public String getAuthUser() {
+		if (authUser == null && fields != null) {
+			authUser = decodeCached(fields.getAuthUserOffset(), fields.getAuthUserLength());
+		}
 		return authUser;
 	}
 
@@ -45,15 +106,33 @@ public class HTTPLogRow {
 		this.authUser = authUser;
 	}
 
+	/**
+	 * @return request date, null when not set
+	 */
 	public Date getReqDate() {
-		return reqDate;
+		return reqEpochMillis == HTTPLogFields.NO_DATE ? null : new Date(reqEpochMillis);
 	}
 
 	public void setReqDate(Date reqDate) {
-		this.reqDate = reqDate;
+		this.reqEpochMillis = reqDate == null ? HTTPLogFields.NO_DATE : reqDate.getTime();
+	}
+
+	/**
+	 * @return request date epoch milliseconds, {@link HTTPLogFields#NO_DATE} when
+	 *         not set
+	 */
+	public long getReqEpochMillis() {
+		return reqEpochMillis;
+	}
+
+	public void setReqEpochMillis(long reqEpochMillis) {
+		this.reqEpochMillis = reqEpochMillis;
 	}
 
 	public String getReqType() {
+		if (reqType == null && fields != null) {
+			reqType = fields.getReqType();
+		}
 		return reqType;
 	}
 
@@ -62,6 +141,9 @@ public class HTTPLogRow {
 	}
 
 	public String getReqSection() {
+		if (reqSection == null && fields != null) {
+			reqSection = decodeCached(fields.getReqSectionOffset(), fields.getReqSectionLength());
+		}
 		return reqSection;
 	}
 
@@ -70,6 +152,9 @@ public class HTTPLogRow {
 	}
 
 	public String getReqResource() {
+		if (reqResource == null && fields != null) {
+			reqResource = fields.getReqResource();
+		}
 		return reqResource;
 	}
 
@@ -78,6 +163,9 @@ public class HTTPLogRow {
 	}
 
 	public String getReqProtocol() {
+		if (reqProtocol == null && fields != null) {
+			reqProtocol = fields.getReqProtocol();
+		}
 		return reqProtocol;
 	}
 
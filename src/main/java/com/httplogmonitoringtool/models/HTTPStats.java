@@ -1,10 +1,18 @@
 package com.httplogmonitoringtool.models;
 
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.httplogmonitoringtool.models.SpaceSavingCounter.Counter;
 
 /**
  * HTTP statistics
@@ -15,29 +23,66 @@ import java.util.stream.Collectors;
 public class HTTPStats {
 
 	/**
-	 * Common HTTP statistics counters
+	 * Lowest counted HTTP status code
 	 */
-	private final HashMap<HTTPStatsType, Long> statsValues = new HashMap<HTTPStatsType, Long>();
-	
+	public final static int MIN_STATUS_CODE = 100;
+
+	/**
+	 * Highest counted HTTP status code
+	 */
+	public final static int MAX_STATUS_CODE = 599;
+
+	/**
+	 * Default maximum counted sections, users and remote hosts: counts are
+	 * overestimated by at most 0.1% of requests
+	 */
+	public final static int DEFAULT_TOP_CAPACITY = 1000;
+
+	/**
+	 * Section response sizes sketch maximum bins: at 1% accuracy, sizes down to
+	 * the largest one / 160 are not collapsed
+	 */
+	public final static int SECTION_SIZES_MAX_BINS = 256;
+
+	/**
+	 * Common HTTP statistics counters indexed by {@link HTTPStatsType} ordinal
+	 */
+	private final long[] statsValues = new long[HTTPStatsType.values().length];
+
+	/**
+	 * All HTTP Status code counters indexed by code - {@link #MIN_STATUS_CODE}
+	 */
+	private final long[] statusCodes = new long[MAX_STATUS_CODE - MIN_STATUS_CODE + 1];
+
 	/**
-	 * All common HTTP Status code counters
+	 * {@link #statsValues} read only view
 	 */
-	private final HashMap<HTTPStatsStatus, Long> statsStatus = new HashMap<HTTPStatsStatus, Long>();
+	private final Map<HTTPStatsType, Long> statsValuesView;
+
+	/**
+	 * common HTTP Status code counters read only view
+	 */
+	private final Map<HTTPStatsStatus, Long> statsStatusView;
 	
 	/**
-	 * Counts section hits
+	 * Counts most hit sections
 	 */
-	private final HashMap<String, Integer> hitSections = new HashMap<String, Integer>();
+	private final SpaceSavingCounter hitSections;
 	
 	/**
-	 * Counts user requests
+	 * Response sizes of all requests
 	 */
-	private final HashMap<String, Integer> userCount = new HashMap<String, Integer>();
+	private final QuantileSketch contentSizes = new QuantileSketch();
+
+	/**
+	 * Counts most present users requests
+	 */
+	private final SpaceSavingCounter userCount;
 	
 	/**
-	 * Counts remote hosts requests
+	 * Counts most present remote hosts requests
 	 */
-	private final HashMap<String, Integer> remoteHostsCount = new HashMap<String, Integer>();
+	private final SpaceSavingCounter remoteHostsCount;
 	
 	/**
 	 * alert average value
@@ -50,9 +95,31 @@ public class HTTPStats {
 	public final static int MOST_HIT_SECTION_DISPLAYED = 3;
 
 	/**
-	 * init HTTPStats
+	 * init HTTPStats with {@link #DEFAULT_TOP_CAPACITY}
 	 */
 	public HTTPStats() {
+		this(DEFAULT_TOP_CAPACITY);
+	}
+
+	/**
+	 * init HTTPStats
+	 * 
+	 * @param topCapacity: maximum counted sections, users and remote hosts
+	 */
+	public HTTPStats(int topCapacity) {
+		hitSections = new SpaceSavingCounter(topCapacity);
+		userCount = new SpaceSavingCounter(topCapacity);
+		remoteHostsCount = new SpaceSavingCounter(topCapacity);
+		int[] typeIndexes = new int[HTTPStatsType.values().length];
+		for (HTTPStatsType type : HTTPStatsType.values()) {
+			typeIndexes[type.ordinal()] = type.ordinal();
+		}
+		statsValuesView = new CounterView<HTTPStatsType>(HTTPStatsType.values(), typeIndexes, statsValues);
+		int[] statusIndexes = new int[HTTPStatsStatus.values().length];
+		for (HTTPStatsStatus status : HTTPStatsStatus.values()) {
+			statusIndexes[status.ordinal()] = status.getCode() - MIN_STATUS_CODE;
+		}
+		statsStatusView = new CounterView<HTTPStatsStatus>(HTTPStatsStatus.values(), statusIndexes, statusCodes);
 		clear();
 	}
 
@@ -70,8 +137,8 @@ public class HTTPStats {
 	 * 
 	 * @param type
 	 */
-	public void increase(HTTPStatsType type, int value) {
-		statsValues.put(type, (long) (statsValues.get(type).intValue() + value));
+	public void increase(HTTPStatsType type, long value) {
+		statsValues[type.ordinal()] += value;
 	}
 
 	/**
@@ -80,7 +147,111 @@ public class HTTPStats {
 	 * @param type
 	 */
 	public void increase(HTTPStatsStatus status) {
-		statsStatus.put(status, (long) (statsStatus.get(status).intValue() + 1));
+		increaseStatus(status.getCode());
+	}
+
+	/**
+	 * increase HTTP Status code counter, codes out of [{@link #MIN_STATUS_CODE},
+	 * {@link #MAX_STATUS_CODE}] are ignored
+	 * 
+	 * @param code
+	 */
+	public void increaseStatus(int code) {
+		increaseStatus(code, 1);
+	}
+
+	/**
+	 * increase HTTP Status code counter by value, codes out of
+	 * [{@link #MIN_STATUS_CODE}, {@link #MAX_STATUS_CODE}] are ignored
+	 * 
+	 * @param code
+	 * @param value
+	 */
+	public void increaseStatus(int code, long value) {
+		if (code >= MIN_STATUS_CODE && code <= MAX_STATUS_CODE) {
+			statusCodes[code - MIN_STATUS_CODE] += value;
+		}
+	}
+
+	/**
+	 * add a consumed request: content, response size, request count, status code,
+	 * section, user and remote host
+	 * 
+	 * @param logRow
+	 */
+	public void addLogRow(HTTPLogRow logRow) {
+		// increase stats values
+		increase(HTTPStatsType.TOTAL_CONTENT, logRow.getContentLength());
+		increase(HTTPStatsType.TOTAL_REQUESTS);
+		increaseStatus(logRow.getReqSatus());
+		contentSizes.add(logRow.getContentLength());
+		// section add, response size of tracked sections
+		getSectionSizes(hitSections.offer(logRow.getReqSection())).add(logRow.getContentLength());
+		// user add
+		addUser(logRow.getAuthUser());
+		// remoteHost add
+		addRemoteHost(logRow.getRemoteHost());
+	}
+
+	/**
+	 * get response sizes sketch of a tracked section, cleared when the section
+	 * has just replaced another one
+	 * 
+	 * @param section: section counter
+	 * @return sketch
+	 */
+	private static QuantileSketch getSectionSizes(Counter section) {
+		QuantileSketch sizes = (QuantileSketch) section.getAttachment();
+		if (sizes == null) {
+			sizes = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, SECTION_SIZES_MAX_BINS);
+			section.setAttachment(sizes);
+		} else if (section.isNew()) {
+			sizes.clear();
+		}
+		return sizes;
+	}
+
+	/**
+	 * add other statistics counters to these ones. Top sections, users and remote
+	 * hosts are merged as Space-Saving counters, response sizes sketches are
+	 * merged, alert average is kept.
+	 * 
+	 * @param other
+	 */
+	public void merge(HTTPStats other) {
+		for (int i = 0; i < statsValues.length; i++) {
+			statsValues[i] += other.statsValues[i];
+		}
+		for (int i = 0; i < statusCodes.length; i++) {
+			statusCodes[i] += other.statusCodes[i];
+		}
+		contentSizes.merge(other.contentSizes);
+
+		// merged section counters get merged response sizes
+		HashMap<String, QuantileSketch> sectionSizes = new HashMap<String, QuantileSketch>();
+		for (Counter section : hitSections.top(hitSections.size())) {
+			if (section.getAttachment() != null) {
+				sectionSizes.put(section.getKey(), (QuantileSketch) section.getAttachment());
+			}
+		}
+		for (Counter section : other.hitSections.top(other.hitSections.size())) {
+			if (section.getAttachment() != null) {
+				QuantileSketch otherSizes = (QuantileSketch) section.getAttachment();
+				QuantileSketch sizes = sectionSizes.get(section.getKey());
+				if (sizes == null) {
+					sectionSizes.put(section.getKey(), otherSizes.copy());
+				} else {
+					sizes.merge(otherSizes);
+				}
+			}
+		}
+		hitSections.merge(other.hitSections);
+		for (Counter section : hitSections.top(hitSections.size())) {
+			section.setAttachment(sectionSizes.get(section.getKey()));
+		}
+
+		userCount.merge(other.userCount);
+		remoteHostsCount.merge(other.remoteHostsCount);
 	}
 
 	/**
@@ -89,38 +260,34 @@ public class HTTPStats {
 	 * @param section
 	 */
 	public void addSection(String section) {
-		hitSections.put(section, hitSections.containsKey(section) ? hitSections.get(section).intValue() + 1 : 1);
+		hitSections.offer(section);
 	}
 
 	/**
-	 * add section to user request counter
+	 * add user to user request counter
 	 * 
-	 * @param section
+	 * @param user
 	 */
-	public void addUser(String section) {
-		userCount.put(section, userCount.containsKey(section) ? userCount.get(section).intValue() + 1 : 1);
+	public void addUser(String user) {
+		userCount.offer(user);
 	}
 
 	/**
-	 * add section to remote host request counter
+	 * add remote host to remote host request counter
 	 * 
-	 * @param section
+	 * @param remoteHost
 	 */
-	public void addRemoteHost(String section) {
-		remoteHostsCount.put(section,
-				remoteHostsCount.containsKey(section) ? remoteHostsCount.get(section).intValue() + 1 : 1);
+	public void addRemoteHost(String remoteHost) {
+		remoteHostsCount.offer(remoteHost);
 	}
 
 	/**
 	 * clear all stats
 	 */
 	public void clear() {
-		for (HTTPStatsType type : HTTPStatsType.values()) {
-			statsValues.put(type, 0l);
-		}
-		for (HTTPStatsStatus type : HTTPStatsStatus.values()) {
-			statsStatus.put(type, 0l);
-		}
+		Arrays.fill(statsValues, 0l);
+		Arrays.fill(statusCodes, 0l);
+		contentSizes.clear();
 		hitSections.clear();
 		userCount.clear();
 		remoteHostsCount.clear();
@@ -150,10 +317,11 @@ public class HTTPStats {
 	}
 
 	/**
-	 * clear specific total content stats value
+	 * clear specific total content stats value and response sizes
 	 */
 	public void clearTotalContent() {
-		statsValues.put(HTTPStatsType.TOTAL_CONTENT, 0l);
+		statsValues[HTTPStatsType.TOTAL_CONTENT.ordinal()] = 0l;
+		contentSizes.clear();
 	}
 
 	/**
@@ -161,23 +329,59 @@ public class HTTPStats {
 	 * 
 	 * @return hitSections
 	 */
-	public HashMap<String, Integer> getHitSection() {
+	public SpaceSavingCounter getHitSection() {
 		return hitSections;
 	}
 
+	/**
+	 * {@link #contentSizes}
+	 * 
+	 * @return contentSizes
+	 */
+	public QuantileSketch getContentSizes() {
+		return contentSizes;
+	}
+
+	/**
+	 * get response sizes of a section since it is tracked
+	 * 
+	 * @param section
+	 * @return sketch, null when the section is not tracked
+	 */
+	public QuantileSketch getSectionContentSizes(String section) {
+		Counter counter = hitSections.get(section);
+		return counter == null ? null : (QuantileSketch) counter.getAttachment();
+	}
+
+	/**
+	 * {@link #userCount}
+	 * 
+	 * @return userCount
+	 */
+	public SpaceSavingCounter getUserCount() {
+		return userCount;
+	}
+
+	/**
+	 * {@link #remoteHostsCount}
+	 * 
+	 * @return remoteHostsCount
+	 */
+	public SpaceSavingCounter getRemoteHostsCount() {
+		return remoteHostsCount;
+	}
+
 	/**
 	 * get most hit sections limited to {@link #MOST_HIT_SECTION_DISPLAYED}
 	 * 
-	 * @return mostHitSection
+	 * @return mostHitSection sorted by most hit
 	 */
 	public HashMap<String, Integer> getMostHitSection() {
-		int maxCountSectionToDisplay = hitSections.size() > MOST_HIT_SECTION_DISPLAYED ? MOST_HIT_SECTION_DISPLAYED
-				: hitSections.size();
-		// sort section map by most hit
-		HashMap<String, Integer> sortedMap = hitSections.entrySet().stream()
-				.sorted(Collections.reverseOrder(Entry.comparingByValue())).limit(maxCountSectionToDisplay)
-				.collect(Collectors.toMap(Entry::getKey, Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-
+		List<Counter> top = hitSections.top(MOST_HIT_SECTION_DISPLAYED);
+		HashMap<String, Integer> sortedMap = new LinkedHashMap<String, Integer>();
+		for (Counter counter : top) {
+			sortedMap.put(counter.getKey(), (int) Math.min(counter.getCount(), Integer.MAX_VALUE));
+		}
 		return sortedMap;
 	}
 
@@ -187,15 +391,7 @@ public class HTTPStats {
 	 * @return
 	 */
 	public String getTopUser() {
-		if (userCount.isEmpty()) {
-			return "";
-		}
-		// sort user map by most counted
-		HashMap<String, Integer> sortedMap = userCount.entrySet().stream()
-				.sorted(Collections.reverseOrder(Entry.comparingByValue())).limit(1)
-				.collect(Collectors.toMap(Entry::getKey, Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
-
-		return sortedMap.keySet().iterator().next();
+		return getTopKey(userCount);
 	}
 
 	/**
@@ -204,33 +400,74 @@ public class HTTPStats {
 	 * @return
 	 */
 	public String getTopRemoteHost() {
-		if (remoteHostsCount.isEmpty()) {
-			return "";
+		return getTopKey(remoteHostsCount);
+	}
+
+	/**
+	 * get most counted key
+	 * 
+	 * @param counter
+	 * @return key, empty when nothing counted
+	 */
+	private static String getTopKey(SpaceSavingCounter counter) {
+		List<Counter> top = counter.top(1);
+		return top.isEmpty() ? "" : top.get(0).getKey();
+	}
+
+	/**
+	 * get common HTTP statistics counter
+	 * 
+	 * @param type
+	 * @return counter value
+	 */
+	public long getStatsValue(HTTPStatsType type) {
+		return statsValues[type.ordinal()];
+	}
+
+	/**
+	 * get HTTP Status code counter
+	 * 
+	 * @param code
+	 * @return counter value, 0 when code is not counted
+	 */
+	public long getStatusCount(int code) {
+		if (code < MIN_STATUS_CODE || code > MAX_STATUS_CODE) {
+			return 0;
 		}
-		// sort remoteHost map by most counted
-		HashMap<String, Integer> sortedMap = remoteHostsCount.entrySet().stream()
-				.sorted(Collections.reverseOrder(Entry.comparingByValue())).limit(1)
-				.collect(Collectors.toMap(Entry::getKey, Entry::getValue, (e1, e2) -> e1, LinkedHashMap::new));
+		return statusCodes[code - MIN_STATUS_CODE];
+	}
 
-		return sortedMap.keySet().iterator().next();
+	/**
+	 * get all counted HTTP Status codes
+	 * 
+	 * @return counters by status code sorted by code
+	 */
+	public TreeMap<Integer, Long> getStatusCounts() {
+		TreeMap<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+		for (int i = 0; i < statusCodes.length; i++) {
+			if (statusCodes[i] > 0) {
+				statusCounts.put(i + MIN_STATUS_CODE, statusCodes[i]);
+			}
+		}
+		return statusCounts;
 	}
 
 	/**
-	 * {@link #statsValues}
+	 * {@link #statsValues} read only view
 	 * 
 	 * @return statsValues
 	 */
-	public HashMap<HTTPStatsType, Long> getStatsValues() {
-		return statsValues;
+	public Map<HTTPStatsType, Long> getStatsValues() {
+		return statsValuesView;
 	}
 
 	/**
-	 * {@link #statsStatus}
+	 * common HTTP Status code counters read only view
 	 * 
 	 * @return statsStatus
 	 */
-	public HashMap<HTTPStatsStatus, Long> getStatsStatus() {
-		return statsStatus;
+	public Map<HTTPStatsStatus, Long> getStatsStatus() {
+		return statsStatusView;
 	}
 
 	/**
@@ -251,4 +488,77 @@ public class HTTPStats {
 		this.alertAverage = alertAverage;
 	}
 
+	/**
+	 * Read only map view of enum keyed counters
+	 *
+	 * @param <K> counter key
+	 */
+	private static class CounterView<K extends Enum<K>> extends AbstractMap<K, Long> {
+
+		private final K[] keys;
+		private final int[] indexes;
+		private final long[] counters;
+
+		/**
+		 * @param keys:     view keys in ordinal order
+		 * @param indexes:  counter index by key ordinal
+		 * @param counters: viewed counters
+		 */
+		private CounterView(K[] keys, int[] indexes, long[] counters) {
+			this.keys = keys;
+			this.indexes = indexes;
+			this.counters = counters;
+		}
+
+		@Override
+		public Long get(Object key) {
+			if (!containsKey(key)) {
+				return null;
+			}
+			return counters[indexes[((Enum<?>) key).ordinal()]];
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key != null && keys.length > 0 && keys[0].getDeclaringClass() == key.getClass();
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+		@Override
+		public Set<Entry<K, Long>> entrySet() {
+			return new AbstractSet<Entry<K, Long>>() {
+
+				@Override
+				public Iterator<Entry<K, Long>> iterator() {
+					return new Iterator<Entry<K, Long>>() {
+						private int ordinal = 0;
+
+						@Override
+						public boolean hasNext() {
+							return ordinal < keys.length;
+						}
+
+						@Override
+						public Entry<K, Long> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							K key = keys[ordinal++];
+							return new SimpleImmutableEntry<K, Long>(key, counters[indexes[key.ordinal()]]);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return keys.length;
+				}
+			};
+		}
+	}
+
 }
@@ -3,6 +3,7 @@ package com.httplogmonitoringtool.models;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Formatter;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -17,6 +18,17 @@ public class HTTPStatsAlert {
 	private int trafficAverage;
 	private Date date;
 
+	/**
+	 * {@link AlertRule} name of RULE_RAISED and RULE_RECOVERED alerts, null for
+	 * traffic alerts
+	 */
+	private String rule;
+
+	/**
+	 * rule metric value which triggered the alert
+	 */
+	private double value;
+
 	private final static SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
 
 	public HTTPStatsAlert(HTTPStatsAlertType type, int trafficAverage, Date date) {
@@ -26,16 +38,78 @@ public class HTTPStatsAlert {
 		this.date = date;
 	}
 
+	/**
+	 * init rule alert
+	 * 
+	 * @param type:  RULE_RAISED or RULE_RECOVERED
+	 * @param rule:  rule name
+	 * @param value: rule metric value
+	 * @param date
+	 */
+	public HTTPStatsAlert(HTTPStatsAlertType type, String rule, double value, Date date) {
+		this(type, (int) Math.ceil(value), date);
+		this.rule = rule;
+		this.value = value;
+	}
+
+	/**
+	 * check whether the last traffic alert is a HIGH_TRAFFIC one, rule alerts
+	 * are skipped
+	 * 
+	 * @param alerts: raised alerts, oldest first
+	 * @return high traffic alert is raised
+	 */
+	public static boolean isHighTrafficRaised(List<HTTPStatsAlert> alerts) {
+		for (int i = alerts.size() - 1; i >= 0; i--) {
+			HTTPStatsAlertType type = alerts.get(i).getType();
+			if (HTTPStatsAlertType.HIGH_TRAFFIC.equals(type) || HTTPStatsAlertType.LOW_TRAFFIC.equals(type)) {
+				return HTTPStatsAlertType.HIGH_TRAFFIC.equals(type);
+			}
+		}
+		return false;
+	}
+
 	public HTTPStatsAlertType getType() {
 		return type;
 	}
 
+	public int getTrafficAverage() {
+		return trafficAverage;
+	}
+
+	public Date getDate() {
+		return date;
+	}
+
+	/**
+	 * {@link #rule}
+	 * 
+	 * @return rule, null for traffic alerts
+	 */
+	public String getRule() {
+		return rule;
+	}
+
+	/**
+	 * {@link #value}
+	 * 
+	 * @return value, 0 for traffic alerts
+	 */
+	public double getValue() {
+		return value;
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		
 		try (Formatter formatter = new Formatter(sb, Locale.US)) {
-			formatter.format(type.toString(), trafficAverage, dateFormat.format(date));
+			if (rule == null) {
+				formatter.format(type.toString(), trafficAverage, dateFormat.format(date));
+			} else {
+				formatter.format(type.toString(), rule, String.format(Locale.US, "%.2f", value),
+						dateFormat.format(date));
+			}
 		}
 
 		return sb.toString();
@@ -9,7 +9,9 @@ package com.httplogmonitoringtool.models;
 public enum HTTPStatsAlertType {
 
 	HIGH_TRAFFIC("High traffic generated an alert - hits = %s/s, triggered at %s"),
-	LOW_TRAFFIC("Back to normal traffic - hits = %s/s, triggered at %s");
+	LOW_TRAFFIC("Back to normal traffic - hits = %s/s, triggered at %s"),
+	RULE_RAISED("Alert rule %s raised - value = %s, triggered at %s"),
+	RULE_RECOVERED("Alert rule %s recovered - value = %s, triggered at %s");
 
 	private final String value;
 
@@ -0,0 +1,304 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of HTTP statistics and raised alerts taken by the statistics
+ * writer. Snapshots are published to readers (console, exporters) which can
+ * read them from any thread without locking.
+ *
+ * @author Remi c
+ *
+ */
+public class HTTPStatsSnapshot {
+
+	/**
+	 * {@link #lastRequestTime} value when no request was consumed
+	 */
+	public final static long NO_TIME = Long.MIN_VALUE;
+
+	/**
+	 * publishing order, starts at 0
+	 */
+	private final long sequence;
+
+	/**
+	 * snapshot time (epoch milliseconds)
+	 */
+	private final long time;
+
+	/**
+	 * short statistics interval start (epoch milliseconds): sections, users,
+	 * remote hosts and content are counted since then
+	 */
+	private final long intervalStart;
+
+	/**
+	 * newest consumed request time (epoch milliseconds), {@link #NO_TIME} when
+	 * none
+	 */
+	private final long lastRequestTime;
+
+	private final Map<HTTPStatsType, Long> statsValues;
+	private final Map<HTTPStatsStatus, Long> statsStatus;
+	private final TreeMap<Integer, Long> statusCounts;
+	private final Map<String, Integer> mostHitSection;
+
+	/**
+	 * response sizes of the short statistics interval, must not be modified
+	 */
+	private final QuantileSketch contentSizes;
+
+	/**
+	 * response sizes of the most hit sections, must not be modified
+	 */
+	private final Map<String, QuantileSketch> sectionContentSizes;
+	private final String topUser;
+	private final String topRemoteHost;
+	private final int alertAverage;
+	private final List<HTTPStatsAlert> raisedAlerts;
+
+	/**
+	 * requests moving rates, must not be modified
+	 */
+	private final TrafficRates trafficRates;
+
+	/**
+	 * alert rules state, in rules order
+	 */
+	private final List<AlertRuleStatus> alertRuleStatuses;
+
+	/**
+	 * ingest health at snapshot time
+	 */
+	private final IngestStats ingestStats;
+
+	/**
+	 * copy statistics
+	 *
+	 * @param sequence:      publishing order
+	 * @param time:          snapshot time (epoch milliseconds)
+	 * @param intervalStart:   short statistics interval start (epoch
+	 *                         milliseconds)
+	 * @param lastRequestTime: newest consumed request time (epoch milliseconds)
+	 * @param stats:           copied statistics
+	 * @param trafficRates:    copied requests moving rates
+	 * @param raisedAlerts:    copied alerts
+	 * @param alertRuleStatuses: immutable alert rules state
+	 * @param ingestStats:     ingest health sample
+	 */
+	public HTTPStatsSnapshot(long sequence, long time, long intervalStart, long lastRequestTime, HTTPStats stats,
+			TrafficRates trafficRates, List<HTTPStatsAlert> raisedAlerts, List<AlertRuleStatus> alertRuleStatuses,
+			IngestStats ingestStats) {
+		this.sequence = sequence;
+		this.time = time;
+		this.intervalStart = intervalStart;
+		this.lastRequestTime = lastRequestTime;
+		this.statsValues = Collections.unmodifiableMap(new EnumMap<HTTPStatsType, Long>(stats.getStatsValues()));
+		this.statsStatus = Collections.unmodifiableMap(new EnumMap<HTTPStatsStatus, Long>(stats.getStatsStatus()));
+		this.statusCounts = stats.getStatusCounts();
+		this.mostHitSection = Collections.unmodifiableMap(new LinkedHashMap<String, Integer>(stats.getMostHitSection()));
+		this.contentSizes = stats.getContentSizes().copy();
+		LinkedHashMap<String, QuantileSketch> sectionContentSizes = new LinkedHashMap<String, QuantileSketch>();
+		for (String section : mostHitSection.keySet()) {
+			QuantileSketch sizes = stats.getSectionContentSizes(section);
+			if (sizes != null) {
+				sectionContentSizes.put(section, sizes.copy());
+			}
+		}
+		this.sectionContentSizes = Collections.unmodifiableMap(sectionContentSizes);
+		this.topUser = stats.getTopUser();
+		this.topRemoteHost = stats.getTopRemoteHost();
+		this.alertAverage = stats.getAlertAverage();
+		this.trafficRates = trafficRates.copy();
+		this.raisedAlerts = Collections.unmodifiableList(new ArrayList<HTTPStatsAlert>(raisedAlerts));
+		this.alertRuleStatuses = alertRuleStatuses;
+		this.ingestStats = ingestStats;
+	}
+
+	/**
+	 * {@link #sequence}
+	 *
+	 * @return sequence
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * {@link #time}
+	 *
+	 * @return time
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * {@link #intervalStart}
+	 *
+	 * @return intervalStart
+	 */
+	public long getIntervalStart() {
+		return intervalStart;
+	}
+
+	/**
+	 * {@link #lastRequestTime}
+	 *
+	 * @return lastRequestTime, {@link #NO_TIME} when none
+	 */
+	public long getLastRequestTime() {
+		return lastRequestTime;
+	}
+
+	/**
+	 * ingest lag: delay between the newest consumed request and the snapshot
+	 *
+	 * @return lag (milliseconds), 0 when no request was consumed
+	 */
+	public long getIngestLag() {
+		return lastRequestTime == NO_TIME ? 0 : Math.max(0, time - lastRequestTime);
+	}
+
+	/**
+	 * @return the last raised traffic alert is a high traffic one
+	 */
+	public boolean isHighTrafficAlert() {
+		return HTTPStatsAlert.isHighTrafficRaised(raisedAlerts);
+	}
+
+	/**
+	 * get common HTTP statistics counter
+	 *
+	 * @param type
+	 * @return counter value
+	 */
+	public long getStatsValue(HTTPStatsType type) {
+		return statsValues.get(type);
+	}
+
+	/**
+	 * {@link #statsValues}
+	 *
+	 * @return statsValues
+	 */
+	public Map<HTTPStatsType, Long> getStatsValues() {
+		return statsValues;
+	}
+
+	/**
+	 * {@link #statsStatus}
+	 *
+	 * @return statsStatus
+	 */
+	public Map<HTTPStatsStatus, Long> getStatsStatus() {
+		return statsStatus;
+	}
+
+	/**
+	 * get all counted HTTP Status codes
+	 *
+	 * @return counters by status code sorted by code
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		return Collections.unmodifiableMap(statusCounts);
+	}
+
+	/**
+	 * get most hit sections limited to {@link HTTPStats#MOST_HIT_SECTION_DISPLAYED}
+	 *
+	 * @return mostHitSection sorted by most hit
+	 */
+	public Map<String, Integer> getMostHitSection() {
+		return mostHitSection;
+	}
+
+	/**
+	 * {@link #contentSizes}
+	 *
+	 * @return contentSizes, must not be modified
+	 */
+	public QuantileSketch getContentSizes() {
+		return contentSizes;
+	}
+
+	/**
+	 * {@link #sectionContentSizes}
+	 *
+	 * @return response sizes by most hit section, sorted by most hit
+	 */
+	public Map<String, QuantileSketch> getSectionContentSizes() {
+		return sectionContentSizes;
+	}
+
+	/**
+	 * {@link #topUser}
+	 *
+	 * @return topUser, empty when none
+	 */
+	public String getTopUser() {
+		return topUser;
+	}
+
+	/**
+	 * {@link #topRemoteHost}
+	 *
+	 * @return topRemoteHost, empty when none
+	 */
+	public String getTopRemoteHost() {
+		return topRemoteHost;
+	}
+
+	/**
+	 * {@link #alertAverage}
+	 *
+	 * @return alertAverage
+	 */
+	public int getAlertAverage() {
+		return alertAverage;
+	}
+
+	/**
+	 * {@link #raisedAlerts}
+	 *
+	 * @return raisedAlerts
+	 */
+	public List<HTTPStatsAlert> getRaisedAlerts() {
+		return raisedAlerts;
+	}
+
+	/**
+	 * {@link #trafficRates}
+	 *
+	 * @return trafficRates, must not be modified
+	 */
+	public TrafficRates getTrafficRates() {
+		return trafficRates;
+	}
+
+	/**
+	 * {@link #alertRuleStatuses}
+	 *
+	 * @return alertRuleStatuses, empty when there is no rule
+	 */
+	public List<AlertRuleStatus> getAlertRuleStatuses() {
+		return alertRuleStatuses;
+	}
+
+	/**
+	 * {@link #ingestStats}
+	 *
+	 * @return ingestStats
+	 */
+	public IngestStats getIngestStats() {
+		return ingestStats;
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingest path instrumentation: read lines and bytes, unread bytes of the
+ * monitored log files and parse durations. Counters can be written from any
+ * thread (reader, parsers), {@link #sample(long, long)} is called by one
+ * thread at a time.
+ * <p>
+ * Parse durations are sampled: one line out of {@link #PARSE_SAMPLE_MASK} + 1
+ * is timed, keeping the clock reads cost away from most lines.
+ *
+ * @author Remi c
+ *
+ */
+public class IngestMetrics {
+
+	/**
+	 * Timed lines mask: a line is timed when its index masked is 0
+	 */
+	public final static int PARSE_SAMPLE_MASK = 15;
+
+	private final AtomicLong lineCount = new AtomicLong();
+	private final AtomicLong byteCount = new AtomicLong();
+
+	/**
+	 * bytes appended to the log files which have not been read yet
+	 */
+	private final AtomicLong byteLag = new AtomicLong();
+
+	/**
+	 * sampled parse durations
+	 */
+	private final LatencyHistogram parseLatency = new LatencyHistogram();
+
+	/**
+	 * log file watcher wake-ups caused by an event and by a poll timeout, copied
+	 * by the watching thread: -1 until the log file is watched
+	 */
+	private volatile long eventWakeUpCount = -1;
+	private volatile long timeoutWakeUpCount = -1;
+
+	/**
+	 * watching thread CPU usage (percent of one core), -1 when not supported
+	 */
+	private volatile double cpuUsage = -1;
+
+	/**
+	 * log rotations and truncations handled by the log file tailer, copied by the
+	 * reading thread: -1 until the log file is read
+	 */
+	private volatile long rotationCount = -1;
+	private volatile long truncationCount = -1;
+
+	// previous sample
+	private long sampleTime = System.nanoTime();
+	private long sampleLineCount = 0;
+	private long sampleByteCount = 0;
+	private long sampleBadLineCount = 0;
+
+	/**
+	 * count a log file read
+	 *
+	 * @param bytes: read bytes
+	 * @param lines: read complete lines
+	 */
+	public void addRead(long bytes, long lines) {
+		if (bytes > 0) {
+			byteCount.addAndGet(bytes);
+		}
+		if (lines > 0) {
+			lineCount.addAndGet(lines);
+		}
+	}
+
+	/**
+	 * should a line be timed
+	 *
+	 * @param lineIndex: line index in its batch or read
+	 * @return line parse duration should be recorded
+	 */
+	public static boolean isParseSampled(long lineIndex) {
+		return (lineIndex & PARSE_SAMPLE_MASK) == 0;
+	}
+
+	/**
+	 * record a timed line parse duration
+	 *
+	 * @param nanos: parse duration (nanoseconds)
+	 */
+	public void recordParse(long nanos) {
+		parseLatency.record(nanos);
+	}
+
+	/**
+	 * set unread bytes of the single monitored log file
+	 *
+	 * @param bytes
+	 */
+	public void setByteLag(long bytes) {
+		byteLag.set(bytes);
+	}
+
+	/**
+	 * change unread bytes when one of several log files lag changes
+	 *
+	 * @param delta: lag change (bytes)
+	 */
+	public void addByteLag(long delta) {
+		byteLag.addAndGet(delta);
+	}
+
+	/**
+	 * copy log file watcher counters, must be called by the watching thread
+	 *
+	 * @param eventWakeUps:   wake-ups caused by a file event
+	 * @param timeoutWakeUps: wake-ups caused by a poll timeout
+	 * @param cpuUsage:       watching thread CPU usage (percent of one core), -1
+	 *                        when not supported
+	 */
+	public void setWakeUps(long eventWakeUps, long timeoutWakeUps, double cpuUsage) {
+		this.cpuUsage = cpuUsage;
+		this.timeoutWakeUpCount = timeoutWakeUps;
+		this.eventWakeUpCount = eventWakeUps;
+	}
+
+	/**
+	 * copy log file tailer counters, must be called by the reading thread
+	 *
+	 * @param rotations:   handled log rotations
+	 * @param truncations: handled log truncations
+	 */
+	public void setRotations(long rotations, long truncations) {
+		this.truncationCount = truncations;
+		this.rotationCount = rotations;
+	}
+
+	/**
+	 * take a sample, rates are computed since the previous one
+	 *
+	 * @param badLineCount: bad lines since start, counted by the statistics
+	 * @param time:         sample time ({@link System#nanoTime()})
+	 * @return ingest health sample
+	 */
+	public IngestStats sample(long badLineCount, long time) {
+		long lines = lineCount.get();
+		long bytes = byteCount.get();
+		long intervalNanos = Math.max(0, time - sampleTime);
+		double seconds = intervalNanos / 1_000_000_000d;
+		IngestStats stats = new IngestStats(intervalNanos, lines, bytes, badLineCount,
+				getRate(lines - sampleLineCount, seconds), getRate(bytes - sampleByteCount, seconds),
+				getRate(badLineCount - sampleBadLineCount, seconds), Math.max(0, byteLag.get()),
+				parseLatency.getCounts(), parseLatency.getSum(), parseLatency.getMax(), eventWakeUpCount,
+				timeoutWakeUpCount, cpuUsage, rotationCount, truncationCount);
+		sampleTime = time;
+		sampleLineCount = lines;
+		sampleByteCount = bytes;
+		sampleBadLineCount = badLineCount;
+		return stats;
+	}
+
+	/**
+	 * @param count
+	 * @param seconds
+	 * @return count per second, 0 on an empty interval
+	 */
+	private static double getRate(long count, double seconds) {
+		return seconds <= 0 ? 0 : Math.max(0, count) / seconds;
+	}
+
+	public long getLineCount() {
+		return lineCount.get();
+	}
+
+	public long getByteCount() {
+		return byteCount.get();
+	}
+
+	/**
+	 * {@link #byteLag}
+	 *
+	 * @return byteLag
+	 */
+	public long getByteLag() {
+		return Math.max(0, byteLag.get());
+	}
+
+	/**
+	 * {@link #parseLatency}
+	 *
+	 * @return parseLatency
+	 */
+	public LatencyHistogram getParseLatency() {
+		return parseLatency;
+	}
+
+}
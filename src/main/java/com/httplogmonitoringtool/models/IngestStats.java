@@ -0,0 +1,264 @@
+package com.httplogmonitoringtool.models;
+
+/**
+ * Immutable ingest health sample taken by {@link IngestMetrics#sample}: read
+ * throughput and bad lines rate since the previous sample, cumulative
+ * counters, read lag and parse latency distribution.
+ *
+ * @author Remi c
+ *
+ */
+public class IngestStats {
+
+	/**
+	 * sampled interval duration (nanoseconds)
+	 */
+	private final long intervalNanos;
+
+	private final long lineCount;
+	private final long byteCount;
+	private final long badLineCount;
+	private final double linesPerSecond;
+	private final double bytesPerSecond;
+	private final double badLinesPerSecond;
+
+	/**
+	 * bytes appended to the log files which have not been read yet
+	 */
+	private final long byteLag;
+
+	/**
+	 * sampled parse durations count by {@link LatencyHistogram} bucket
+	 */
+	private final long[] parseCounts;
+
+	/**
+	 * sampled parse durations sum (nanoseconds)
+	 */
+	private final long parseSum;
+
+	/**
+	 * sampled parse durations maximum (nanoseconds)
+	 */
+	private final long parseMax;
+
+	/**
+	 * log file watcher wake-ups caused by an event and by a poll timeout: -1 when
+	 * the log file is not watched
+	 */
+	private final long eventWakeUpCount;
+	private final long timeoutWakeUpCount;
+
+	/**
+	 * watching thread CPU usage (percent of one core), -1 when not supported
+	 */
+	private final double cpuUsage;
+
+	/**
+	 * log rotations and truncations handled by the log file tailer: -1 when the
+	 * log file is not tailed
+	 */
+	private final long rotationCount;
+	private final long truncationCount;
+
+	/**
+	 * init sample
+	 *
+	 * @param intervalNanos:      sampled interval duration (nanoseconds)
+	 * @param lineCount:          read lines since start
+	 * @param byteCount:          read bytes since start
+	 * @param badLineCount:       bad lines since start
+	 * @param linesPerSecond:     read lines rate of the interval
+	 * @param bytesPerSecond:     read bytes rate of the interval
+	 * @param badLinesPerSecond:  bad lines rate of the interval
+	 * @param byteLag:            unread bytes
+	 * @param parseCounts:        parse durations count by bucket
+	 * @param parseSum:           parse durations sum (nanoseconds)
+	 * @param parseMax:           parse durations maximum (nanoseconds)
+	 * @param eventWakeUpCount:   watcher wake-ups caused by an event, -1 if none
+	 * @param timeoutWakeUpCount: watcher wake-ups caused by a timeout, -1 if none
+	 * @param cpuUsage:           watching thread CPU usage, -1 if unknown
+	 * @param rotationCount:      handled log rotations, -1 if not tailed
+	 * @param truncationCount:    handled log truncations, -1 if not tailed
+	 */
+	public IngestStats(long intervalNanos, long lineCount, long byteCount, long badLineCount, double linesPerSecond,
+			double bytesPerSecond, double badLinesPerSecond, long byteLag, long[] parseCounts, long parseSum,
+			long parseMax, long eventWakeUpCount, long timeoutWakeUpCount, double cpuUsage, long rotationCount,
+			long truncationCount) {
+		this.intervalNanos = intervalNanos;
+		this.lineCount = lineCount;
+		this.byteCount = byteCount;
+		this.badLineCount = badLineCount;
+		this.linesPerSecond = linesPerSecond;
+		this.bytesPerSecond = bytesPerSecond;
+		this.badLinesPerSecond = badLinesPerSecond;
+		this.byteLag = byteLag;
+		this.parseCounts = parseCounts.clone();
+		this.parseSum = parseSum;
+		this.parseMax = parseMax;
+		this.eventWakeUpCount = eventWakeUpCount;
+		this.timeoutWakeUpCount = timeoutWakeUpCount;
+		this.cpuUsage = cpuUsage;
+		this.rotationCount = rotationCount;
+		this.truncationCount = truncationCount;
+	}
+
+	/**
+	 * {@link #intervalNanos}
+	 *
+	 * @return intervalNanos
+	 */
+	public long getIntervalNanos() {
+		return intervalNanos;
+	}
+
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	public long getBadLineCount() {
+		return badLineCount;
+	}
+
+	public double getLinesPerSecond() {
+		return linesPerSecond;
+	}
+
+	public double getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	public double getBadLinesPerSecond() {
+		return badLinesPerSecond;
+	}
+
+	/**
+	 * {@link #byteLag}
+	 *
+	 * @return byteLag
+	 */
+	public long getByteLag() {
+		return byteLag;
+	}
+
+	/**
+	 * {@link #parseCounts}
+	 *
+	 * @return parseCounts copy
+	 */
+	public long[] getParseCounts() {
+		return parseCounts.clone();
+	}
+
+	/**
+	 * @return sampled parse durations count
+	 */
+	public long getParseCount() {
+		long count = 0;
+		for (long bucketCount : parseCounts) {
+			count += bucketCount;
+		}
+		return count;
+	}
+
+	/**
+	 * {@link #parseSum}
+	 *
+	 * @return parseSum (nanoseconds)
+	 */
+	public long getParseSum() {
+		return parseSum;
+	}
+
+	/**
+	 * {@link #parseMax}
+	 *
+	 * @return parseMax (nanoseconds)
+	 */
+	public long getParseMax() {
+		return parseMax;
+	}
+
+	/**
+	 * get parse duration percentile, see {@link LatencyHistogram}
+	 *
+	 * @param percentile: 0 to 100
+	 * @return parse duration upper bound (nanoseconds), 0 when none was sampled
+	 */
+	public long getParsePercentile(double percentile) {
+		return LatencyHistogram.getPercentile(parseCounts, percentile, parseMax);
+	}
+
+	/**
+	 * @return log file watcher counters have been copied
+	 */
+	public boolean isWatched() {
+		return eventWakeUpCount >= 0 && timeoutWakeUpCount >= 0;
+	}
+
+	/**
+	 * get all watcher wake-ups count
+	 *
+	 * @return wakeUpCount
+	 */
+	public long getWakeUpCount() {
+		return eventWakeUpCount + timeoutWakeUpCount;
+	}
+
+	/**
+	 * {@link #eventWakeUpCount}
+	 *
+	 * @return eventWakeUpCount
+	 */
+	public long getEventWakeUpCount() {
+		return eventWakeUpCount;
+	}
+
+	/**
+	 * {@link #timeoutWakeUpCount}
+	 *
+	 * @return timeoutWakeUpCount
+	 */
+	public long getTimeoutWakeUpCount() {
+		return timeoutWakeUpCount;
+	}
+
+	/**
+	 * {@link #cpuUsage}
+	 *
+	 * @return cpuUsage
+	 */
+	public double getCpuUsage() {
+		return cpuUsage;
+	}
+
+	/**
+	 * @return log file tailer counters have been copied
+	 */
+	public boolean isTailed() {
+		return rotationCount >= 0 && truncationCount >= 0;
+	}
+
+	/**
+	 * {@link #rotationCount}
+	 *
+	 * @return rotationCount
+	 */
+	public long getRotationCount() {
+		return rotationCount;
+	}
+
+	/**
+	 * {@link #truncationCount}
+	 *
+	 * @return truncationCount
+	 */
+	public long getTruncationCount() {
+		return truncationCount;
+	}
+
+}
@@ -0,0 +1,134 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed bucket latency histogram: bucket i counts durations of the
+ * [2^(i-1), 2^i[ nanoseconds range, the last bucket counts longer durations.
+ * Recording neither allocates nor locks and can be done from any thread,
+ * percentiles are the upper bound of the bucket holding them (at most twice
+ * the exact value).
+ *
+ * @author Remi c
+ *
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Buckets count: the last bucket starts at 2^30 nanoseconds (about 1 second)
+	 */
+	public final static int BUCKET_COUNT = 32;
+
+	/**
+	 * durations count by bucket
+	 */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	/**
+	 * recorded durations sum (nanoseconds)
+	 */
+	private final AtomicLong sum = new AtomicLong();
+
+	/**
+	 * recorded durations maximum (nanoseconds)
+	 */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * count a duration
+	 *
+	 * @param nanos: duration (nanoseconds), negative values are counted as 0
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(getBucket(nanos));
+		sum.addAndGet(nanos);
+		long currentMax;
+		while (nanos > (currentMax = max.get()) && !max.compareAndSet(currentMax, nanos)) {
+			// retry: another thread has raised the maximum
+		}
+	}
+
+	/**
+	 * get bucket of a duration
+	 *
+	 * @param nanos: positive duration (nanoseconds)
+	 * @return bucket index
+	 */
+	public static int getBucket(long nanos) {
+		return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/**
+	 * get a bucket exclusive upper bound
+	 *
+	 * @param bucket: bucket index
+	 * @return upper bound (nanoseconds), Long.MAX_VALUE for the last bucket
+	 */
+	public static long getBucketUpperBound(int bucket) {
+		return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1l << bucket;
+	}
+
+	/**
+	 * copy counts: concurrent recordings may be partially copied
+	 *
+	 * @return durations count by bucket
+	 */
+	public long[] getCounts() {
+		long[] copy = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+		}
+		return copy;
+	}
+
+	/**
+	 * {@link #sum}
+	 *
+	 * @return sum (nanoseconds)
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * {@link #max}
+	 *
+	 * @return max (nanoseconds)
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * get percentile of bucket counts
+	 *
+	 * @param counts:     durations count by bucket, see {@link #getCounts()}
+	 * @param percentile: 0 to 100
+	 * @param max:        recorded durations maximum, bounds the last buckets
+	 * @return bucket upper bound holding the percentile (nanoseconds), 0 when
+	 *         nothing was recorded
+	 */
+	public static long getPercentile(long[] counts, double percentile, long max) {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100d));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(max, getBucketUpperBound(i));
+			}
+		}
+		return max;
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.Arrays;
+
+/**
+ * Reusable batch of log lines copied from the log file with their parsed
+ * fields. Lines are appended by the reader, parsed in place by a parser and
+ * consumed by the aggregator, then the batch is cleared and reused.
+ *
+ * @author Remi c
+ *
+ */
+public class LogLineBatch {
+
+	/**
+	 * Default maximum lines per batch
+	 */
+	public final static int DEFAULT_MAX_LINES = 1024;
+
+	/**
+	 * Default bytes per batch, grown for longer lines
+	 */
+	public final static int DEFAULT_BYTES = 128 * 1024;
+
+	/**
+	 * maximum lines
+	 */
+	private final int maxLines;
+
+	/**
+	 * lines bytes
+	 */
+	private byte[] data;
+
+	/**
+	 * used bytes count
+	 */
+	private int dataLength = 0;
+
+	/**
+	 * line first byte positions in {@link #data}
+	 */
+	private final int[] lineOffsets;
+
+	/**
+	 * line byte counts
+	 */
+	private final int[] lineLengths;
+
+	/**
+	 * lines parsed fields, created on first use
+	 */
+	private final HTTPLogFields[] lineFields;
+
+	/**
+	 * line has been parsed
+	 */
+	private final boolean[] lineParsed;
+
+	/**
+	 * lines count
+	 */
+	private int lineCount = 0;
+
+	/**
+	 * batch order in the log file
+	 */
+	private long sequence = 0;
+
+	/**
+	 * init batch with {@link #DEFAULT_MAX_LINES} and {@link #DEFAULT_BYTES}
+	 */
+	public LogLineBatch() {
+		this(DEFAULT_MAX_LINES, DEFAULT_BYTES);
+	}
+
+	/**
+	 * init batch
+	 *
+	 * @param maxLines: maximum lines
+	 * @param bytes:    initial bytes capacity
+	 */
+	public LogLineBatch(int maxLines, int bytes) {
+		this.maxLines = maxLines;
+		this.data = new byte[bytes];
+		this.lineOffsets = new int[maxLines];
+		this.lineLengths = new int[maxLines];
+		this.lineFields = new HTTPLogFields[maxLines];
+		this.lineParsed = new boolean[maxLines];
+	}
+
+	/**
+	 * append a copy of line bytes
+	 *
+	 * @param buffer: line bytes holder
+	 * @param offset: line first byte position
+	 * @param length: line byte count
+	 * @return false when batch is full: line not appended
+	 */
+	public boolean add(byte[] buffer, int offset, int length) {
+		if (lineCount == maxLines || (dataLength + length > data.length && lineCount > 0)) {
+			return false;
+		}
+		if (dataLength + length > data.length) {// single long line
+			data = Arrays.copyOf(data, Math.max(data.length * 2, length));
+		}
+		System.arraycopy(buffer, offset, data, dataLength, length);
+		lineOffsets[lineCount] = dataLength;
+		lineLengths[lineCount] = length;
+		lineParsed[lineCount] = false;
+		dataLength += length;
+		lineCount++;
+		return true;
+	}
+
+	/**
+	 * clear lines before reuse
+	 */
+	public void clear() {
+		dataLength = 0;
+		lineCount = 0;
+	}
+
+	/**
+	 * get line parsed fields holder
+	 *
+	 * @param line: line index
+	 * @return reusable fields
+	 */
+	public HTTPLogFields getFields(int line) {
+		HTTPLogFields fields = lineFields[line];
+		if (fields == null) {
+			fields = new HTTPLogFields();
+			lineFields[line] = fields;
+		}
+		return fields;
+	}
+
+	/**
+	 * @param line: line index
+	 * @return line has been parsed
+	 */
+	public boolean isParsed(int line) {
+		return lineParsed[line];
+	}
+
+	/**
+	 * @param line:   line index
+	 * @param parsed: line has been parsed
+	 */
+	public void setParsed(int line, boolean parsed) {
+		lineParsed[line] = parsed;
+	}
+
+	/**
+	 * {@link #data}
+	 *
+	 * @return data
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * {@link #dataLength}
+	 *
+	 * @return dataLength
+	 */
+	public int getDataLength() {
+		return dataLength;
+	}
+
+	/**
+	 * @param line: line index
+	 * @return line first byte position in {@link #getData()}
+	 */
+	public int getLineOffset(int line) {
+		return lineOffsets[line];
+	}
+
+	/**
+	 * @param line: line index
+	 * @return line byte count
+	 */
+	public int getLineLength(int line) {
+		return lineLengths[line];
+	}
+
+	/**
+	 * {@link #lineCount}
+	 *
+	 * @return lineCount
+	 */
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	public boolean isEmpty() {
+		return lineCount == 0;
+	}
+
+	/**
+	 * {@link #sequence}
+	 *
+	 * @return sequence
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * {@link #sequence}
+	 *
+	 * @param sequence
+	 */
+	public void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+}
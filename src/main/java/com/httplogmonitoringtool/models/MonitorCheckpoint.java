@@ -0,0 +1,181 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Monitor state allowing to resume monitoring after a restart: log file read
+ * position, alert window counts, cumulative counters and raised alerts.
+ * Immutable.
+ *
+ * @author Remi c
+ *
+ */
+public class MonitorCheckpoint {
+
+	/**
+	 * checkpoint time (epoch milliseconds)
+	 */
+	private final long time;
+
+	/**
+	 * monitored log file path
+	 */
+	private final String logFilePath;
+
+	/**
+	 * monitored log file identity (file key string value)
+	 */
+	private final String fileKey;
+
+	/**
+	 * log file offset of the first byte not consumed
+	 */
+	private final long offset;
+
+	/**
+	 * alert window last second (epoch seconds)
+	 */
+	private final long windowHeadSecond;
+
+	/**
+	 * alert window first counted request time (epoch milliseconds)
+	 */
+	private final long windowStartTime;
+
+	/**
+	 * alert window requests per second, from the oldest second to
+	 * {@link #windowHeadSecond}
+	 */
+	private final long[] windowCounts;
+
+	private final Map<HTTPStatsType, Long> statsValues;
+	private final Map<Integer, Long> statusCounts;
+	private final List<HTTPStatsAlert> raisedAlerts;
+
+	/**
+	 * init checkpoint
+	 *
+	 * @param time:             checkpoint time (epoch milliseconds)
+	 * @param logFilePath:      monitored log file path
+	 * @param fileKey:          monitored log file identity
+	 * @param offset:           log file offset of the first byte not consumed
+	 * @param windowHeadSecond: alert window last second (epoch seconds)
+	 * @param windowStartTime:  alert window first counted request time
+	 * @param windowCounts:     alert window requests per second
+	 * @param statsValues:      common statistics counters
+	 * @param statusCounts:     counters by status code
+	 * @param raisedAlerts
+	 */
+	public MonitorCheckpoint(long time, String logFilePath, String fileKey, long offset, long windowHeadSecond,
+			long windowStartTime, long[] windowCounts, Map<HTTPStatsType, Long> statsValues,
+			Map<Integer, Long> statusCounts, List<HTTPStatsAlert> raisedAlerts) {
+		this.time = time;
+		this.logFilePath = logFilePath;
+		this.fileKey = fileKey;
+		this.offset = offset;
+		this.windowHeadSecond = windowHeadSecond;
+		this.windowStartTime = windowStartTime;
+		this.windowCounts = windowCounts.clone();
+		Map<HTTPStatsType, Long> statsValuesCopy = new EnumMap<HTTPStatsType, Long>(HTTPStatsType.class);
+		statsValuesCopy.putAll(statsValues);
+		this.statsValues = Collections.unmodifiableMap(statsValuesCopy);
+		this.statusCounts = Collections.unmodifiableMap(new TreeMap<Integer, Long>(statusCounts));
+		this.raisedAlerts = Collections.unmodifiableList(new ArrayList<HTTPStatsAlert>(raisedAlerts));
+	}
+
+	/**
+	 * {@link #time}
+	 *
+	 * @return time
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * {@link #logFilePath}
+	 *
+	 * @return logFilePath
+	 */
+	public String getLogFilePath() {
+		return logFilePath;
+	}
+
+	/**
+	 * {@link #fileKey}
+	 *
+	 * @return fileKey, empty when the log file was not opened
+	 */
+	public String getFileKey() {
+		return fileKey;
+	}
+
+	/**
+	 * {@link #offset}
+	 *
+	 * @return offset
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * {@link #windowHeadSecond}
+	 *
+	 * @return windowHeadSecond
+	 */
+	public long getWindowHeadSecond() {
+		return windowHeadSecond;
+	}
+
+	/**
+	 * {@link #windowStartTime}
+	 *
+	 * @return windowStartTime
+	 */
+	public long getWindowStartTime() {
+		return windowStartTime;
+	}
+
+	/**
+	 * {@link #windowCounts}
+	 *
+	 * @return windowCounts copy
+	 */
+	public long[] getWindowCounts() {
+		return windowCounts.clone();
+	}
+
+	/**
+	 * {@link #statsValues}
+	 *
+	 * @return statsValues
+	 */
+	public Map<HTTPStatsType, Long> getStatsValues() {
+		return statsValues;
+	}
+
+	/**
+	 * {@link #statusCounts}
+	 *
+	 * @return statusCounts sorted by code
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		return statusCounts;
+	}
+
+	/**
+	 * {@link #raisedAlerts}
+	 *
+	 * @return raisedAlerts
+	 */
+	public List<HTTPStatsAlert> getRaisedAlerts() {
+		return raisedAlerts;
+	}
+
+}
@@ -0,0 +1,326 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.Arrays;
+
+/**
+ * Bounded memory, mergeable quantile sketch of positive values (DDSketch
+ * algorithm). Values are counted in logarithmic bins: bin i counts values of
+ * the ]gamma^(i-1), gamma^i] range with gamma = (1 + a) / (1 - a), so any
+ * quantile is estimated with a relative error of at most a
+ * ({@link #relativeAccuracy}). Zero and negative values are counted apart as
+ * 0.
+ * <p>
+ * Bins are stored in an array covering the counted range: adding a value is
+ * O(1) amortized. When the range spans more than {@link #maxBins} bins, the
+ * lowest bins are collapsed: high quantiles stay accurate and memory is
+ * bounded. Sketches of equal accuracy are merged by adding their bins. Not
+ * thread safe.
+ *
+ * @author Remi c
+ *
+ */
+public class QuantileSketch {
+
+	/**
+	 * Default quantiles relative accuracy: 1%
+	 */
+	public final static double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+	/**
+	 * Default maximum bins: 2048 bins at 1% cover 1 to 10^17
+	 */
+	public final static int DEFAULT_MAX_BINS = 2048;
+
+	/**
+	 * Bins array initial size
+	 */
+	private final static int INITIAL_BINS = 32;
+
+	/**
+	 * quantiles relative accuracy
+	 */
+	private final double relativeAccuracy;
+
+	/**
+	 * bins ranges ratio: (1 + {@link #relativeAccuracy}) / (1 -
+	 * {@link #relativeAccuracy})
+	 */
+	private final double gamma;
+
+	/**
+	 * 1 / ln({@link #gamma})
+	 */
+	private final double indexMultiplier;
+
+	/**
+	 * maximum bins count
+	 */
+	private final int maxBins;
+
+	/**
+	 * values count of bins {@link #offset} to {@link #offset} + length - 1
+	 */
+	private long[] bins = new long[0];
+	private int offset = 0;
+
+	/**
+	 * counted bins range, empty when no positive value has been added
+	 */
+	private int minIndex = 0;
+	private int maxIndex = -1;
+
+	private long zeroCount = 0;
+	private long count = 0;
+	private long sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * init sketch with {@link #DEFAULT_RELATIVE_ACCURACY} and
+	 * {@link #DEFAULT_MAX_BINS}
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BINS);
+	}
+
+	/**
+	 * init sketch
+	 *
+	 * @param relativeAccuracy: quantiles relative accuracy ]0, 1[
+	 * @param maxBins:          maximum bins count (>0)
+	 */
+	public QuantileSketch(double relativeAccuracy, int maxBins) {
+		if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+			throw new IllegalArgumentException("Relative accuracy must be in ]0, 1[");
+		}
+		if (maxBins <= 0) {
+			throw new IllegalArgumentException("Max bins must be > 0");
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.indexMultiplier = 1 / Math.log(gamma);
+		this.maxBins = maxBins;
+	}
+
+	/**
+	 * count a value
+	 *
+	 * @param value: negative values are counted as 0
+	 */
+	public void add(long value) {
+		if (value <= 0) {
+			value = 0;
+			zeroCount++;
+		} else {
+			int index = getIndex(value);
+			if (index < minIndex || index > maxIndex) {
+				extendRange(index, index);
+			}
+			// collapsed low values are counted in the lowest bin
+			bins[Math.max(index, minIndex) - offset]++;
+		}
+		count++;
+		sum += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * get bin of a positive value
+	 *
+	 * @param value
+	 * @return bin index
+	 */
+	private int getIndex(long value) {
+		return (int) Math.ceil(Math.log(value) * indexMultiplier);
+	}
+
+	/**
+	 * get value estimated for a bin: relative error to any value of the bin is at
+	 * most {@link #relativeAccuracy}
+	 *
+	 * @param index
+	 * @return estimated value
+	 */
+	private double getValue(int index) {
+		return 2 * Math.pow(gamma, index) / (1 + gamma);
+	}
+
+	/**
+	 * extend counted bins range to include [from, to], collapse lowest bins
+	 * beyond {@link #maxBins}
+	 *
+	 * @param from: lowest included bin
+	 * @param to:   highest included bin
+	 */
+	private void extendRange(int from, int to) {
+		boolean empty = maxIndex < minIndex;
+		int newMax = empty ? to : Math.max(maxIndex, to);
+		int newMin = empty ? from : Math.min(minIndex, from);
+		if ((long) newMax - newMin + 1 > maxBins) {
+			newMin = newMax - maxBins + 1;
+		}
+		int span = newMax - newMin + 1;
+		if (newMin >= offset && newMax < offset + bins.length) {
+			// in place: collapse bins below the new range
+			for (int i = minIndex; !empty && i < newMin; i++) {
+				bins[newMin - offset] += bins[i - offset];
+				bins[i - offset] = 0;
+			}
+		} else {
+			// grow: room is left where the range extends
+			int length = Math.min(maxBins, Math.max(Math.max(INITIAL_BINS, span), bins.length * 2));
+			int newOffset = empty || newMax > maxIndex ? newMin : newMax - length + 1;
+			long[] newBins = new long[length];
+			for (int i = minIndex; !empty && i <= maxIndex; i++) {
+				newBins[Math.max(i, newMin) - newOffset] += bins[i - offset];
+			}
+			bins = newBins;
+			offset = newOffset;
+		}
+		minIndex = newMin;
+		maxIndex = newMax;
+	}
+
+	/**
+	 * add other sketch values to this one
+	 *
+	 * @param other: sketch of equal relative accuracy
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.gamma != gamma) {
+			throw new IllegalArgumentException("Cannot merge sketches of different accuracies");
+		}
+		if (other.count == 0) {
+			return;
+		}
+		if (other.maxIndex >= other.minIndex) {
+			if (other.minIndex < minIndex || other.maxIndex > maxIndex) {
+				extendRange(other.minIndex, other.maxIndex);
+			}
+			for (int i = other.minIndex; i <= other.maxIndex; i++) {
+				bins[Math.max(i, minIndex) - offset] += other.bins[i - other.offset];
+			}
+		}
+		zeroCount += other.zeroCount;
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * get estimated quantile
+	 *
+	 * @param quantile: [0, 1]
+	 * @return value estimate in [min, max], 0 when no value has been counted
+	 */
+	public long getQuantile(double quantile) {
+		if (quantile < 0 || quantile > 1) {
+			throw new IllegalArgumentException("Quantile must be in [0, 1]");
+		}
+		if (count == 0) {
+			return 0;
+		}
+		// rank of the quantile value among counted values
+		long rank = (long) (quantile * (count - 1));
+		long cumulativeCount = zeroCount;
+		if (rank < cumulativeCount) {
+			return 0;
+		}
+		for (int i = minIndex; i <= maxIndex; i++) {
+			cumulativeCount += bins[i - offset];
+			if (rank < cumulativeCount) {
+				long value = Math.round(getValue(i));
+				return Math.max(min, Math.min(max, value));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * copy sketch, bins array is sized to the counted range
+	 *
+	 * @return copy
+	 */
+	public QuantileSketch copy() {
+		QuantileSketch copy = new QuantileSketch(relativeAccuracy, maxBins);
+		if (maxIndex >= minIndex) {
+			copy.bins = Arrays.copyOfRange(bins, minIndex - offset, maxIndex - offset + 1);
+			copy.offset = minIndex;
+			copy.minIndex = minIndex;
+			copy.maxIndex = maxIndex;
+		}
+		copy.zeroCount = zeroCount;
+		copy.count = count;
+		copy.sum = sum;
+		copy.min = min;
+		copy.max = max;
+		return copy;
+	}
+
+	/**
+	 * clear counted values, bins array is kept
+	 */
+	public void clear() {
+		if (maxIndex >= minIndex) {
+			Arrays.fill(bins, minIndex - offset, maxIndex - offset + 1, 0l);
+		}
+		minIndex = 0;
+		maxIndex = -1;
+		zeroCount = 0;
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = Long.MIN_VALUE;
+	}
+
+	/**
+	 * @return counted values count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return counted values sum
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return lowest counted value, 0 when none
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return highest counted value, 0 when none
+	 */
+	public long getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * {@link #relativeAccuracy}
+	 *
+	 * @return relativeAccuracy
+	 */
+	public double getRelativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	/**
+	 * @return allocated bins count
+	 */
+	public int getBinCount() {
+		return bins.length;
+	}
+
+}
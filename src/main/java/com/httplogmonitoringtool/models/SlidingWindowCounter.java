@@ -0,0 +1,220 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.Arrays;
+
+/**
+ * Counts events during the last seconds with a circular array of per second
+ * counts: memory only depends on the window size, adding and reading the sum
+ * are O(1) and expiring old seconds is O(1) per elapsed second. Not thread
+ * safe.
+ *
+ * @author Remi c
+ *
+ */
+public class SlidingWindowCounter {
+
+	/**
+	 * No time marker
+	 */
+	public final static long NO_TIME = Long.MIN_VALUE;
+
+	/**
+	 * per second counts, second s is at index s % length
+	 */
+	private final long[] counts;
+
+	/**
+	 * sum of {@link #counts}
+	 */
+	private long sum = 0;
+
+	/**
+	 * most recent second of the window (epoch seconds), {@link #NO_TIME} when
+	 * nothing was added
+	 */
+	private long headSecond = NO_TIME;
+
+	/**
+	 * first added event time since last clear (epoch milliseconds)
+	 */
+	private long startTime = NO_TIME;
+
+	/**
+	 * init counter
+	 *
+	 * @param windowSeconds: counted seconds
+	 */
+	public SlidingWindowCounter(int windowSeconds) {
+		if (windowSeconds <= 0) {
+			throw new IllegalArgumentException("Window must be > 0 second");
+		}
+		counts = new long[windowSeconds];
+	}
+
+	/**
+	 * count one event
+	 *
+	 * @param time: event time (epoch milliseconds)
+	 * @return false when time is older than the window
+	 */
+	public boolean add(long time) {
+		return add(time, 1);
+	}
+
+	/**
+	 * count events
+	 *
+	 * @param time:  events time (epoch milliseconds)
+	 * @param count: events count
+	 * @return false when time is older than the window
+	 */
+	public boolean add(long time, long count) {
+		long second = Math.floorDiv(time, 1000);
+		if (headSecond == NO_TIME || second > headSecond) {
+			advanceTo(second);
+		} else if (second <= headSecond - counts.length) {
+			return false;
+		}
+		if (startTime == NO_TIME) {
+			startTime = time;
+		}
+		counts[index(second)] += count;
+		sum += count;
+		return true;
+	}
+
+	/**
+	 * slide window up to time, expiring older seconds
+	 *
+	 * @param time: epoch milliseconds, ignored when not ahead of the window
+	 */
+	public void advance(long time) {
+		long second = Math.floorDiv(time, 1000);
+		if (headSecond != NO_TIME && second > headSecond) {
+			advanceTo(second);
+		}
+	}
+
+	/**
+	 * move head to second
+	 *
+	 * @param second: epoch seconds
+	 */
+	private void advanceTo(long second) {
+		if (headSecond == NO_TIME || second - headSecond >= counts.length) {
+			// whole window expired
+			Arrays.fill(counts, 0l);
+			sum = 0;
+		} else {
+			for (long expired = headSecond + 1; expired <= second; expired++) {
+				int index = index(expired);
+				sum -= counts[index];
+				counts[index] = 0;
+			}
+		}
+		headSecond = second;
+	}
+
+	/**
+	 * @param second
+	 * @return second index in {@link #counts}
+	 */
+	private int index(long second) {
+		return (int) Math.floorMod(second, (long) counts.length);
+	}
+
+	/**
+	 * check whether a time is older than the window
+	 *
+	 * @param time: epoch milliseconds
+	 * @return time would not be counted
+	 */
+	public boolean isExpired(long time) {
+		return headSecond != NO_TIME && Math.floorDiv(time, 1000) <= headSecond - counts.length;
+	}
+
+	/**
+	 * clear all counts
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0l);
+		sum = 0;
+		headSecond = NO_TIME;
+		startTime = NO_TIME;
+	}
+
+	/**
+	 * copy counts of the window seconds
+	 *
+	 * @return counts from the oldest second to {@link #headSecond}
+	 */
+	public long[] getCounts() {
+		long[] secondCounts = new long[counts.length];
+		if (headSecond != NO_TIME) {
+			for (int i = 0; i < counts.length; i++) {
+				secondCounts[i] = counts[index(headSecond - counts.length + 1 + i)];
+			}
+		}
+		return secondCounts;
+	}
+
+	/**
+	 * replace window with saved counts, see {@link #getCounts()}. Saved seconds
+	 * out of this window size are dropped.
+	 *
+	 * @param savedHeadSecond: saved {@link #headSecond}
+	 * @param savedStartTime:  saved {@link #startTime}
+	 * @param secondCounts:    saved counts from the oldest second to
+	 *                         savedHeadSecond
+	 */
+	public void restore(long savedHeadSecond, long savedStartTime, long[] secondCounts) {
+		clear();
+		if (savedHeadSecond == NO_TIME) {
+			return;
+		}
+		advanceTo(savedHeadSecond);
+		for (int i = 0; i < secondCounts.length; i++) {
+			long second = savedHeadSecond - secondCounts.length + 1 + i;
+			if (second > savedHeadSecond - counts.length) {
+				counts[index(second)] += secondCounts[i];
+				sum += secondCounts[i];
+			}
+		}
+		startTime = savedStartTime;
+	}
+
+	/**
+	 * {@link #sum}
+	 *
+	 * @return events count during the window
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return window size in seconds
+	 */
+	public int getWindowSeconds() {
+		return counts.length;
+	}
+
+	/**
+	 * {@link #headSecond}
+	 *
+	 * @return headSecond
+	 */
+	public long getHeadSecond() {
+		return headSecond;
+	}
+
+	/**
+	 * {@link #startTime}
+	 *
+	 * @return startTime
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+}
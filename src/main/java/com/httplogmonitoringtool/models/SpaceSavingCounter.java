@@ -0,0 +1,432 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Bounded memory top-K counter (Space-Saving algorithm on a Stream-Summary
+ * structure). At most {@link #capacity} keys are counted: when a new key comes
+ * and all counters are used, the least counted key is replaced and the new key
+ * inherits its count as error. Any key counted more than N / capacity times (N:
+ * offered keys count) is guaranteed to be tracked, and each count overestimates
+ * the real count by at most {@link Counter#getError()}.
+ * <p>
+ * Counters are grouped in buckets of equal count sorted by count, so
+ * {@link #offer(String)} is O(1) and reading the top k counters is O(k). Not
+ * thread safe.
+ *
+ * @author Remi c
+ *
+ */
+public class SpaceSavingCounter {
+
+	/**
+	 * Key counter
+	 */
+	public static class Counter {
+
+		private String key;
+		private long count;
+		private long error;
+
+		/**
+		 * caller data of the key: kept when the counter is reused for another key
+		 */
+		private Object attachment;
+
+		// owning bucket and siblings in bucket
+		private Bucket bucket;
+		private Counter previous;
+		private Counter next;
+
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * @return counted value, overestimated by at most {@link #getError()}
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return maximum count overestimation
+		 */
+		public long getError() {
+			return error;
+		}
+
+		/**
+		 * @return counted key has just started being tracked: its attachment may
+		 *         belong to a replaced key
+		 */
+		public boolean isNew() {
+			return count - error == 1;
+		}
+
+		/**
+		 * {@link #attachment}
+		 *
+		 * @return attachment, null when none
+		 */
+		public Object getAttachment() {
+			return attachment;
+		}
+
+		/**
+		 * {@link #attachment}
+		 *
+		 * @param attachment
+		 */
+		public void setAttachment(Object attachment) {
+			this.attachment = attachment;
+		}
+	}
+
+	/**
+	 * Counters of equal count
+	 */
+	private static class Bucket {
+		private long count;
+		private Counter head;
+		// sorted by count, ascending
+		private Bucket previous;
+		private Bucket next;
+	}
+
+	/**
+	 * maximum counted keys
+	 */
+	private final int capacity;
+
+	/**
+	 * counters by key
+	 */
+	private final HashMap<String, Counter> counters;
+
+	/**
+	 * least counted bucket
+	 */
+	private Bucket minBucket;
+
+	/**
+	 * most counted bucket
+	 */
+	private Bucket maxBucket;
+
+	/**
+	 * released buckets reused to avoid allocations
+	 */
+	private Bucket freeBuckets;
+
+	/**
+	 * offered keys count
+	 */
+	private long offeredCount = 0;
+
+	/**
+	 * init counter
+	 *
+	 * @param capacity: maximum counted keys
+	 */
+	public SpaceSavingCounter(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		this.capacity = capacity;
+		this.counters = new HashMap<String, Counter>(capacity * 2);
+	}
+
+	/**
+	 * init counter with error bound: counts overestimate real counts by at most
+	 * errorRate * offered keys count
+	 *
+	 * @param errorRate: ]0, 1]
+	 * @return counter
+	 */
+	public static SpaceSavingCounter withErrorRate(double errorRate) {
+		if (errorRate <= 0 || errorRate > 1) {
+			throw new IllegalArgumentException("Error rate must be in ]0, 1]");
+		}
+		return new SpaceSavingCounter((int) Math.ceil(1 / errorRate));
+	}
+
+	/**
+	 * count key once
+	 *
+	 * @param key
+	 * @return key counter
+	 */
+	public Counter offer(String key) {
+		offeredCount++;
+		Counter counter = counters.get(key);
+		if (counter != null) {
+			increment(counter);
+		} else if (counters.size() < capacity) {
+			counter = new Counter();
+			counter.key = key;
+			counters.put(key, counter);
+			attach(counter, findOrCreateFirstBucket(1));
+		} else {
+			// replace least counted key
+			counter = minBucket.head;
+			counters.remove(counter.key);
+			counter.key = key;
+			counter.error = counter.count;
+			counters.put(key, counter);
+			increment(counter);
+		}
+		return counter;
+	}
+
+	/**
+	 * move counter to the next count bucket
+	 *
+	 * @param counter
+	 */
+	private void increment(Counter counter) {
+		Bucket bucket = counter.bucket;
+		long count = counter.count + 1;
+		Bucket next = bucket.next;
+		if (next == null || next.count != count) {
+			next = insertBucketAfter(bucket, count);
+		}
+		detach(counter);
+		attach(counter, next);
+	}
+
+	/**
+	 * get least count bucket for count, create it if needed
+	 *
+	 * @param count: must not exceed the least count
+	 * @return bucket
+	 */
+	private Bucket findOrCreateFirstBucket(long count) {
+		if (minBucket != null && minBucket.count == count) {
+			return minBucket;
+		}
+		Bucket bucket = newBucket(count);
+		bucket.next = minBucket;
+		if (minBucket != null) {
+			minBucket.previous = bucket;
+		} else {
+			maxBucket = bucket;
+		}
+		minBucket = bucket;
+		return bucket;
+	}
+
+	/**
+	 * insert a new bucket after bucket
+	 *
+	 * @param bucket
+	 * @param count
+	 * @return new bucket
+	 */
+	private Bucket insertBucketAfter(Bucket bucket, long count) {
+		Bucket inserted = newBucket(count);
+		inserted.previous = bucket;
+		inserted.next = bucket.next;
+		if (bucket.next != null) {
+			bucket.next.previous = inserted;
+		} else {
+			maxBucket = inserted;
+		}
+		bucket.next = inserted;
+		return inserted;
+	}
+
+	/**
+	 * get a free bucket
+	 *
+	 * @param count
+	 * @return bucket
+	 */
+	private Bucket newBucket(long count) {
+		Bucket bucket = freeBuckets;
+		if (bucket == null) {
+			bucket = new Bucket();
+		} else {
+			freeBuckets = bucket.next;
+		}
+		bucket.count = count;
+		bucket.head = null;
+		bucket.previous = null;
+		bucket.next = null;
+		return bucket;
+	}
+
+	/**
+	 * add counter to bucket
+	 *
+	 * @param counter
+	 * @param bucket
+	 */
+	private void attach(Counter counter, Bucket bucket) {
+		counter.bucket = bucket;
+		counter.count = bucket.count;
+		counter.previous = null;
+		counter.next = bucket.head;
+		if (bucket.head != null) {
+			bucket.head.previous = counter;
+		}
+		bucket.head = counter;
+	}
+
+	/**
+	 * remove counter from its bucket, release bucket when empty
+	 *
+	 * @param counter
+	 */
+	private void detach(Counter counter) {
+		Bucket bucket = counter.bucket;
+		if (counter.previous != null) {
+			counter.previous.next = counter.next;
+		} else {
+			bucket.head = counter.next;
+		}
+		if (counter.next != null) {
+			counter.next.previous = counter.previous;
+		}
+		counter.bucket = null;
+		counter.previous = null;
+		counter.next = null;
+		if (bucket.head == null) {
+			// unlink empty bucket
+			if (bucket.previous != null) {
+				bucket.previous.next = bucket.next;
+			} else {
+				minBucket = bucket.next;
+			}
+			if (bucket.next != null) {
+				bucket.next.previous = bucket.previous;
+			} else {
+				maxBucket = bucket.previous;
+			}
+			bucket.previous = null;
+			bucket.next = freeBuckets;
+			freeBuckets = bucket;
+		}
+	}
+
+	/**
+	 * get most counted keys, most counted first
+	 *
+	 * @param limit: maximum returned counters
+	 * @return counters
+	 */
+	public List<Counter> top(int limit) {
+		List<Counter> top = new ArrayList<Counter>(Math.min(limit, counters.size()));
+		for (Bucket bucket = maxBucket; bucket != null && top.size() < limit; bucket = bucket.previous) {
+			for (Counter counter = bucket.head; counter != null && top.size() < limit; counter = counter.next) {
+				top.add(counter);
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * get key counter
+	 *
+	 * @param key
+	 * @return counter, null when key is not counted
+	 */
+	public Counter get(String key) {
+		return counters.get(key);
+	}
+
+	/**
+	 * merge other counter into this one: counts and errors of common keys are
+	 * added, keys missing in a full counter may have been counted up to its least
+	 * count. Merged counters have no attachment.
+	 *
+	 * @param other
+	 */
+	public void merge(SpaceSavingCounter other) {
+		long missingCount = getMissingCount();
+		long otherMissingCount = other.getMissingCount();
+		HashMap<String, long[]> merged = new HashMap<String, long[]>();
+		for (Counter counter : counters.values()) {
+			merged.put(counter.key, new long[] { counter.count + otherMissingCount, counter.error + otherMissingCount });
+		}
+		for (Counter counter : other.counters.values()) {
+			long[] value = merged.get(counter.key);
+			if (value == null) {
+				merged.put(counter.key, new long[] { counter.count + missingCount, counter.error + missingCount });
+			} else {
+				value[0] += counter.count - otherMissingCount;
+				value[1] += counter.error - otherMissingCount;
+			}
+		}
+		long offered = offeredCount + other.offeredCount;
+		clear();
+		offeredCount = offered;
+		// keep most counted keys, insert least counted first
+		merged.entrySet().stream().sorted((e1, e2) -> Long.compare(e2.getValue()[0], e1.getValue()[0]))
+				.limit(capacity).sorted((e1, e2) -> Long.compare(e1.getValue()[0], e2.getValue()[0]))
+				.forEachOrdered(e -> {
+					Counter counter = new Counter();
+					counter.key = e.getKey();
+					counter.error = e.getValue()[1];
+					counters.put(counter.key, counter);
+					Bucket bucket = maxBucket;
+					if (bucket == null || bucket.count != e.getValue()[0]) {
+						bucket = bucket == null ? findOrCreateFirstBucket(e.getValue()[0])
+								: insertBucketAfter(bucket, e.getValue()[0]);
+					}
+					attach(counter, bucket);
+				});
+	}
+
+	/**
+	 * maximum count of a key not counted
+	 *
+	 * @return least count when full, 0 otherwise
+	 */
+	private long getMissingCount() {
+		return counters.size() < capacity || minBucket == null ? 0 : minBucket.count;
+	}
+
+	/**
+	 * clear all counters
+	 */
+	public void clear() {
+		counters.clear();
+		minBucket = null;
+		maxBucket = null;
+		freeBuckets = null;
+		offeredCount = 0;
+	}
+
+	/**
+	 * @return counted keys count
+	 */
+	public int size() {
+		return counters.size();
+	}
+
+	public boolean isEmpty() {
+		return counters.isEmpty();
+	}
+
+	/**
+	 * {@link #capacity}
+	 *
+	 * @return capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * {@link #offeredCount}
+	 *
+	 * @return offeredCount
+	 */
+	public long getOfferedCount() {
+		return offeredCount;
+	}
+
+}
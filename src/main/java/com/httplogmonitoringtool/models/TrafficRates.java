@@ -0,0 +1,144 @@
+package com.httplogmonitoringtool.models;
+
+/**
+ * Requests {@link EwmaRate}s over the {@link #HORIZONS}, of all requests and
+ * by status class. Not thread safe: written by the statistics writer, copied
+ * into snapshots.
+ *
+ * @author Remi c
+ *
+ */
+public class TrafficRates {
+
+	/**
+	 * Rates horizons: 1, 5 and 15 minutes (seconds)
+	 */
+	public final static int[] HORIZONS = { 60, 300, 900 };
+
+	/**
+	 * Horizons display names
+	 */
+	public final static String[] HORIZON_NAMES = { "1m", "5m", "15m" };
+
+	/**
+	 * Rated status classes: 1xx to 5xx
+	 */
+	public final static int MIN_STATUS_CLASS = HTTPStats.MIN_STATUS_CODE / 100;
+	public final static int MAX_STATUS_CLASS = HTTPStats.MAX_STATUS_CODE / 100;
+
+	/**
+	 * all requests rates by horizon
+	 */
+	private final EwmaRate[] requestRates;
+
+	/**
+	 * requests rates by status class and horizon
+	 */
+	private final EwmaRate[][] statusClassRates = new EwmaRate[MAX_STATUS_CLASS + 1][];
+
+	public TrafficRates() {
+		requestRates = newRates();
+		for (int statusClass = MIN_STATUS_CLASS; statusClass <= MAX_STATUS_CLASS; statusClass++) {
+			statusClassRates[statusClass] = newRates();
+		}
+	}
+
+	/**
+	 * init copy
+	 *
+	 * @param rates: copied rates
+	 */
+	private TrafficRates(TrafficRates rates) {
+		requestRates = copyRates(rates.requestRates);
+		for (int statusClass = MIN_STATUS_CLASS; statusClass <= MAX_STATUS_CLASS; statusClass++) {
+			statusClassRates[statusClass] = copyRates(rates.statusClassRates[statusClass]);
+		}
+	}
+
+	/**
+	 * @return rates of each horizon
+	 */
+	private static EwmaRate[] newRates() {
+		EwmaRate[] rates = new EwmaRate[HORIZONS.length];
+		for (int i = 0; i < HORIZONS.length; i++) {
+			rates[i] = new EwmaRate(HORIZONS[i]);
+		}
+		return rates;
+	}
+
+	/**
+	 * @param rates
+	 * @return copied rates
+	 */
+	private static EwmaRate[] copyRates(EwmaRate[] rates) {
+		EwmaRate[] copiedRates = new EwmaRate[rates.length];
+		for (int i = 0; i < rates.length; i++) {
+			copiedRates[i] = rates[i].copy();
+		}
+		return copiedRates;
+	}
+
+	/**
+	 * count a request, see {@link EwmaRate#add(long, long)}
+	 *
+	 * @param time:   request time (epoch milliseconds)
+	 * @param status: HTTP status code
+	 */
+	public void add(long time, int status) {
+		for (EwmaRate rate : requestRates) {
+			rate.add(time, 1);
+		}
+		if (status >= HTTPStats.MIN_STATUS_CODE && status <= HTTPStats.MAX_STATUS_CODE) {
+			for (EwmaRate rate : statusClassRates[status / 100]) {
+				rate.add(time, 1);
+			}
+		}
+	}
+
+	/**
+	 * update rates, see {@link EwmaRate#tick(long)}
+	 *
+	 * @param time: epoch milliseconds
+	 */
+	public void tick(long time) {
+		for (EwmaRate rate : requestRates) {
+			rate.tick(time);
+		}
+		for (int statusClass = MIN_STATUS_CLASS; statusClass <= MAX_STATUS_CLASS; statusClass++) {
+			for (EwmaRate rate : statusClassRates[statusClass]) {
+				rate.tick(time);
+			}
+		}
+	}
+
+	/**
+	 * copy rates
+	 *
+	 * @return independent copy
+	 */
+	public TrafficRates copy() {
+		return new TrafficRates(this);
+	}
+
+	/**
+	 * get all requests rate
+	 *
+	 * @param horizon: {@link #HORIZONS} index
+	 * @return requests per second
+	 */
+	public double getRequestRate(int horizon) {
+		return requestRates[horizon].getRate();
+	}
+
+	/**
+	 * get status class requests rate
+	 *
+	 * @param statusClass: {@link #MIN_STATUS_CLASS} to {@link #MAX_STATUS_CLASS}
+	 * @param horizon:     {@link #HORIZONS} index
+	 * @return requests per second
+	 */
+	public double getStatusClassRate(int statusClass, int horizon) {
+		return statusClassRates[statusClass][horizon].getRate();
+	}
+
+}
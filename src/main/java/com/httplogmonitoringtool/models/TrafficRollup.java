@@ -0,0 +1,195 @@
+package com.httplogmonitoringtool.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Traffic summary of a time interval: requests, bytes, requests by status
+ * class (1xx to 5xx) and most hit sections. Rollups of consecutive intervals
+ * can be merged into a coarser one, merged sections counts are approximate
+ * when sections were trimmed.
+ *
+ * @author Remi c
+ *
+ */
+public class TrafficRollup {
+
+	/**
+	 * Status classes count: 1xx to 5xx
+	 */
+	public final static int STATUS_CLASSES = 5;
+
+	/**
+	 * interval start (epoch seconds)
+	 */
+	private final long startSecond;
+
+	/**
+	 * interval duration (seconds)
+	 */
+	private final int durationSeconds;
+
+	private long requests = 0;
+	private long bytes = 0;
+
+	/**
+	 * requests by status class: index 0 for 1xx to 4 for 5xx
+	 */
+	private final long[] statusClasses = new long[STATUS_CLASSES];
+
+	/**
+	 * hits by section
+	 */
+	private final Map<String, Long> sections = new HashMap<String, Long>();
+
+	/**
+	 * init empty rollup
+	 *
+	 * @param startSecond:     interval start (epoch seconds)
+	 * @param durationSeconds: interval duration (seconds)
+	 */
+	public TrafficRollup(long startSecond, int durationSeconds) {
+		this.startSecond = startSecond;
+		this.durationSeconds = durationSeconds;
+	}
+
+	/**
+	 * count a request
+	 *
+	 * @param status:        HTTP status code, out of 1xx-5xx only counted as
+	 *                       request
+	 * @param contentLength: bytes
+	 * @param section:       hit section, null when none
+	 */
+	public void addRequest(int status, long contentLength, String section) {
+		requests++;
+		bytes += contentLength;
+		int statusClass = status / 100 - 1;
+		if (statusClass >= 0 && statusClass < STATUS_CLASSES) {
+			statusClasses[statusClass]++;
+		}
+		if (section != null) {
+			sections.merge(section, 1l, Long::sum);
+		}
+	}
+
+	/**
+	 * add other rollup counts to this one
+	 *
+	 * @param other
+	 */
+	public void merge(TrafficRollup other) {
+		requests += other.requests;
+		bytes += other.bytes;
+		for (int i = 0; i < STATUS_CLASSES; i++) {
+			statusClasses[i] += other.statusClasses[i];
+		}
+		for (Entry<String, Long> entry : other.sections.entrySet()) {
+			sections.merge(entry.getKey(), entry.getValue(), Long::sum);
+		}
+	}
+
+	/**
+	 * copy rollup keeping its most hit sections only
+	 *
+	 * @param sectionCount: kept sections maximum count
+	 * @return copy
+	 */
+	public TrafficRollup copy(int sectionCount) {
+		TrafficRollup copy = new TrafficRollup(startSecond, durationSeconds);
+		copy.setCounts(requests, bytes, statusClasses);
+		copy.sections.putAll(getTopSections(sectionCount));
+		return copy;
+	}
+
+	/**
+	 * set counts, used when decoding stored rollups
+	 *
+	 * @param requests
+	 * @param bytes
+	 * @param statusClasses: requests by status class
+	 */
+	public void setCounts(long requests, long bytes, long[] statusClasses) {
+		this.requests = requests;
+		this.bytes = bytes;
+		System.arraycopy(statusClasses, 0, this.statusClasses, 0, STATUS_CLASSES);
+	}
+
+	/**
+	 * set a section hits count, used when decoding stored rollups
+	 *
+	 * @param section
+	 * @param hits
+	 */
+	public void putSection(String section, long hits) {
+		sections.put(section, hits);
+	}
+
+	/**
+	 * get most hit sections
+	 *
+	 * @param count: maximum sections count
+	 * @return hits by section sorted by most hit
+	 */
+	public Map<String, Long> getTopSections(int count) {
+		List<Entry<String, Long>> entries = new ArrayList<Entry<String, Long>>(sections.entrySet());
+		Collections.sort(entries, (e1, e2) -> {
+			int compare = Long.compare(e2.getValue(), e1.getValue());
+			return compare != 0 ? compare : e1.getKey().compareTo(e2.getKey());
+		});
+		Map<String, Long> topSections = new LinkedHashMap<String, Long>();
+		for (Entry<String, Long> entry : entries.subList(0, Math.min(count, entries.size()))) {
+			topSections.put(entry.getKey(), entry.getValue());
+		}
+		return topSections;
+	}
+
+	/**
+	 * {@link #startSecond}
+	 *
+	 * @return startSecond
+	 */
+	public long getStartSecond() {
+		return startSecond;
+	}
+
+	/**
+	 * {@link #durationSeconds}
+	 *
+	 * @return durationSeconds
+	 */
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * get requests count of a status class
+	 *
+	 * @param statusClass: 1 for 1xx to 5 for 5xx
+	 * @return requests count
+	 */
+	public long getStatusClassCount(int statusClass) {
+		return statusClasses[statusClass - 1];
+	}
+
+	/**
+	 * @return true when no request was counted
+	 */
+	public boolean isEmpty() {
+		return requests == 0;
+	}
+
+}
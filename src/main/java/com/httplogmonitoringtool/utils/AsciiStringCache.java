@@ -0,0 +1,113 @@
+package com.httplogmonitoringtool.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Direct mapped ASCII bytes to String cache: decoding the same bytes again
+ * returns the cached String instead of a new one. Log fields such as sections,
+ * users and remote hosts repeat a lot, so most decodings do not allocate. Only
+ * ASCII strings are cached, other bytes are decoded as UTF-8 each time. Not
+ * thread safe.
+ *
+ * @author Remi c
+ *
+ */
+public class AsciiStringCache {
+
+	/**
+	 * cache size default: 1024 strings (must be a power of 2)
+	 */
+	public final static int DEFAULT_SIZE = 1024;
+
+	/**
+	 * cached strings indexed by hash
+	 */
+	private final String[] strings;
+
+	/**
+	 * cached strings hash
+	 */
+	private final int[] hashes;
+
+	/**
+	 * init cache with {@link #DEFAULT_SIZE}
+	 */
+	public AsciiStringCache() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * init cache
+	 *
+	 * @param size: cached strings count, rounded up to a power of 2
+	 */
+	public AsciiStringCache(int size) {
+		int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+		strings = new String[capacity];
+		hashes = new int[capacity];
+	}
+
+	/**
+	 * get string of UTF-8 bytes
+	 *
+	 * @param buffer: bytes holder
+	 * @param offset: first byte position
+	 * @param length: byte count
+	 * @return cached or new string
+	 */
+	public String get(byte[] buffer, int offset, int length) {
+		// same hash as String.hashCode
+		int hash = 0;
+		int bits = 0;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + (buffer[i] & 0xFF);
+			bits |= buffer[i];
+		}
+		if (bits < 0) {// not ASCII: multi-byte chars
+			return new String(buffer, offset, length, StandardCharsets.UTF_8);
+		}
+		int index = (hash ^ (hash >>> 16)) & (strings.length - 1);
+		String cached = strings[index];
+		if (cached != null && hashes[index] == hash && sameChars(cached, buffer, offset, length)) {
+			return cached;
+		}
+		String string = decode(buffer, offset, length);
+		strings[index] = string;
+		hashes[index] = hash;
+		return string;
+	}
+
+	/**
+	 * compare string chars with bytes
+	 *
+	 * @param string
+	 * @param buffer
+	 * @param offset
+	 * @param length
+	 * @return same chars
+	 */
+	private static boolean sameChars(String string, byte[] buffer, int offset, int length) {
+		if (string.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (string.charAt(i) != (char) (buffer[offset + i] & 0xFF)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * decode ASCII bytes
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param length
+	 * @return new string
+	 */
+	private static String decode(byte[] buffer, int offset, int length) {
+		return new String(buffer, offset, length, StandardCharsets.US_ASCII);
+	}
+
+}
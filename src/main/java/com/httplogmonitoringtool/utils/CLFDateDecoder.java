@@ -0,0 +1,268 @@
+package com.httplogmonitoringtool.utils;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+
+/**
+ * Common log format date decoder: decodes "[dd/MMM/yyyy:HH:mm:ss Z]" ASCII
+ * bytes into epoch milliseconds without any allocation. Like the lenient
+ * SimpleDateFormat, out of range day, hour, minute and second values roll over
+ * and bytes after the closing ']' are ignored.
+ * <p>
+ * A decoder caches the last decoded second and time zone offset: log lines
+ * written during the same second are decoded with a single comparison. A
+ * decoder instance is not thread safe, the static {@link #decode} methods use
+ * one decoder per thread so they can be called from many threads at once.
+ *
+ * @author Remi c
+ *
+ */
+public class CLFDateDecoder {
+
+	/**
+	 * decoded date length "[dd/MMM/yyyy:HH:mm:ss +hhmm]"
+	 */
+	public final static int DATE_LENGTH = 28;
+
+	// cached date parts positions in date
+	private final static int SECOND_TEXT_OFFSET = 1;
+	private final static int SECOND_TEXT_LENGTH = 20;
+	private final static int ZONE_TEXT_OFFSET = 22;
+	private final static int ZONE_TEXT_LENGTH = 5;
+
+	// month short names, lower case
+	private final static byte[][] MONTHS = new byte[][] { "jan".getBytes(), "feb".getBytes(), "mar".getBytes(),
+			"apr".getBytes(), "may".getBytes(), "jun".getBytes(), "jul".getBytes(), "aug".getBytes(),
+			"sep".getBytes(), "oct".getBytes(), "nov".getBytes(), "dec".getBytes() };
+
+	/**
+	 * one decoder per thread for static decoding
+	 */
+	private final static ThreadLocal<CLFDateDecoder> DECODERS = ThreadLocal.withInitial(CLFDateDecoder::new);
+
+	/**
+	 * last decoded "dd/MMM/yyyy:HH:mm:ss" text
+	 */
+	private final byte[] lastSecondText = new byte[SECOND_TEXT_LENGTH];
+
+	/**
+	 * last decoded second without zone offset (epoch seconds), valid when
+	 * {@link #hasLastSecond}
+	 */
+	private long lastSecond;
+
+	private boolean hasLastSecond = false;
+
+	/**
+	 * last decoded "+hhmm" text
+	 */
+	private final byte[] lastZoneText = new byte[ZONE_TEXT_LENGTH];
+
+	/**
+	 * last decoded zone offset (seconds), valid when {@link #hasLastZone}
+	 */
+	private int lastZoneOffset;
+
+	private boolean hasLastZone = false;
+
+	/**
+	 * date chars copy used by {@link #decodeDate(CharSequence)}
+	 */
+	private final byte[] charsCopy = new byte[DATE_LENGTH];
+
+	/**
+	 * Decode date bytes with the current thread decoder
+	 *
+	 * @param buffer: date bytes holder
+	 * @param offset: '[' position
+	 * @param length: available bytes
+	 * @return epoch milliseconds
+	 * @throws HTTPLogRowFormatException
+	 */
+	public static long decode(byte[] buffer, int offset, int length) throws HTTPLogRowFormatException {
+		return DECODERS.get().decodeDate(buffer, offset, length);
+	}
+
+	/**
+	 * Decode date chars with the current thread decoder
+	 *
+	 * @param date: "[dd/MMM/yyyy:HH:mm:ss Z]" date
+	 * @return epoch milliseconds
+	 * @throws HTTPLogRowFormatException
+	 */
+	public static long decode(CharSequence date) throws HTTPLogRowFormatException {
+		return DECODERS.get().decodeDate(date);
+	}
+
+	/**
+	 * Decode date chars
+	 *
+	 * @param date: "[dd/MMM/yyyy:HH:mm:ss Z]" date
+	 * @return epoch milliseconds
+	 * @throws HTTPLogRowFormatException
+	 */
+	public long decodeDate(CharSequence date) throws HTTPLogRowFormatException {
+		if (date.length() < DATE_LENGTH) {
+			throw new HTTPLogRowFormatException("ReqDate bad format");
+		}
+		for (int i = 0; i < DATE_LENGTH; i++) {
+			char c = date.charAt(i);
+			if (c > 0x7F) {// not ASCII
+				throw new HTTPLogRowFormatException("ReqDate bad format");
+			}
+			charsCopy[i] = (byte) c;
+		}
+		return decodeDate(charsCopy, 0, DATE_LENGTH);
+	}
+
+	/**
+	 * Decode date bytes
+	 *
+	 * @param buffer: date bytes holder
+	 * @param offset: '[' position
+	 * @param length: available bytes
+	 * @return epoch milliseconds
+	 * @throws HTTPLogRowFormatException
+	 */
+	public long decodeDate(byte[] buffer, int offset, int length) throws HTTPLogRowFormatException {
+		if (length < DATE_LENGTH || buffer[offset] != '[' || buffer[offset + 21] != ' '
+				|| buffer[offset + 27] != ']') {
+			throw new HTTPLogRowFormatException("ReqDate bad format");
+		}
+		// same second as last line ?
+		if (!hasLastSecond || !sameBytes(buffer, offset + SECOND_TEXT_OFFSET, lastSecondText)) {
+			lastSecond = decodeSecond(buffer, offset);
+			System.arraycopy(buffer, offset + SECOND_TEXT_OFFSET, lastSecondText, 0, SECOND_TEXT_LENGTH);
+			hasLastSecond = true;
+		}
+		// same zone as last line ?
+		if (!hasLastZone || !sameBytes(buffer, offset + ZONE_TEXT_OFFSET, lastZoneText)) {
+			lastZoneOffset = zoneOffset(buffer, offset + ZONE_TEXT_OFFSET);
+			System.arraycopy(buffer, offset + ZONE_TEXT_OFFSET, lastZoneText, 0, ZONE_TEXT_LENGTH);
+			hasLastZone = true;
+		}
+		return (lastSecond - lastZoneOffset) * 1000L;
+	}
+
+	/**
+	 * compare buffer bytes with cached text, last bytes first as they change more
+	 * often
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param text
+	 * @return same bytes
+	 */
+	private static boolean sameBytes(byte[] buffer, int offset, byte[] text) {
+		for (int i = text.length - 1; i >= 0; i--) {
+			if (buffer[offset + i] != text[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * decode "dd/MMM/yyyy:HH:mm:ss" part
+	 *
+	 * @param buffer
+	 * @param offset: '[' position
+	 * @return epoch seconds without zone offset
+	 * @throws HTTPLogRowFormatException
+	 */
+	private static long decodeSecond(byte[] buffer, int offset) throws HTTPLogRowFormatException {
+		if (buffer[offset + 3] != '/' || buffer[offset + 7] != '/' || buffer[offset + 12] != ':'
+				|| buffer[offset + 15] != ':' || buffer[offset + 18] != ':') {
+			throw new HTTPLogRowFormatException("ReqDate bad format");
+		}
+		int day = digits(buffer, offset + 1, 2);
+		int month = month(buffer, offset + 4);
+		int year = digits(buffer, offset + 8, 4);
+		int hour = digits(buffer, offset + 13, 2);
+		int minute = digits(buffer, offset + 16, 2);
+		int second = digits(buffer, offset + 19, 2);
+		return (daysFromCivil(year, month) + day - 1) * 86400L + hour * 3600L + minute * 60L + second;
+	}
+
+	/**
+	 * decode ASCII digits
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @param count:  digits count
+	 * @return decoded value
+	 * @throws HTTPLogRowFormatException: not a digit
+	 */
+	private static int digits(byte[] buffer, int offset, int count) throws HTTPLogRowFormatException {
+		int value = 0;
+		for (int i = offset; i < offset + count; i++) {
+			int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new HTTPLogRowFormatException("ReqDate bad format");
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * decode month short name (case insensitive)
+	 *
+	 * @param buffer
+	 * @param offset
+	 * @return month (1-12)
+	 * @throws HTTPLogRowFormatException: unknown month
+	 */
+	private static int month(byte[] buffer, int offset) throws HTTPLogRowFormatException {
+		byte first = (byte) (buffer[offset] | 0x20);
+		byte second = (byte) (buffer[offset + 1] | 0x20);
+		byte third = (byte) (buffer[offset + 2] | 0x20);
+		for (int i = 0; i < MONTHS.length; i++) {
+			if (MONTHS[i][0] == first && MONTHS[i][1] == second && MONTHS[i][2] == third) {
+				return i + 1;
+			}
+		}
+		throw new HTTPLogRowFormatException("ReqDate bad format");
+	}
+
+	/**
+	 * decode RFC 822 time zone "+hhmm"
+	 *
+	 * @param buffer
+	 * @param offset: sign position
+	 * @return zone offset (seconds)
+	 * @throws HTTPLogRowFormatException
+	 */
+	private static int zoneOffset(byte[] buffer, int offset) throws HTTPLogRowFormatException {
+		int sign;
+		if (buffer[offset] == '+') {
+			sign = 1;
+		} else if (buffer[offset] == '-') {
+			sign = -1;
+		} else {
+			throw new HTTPLogRowFormatException("ReqDate bad format");
+		}
+		int hours = digits(buffer, offset + 1, 2);
+		int minutes = digits(buffer, offset + 3, 2);
+		if (hours > 23 || minutes > 59) {
+			throw new HTTPLogRowFormatException("ReqDate bad format");
+		}
+		return sign * (hours * 3600 + minutes * 60);
+	}
+
+	/**
+	 * days since epoch of the first day of month (proleptic gregorian calendar)
+	 *
+	 * @param year
+	 * @param month: 1-12
+	 * @return epoch day
+	 */
+	private static long daysFromCivil(int year, int month) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = Math.floorDiv(y, 400);
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+}
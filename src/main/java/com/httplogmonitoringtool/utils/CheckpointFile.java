@@ -0,0 +1,247 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.models.MonitorCheckpoint;
+
+/**
+ * Crash-safe {@link MonitorCheckpoint} file: a checkpoint is written to a
+ * temporary file, synced to disk, then atomically renamed over the previous
+ * one. A CRC32 of the content detects partially written or corrupted files.
+ *
+ * @author Remi c
+ *
+ */
+public class CheckpointFile {
+
+	/**
+	 * File format identifier: "HLMC"
+	 */
+	private final static int MAGIC = 0x484C4D43;
+
+	/**
+	 * File format version: version 2 adds the rule and value of alerts
+	 */
+	private final static int VERSION = 2;
+
+	/**
+	 * Oldest readable file format version
+	 */
+	private final static int MIN_VERSION = 1;
+
+	/**
+	 * Temporary file name suffix
+	 */
+	private final static String TEMP_SUFFIX = ".tmp";
+
+	/**
+	 * Checkpoint file path
+	 */
+	private final Path path;
+
+	/**
+	 * init checkpoint file
+	 *
+	 * @param checkpointFilePath
+	 */
+	public CheckpointFile(String checkpointFilePath) {
+		this.path = Paths.get(checkpointFilePath).toAbsolutePath();
+	}
+
+	/**
+	 * replace checkpoint file content
+	 *
+	 * @param checkpoint
+	 * @throws IOException: while writing checkpoint file
+	 */
+	public void write(MonitorCheckpoint checkpoint) throws IOException {
+		byte[] content = encode(checkpoint);
+		Path tempPath = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+		try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(content);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		try {
+			Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+		syncDirectory();
+	}
+
+	/**
+	 * read checkpoint file
+	 *
+	 * @return checkpoint, null when there is no checkpoint file
+	 * @throws IOException: while reading checkpoint file or when it is corrupted
+	 */
+	public MonitorCheckpoint read() throws IOException {
+		byte[] content;
+		try {
+			content = Files.readAllBytes(path);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		if (content.length < Long.BYTES) {
+			throw new IOException("Truncated checkpoint file " + path);
+		}
+		// content is followed by its CRC
+		int length = content.length - Long.BYTES;
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, length);
+		if (crc.getValue() != ByteBuffer.wrap(content, length, Long.BYTES).getLong()) {
+			throw new IOException("Corrupted checkpoint file " + path);
+		}
+		return decode(new DataInputStream(new ByteArrayInputStream(content, 0, length)));
+	}
+
+	/**
+	 * serialize checkpoint followed by its CRC
+	 *
+	 * @param checkpoint
+	 * @return file content
+	 * @throws IOException
+	 */
+	private static byte[] encode(MonitorCheckpoint checkpoint) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeLong(checkpoint.getTime());
+		output.writeUTF(checkpoint.getLogFilePath());
+		output.writeUTF(checkpoint.getFileKey());
+		output.writeLong(checkpoint.getOffset());
+		// alert window
+		output.writeLong(checkpoint.getWindowHeadSecond());
+		output.writeLong(checkpoint.getWindowStartTime());
+		long[] windowCounts = checkpoint.getWindowCounts();
+		output.writeInt(windowCounts.length);
+		for (long count : windowCounts) {
+			output.writeLong(count);
+		}
+		// cumulative counters: enums by name, robust to enum changes
+		output.writeInt(checkpoint.getStatsValues().size());
+		for (Entry<HTTPStatsType, Long> entry : checkpoint.getStatsValues().entrySet()) {
+			output.writeUTF(entry.getKey().name());
+			output.writeLong(entry.getValue());
+		}
+		output.writeInt(checkpoint.getStatusCounts().size());
+		for (Entry<Integer, Long> entry : checkpoint.getStatusCounts().entrySet()) {
+			output.writeInt(entry.getKey());
+			output.writeLong(entry.getValue());
+		}
+		output.writeInt(checkpoint.getRaisedAlerts().size());
+		for (HTTPStatsAlert alert : checkpoint.getRaisedAlerts()) {
+			output.writeUTF(alert.getType().name());
+			output.writeInt(alert.getTrafficAverage());
+			output.writeLong(alert.getDate().getTime());
+			output.writeUTF(alert.getRule() == null ? "" : alert.getRule());
+			output.writeDouble(alert.getValue());
+		}
+		output.flush();
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		output.writeLong(crc.getValue());
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * deserialize checkpoint
+	 *
+	 * @param input: content without CRC
+	 * @return checkpoint
+	 * @throws IOException: unknown format
+	 */
+	private MonitorCheckpoint decode(DataInputStream input) throws IOException {
+		if (input.readInt() != MAGIC) {
+			throw new IOException("Unknown checkpoint file format " + path);
+		}
+		int version = input.readInt();
+		if (version < MIN_VERSION || version > VERSION) {
+			throw new IOException("Unknown checkpoint file format " + path);
+		}
+		try {
+			long time = input.readLong();
+			String logFilePath = input.readUTF();
+			String fileKey = input.readUTF();
+			long offset = input.readLong();
+			long windowHeadSecond = input.readLong();
+			long windowStartTime = input.readLong();
+			long[] windowCounts = new long[input.readInt()];
+			for (int i = 0; i < windowCounts.length; i++) {
+				windowCounts[i] = input.readLong();
+			}
+			Map<HTTPStatsType, Long> statsValues = new EnumMap<HTTPStatsType, Long>(HTTPStatsType.class);
+			for (int i = input.readInt(); i > 0; i--) {
+				statsValues.put(HTTPStatsType.valueOf(input.readUTF()), input.readLong());
+			}
+			Map<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+			for (int i = input.readInt(); i > 0; i--) {
+				statusCounts.put(input.readInt(), input.readLong());
+			}
+			List<HTTPStatsAlert> raisedAlerts = new ArrayList<HTTPStatsAlert>();
+			for (int i = input.readInt(); i > 0; i--) {
+				HTTPStatsAlertType type = HTTPStatsAlertType.valueOf(input.readUTF());
+				int trafficAverage = input.readInt();
+				Date date = new Date(input.readLong());
+				String rule = version >= 2 ? input.readUTF() : "";
+				double value = version >= 2 ? input.readDouble() : 0;
+				raisedAlerts.add(rule.isEmpty() ? new HTTPStatsAlert(type, trafficAverage, date)
+						: new HTTPStatsAlert(type, rule, value, date));
+			}
+			return new MonitorCheckpoint(time, logFilePath, fileKey, offset, windowHeadSecond, windowStartTime,
+					windowCounts, statsValues, statusCounts, raisedAlerts);
+		} catch (IllegalArgumentException e) {// unknown enum name
+			throw new IOException("Unknown checkpoint file content " + path + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * sync checkpoint directory so that the rename survives a crash
+	 */
+	private void syncDirectory() {
+		try (FileChannel directory = FileChannel.open(path.getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (IOException e) {
+			// directories cannot be opened on some platforms: rename is synced by the OS
+		}
+	}
+
+	/**
+	 * {@link #path}
+	 *
+	 * @return path
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+}
@@ -0,0 +1,272 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Console screen renderer on its own fixed-rate thread: each frame is written
+ * line by line into reused buffers, compared to the previous frame, and only
+ * the changed lines are repainted using ANSI cursor addressing. The whole
+ * repaint is printed and flushed once per frame.
+ * <p>
+ * The frame writer only reads published data (statistics snapshots, counters):
+ * rendering never waits for or slows the ingestion.
+ *
+ * @author Remi c
+ *
+ */
+public class ConsoleRenderer implements Closeable {
+
+	/**
+	 * Frame content writer
+	 */
+	public interface FrameWriter {
+
+		/**
+		 * write the frame lines with {@link ConsoleRenderer#nextLine()}
+		 *
+		 * @param renderer
+		 */
+		void writeFrame(ConsoleRenderer renderer);
+	}
+
+	/**
+	 * ANSI Control Sequence Introducer
+	 */
+	private final static String CSI = "\u001B[";
+
+	/**
+	 * Rendering thread stop timeout (milliseconds)
+	 */
+	private final static long CLOSE_TIMEOUT = 1000;
+
+	/**
+	 * Powers of ten scaling fixed decimal values, indexed by decimals count
+	 */
+	private final static long[] DECIMAL_SCALES = { 1, 10, 100, 1000, 10000, 100000, 1000000 };
+
+	/**
+	 * Largest value appended with fixed decimals, larger values use their Java
+	 * representation
+	 */
+	private final static double FIXED_DOUBLE_MAX = 1e12;
+
+	private final PrintStream out;
+	private final FrameWriter frameWriter;
+
+	/**
+	 * frame period (milliseconds)
+	 */
+	private final long period;
+
+	private final ScheduledExecutorService executor;
+
+	/**
+	 * lines of the frame being written, then of the displayed frame
+	 */
+	private List<StringBuilder> lines = new ArrayList<StringBuilder>();
+	private List<StringBuilder> displayedLines = new ArrayList<StringBuilder>();
+	private int lineCount = 0;
+	private int displayedLineCount = 0;
+
+	/**
+	 * repaint sequence buffer
+	 */
+	private final StringBuilder output = new StringBuilder(16 * 1024);
+
+	/**
+	 * thread writing a frame: null between frames
+	 */
+	private volatile Thread renderingThread;
+
+	/**
+	 * next frame clears the screen first
+	 */
+	private boolean clearScreen = true;
+
+	private long frameCount = 0;
+	private long repaintedLineCount = 0;
+
+	/**
+	 * init renderer, see {@link #start()}
+	 *
+	 * @param out:         console stream
+	 * @param frameWriter: frame content writer, called on the rendering thread
+	 * @param period:      frame period (milliseconds)
+	 */
+	public ConsoleRenderer(PrintStream out, FrameWriter frameWriter, long period) {
+		this.out = out;
+		this.frameWriter = frameWriter;
+		this.period = period;
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "console-renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		this.executor = executor;
+	}
+
+	/**
+	 * starts rendering a frame every {@link #period}
+	 */
+	public void start() {
+		executor.scheduleAtFixedRate(this::render, 0, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * write and repaint one frame, rendering errors are shown on the frame
+	 */
+	public void render() {
+		renderingThread = Thread.currentThread();
+		lineCount = 0;
+		try {
+			frameWriter.writeFrame(this);
+		} catch (RuntimeException e) {
+			nextLine().append(" Rendering error: ").append(e);
+		} finally {
+			renderingThread = null;
+		}
+		repaint();
+	}
+
+	/**
+	 * get next frame line buffer, must be called by the {@link FrameWriter}
+	 *
+	 * @return empty line buffer
+	 */
+	public StringBuilder nextLine() {
+		if (lineCount == lines.size()) {
+			lines.add(new StringBuilder(128));
+		}
+		StringBuilder line = lines.get(lineCount++);
+		line.setLength(0);
+		return line;
+	}
+
+	/**
+	 * @return the current thread is writing a frame
+	 */
+	public boolean isRendering() {
+		return renderingThread == Thread.currentThread();
+	}
+
+	/**
+	 * print changed lines, erase lines of the previous frame beyond the new one
+	 */
+	private void repaint() {
+		output.setLength(0);
+		if (clearScreen) {
+			output.append(CSI).append("2J");
+			clearScreen = false;
+		}
+		for (int i = 0; i < lineCount; i++) {
+			StringBuilder line = lines.get(i);
+			if (i >= displayedLineCount || !contentEquals(line, displayedLines.get(i))) {
+				moveTo(i).append(line).append(CSI).append('K');
+				repaintedLineCount++;
+			}
+		}
+		for (int i = lineCount; i < displayedLineCount; i++) {
+			moveTo(i).append(CSI).append('K');
+		}
+		// park cursor below the frame
+		moveTo(lineCount);
+		out.print(output);
+		out.flush();
+
+		// written frame becomes the displayed one, its buffers are reused next frame
+		List<StringBuilder> swap = displayedLines;
+		displayedLines = lines;
+		lines = swap;
+		displayedLineCount = lineCount;
+		frameCount++;
+	}
+
+	/**
+	 * append cursor move to a frame line start
+	 *
+	 * @param line: 0 based line index
+	 * @return output
+	 */
+	private StringBuilder moveTo(int line) {
+		return output.append(CSI).append(line + 1).append(";1H");
+	}
+
+	/**
+	 * append value rounded to fixed decimals into a frame line without
+	 * formatter, NaN, infinite and huge values use their Java representation
+	 *
+	 * @param line:     appended line
+	 * @param value
+	 * @param decimals: decimal digits count, 0 to 6
+	 * @return line
+	 */
+	public static StringBuilder appendFixed(StringBuilder line, double value, int decimals) {
+		if (Double.isNaN(value) || Math.abs(value) >= FIXED_DOUBLE_MAX) {
+			return line.append(value);
+		}
+		long scale = DECIMAL_SCALES[decimals];
+		long scaled = Math.round(Math.abs(value) * scale);
+		if (value < 0 && scaled != 0) {
+			line.append('-');
+		}
+		line.append(scaled / scale);
+		if (decimals > 0) {
+			line.append('.');
+			long fraction = scaled % scale;
+			// leading zeros of the fraction
+			for (long digitScale = scale / 10; digitScale > 1 && fraction < digitScale; digitScale /= 10) {
+				line.append('0');
+			}
+			line.append(fraction);
+		}
+		return line;
+	}
+
+	private static boolean contentEquals(StringBuilder line, StringBuilder other) {
+		int length = line.length();
+		if (length != other.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (line.charAt(i) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return rendered frames count
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * @return repainted lines count since start
+	 */
+	public long getRepaintedLineCount() {
+		return repaintedLineCount;
+	}
+
+	/**
+	 * stop rendering, the last frame stays displayed
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
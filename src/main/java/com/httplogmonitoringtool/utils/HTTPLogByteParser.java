@@ -0,0 +1,303 @@
+package com.httplogmonitoringtool.utils;
+
+import java.nio.ByteBuffer;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.HTTPLogFields;
+
+/**
+ * HTTP log byte parser: same format rules as {@link HTTPLogParser} but works on
+ * ASCII line bytes and stores fields positions in a reusable
+ * {@link HTTPLogFields}. No object is created when the line is valid.
+ *
+ * @author Remi c
+ *
+ */
+public class HTTPLogByteParser {
+
+	// fields position in log line
+	private final static int REMOTEHOST_POSITION = 0;
+	private final static int REMOTELOGNAME_POSITION = 1;
+	private final static int AUTHUSER_POSITION = 2;
+	private final static int REQDATE_POSITION = 3;
+	private final static int REQTYPE_POSITION = 4;
+	private final static int REQRESOURCE_POSITION = 5;
+	private final static int REQPROTO_POSITION = 6;
+	private final static int STATUS_POSITION = 7;
+	private final static int CONTENTLENGTH_POSITION = 8;
+
+	/**
+	 * Parse heap byte buffer remaining bytes
+	 *
+	 * @param line:   line bytes, must be backed by an array
+	 * @param fields: parsed fields holder
+	 * @throws HTTPLogRowFormatException
+	 */
+	public static void parse(ByteBuffer line, HTTPLogFields fields) throws HTTPLogRowFormatException {
+		if (!line.hasArray()) {
+			throw new IllegalArgumentException("Line buffer must be backed by an array");
+		}
+		parse(line.array(), line.arrayOffset() + line.position(), line.remaining(), fields);
+	}
+
+	/**
+	 * Parse log line bytes based on ' ', '[', ']', '"'
+	 *
+	 * @see <a href="https://www.w3.org/Daemon/User/Config/Logging.html#LogFormat">W3C
+	 *      httpd format</a>
+	 *
+	 * @param buffer: line bytes holder
+	 * @param offset: line first byte position
+	 * @param length: line byte count
+	 * @param fields: parsed fields holder
+	 * @throws HTTPLogRowFormatException
+	 */
+	public static void parse(byte[] buffer, int offset, int length, HTTPLogFields fields)
+			throws HTTPLogRowFormatException {
+
+		if (buffer == null || length == 0) {
+			throw new HTTPLogRowFormatException("Empty Row");
+		} else if (buffer[offset] == ' ') {
+			throw new HTTPLogRowFormatException("First char whitespace");
+		}
+
+		fields.reset(buffer);
+
+		// current field bytes: [workStart, workEnd[ without workSkip
+		int workStart = 0;
+		int workEnd = 0;
+		int workLength = 0;
+		int workSkip = -1;
+
+		int position = 0;// start position
+		byte charToListen = ' ';// when aimed it passes to the next field
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			byte currentChar = buffer[i];
+			switch (position) {
+			case REMOTEHOST_POSITION:
+				if (currentChar == charToListen) {
+					position++;
+					if (isBlank(buffer, workStart, workEnd, workLength, -1)) {// prevent blank value
+						throw new HTTPLogRowFormatException("RemoteHost is blank");
+					}
+					fields.setRemoteHost(workStart, workLength);
+					workLength = 0;
+					continue;
+				}
+				break;
+			case REMOTELOGNAME_POSITION:
+				if (currentChar == charToListen) {
+					position++;
+					if (isBlank(buffer, workStart, workEnd, workLength, -1)) {// prevent blank value
+						throw new HTTPLogRowFormatException("RemoteLogName is blank");
+					}
+					fields.setRemoteLogName(workStart, workLength);
+					workLength = 0;
+					continue;
+				}
+				break;
+			case AUTHUSER_POSITION:
+				if (currentChar == charToListen) {
+					charToListen = '[';
+					position++;
+					if (isBlank(buffer, workStart, workEnd, workLength, -1)) {// prevent blank value
+						throw new HTTPLogRowFormatException("AuthUser is blank");
+					}
+					fields.setAuthUser(workStart, workLength);
+					workLength = 0;
+					continue;
+				}
+				break;
+			case REQDATE_POSITION:
+				if (currentChar == '[') {// to ignore ' ' until end of date
+					charToListen = ']';
+				} else if (currentChar == ']') {// to ignore ' ' until end of date
+					charToListen = ' ';
+				} else if (charToListen == '[' && workLength > 0) {// first char must be '['
+					throw new HTTPLogRowFormatException("ReqDate bad format");
+				}
+
+				if (currentChar == charToListen) {
+					charToListen = '"';
+					position++;
+					fields.setReqEpochMillis(CLFDateDecoder.decode(buffer, workStart, workLength));
+					workLength = 0;
+					continue;
+				}
+				break;
+			case REQTYPE_POSITION:
+				if (currentChar == '"' && charToListen == '"') {// to ignore first '"'
+					charToListen = ' ';
+					if (workLength > 0) {
+						workSkip = i;
+					}
+					continue;
+				} else if (charToListen == '"' && workLength > 0) {// first char must be '"'
+					throw new HTTPLogRowFormatException("ReqType bad format");
+				}
+				if (currentChar == ' ') {
+					position++;
+					if (isBlank(buffer, workStart, workEnd, workLength, workSkip)) {// prevent blank value
+						throw new HTTPLogRowFormatException("ReqType is blank");
+					}
+					fields.setReqType(workStart, workEnd - workStart, workSkip < workEnd ? workSkip : -1);
+					workLength = 0;
+					workSkip = -1;
+					continue;
+				}
+				break;
+			case REQRESOURCE_POSITION:
+				if (currentChar == ' ') {
+					charToListen = '"';
+					position++;
+					if (isBlank(buffer, workStart, workEnd, workLength, -1)) {// prevent blank value
+						throw new HTTPLogRowFormatException("ReqResource is blank");
+					} else if (buffer[workStart] != '/') {
+						throw new HTTPLogRowFormatException("ReqResource bad format");
+					}
+					fields.setReqResource(workStart, workLength);
+					// get section
+					int sectionLength = 1;
+					while (sectionLength < workLength && buffer[workStart + sectionLength] != '/') {
+						sectionLength++;
+					}
+					fields.setReqSectionLength(sectionLength);
+					workLength = 0;
+					continue;
+				}
+				break;
+			case REQPROTO_POSITION:
+				if (currentChar == '"' && charToListen == '"') {// to ignore last '"'
+					charToListen = ' ';
+					if (workLength > 0) {
+						workSkip = i;
+					}
+					continue;
+				} else if (charToListen == '"' && currentChar == ' ') {// last char must be '"'
+					throw new HTTPLogRowFormatException("ReqProtocol bad format");
+				}
+				if (currentChar == ' ') {
+					position++;
+					if (isBlank(buffer, workStart, workEnd, workLength, workSkip)) {// prevent blank value
+						throw new HTTPLogRowFormatException("ReqProtocol is blank");
+					}
+					fields.setReqProtocol(workStart, workEnd - workStart, workSkip < workEnd ? workSkip : -1);
+					workLength = 0;
+					workSkip = -1;
+					continue;
+				}
+				break;
+			case STATUS_POSITION:
+				if (currentChar == ' ') {
+					position++;
+					fields.setReqSatus(parseInt(buffer, workStart, workEnd, workLength, -1, "ReqStatus bad format"));
+					workLength = 0;
+					continue;
+				}
+				break;
+			case CONTENTLENGTH_POSITION:
+				break;
+			default:
+				throw new HTTPLogRowFormatException("Bad format");
+			}
+			// append current char to work field
+			if (workLength == 0) {
+				workStart = i;
+				workSkip = -1;
+			}
+			workEnd = i + 1;
+			workLength++;
+		}
+		// check empty end work field
+		if (workLength == 0) {
+			throw new HTTPLogRowFormatException("Bad format");
+		}
+		// get content length
+		fields.setContentLength(
+				parseInt(buffer, workStart, workEnd, workLength, workSkip, "Content length bad format"));
+	}
+
+	/**
+	 * same as Strings.isBlank on a work field
+	 *
+	 * @param buffer
+	 * @param start:  field first byte position
+	 * @param end:    field last byte position + 1
+	 * @param length: field byte count, 0 when empty
+	 * @param skip:   ignored byte position, -1 when none
+	 * @return field is empty or contains whitespaces only
+	 */
+	private static boolean isBlank(byte[] buffer, int start, int end, int length, int skip) {
+		if (length == 0) {
+			return true;
+		}
+		for (int i = start; i < end; i++) {
+			if (i != skip && !isWhitespace(buffer[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * same as Character.isWhitespace on ASCII bytes
+	 *
+	 * @param b
+	 * @return byte is a whitespace
+	 */
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+	}
+
+	/**
+	 * same as Integer.parseInt on a work field
+	 *
+	 * @param buffer
+	 * @param start:        field first byte position
+	 * @param end:          field last byte position + 1
+	 * @param length:       field byte count, 0 when empty
+	 * @param skip:         ignored byte position, -1 when none
+	 * @param errorMessage: thrown exception message
+	 * @return parsed value
+	 * @throws HTTPLogRowFormatException: not an integer
+	 */
+	private static int parseInt(byte[] buffer, int start, int end, int length, int skip, String errorMessage)
+			throws HTTPLogRowFormatException {
+		if (length == 0) {
+			throw new HTTPLogRowFormatException(errorMessage);
+		}
+		int i = start;
+		boolean negative = false;
+		int limit = -Integer.MAX_VALUE;
+		if (buffer[i] == '-' || buffer[i] == '+') {
+			if (length == 1) {// sign alone
+				throw new HTTPLogRowFormatException(errorMessage);
+			}
+			if (buffer[i] == '-') {
+				negative = true;
+				limit = Integer.MIN_VALUE;
+			}
+			i++;
+		}
+		// accumulate negatively like Integer.parseInt to reach Integer.MIN_VALUE
+		int multiplyLimit = limit / 10;
+		int result = 0;
+		for (; i < end; i++) {
+			if (i == skip) {
+				continue;
+			}
+			int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9 || result < multiplyLimit) {
+				throw new HTTPLogRowFormatException(errorMessage);
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw new HTTPLogRowFormatException(errorMessage);
+			}
+			result -= digit;
+		}
+		return negative ? result : -result;
+	}
+
+}
@@ -1,8 +1,6 @@
 package com.httplogmonitoringtool.utils;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.Date;
 
 import org.apache.logging.log4j.util.Strings;
 
@@ -28,9 +26,6 @@ public class HTTPLogParser {
 	private final static int STATUS_POSITION = 7;
 	private final static int CONTENTLENGTH_POSITION = 8;
 
-	// date format
-	private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("[dd/MMM/yyyy:HH:mm:ss ZZZ]", Locale.ENGLISH);
-
 	/**
 	 * Parse log line based on ' ', '[', ']', '"'
 	 * 
@@ -109,11 +104,7 @@ public class HTTPLogParser {
 				if (currentChar == charToListen) {
 					charToListen = '"';
 					position++;
-					try {
-						row.setReqDate(DATE_FORMAT.parse(sbWork.toString()));
-					} catch (ParseException ex) {
-						throw new HTTPLogRowFormatException("ReqDate bad format");
-					}
+					row.setReqDate(new Date(CLFDateDecoder.decode(sbWork)));
 					sbWork.setLength(0);
 					continue;
 				}
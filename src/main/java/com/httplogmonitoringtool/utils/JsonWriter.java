@@ -0,0 +1,416 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Streaming newline-delimited JSON writer: records are encoded as UTF-8 into a
+ * reused byte buffer, written to the stream when the buffer is full or on
+ * {@link #flush()}. Numbers and strings are encoded without intermediate
+ * objects.
+ * <p>
+ * Values are written in document order: {@link #name(String)} before each
+ * object value, {@link #endRecord()} after each top level value. Not thread
+ * safe.
+ *
+ * @author Remi c
+ *
+ */
+public class JsonWriter implements Flushable {
+
+	/**
+	 * Maximum objects and arrays nesting
+	 */
+	private final static int MAX_DEPTH = 32;
+
+	/**
+	 * Decimal digits written for double values
+	 */
+	private final static int DOUBLE_DECIMALS = 3;
+	private final static long DOUBLE_SCALE = 1000;
+
+	/**
+	 * Largest double written with fixed decimals, larger values use their Java
+	 * representation
+	 */
+	private final static double FIXED_DOUBLE_MAX = 1e15;
+
+	private final static byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+	private final static byte[] TRUE = "true".getBytes();
+	private final static byte[] FALSE = "false".getBytes();
+	private final static byte[] NULL = "null".getBytes();
+	private final static byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes();
+
+	private final OutputStream out;
+
+	/**
+	 * encoded bytes not written yet to {@link #out}
+	 */
+	private final byte[] buffer;
+	private int position = 0;
+
+	/**
+	 * current nesting depth, 0 at top level
+	 */
+	private int depth = 0;
+
+	/**
+	 * next value of each depth needs a ',' separator
+	 */
+	private final boolean[] separated = new boolean[MAX_DEPTH + 1];
+
+	/**
+	 * a name has been written, its value is expected
+	 */
+	private boolean named = false;
+
+	private long recordCount = 0;
+
+	/**
+	 * init writer
+	 *
+	 * @param out:        written stream, flushed by {@link #flush()}
+	 * @param bufferSize: encoded bytes buffer size (bytes > 64)
+	 */
+	public JsonWriter(OutputStream out, int bufferSize) {
+		if (bufferSize <= 64) {
+			throw new IllegalArgumentException("Buffer size must be > 64 bytes");
+		}
+		this.out = out;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * begin object value
+	 *
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter beginObject() throws IOException {
+		return begin('{');
+	}
+
+	/**
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter endObject() throws IOException {
+		return end('}');
+	}
+
+	/**
+	 * begin array value
+	 *
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter beginArray() throws IOException {
+		return begin('[');
+	}
+
+	/**
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter endArray() throws IOException {
+		return end(']');
+	}
+
+	private JsonWriter begin(char bracket) throws IOException {
+		if (depth == MAX_DEPTH) {
+			throw new IllegalStateException("JSON nesting deeper than " + MAX_DEPTH);
+		}
+		beforeValue();
+		ensure(1);
+		buffer[position++] = (byte) bracket;
+		separated[++depth] = false;
+		return this;
+	}
+
+	private JsonWriter end(char bracket) throws IOException {
+		if (depth == 0 || named) {
+			throw new IllegalStateException("No JSON value to end");
+		}
+		depth--;
+		ensure(1);
+		buffer[position++] = (byte) bracket;
+		return this;
+	}
+
+	/**
+	 * write object member name
+	 *
+	 * @param name
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter name(String name) throws IOException {
+		if (depth == 0 || named) {
+			throw new IllegalStateException("JSON name outside object: " + name);
+		}
+		beforeValue();
+		writeString(name);
+		ensure(1);
+		buffer[position++] = ':';
+		named = true;
+		return this;
+	}
+
+	/**
+	 * @param value
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		writeLong(value);
+		return this;
+	}
+
+	/**
+	 * write double value with {@link #DOUBLE_DECIMALS} decimals at most, NaN and
+	 * infinite values as null
+	 *
+	 * @param value
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter value(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return nullValue();
+		}
+		beforeValue();
+		if (Math.abs(value) >= FIXED_DOUBLE_MAX) {
+			writeAscii(Double.toString(value));
+			return this;
+		}
+		long scaled = Math.round(value * DOUBLE_SCALE);
+		if (scaled < 0) {
+			ensure(1);
+			buffer[position++] = '-';
+			scaled = -scaled;
+		}
+		writeLong(scaled / DOUBLE_SCALE);
+		long decimals = scaled % DOUBLE_SCALE;
+		if (decimals != 0) {
+			ensure(DOUBLE_DECIMALS + 1);
+			buffer[position++] = '.';
+			// trailing zeros are not written
+			int length = DOUBLE_DECIMALS;
+			while (decimals % 10 == 0) {
+				decimals /= 10;
+				length--;
+			}
+			for (int i = position + length - 1; i >= position; i--) {
+				buffer[i] = (byte) ('0' + decimals % 10);
+				decimals /= 10;
+			}
+			position += length;
+		}
+		return this;
+	}
+
+	/**
+	 * @param value
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		writeBytes(value ? TRUE : FALSE);
+		return this;
+	}
+
+	/**
+	 * @param value: null written as null
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		beforeValue();
+		writeString(value);
+		return this;
+	}
+
+	/**
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter nullValue() throws IOException {
+		beforeValue();
+		writeBytes(NULL);
+		return this;
+	}
+
+	/**
+	 * end top level value with a new line
+	 *
+	 * @return this
+	 * @throws IOException: while writing to stream
+	 */
+	public JsonWriter endRecord() throws IOException {
+		if (depth != 0 || named || !separated[0]) {
+			throw new IllegalStateException("JSON record not complete");
+		}
+		ensure(1);
+		buffer[position++] = '\n';
+		separated[0] = false;
+		recordCount++;
+		return this;
+	}
+
+	/**
+	 * write buffered records to the stream and flush it
+	 *
+	 * @throws IOException: while writing to stream
+	 */
+	@Override
+	public void flush() throws IOException {
+		writeBuffer();
+		out.flush();
+	}
+
+	/**
+	 * @return ended records count
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * write separator before a value or a name
+	 *
+	 * @throws IOException: while writing to stream
+	 */
+	private void beforeValue() throws IOException {
+		if (named) {
+			// object member value
+			named = false;
+			return;
+		}
+		if (depth == 0 && separated[0]) {
+			throw new IllegalStateException("JSON record not ended");
+		}
+		if (separated[depth]) {
+			ensure(1);
+			buffer[position++] = ',';
+		}
+		separated[depth] = true;
+	}
+
+	private void writeLong(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			writeBytes(LONG_MIN_VALUE);
+			return;
+		}
+		ensure(20);
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+		int length = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			length++;
+		}
+		for (int i = position + length - 1; i >= position; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		position += length;
+	}
+
+	/**
+	 * write quoted string, escaping quotes, backslashes and control characters
+	 *
+	 * @param value
+	 * @throws IOException: while writing to stream
+	 */
+	private void writeString(String value) throws IOException {
+		ensure(1);
+		buffer[position++] = '"';
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			// 6 bytes covers every escaped or encoded char
+			ensure(6);
+			if (c == '"' || c == '\\') {
+				buffer[position++] = '\\';
+				buffer[position++] = (byte) c;
+			} else if (c == '\n') {
+				buffer[position++] = '\\';
+				buffer[position++] = 'n';
+			} else if (c == '\r') {
+				buffer[position++] = '\\';
+				buffer[position++] = 'r';
+			} else if (c == '\t') {
+				buffer[position++] = '\\';
+				buffer[position++] = 't';
+			} else if (c < 0x20) {
+				buffer[position++] = '\\';
+				buffer[position++] = 'u';
+				buffer[position++] = '0';
+				buffer[position++] = '0';
+				buffer[position++] = HEX_DIGITS[c >> 4];
+				buffer[position++] = HEX_DIGITS[c & 0xF];
+			} else if (c < 0x80) {
+				buffer[position++] = (byte) c;
+			} else if (c < 0x800) {
+				buffer[position++] = (byte) (0xC0 | c >> 6);
+				buffer[position++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+				buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+				buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+				buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate
+				buffer[position++] = '?';
+			} else {
+				buffer[position++] = (byte) (0xE0 | c >> 12);
+				buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+				buffer[position++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		ensure(1);
+		buffer[position++] = '"';
+	}
+
+	private void writeAscii(String value) throws IOException {
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			ensure(1);
+			buffer[position++] = (byte) value.charAt(i);
+		}
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		ensure(bytes.length);
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * write buffer to the stream when less than length bytes are free
+	 *
+	 * @param length: bytes to append (<= 64)
+	 * @throws IOException: while writing to stream
+	 */
+	private void ensure(int length) throws IOException {
+		if (buffer.length - position < length) {
+			writeBuffer();
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		if (position > 0) {
+			out.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.httplogmonitoringtool.utils;
+
+/**
+ * Log line callback: receives a complete line (without line terminator) as a
+ * slice of a byte buffer. The buffer is reused by the caller, the slice is only
+ * valid during the call.
+ *
+ * @author Remi c
+ *
+ */
+@FunctionalInterface
+public interface LineHandler {
+
+	/**
+	 * consume a complete log line
+	 *
+	 * @param buffer: line bytes holder
+	 * @param offset: line first byte position in buffer
+	 * @param length: line byte count
+	 */
+	void onLine(byte[] buffer, int offset, int length);
+}
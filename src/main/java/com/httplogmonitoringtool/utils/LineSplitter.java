@@ -0,0 +1,146 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits a stream of bytes fed in blocks into lines ('\n' or "\r\n"
+ * terminated). Bytes are copied into a reused buffer, the partial last line of
+ * a block is kept for the next one. Not thread safe.
+ *
+ * @author Remi c
+ *
+ */
+public class LineSplitter {
+
+	/**
+	 * Default buffer size: 1MB, grown for longer lines
+	 */
+	public final static int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * lines buffer
+	 */
+	private byte[] buffer;
+
+	/**
+	 * partial line bytes count at {@link #buffer} start
+	 */
+	private int pending = 0;
+
+	/**
+	 * init splitter with {@link #DEFAULT_BUFFER_SIZE}
+	 */
+	public LineSplitter() {
+		this(DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * init splitter
+	 *
+	 * @param bufferSize: initial buffer size
+	 */
+	public LineSplitter(int bufferSize) {
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * send complete lines of source remaining bytes to handler
+	 *
+	 * @param source:  bytes block, fully consumed
+	 * @param handler: complete lines consumer
+	 */
+	public void feed(ByteBuffer source, LineHandler handler) {
+		while (source.hasRemaining()) {
+			if (pending == buffer.length) {// line longer than buffer
+				grow();
+			}
+			int count = Math.min(source.remaining(), buffer.length - pending);
+			source.get(buffer, pending, count);
+			split(pending + count, handler);
+		}
+	}
+
+	/**
+	 * read source until its end and send complete lines to handler: bytes are read
+	 * straight into the lines buffer
+	 *
+	 * @param source:  read bytes stream, not closed
+	 * @param handler: complete lines consumer
+	 * @return read bytes count
+	 * @throws IOException: while reading source
+	 */
+	public long feed(InputStream source, LineHandler handler) throws IOException {
+		long readBytes = 0;
+		while (true) {
+			if (pending == buffer.length) {// line longer than buffer
+				grow();
+			}
+			int count = source.read(buffer, pending, buffer.length - pending);
+			if (count < 0) {
+				return readBytes;
+			}
+			readBytes += count;
+			split(pending + count, handler);
+		}
+	}
+
+	/**
+	 * send the last line to handler even without terminator
+	 *
+	 * @param handler: last line consumer
+	 */
+	public void finish(LineHandler handler) {
+		if (pending > 0) {
+			int lineEnd = buffer[pending - 1] == '\r' ? pending - 1 : pending;
+			handler.onLine(buffer, 0, lineEnd);
+		}
+		pending = 0;
+	}
+
+	/**
+	 * send complete lines of buffer to handler, keep last partial line
+	 *
+	 * @param length: filled buffer length
+	 * @param handler
+	 */
+	private void split(int length, LineHandler handler) {
+		int lineStart = 0;
+		// search only in new bytes: pending bytes do not contain any terminator
+		for (int i = pending; i < length; i++) {
+			if (buffer[i] == '\n') {
+				int lineEnd = i;
+				if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {// CRLF terminator
+					lineEnd--;
+				}
+				handler.onLine(buffer, lineStart, lineEnd - lineStart);
+				lineStart = i + 1;
+			}
+		}
+		// keep partial line for next block
+		pending = length - lineStart;
+		if (pending > 0 && lineStart > 0) {
+			System.arraycopy(buffer, lineStart, buffer, 0, pending);
+		}
+	}
+
+	/**
+	 * double buffer size
+	 */
+	private void grow() {
+		byte[] newBuffer = new byte[buffer.length * 2];
+		System.arraycopy(buffer, 0, newBuffer, 0, pending);
+		buffer = newBuffer;
+	}
+
+	/**
+	 * {@link #pending}
+	 *
+	 * @return pending
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+}
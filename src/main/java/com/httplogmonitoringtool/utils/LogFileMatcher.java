@@ -0,0 +1,127 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Resolves log file paths and glob patterns ("/var/log/*.log",
+ * "/var/log/**&#47;access.log") to existing regular files. A pattern can be
+ * matched again later to find files created since.
+ *
+ * @author Remi c
+ *
+ */
+public class LogFileMatcher {
+
+	/**
+	 * matched patterns
+	 */
+	private final List<String> patterns;
+
+	/**
+	 * init matcher
+	 *
+	 * @param patterns: file paths or glob patterns
+	 */
+	public LogFileMatcher(List<String> patterns) {
+		this.patterns = new ArrayList<String>(patterns);
+	}
+
+	/**
+	 * check whether a path contains glob special chars
+	 *
+	 * @param pattern
+	 * @return pattern is a glob
+	 */
+	public static boolean isGlob(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '*' || c == '?' || c == '[' || c == '{') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * list existing regular files matching the patterns
+	 *
+	 * @return absolute normalized paths, in patterns order then path order
+	 */
+	public Set<Path> match() {
+		Set<Path> paths = new LinkedHashSet<Path>();
+		for (String pattern : patterns) {
+			if (!isGlob(pattern)) {
+				Path path = Paths.get(pattern).toAbsolutePath().normalize();
+				if (Files.isRegularFile(path)) {
+					paths.add(path);
+				}
+				continue;
+			}
+			paths.addAll(matchGlob(pattern));
+		}
+		return paths;
+	}
+
+	/**
+	 * list existing regular files matching a glob pattern
+	 *
+	 * @param pattern
+	 * @return sorted matching paths
+	 */
+	private static List<Path> matchGlob(String pattern) {
+		String fullPattern = new File(pattern).isAbsolute() ? pattern
+				: new File(System.getProperty("user.dir"), pattern).getPath();
+		// walk from the deepest directory without glob chars
+		String[] elements = fullPattern.split("[/\\\\]");
+		StringBuilder root = new StringBuilder();
+		int depth = 0;
+		boolean globFound = false;
+		boolean recursive = false;
+		for (String element : elements) {
+			if (!globFound && !isGlob(element)) {
+				root.append(element).append('/');
+			} else {
+				globFound = true;
+				depth++;
+				recursive |= element.contains("**");
+			}
+		}
+		Path rootPath = Paths.get(root.length() == 0 ? "/" : root.toString());
+		if (!Files.isDirectory(rootPath)) {
+			return Collections.emptyList();
+		}
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + fullPattern);
+		List<Path> paths = new ArrayList<Path>();
+		try (Stream<Path> walk = Files.walk(rootPath, recursive ? Integer.MAX_VALUE : depth)) {
+			walk.map(path -> path.toAbsolutePath().normalize())
+					.filter(path -> matcher.matches(path) && Files.isRegularFile(path)).sorted()
+					.forEachOrdered(paths::add);
+		} catch (IOException | UncheckedIOException e) {
+			// directory removed or not readable while walking: next match will retry
+		}
+		return paths;
+	}
+
+	/**
+	 * {@link #patterns}
+	 *
+	 * @return patterns
+	 */
+	public List<String> getPatterns() {
+		return Collections.unmodifiableList(patterns);
+	}
+
+}
@@ -0,0 +1,418 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Incremental log file reader: remembers the byte offset already consumed and
+ * only reads newly appended bytes on each {@link #poll(LineHandler)}. A partial
+ * last line is kept until its line terminator is written.
+ * <p>
+ * Log rotation is detected on each poll:
+ * <ul>
+ * <li>create mode (file renamed and recreated): the file identity changes, the
+ * old file is read until a poll finds nothing new in it, then the new file is
+ * read from offset 0.</li>
+ * <li>copytruncate mode: the file size shrinks under the read offset, or its
+ * first bytes change when it has been written again past the read offset
+ * between two polls: the file is read again from offset 0.</li>
+ * </ul>
+ *
+ * @author Remi c
+ *
+ */
+public class LogFileTailer implements Closeable {
+
+	/**
+	 * read buffer initial size default: 64KB (bytes)
+	 */
+	private final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * file first bytes kept to detect truncations (bytes)
+	 */
+	private final static int HEAD_SIZE = 256;
+
+	/**
+	 * Log file path to tail
+	 */
+	private final Path path;
+
+	/**
+	 * Opened log file channel, null until first poll
+	 */
+	private FileChannel channel;
+
+	/**
+	 * Opened log file identity: file key (inode) or creation time when file keys
+	 * are not supported
+	 */
+	private Object fileKey;
+
+	/**
+	 * File byte offset of the next byte to read
+	 */
+	private long offset = 0;
+
+	/**
+	 * Read buffer: starts with the pending partial line bytes
+	 */
+	private byte[] buffer;
+
+	/**
+	 * {@link #buffer} wrapper used for channel reads
+	 */
+	private ByteBuffer byteBuffer;
+
+	/**
+	 * Pending partial line byte count at the start of {@link #buffer}
+	 */
+	private int pending = 0;
+
+	/**
+	 * Handled rotations count (file renamed and recreated)
+	 */
+	private long rotationCount = 0;
+
+	/**
+	 * Handled truncations count (file truncated in place)
+	 */
+	private long truncationCount = 0;
+
+	/**
+	 * Complete lines sent to handlers count
+	 */
+	private long lineCount = 0;
+
+	/**
+	 * Log file size seen by the last poll (bytes)
+	 */
+	private long fileSize = 0;
+
+	/**
+	 * Opened log file first read bytes
+	 */
+	private final ByteBuffer head = ByteBuffer.allocate(HEAD_SIZE);
+
+	/**
+	 * Opened log file first bytes read again by each poll, compared to
+	 * {@link #head}
+	 */
+	private final ByteBuffer headCheck = ByteBuffer.allocate(HEAD_SIZE);
+
+	/**
+	 * init tailer on file path
+	 *
+	 * @param logFilePath
+	 */
+	public LogFileTailer(String logFilePath) {
+		this(logFilePath, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * init tailer on file path with read buffer size
+	 *
+	 * @param logFilePath
+	 * @param bufferSize: read buffer initial size (bytes)
+	 */
+	public LogFileTailer(String logFilePath, int bufferSize) {
+		this.path = Paths.get(logFilePath);
+		this.buffer = new byte[bufferSize];
+		this.byteBuffer = ByteBuffer.wrap(buffer);
+	}
+
+	/**
+	 * Read bytes appended since the last poll and send each complete line to
+	 * handler
+	 *
+	 * @param handler: complete lines consumer
+	 * @return read byte count
+	 * @throws FileNotFoundException: log file does not exist
+	 * @throws IOException:           while reading log file
+	 */
+	public long poll(LineHandler handler) throws FileNotFoundException, IOException {
+		if (channel == null) {
+			open();
+		}
+		// truncated, maybe written again past the read offset
+		if (channel.size() < offset || isHeadChanged()) {
+			truncationCount++;
+			// pending partial line has been truncated
+			pending = 0;
+			offset = 0;
+			head.clear();
+		}
+		// drain opened file
+		long readBytes = read(handler);
+
+		// switch to new file when rotated
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (NoSuchFileException e) {
+			// renamed but not yet recreated: keep on opened file
+			fileSize = offset;
+			return readBytes;
+		}
+		if (!getFileKey(attributes).equals(fileKey)) {// new file created
+			if (readBytes > 0) {// renamed file still written: read it until idle
+				fileSize = offset;
+				return readBytes;
+			}
+			rotationCount++;
+			// old file last line is complete
+			if (pending > 0) {
+				handler.onLine(buffer, 0, pending);
+				lineCount++;
+				pending = 0;
+			}
+			close();
+			open();
+			readBytes += read(handler);
+		}
+		fileSize = attributes.size();
+		return readBytes;
+	}
+
+	/**
+	 * Open log file and resume reading at a previously committed offset when the
+	 * file is still the same one
+	 *
+	 * @param savedFileKey: saved {@link #getFileKey()} string value
+	 * @param savedOffset:  offset of the first byte not consumed
+	 * @return reading resumes at savedOffset, otherwise it starts at offset 0
+	 * @throws FileNotFoundException: log file does not exist
+	 * @throws IOException:           while opening log file
+	 */
+	public boolean resume(String savedFileKey, long savedOffset) throws FileNotFoundException, IOException {
+		close();
+		open();
+		pending = 0;
+		// rotated or truncated since saved
+		if (!fileKey.toString().equals(savedFileKey) || channel.size() < savedOffset) {
+			return false;
+		}
+		offset = savedOffset;
+		readHead();
+		return true;
+	}
+
+	/**
+	 * Read opened file from {@link #offset} to its end and send each complete
+	 * line to handler
+	 *
+	 * @param handler: complete lines consumer
+	 * @return read byte count
+	 * @throws IOException: while reading log file
+	 */
+	private long read(LineHandler handler) throws IOException {
+		long readBytes = 0;
+		while (true) {
+			if (pending == buffer.length) {// line longer than buffer
+				grow();
+			}
+			byteBuffer.limit(buffer.length).position(pending);
+			int count = channel.read(byteBuffer, offset);
+			if (count <= 0) {
+				break;
+			}
+			offset += count;
+			readBytes += count;
+			splitLines(pending + count, handler);
+		}
+		readHead();
+		return readBytes;
+	}
+
+	/**
+	 * keep opened file first bytes in {@link #head} until it is full
+	 *
+	 * @throws IOException: while reading log file
+	 */
+	private void readHead() throws IOException {
+		if (head.position() < HEAD_SIZE && offset > head.position()) {
+			head.limit((int) Math.min(HEAD_SIZE, offset));
+			while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+				// read up to read offset
+			}
+		}
+	}
+
+	/**
+	 * check whether opened file first bytes changed since kept in {@link #head}
+	 *
+	 * @return file truncated and written again
+	 * @throws IOException: while reading log file
+	 */
+	private boolean isHeadChanged() throws IOException {
+		if (head.position() == 0) {
+			return false;
+		}
+		headCheck.clear().limit(head.position());
+		while (headCheck.hasRemaining() && channel.read(headCheck, headCheck.position()) > 0) {
+			// read up to kept length
+		}
+		headCheck.flip();
+		head.flip();
+		boolean changed = !headCheck.equals(head);
+		// restore head for next reads
+		head.position(head.limit()).limit(HEAD_SIZE);
+		return changed;
+	}
+
+	/**
+	 * send complete lines of buffer to handler, keep last partial line
+	 *
+	 * @param length: filled buffer length
+	 * @param handler
+	 */
+	private void splitLines(int length, LineHandler handler) {
+		int lineStart = 0;
+		// search only in new bytes: pending bytes do not contain any terminator
+		for (int i = pending; i < length; i++) {
+			if (buffer[i] == '\n') {
+				int lineEnd = i;
+				if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {// CRLF terminator
+					lineEnd--;
+				}
+				handler.onLine(buffer, lineStart, lineEnd - lineStart);
+				lineCount++;
+				lineStart = i + 1;
+			}
+		}
+		// keep partial line for next read
+		pending = length - lineStart;
+		if (pending > 0 && lineStart > 0) {
+			System.arraycopy(buffer, lineStart, buffer, 0, pending);
+		}
+	}
+
+	/**
+	 * double read buffer size
+	 */
+	private void grow() {
+		byte[] newBuffer = new byte[buffer.length * 2];
+		System.arraycopy(buffer, 0, newBuffer, 0, pending);
+		buffer = newBuffer;
+		byteBuffer = ByteBuffer.wrap(buffer);
+	}
+
+	/**
+	 * open log file channel
+	 *
+	 * @throws FileNotFoundException: log file does not exist
+	 * @throws IOException
+	 */
+	private void open() throws FileNotFoundException, IOException {
+		try {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			fileKey = getFileKey(Files.readAttributes(path, BasicFileAttributes.class));
+		} catch (NoSuchFileException e) {
+			close();
+			throw new FileNotFoundException(e.getMessage());
+		}
+		offset = 0;
+		head.clear();
+	}
+
+	/**
+	 * get file identity from file attributes
+	 *
+	 * @param attributes
+	 * @return file key (inode) or creation time when file keys are not supported
+	 */
+	private static Object getFileKey(BasicFileAttributes attributes) {
+		return attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+	}
+
+	/**
+	 * {@link #path}
+	 *
+	 * @return path
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * {@link #fileKey}
+	 *
+	 * @return fileKey: null until first poll
+	 */
+	public Object getFileKey() {
+		return fileKey;
+	}
+
+	/**
+	 * {@link #offset}
+	 *
+	 * @return offset
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * {@link #pending}
+	 *
+	 * @return pending partial line byte count
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * {@link #rotationCount}
+	 *
+	 * @return rotationCount
+	 */
+	public long getRotationCount() {
+		return rotationCount;
+	}
+
+	/**
+	 * {@link #truncationCount}
+	 *
+	 * @return truncationCount
+	 */
+	public long getTruncationCount() {
+		return truncationCount;
+	}
+
+	/**
+	 * {@link #lineCount}
+	 *
+	 * @return lineCount
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * get bytes appended to the log file which have not been read yet, as of the
+	 * last poll
+	 *
+	 * @return unread byte count
+	 */
+	public long getByteLag() {
+		return Math.max(0, fileSize - offset);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+}
@@ -0,0 +1,267 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import com.httplogmonitoringtool.models.IngestMetrics;
+
+/**
+ * Log file wake-up layer: blocks the monitoring thread until the log file
+ * changes. It relies on {@link WatchService} events and falls back to adaptive
+ * polling (exponential backoff capped at {@link #maxPollInterval}) when the
+ * file system does not support watching. Even with events, a wait never lasts
+ * more than the current poll interval so a missed event only delays reading.
+ *
+ * @author Remi c
+ *
+ */
+public class LogFileWatcher implements Closeable {
+
+	/**
+	 * Poll interval after a change default: 10 milliseconds (milliseconds)
+	 */
+	private final static long MIN_POLL_INTERVAL = 10;
+
+	/**
+	 * Poll interval maximum value reached by backoff default: 1 second
+	 * (milliseconds)
+	 */
+	public final static long DEFAULT_MAX_POLL_INTERVAL = 1000;
+
+	/**
+	 * Watched log file path
+	 */
+	private final Path path;
+
+	/**
+	 * Poll interval maximum value reached by backoff (milliseconds)
+	 */
+	private final long maxPollInterval;
+
+	/**
+	 * Current poll interval, doubled on each idle wake-up (milliseconds)
+	 */
+	private long pollInterval = MIN_POLL_INTERVAL;
+
+	/**
+	 * Log file directory watch service: null when polling only
+	 */
+	private WatchService watchService;
+
+	/**
+	 * Thread waiting for changes, used to measure its CPU time
+	 */
+	private long monitoringThreadId = -1;
+
+	/**
+	 * Monitoring thread CPU time when watching started (nanoseconds)
+	 */
+	private long startCpuTime = 0;
+
+	/**
+	 * Watching start time (nanoseconds)
+	 */
+	private long startTime = System.nanoTime();
+
+	/**
+	 * Wake-ups caused by a file event
+	 */
+	private long eventWakeUpCount = 0;
+
+	/**
+	 * Wake-ups caused by poll interval expiration
+	 */
+	private long timeoutWakeUpCount = 0;
+
+	/**
+	 * init watcher with {@link #DEFAULT_MAX_POLL_INTERVAL}
+	 *
+	 * @param logFilePath
+	 */
+	public LogFileWatcher(String logFilePath) {
+		this(logFilePath, DEFAULT_MAX_POLL_INTERVAL);
+	}
+
+	/**
+	 * init watcher
+	 *
+	 * @param logFilePath
+	 * @param maxPollInterval: poll interval maximum value (milliseconds)
+	 */
+	public LogFileWatcher(String logFilePath, long maxPollInterval) {
+		this.path = Paths.get(logFilePath).toAbsolutePath();
+		this.maxPollInterval = Math.max(MIN_POLL_INTERVAL, maxPollInterval);
+	}
+
+	/**
+	 * start watching log file directory from the current thread. Falls back to
+	 * polling when watch service is not available.
+	 */
+	public void start() {
+		monitoringThreadId = Thread.currentThread().getId();
+		startCpuTime = getCpuTime();
+		startTime = System.nanoTime();
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			path.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException | UnsupportedOperationException e) {
+			// polling only
+			closeWatchService();
+		}
+	}
+
+	/**
+	 * wait until the log file changes or the current poll interval expires. Poll
+	 * interval is doubled when it expires.
+	 *
+	 * @return log file has been notified as changed
+	 * @throws InterruptedException
+	 */
+	public boolean awaitChange() throws InterruptedException {
+		boolean changed = false;
+		if (watchService == null) {
+			TimeUnit.MILLISECONDS.sleep(pollInterval);
+		} else {
+			WatchKey key = watchService.poll(pollInterval, TimeUnit.MILLISECONDS);
+			// consume all pending keys
+			while (key != null) {
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW
+							|| path.getFileName().equals(event.context())) {
+						changed = true;
+					}
+				}
+				key.reset();
+				key = watchService.poll();
+			}
+		}
+		if (changed) {
+			eventWakeUpCount++;
+		} else {
+			timeoutWakeUpCount++;
+			// back off
+			pollInterval = Math.min(maxPollInterval, pollInterval * 2);
+		}
+		return changed;
+	}
+
+	/**
+	 * log file data has been read: come back to the shortest poll interval
+	 */
+	public void reset() {
+		pollInterval = MIN_POLL_INTERVAL;
+	}
+
+	/**
+	 * get monitoring thread CPU time
+	 *
+	 * @return CPU time (nanoseconds), -1 when not supported
+	 */
+	public long getCpuTime() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (monitoringThreadId < 0 || !threadMXBean.isThreadCpuTimeSupported()) {
+			return -1;
+		}
+		return threadMXBean.getThreadCpuTime(monitoringThreadId);
+	}
+
+	/**
+	 * get monitoring thread CPU usage since watching started
+	 *
+	 * @return CPU usage (percent of one core), -1 when not supported
+	 */
+	public double getCpuUsage() {
+		long cpuTime = getCpuTime();
+		long elapsedTime = System.nanoTime() - startTime;
+		if (cpuTime < 0 || startCpuTime < 0 || elapsedTime <= 0) {
+			return -1;
+		}
+		return 100d * (cpuTime - startCpuTime) / elapsedTime;
+	}
+
+	/**
+	 * copy wake-up counters and CPU usage into the published ingest metrics, must
+	 * be called by the monitoring thread
+	 *
+	 * @param ingestMetrics
+	 */
+	public void copyTo(IngestMetrics ingestMetrics) {
+		ingestMetrics.setWakeUps(eventWakeUpCount, timeoutWakeUpCount, getCpuUsage());
+	}
+
+	/**
+	 * log file is watched through file system events
+	 *
+	 * @return watch service is used
+	 */
+	public boolean isEventDriven() {
+		return watchService != null;
+	}
+
+	/**
+	 * {@link #pollInterval}
+	 *
+	 * @return pollInterval
+	 */
+	public long getPollInterval() {
+		return pollInterval;
+	}
+
+	/**
+	 * get all wake-ups count
+	 *
+	 * @return wakeUpCount
+	 */
+	public long getWakeUpCount() {
+		return eventWakeUpCount + timeoutWakeUpCount;
+	}
+
+	/**
+	 * {@link #eventWakeUpCount}
+	 *
+	 * @return eventWakeUpCount
+	 */
+	public long getEventWakeUpCount() {
+		return eventWakeUpCount;
+	}
+
+	/**
+	 * {@link #timeoutWakeUpCount}
+	 *
+	 * @return timeoutWakeUpCount
+	 */
+	public long getTimeoutWakeUpCount() {
+		return timeoutWakeUpCount;
+	}
+
+	/**
+	 * close watch service
+	 */
+	private void closeWatchService() {
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				// ignore: service is dropped
+			}
+			watchService = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		closeWatchService();
+	}
+
+}
@@ -0,0 +1,139 @@
+package com.httplogmonitoringtool.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi producers multi consumers queue (D. Vyukov array
+ * queue): each slot has a sequence telling whether it can be written or read
+ * for the current lap, producers and consumers only race on their own position
+ * with a compare and set. Offer and poll never block.
+ *
+ * @author Remi c
+ *
+ * @param <E> queued elements
+ */
+public class RingBufferQueue<E> {
+
+	/**
+	 * slot index mask, capacity - 1
+	 */
+	private final int mask;
+
+	/**
+	 * queued elements
+	 */
+	private final AtomicReferenceArray<E> elements;
+
+	/**
+	 * slot sequences: position for writing, position + 1 for reading
+	 */
+	private final AtomicLongArray sequences;
+
+	/**
+	 * next write position
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * next read position
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * init queue
+	 *
+	 * @param capacity: maximum queued elements, rounded up to a power of 2 (at
+	 *                  least 2)
+	 */
+	public RingBufferQueue(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be > 0");
+		}
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		mask = size - 1;
+		elements = new AtomicReferenceArray<E>(size);
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * add element at queue tail
+	 *
+	 * @param element: not null
+	 * @return false when queue is full
+	 */
+	public boolean offer(E element) {
+		if (element == null) {
+			throw new NullPointerException();
+		}
+		long position = tail.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+			if (difference == 0) {// slot free for this lap
+				if (tail.compareAndSet(position, position + 1)) {
+					elements.lazySet(index, element);
+					// publish element
+					sequences.set(index, position + 1);
+					return true;
+				}
+				position = tail.get();
+			} else if (difference < 0) {// slot not read yet: full
+				return false;
+			} else {// another producer took the slot
+				position = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * remove element at queue head
+	 *
+	 * @return element, null when queue is empty
+	 */
+	public E poll() {
+		long position = head.get();
+		while (true) {
+			int index = (int) (position & mask);
+			long difference = sequences.get(index) - (position + 1);
+			if (difference == 0) {// slot written for this lap
+				if (head.compareAndSet(position, position + 1)) {
+					E element = elements.get(index);
+					elements.lazySet(index, null);
+					// free slot for the next lap
+					sequences.set(index, position + mask + 1);
+					return element;
+				}
+				position = head.get();
+			} else if (difference < 0) {// slot not written yet: empty
+				return null;
+			} else {// another consumer took the slot
+				position = head.get();
+			}
+		}
+	}
+
+	/**
+	 * @return queued elements count estimation
+	 */
+	public int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, mask + 1));
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @return maximum queued elements
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+}
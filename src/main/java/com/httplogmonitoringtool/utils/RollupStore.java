@@ -0,0 +1,725 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.httplogmonitoringtool.models.TrafficRollup;
+
+/**
+ * Append-only local store of traffic rollups. Requests are rolled up per
+ * second, seconds are rolled up per minute and minutes per hour: each
+ * resolution is a {@link Tier} with its own retention.
+ * <p>
+ * A tier is a directory of segment files, each covering a fixed time span.
+ * Records are written with varint encoding, record times as deltas from the
+ * previous record: an empty second costs nothing, a busy one a few dozen bytes.
+ * Range queries memory map the segments intersecting the range.
+ * <p>
+ * Requests may be recorded slightly out of order: seconds are written once
+ * {@link #REORDER_SECONDS} later seconds have been seen. The store clock is the
+ * requests time, moved by the elapsed time only while no request comes: a log
+ * backlog is binned by its own times. Not thread safe.
+ *
+ * @author Remi c
+ *
+ */
+public class RollupStore implements Closeable {
+
+	/**
+	 * Stored most hit sections count per rollup
+	 */
+	public final static int STORED_SECTIONS = 5;
+
+	/**
+	 * Seconds kept in memory before being written, late requests are counted in
+	 * the oldest kept second
+	 */
+	private final static int REORDER_SECONDS = 5;
+
+	/**
+	 * Segment file format identifier: "HLMR"
+	 */
+	private final static int MAGIC = 0x484C4D52;
+
+	/**
+	 * Segment file format version
+	 */
+	private final static int VERSION = 1;
+
+	/**
+	 * Segment header size: magic, version, tier seconds, segment start
+	 */
+	private final static int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+	/**
+	 * Segment file name suffix
+	 */
+	private final static String SEGMENT_SUFFIX = ".seg";
+
+	/**
+	 * Rollups resolution
+	 */
+	public enum Tier {
+
+		SECOND(1, 3600, 24 * 3600), MINUTE(60, 24 * 3600, 30 * 24 * 3600), HOUR(3600, 30 * 24 * 3600,
+				730 * 24 * 3600);
+
+		private final int seconds;
+		private final int segmentSeconds;
+		private final long retentionSeconds;
+
+		/**
+		 * @param seconds:          rollup duration
+		 * @param segmentSeconds:   segment file time span
+		 * @param retentionSeconds: rollups older than it are deleted
+		 */
+		private Tier(int seconds, int segmentSeconds, long retentionSeconds) {
+			this.seconds = seconds;
+			this.segmentSeconds = segmentSeconds;
+			this.retentionSeconds = retentionSeconds;
+		}
+
+		public int getSeconds() {
+			return seconds;
+		}
+
+		public int getSegmentSeconds() {
+			return segmentSeconds;
+		}
+
+		public long getRetentionSeconds() {
+			return retentionSeconds;
+		}
+	}
+
+	/**
+	 * Appends rollups of one tier to its current segment
+	 */
+	private class TierWriter {
+
+		private final Tier tier;
+		private final Path directory;
+		private FileChannel channel;
+		private long segmentStart;
+		private long lastSecond;
+
+		/**
+		 * the current segment holds records: {@link #lastSecond} is stored
+		 */
+		private boolean lastSecondStored;
+
+		/**
+		 * rollup of the current interval, null when none: coarse tiers only
+		 */
+		private TrafficRollup pending;
+
+		private TierWriter(Tier tier) {
+			this.tier = tier;
+			this.directory = RollupStore.this.directory.resolve(tier.name().toLowerCase());
+		}
+
+		/**
+		 * add a finer rollup to the current interval, writing the previous interval
+		 * when it is over
+		 *
+		 * @param rollup
+		 * @return written rollup, null when none
+		 * @throws IOException
+		 */
+		private TrafficRollup add(TrafficRollup rollup) throws IOException {
+			long start = Math.floorDiv(rollup.getStartSecond(), tier.seconds) * tier.seconds;
+			TrafficRollup written = tick(start);
+			if (pending == null) {
+				pending = new TrafficRollup(start, tier.seconds);
+			}
+			pending.merge(rollup);
+			return written;
+		}
+
+		/**
+		 * write the current interval if it is over
+		 *
+		 * @param second: current second (epoch seconds)
+		 * @return written rollup, null when none
+		 * @throws IOException
+		 */
+		private TrafficRollup tick(long second) throws IOException {
+			if (pending == null || second < pending.getStartSecond() + tier.seconds) {
+				return null;
+			}
+			TrafficRollup written = pending.copy(STORED_SECTIONS);
+			pending = null;
+			append(written);
+			return written;
+		}
+
+		/**
+		 * append a rollup to its segment
+		 *
+		 * @param rollup
+		 * @throws IOException
+		 */
+		private void append(TrafficRollup rollup) throws IOException {
+			long second = rollup.getStartSecond();
+			long segment = Math.floorDiv(second, tier.segmentSeconds) * tier.segmentSeconds;
+			if (channel == null || segment != segmentStart) {
+				openSegment(segment);
+			}
+			if (lastSecondStored && second <= lastSecond) {// already stored: log read again
+				return;
+			}
+			record.clear();
+			writeVarLong(second - lastSecond);
+			writeVarLong(rollup.getRequests());
+			writeVarLong(rollup.getBytes());
+			for (int statusClass = 1; statusClass <= TrafficRollup.STATUS_CLASSES; statusClass++) {
+				writeVarLong(rollup.getStatusClassCount(statusClass));
+			}
+			Map<String, Long> sections = rollup.getTopSections(STORED_SECTIONS);
+			writeVarLong(sections.size());
+			for (Entry<String, Long> entry : sections.entrySet()) {
+				byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+				writeVarLong(name.length);
+				ensureRecordCapacity(name.length);
+				record.put(name);
+				writeVarLong(entry.getValue());
+			}
+			record.flip();
+			while (record.hasRemaining()) {
+				channel.write(record);
+			}
+			lastSecond = second;
+			lastSecondStored = true;
+		}
+
+		/**
+		 * open segment for appending: create it, or recover its valid records
+		 *
+		 * @param segment: segment start (epoch seconds)
+		 * @throws IOException
+		 */
+		private void openSegment(long segment) throws IOException {
+			close();
+			Files.createDirectories(directory);
+			Path path = directory.resolve(segment + SEGMENT_SUFFIX);
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			segmentStart = segment;
+			lastSecond = segment;
+			lastSecondStored = false;
+			if (channel.size() < HEADER_SIZE) {// new segment
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION).putInt(tier.seconds).putLong(segment).flip();
+				channel.truncate(0);
+				channel.write(header, 0);
+			} else {
+				// drop a partially written last record
+				List<TrafficRollup> rollups = new ArrayList<TrafficRollup>();
+				long validSize = readSegment(channel, tier, rollups);
+				channel.truncate(validSize);
+				if (!rollups.isEmpty()) {
+					lastSecond = rollups.get(rollups.size() - 1).getStartSecond();
+					lastSecondStored = true;
+				}
+			}
+			channel.position(channel.size());
+			deleteExpiredSegments(segment);
+		}
+
+		/**
+		 * delete segments ending before the tier retention
+		 *
+		 * @param segment: current segment start (epoch seconds)
+		 * @throws IOException
+		 */
+		private void deleteExpiredSegments(long segment) throws IOException {
+			long to = segment - tier.retentionSeconds - tier.segmentSeconds + 1;
+			for (long expired : listSegments(directory, Long.MIN_VALUE, to)) {
+				Files.deleteIfExists(directory.resolve(expired + SEGMENT_SUFFIX));
+			}
+		}
+
+		private void close() throws IOException {
+			if (channel != null) {
+				channel.force(false);
+				channel.close();
+				channel = null;
+			}
+		}
+	}
+
+	/**
+	 * Store directory
+	 */
+	private final Path directory;
+
+	/**
+	 * Tier writers from the finest to the coarsest: null until first write
+	 */
+	private TierWriter[] writers;
+
+	/**
+	 * Last seconds rollups, indexed by second modulo {@link #REORDER_SECONDS}
+	 */
+	private final TrafficRollup[] recentSeconds = new TrafficRollup[REORDER_SECONDS];
+
+	/**
+	 * Last recorded second (epoch seconds)
+	 */
+	private long headSecond = Long.MIN_VALUE;
+
+	/**
+	 * Current second of the first {@link #advance(long)} since the last recorded
+	 * request (epoch seconds), Long.MIN_VALUE when a request was recorded since
+	 */
+	private long idleSecond = Long.MIN_VALUE;
+
+	/**
+	 * {@link #headSecond} at {@link #idleSecond} (epoch seconds)
+	 */
+	private long idleHeadSecond;
+
+	/**
+	 * Reused record encoding buffer
+	 */
+	private ByteBuffer record = ByteBuffer.allocate(1024);
+
+	/**
+	 * First writing error: writing stops after it, readable from any thread
+	 */
+	private volatile IOException failure;
+
+	/**
+	 * init store
+	 *
+	 * @param storeDirectoryPath: created on first write
+	 */
+	public RollupStore(String storeDirectoryPath) {
+		this.directory = Paths.get(storeDirectoryPath).toAbsolutePath();
+	}
+
+	/**
+	 * count a request in its second rollup
+	 *
+	 * @param time:          request time (epoch milliseconds)
+	 * @param status:        HTTP status code
+	 * @param contentLength: bytes
+	 * @param section:       hit section, null when none
+	 */
+	public void record(long time, int status, long contentLength, String section) {
+		long second = Math.floorDiv(time, 1000);
+		idleSecond = Long.MIN_VALUE;
+		if (headSecond == Long.MIN_VALUE) {
+			headSecond = second;
+		} else if (second > headSecond) {
+			advanceTo(second);
+		} else if (second <= headSecond - REORDER_SECONDS) {// too late
+			second = headSecond - REORDER_SECONDS + 1;
+		}
+		int index = (int) Math.floorMod(second, (long) REORDER_SECONDS);
+		TrafficRollup rollup = recentSeconds[index];
+		if (rollup == null || rollup.getStartSecond() != second) {
+			rollup = new TrafficRollup(second, 1);
+			recentSeconds[index] = rollup;
+		}
+		rollup.addRequest(status, contentLength, section);
+	}
+
+	/**
+	 * move the store clock by the time elapsed since the last recorded request,
+	 * writing seconds older than {@link #REORDER_SECONDS} before it, and minutes
+	 * and hours which are over. Requests time may lag behind the current time
+	 * (log backlog): the store clock is not moved while requests are recorded.
+	 *
+	 * @param time: current time (epoch milliseconds)
+	 */
+	public void advance(long time) {
+		long second = Math.floorDiv(time, 1000);
+		if (headSecond == Long.MIN_VALUE) {
+			return;
+		}
+		if (idleSecond == Long.MIN_VALUE) {// requests recorded since last call
+			idleSecond = second;
+			idleHeadSecond = headSecond;
+		} else if (idleHeadSecond + second - idleSecond > headSecond) {
+			advanceTo(idleHeadSecond + second - idleSecond);
+		}
+	}
+
+	/**
+	 * move head to second, writing seconds leaving the reorder window
+	 *
+	 * @param second: epoch seconds
+	 */
+	private void advanceTo(long second) {
+		// only the kept seconds can have a rollup
+		long to = Math.min(headSecond, second - REORDER_SECONDS);
+		for (long written = headSecond - REORDER_SECONDS + 1; written <= to; written++) {
+			int index = (int) Math.floorMod(written, (long) REORDER_SECONDS);
+			TrafficRollup rollup = recentSeconds[index];
+			if (rollup != null && rollup.getStartSecond() == written) {
+				write(rollup);
+				recentSeconds[index] = null;
+			}
+		}
+		headSecond = second;
+		tick(second - REORDER_SECONDS + 1);
+	}
+
+	/**
+	 * write a second rollup to all tiers
+	 *
+	 * @param rollup
+	 */
+	private void write(TrafficRollup rollup) {
+		if (failure != null) {
+			return;
+		}
+		try {
+			openWriters();
+			writers[0].append(rollup.copy(STORED_SECTIONS));
+			TrafficRollup written = rollup;
+			for (int i = 1; i < writers.length; i++) {
+				written = writers[i].add(written);
+				if (written == null) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * write coarse tiers intervals which are over
+	 *
+	 * @param second: first second not written yet (epoch seconds)
+	 */
+	private void tick(long second) {
+		if (failure != null || writers == null) {
+			return;
+		}
+		try {
+			for (int i = 1; i < writers.length; i++) {
+				TrafficRollup written = writers[i].tick(second);
+				if (written != null && i + 1 < writers.length) {
+					writers[i + 1].add(written);
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * create tier writers
+	 */
+	private void openWriters() {
+		if (writers == null) {
+			Tier[] tiers = Tier.values();
+			writers = new TierWriter[tiers.length];
+			for (int i = 0; i < tiers.length; i++) {
+				writers[i] = new TierWriter(tiers[i]);
+			}
+		}
+	}
+
+	/**
+	 * write all kept rollups, even if their interval is not over
+	 */
+	public void flush() {
+		if (headSecond == Long.MIN_VALUE) {
+			return;
+		}
+		advanceTo(headSecond + REORDER_SECONDS);
+		if (failure != null || writers == null) {
+			return;
+		}
+		try {
+			for (int i = 1; i < writers.length; i++) {
+				TrafficRollup pending = writers[i].pending;
+				if (pending != null) {
+					writers[i].tick(pending.getStartSecond() + writers[i].tier.seconds);
+					if (i + 1 < writers.length) {
+						writers[i + 1].add(pending);
+					}
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * query rollups of a time range merged into buckets, read from the coarsest
+	 * tier which still holds the range start and whose intervals line up with the
+	 * range start and the buckets. The range tail not written to this tier yet
+	 * (its interval is not over) is read from the finer tiers. When no such tier
+	 * holds the range start anymore, the range starts at the start of the finest
+	 * tier rollup holding it.
+	 *
+	 * @param fromSecond:    range start (epoch seconds)
+	 * @param toSecond:      range end, excluded (epoch seconds)
+	 * @param bucketSeconds: bucket duration (seconds)
+	 * @return non empty buckets sorted by time, starting at the range start
+	 * @throws IOException: while reading segment files
+	 */
+	public List<TrafficRollup> query(long fromSecond, long toSecond, int bucketSeconds) throws IOException {
+		if (bucketSeconds <= 0) {
+			throw new IllegalArgumentException("Bucket must be > 0 second");
+		}
+		long now = System.currentTimeMillis() / 1000;
+		Tier[] tiers = Tier.values();
+		int tierIndex = 0;
+		// finest tier still holding the range start
+		while (tierIndex + 1 < tiers.length && fromSecond < now - tiers[tierIndex].retentionSeconds) {
+			tierIndex++;
+		}
+		// unaligned range head: served from the rollup holding it
+		fromSecond = Math.floorDiv(fromSecond, (long) tiers[tierIndex].seconds) * tiers[tierIndex].seconds;
+		for (int i = tierIndex + 1; i < tiers.length; i++) {
+			boolean aligned = bucketSeconds % tiers[i].seconds == 0
+					&& Math.floorMod(fromSecond, (long) tiers[i].seconds) == 0;
+			if (aligned) {
+				tierIndex = i;
+			}
+		}
+		TreeMap<Long, TrafficRollup> buckets = new TreeMap<Long, TrafficRollup>();
+		long tailSecond = fromSecond;
+		for (int i = tierIndex; i >= 0 && tailSecond < toSecond; i--) {
+			tailSecond = readTier(tiers[i], tailSecond, toSecond, fromSecond, bucketSeconds, buckets);
+		}
+		return new ArrayList<TrafficRollup>(buckets.values());
+	}
+
+	/**
+	 * query rollups of a tier merged into buckets
+	 *
+	 * @param tier
+	 * @param fromSecond:    range start (epoch seconds)
+	 * @param toSecond:      range end, excluded (epoch seconds)
+	 * @param bucketSeconds: bucket duration (seconds)
+	 * @return non empty buckets of the rollups starting in range, sorted by time,
+	 *         starting at fromSecond
+	 * @throws IOException: while reading segment files
+	 */
+	public List<TrafficRollup> query(Tier tier, long fromSecond, long toSecond, int bucketSeconds)
+			throws IOException {
+		if (bucketSeconds <= 0) {
+			throw new IllegalArgumentException("Bucket must be > 0 second");
+		}
+		TreeMap<Long, TrafficRollup> buckets = new TreeMap<Long, TrafficRollup>();
+		readTier(tier, fromSecond, toSecond, fromSecond, bucketSeconds, buckets);
+		return new ArrayList<TrafficRollup>(buckets.values());
+	}
+
+	/**
+	 * merge rollups of a tier starting in a range into buckets
+	 *
+	 * @param tier
+	 * @param fromSecond:    range start (epoch seconds)
+	 * @param toSecond:      range end, excluded (epoch seconds)
+	 * @param bucketsStart:  first bucket start (epoch seconds)
+	 * @param bucketSeconds: bucket duration (seconds)
+	 * @param buckets:       buckets by start second
+	 * @return end of the last read rollup, fromSecond when none (epoch seconds)
+	 * @throws IOException: while reading segment files
+	 */
+	private long readTier(Tier tier, long fromSecond, long toSecond, long bucketsStart, int bucketSeconds,
+			TreeMap<Long, TrafficRollup> buckets) throws IOException {
+		Path tierDirectory = directory.resolve(tier.name().toLowerCase());
+		List<TrafficRollup> rollups = new ArrayList<TrafficRollup>();
+		long readEnd = fromSecond;
+		for (long segment : listSegments(tierDirectory, fromSecond - tier.segmentSeconds + 1, toSecond)) {
+			rollups.clear();
+			try (FileChannel channel = FileChannel.open(tierDirectory.resolve(segment + SEGMENT_SUFFIX),
+					StandardOpenOption.READ)) {
+				readSegment(channel, tier, rollups);
+			}
+			for (TrafficRollup rollup : rollups) {
+				long second = rollup.getStartSecond();
+				if (second < fromSecond || second >= toSecond) {
+					continue;
+				}
+				long bucketStart = bucketsStart + (second - bucketsStart) / bucketSeconds * bucketSeconds;
+				buckets.computeIfAbsent(bucketStart, start -> new TrafficRollup(start, bucketSeconds)).merge(rollup);
+				readEnd = Math.max(readEnd, second + tier.seconds);
+			}
+		}
+		return readEnd;
+	}
+
+	/**
+	 * list segment starts of a tier directory in [from, to[
+	 *
+	 * @param tierDirectory
+	 * @param from:         epoch seconds
+	 * @param to:           epoch seconds, excluded
+	 * @return sorted segment starts
+	 * @throws IOException
+	 */
+	private static List<Long> listSegments(Path tierDirectory, long from, long to) throws IOException {
+		List<Long> segments = new ArrayList<Long>();
+		if (!Files.isDirectory(tierDirectory)) {
+			return segments;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(tierDirectory, "*" + SEGMENT_SUFFIX)) {
+			for (Path path : stream) {
+				String name = path.getFileName().toString();
+				try {
+					long segment = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+					if (segment >= from && segment < to) {
+						segments.add(segment);
+					}
+				} catch (NumberFormatException e) {
+					// not a segment file
+				}
+			}
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+	/**
+	 * decode all valid records of a memory mapped segment
+	 *
+	 * @param channel: segment file
+	 * @param tier:    segment tier
+	 * @param rollups: decoded rollups output
+	 * @return valid bytes count: a partially written last record is ignored
+	 * @throws IOException: not a segment of tier
+	 */
+	private static long readSegment(FileChannel channel, Tier tier, List<TrafficRollup> rollups) throws IOException {
+		long size = channel.size();
+		if (size < HEADER_SIZE) {
+			return 0;
+		}
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != tier.seconds) {
+			throw new IOException("Unknown segment file format");
+		}
+		long second = buffer.getLong();
+		long[] statusClasses = new long[TrafficRollup.STATUS_CLASSES];
+		int validSize = buffer.position();
+		try {
+			while (buffer.hasRemaining()) {
+				second += readVarLong(buffer);
+				TrafficRollup rollup = new TrafficRollup(second, tier.seconds);
+				long requests = readVarLong(buffer);
+				long bytes = readVarLong(buffer);
+				for (int i = 0; i < statusClasses.length; i++) {
+					statusClasses[i] = readVarLong(buffer);
+				}
+				rollup.setCounts(requests, bytes, statusClasses);
+				for (long sections = readVarLong(buffer); sections > 0; sections--) {
+					byte[] name = new byte[(int) readVarLong(buffer)];
+					buffer.get(name);
+					rollup.putSection(new String(name, StandardCharsets.UTF_8), readVarLong(buffer));
+				}
+				rollups.add(rollup);
+				validSize = buffer.position();
+			}
+		} catch (BufferUnderflowException | NegativeArraySizeException e) {
+			// partially written last record
+		}
+		return validSize;
+	}
+
+	/**
+	 * append an unsigned varint (7 bits per byte, low bits first) to
+	 * {@link #record}
+	 *
+	 * @param value: >= 0
+	 */
+	private void writeVarLong(long value) {
+		ensureRecordCapacity(10);
+		while ((value & ~0x7FL) != 0) {
+			record.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		record.put((byte) value);
+	}
+
+	/**
+	 * read an unsigned varint
+	 *
+	 * @param buffer
+	 * @return value
+	 */
+	private static long readVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new BufferUnderflowException();// malformed varint
+	}
+
+	/**
+	 * grow {@link #record} when needed
+	 *
+	 * @param bytes: bytes to append
+	 */
+	private void ensureRecordCapacity(int bytes) {
+		if (record.remaining() < bytes) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + bytes));
+			record.flip();
+			grown.put(record);
+			record = grown;
+		}
+	}
+
+	/**
+	 * throw the first writing error
+	 *
+	 * @throws IOException
+	 */
+	public void checkFailure() throws IOException {
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * {@link #directory}
+	 *
+	 * @return directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * write kept rollups then close segment files
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		if (writers != null) {
+			for (TierWriter writer : writers) {
+				writer.close();
+			}
+		}
+		checkFailure();
+	}
+
+}
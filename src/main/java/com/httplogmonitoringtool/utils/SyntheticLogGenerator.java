@@ -0,0 +1,561 @@
+package com.httplogmonitoringtool.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic HTTP log traffic generator for load and soak tests: the same
+ * seed and settings always produce the same lines.
+ * <p>
+ * Remote hosts, users and sections are picked with a Zipf distribution over
+ * their cardinality, status codes with weights, and a ratio of lines is
+ * malformed. Request dates follow a virtual clock advancing at
+ * {@link #linesPerSecond}, multiplied by {@link #burstFactor} during bursts to
+ * raise high traffic alerts. In {@link #realTime} mode lines are written when
+ * their date is reached, otherwise as fast as possible (millions of lines per
+ * second). Lines are formatted into a reused byte buffer: no object is created
+ * per line.
+ *
+ * @author Remi c
+ *
+ */
+public class SyntheticLogGenerator {
+
+	/**
+	 * Default status codes, see {@link #setStatusMix(int[], int[])}
+	 */
+	private final static int[] DEFAULT_STATUS_CODES = { 200, 304, 301, 404, 403, 500, 503 };
+
+	/**
+	 * Default status codes weights
+	 */
+	private final static int[] DEFAULT_STATUS_WEIGHTS = { 80, 6, 2, 7, 1, 3, 1 };
+
+	/**
+	 * Request methods picked uniformly
+	 */
+	private final static String[] METHODS = { "GET", "GET", "GET", "POST", "PUT", "DELETE" };
+
+	/**
+	 * Malformed lines picked uniformly, %s is replaced by the request date
+	 */
+	private final static String[] BAD_LINES = { "ffffffffffffffffffffffffffffffffff", "f zef ef fez ",
+			"127.0.0.1 sophie %s \"PUT /sport HTTP/1.0\" 404 10",
+			"127.0.0.1 - sophie %s \"PUT /sport HTTP/1.0\" 404 aa",
+			"127.0.0.1 - sophie [oooo] \"PUT /sport HTTP/1.0\" 200 10",
+			"127.0.0.1 - sophie %s \"PUT /sport HTTP/1.0\" bbb, aa",
+			"127.0.0.1 - lily %s \"DELETE /sport/vol leyball HTTP/1.0\" 300 8" };
+
+	/**
+	 * Resource after the section and protocol after the resource
+	 */
+	private final static byte[] PAGE = ascii("/page");
+	private final static byte[] PROTOCOL = ascii(" HTTP/1.0\" ");
+
+	/**
+	 * Output buffer size (bytes)
+	 */
+	private final static int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Longest generated line (bytes)
+	 */
+	private final static int MAX_LINE_LENGTH = 512;
+
+	private final SplittableRandom random;
+
+	/**
+	 * request dates rate out of bursts, and writing rate in {@link #realTime}
+	 * mode (lines per second)
+	 */
+	private double linesPerSecond = 1000;
+
+	/**
+	 * first request date (epoch milliseconds)
+	 */
+	private long startTime = System.currentTimeMillis();
+
+	private int hostCount = 1000;
+	private int userCount = 100;
+	private int sectionCount = 50;
+
+	/**
+	 * Zipf exponent: 0 for uniform, 1 for the usual web traffic skew
+	 */
+	private double zipfExponent = 1;
+
+	private int[] statusCodes = DEFAULT_STATUS_CODES;
+	private int[] statusWeights = DEFAULT_STATUS_WEIGHTS;
+
+	/**
+	 * malformed lines ratio (0 to 1)
+	 */
+	private double badLineRatio = 0;
+
+	/**
+	 * rate multiplier during bursts, 1 for no burst
+	 */
+	private double burstFactor = 1;
+
+	/**
+	 * burst period: a burst starts every period (seconds)
+	 */
+	private int burstPeriod = 600;
+
+	/**
+	 * burst duration at the start of each period (seconds)
+	 */
+	private int burstDuration = 180;
+
+	/**
+	 * lines written to a file before rotating it: 0 for no rotation
+	 */
+	private long rotationLines = 0;
+
+	/**
+	 * write lines when their date is reached
+	 */
+	private boolean realTime = false;
+
+	// cumulative distributions, built on first write
+	private double[] hostDistribution;
+	private double[] userDistribution;
+	private double[] sectionDistribution;
+	private int[] statusDistribution;
+
+	// pre-encoded values
+	private byte[][] hosts;
+	private byte[][] users;
+	private byte[][] sections;
+	private byte[][] statuses;
+	private byte[][] methods;
+	private byte[][] badLinesStart;
+	private byte[][] badLinesEnd;
+
+	// virtual clock (epoch nanoseconds offset from startTime)
+	private double clockNanos = 0;
+
+	// first write time of the realTime mode (System.nanoTime())
+	private long realStart = 0;
+
+	// date of the current second
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+	private long dateSecond = Long.MIN_VALUE;
+	private byte[] date;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+
+	private long lineCount = 0;
+	private long badLineCount = 0;
+	private long rotationCount = 0;
+
+	/**
+	 * init generator
+	 *
+	 * @param seed: same seed and settings generate same lines
+	 */
+	public SyntheticLogGenerator(long seed) {
+		this.random = new SplittableRandom(seed);
+		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+	}
+
+	/**
+	 * write lines to a stream (file, pipe, console)
+	 *
+	 * @param output: flushed, not closed
+	 * @param count:  lines count, 0 or less writes until the thread is
+	 *                interrupted
+	 * @return written bytes
+	 * @throws IOException:          while writing
+	 * @throws InterruptedException: interrupted while waiting for lines dates in
+	 *                               {@link #realTime} mode
+	 */
+	public long write(OutputStream output, long count) throws IOException, InterruptedException {
+		init();
+		long bytes = 0;
+		for (long i = 0; count <= 0 || i < count; i++) {
+			if (BUFFER_SIZE - position < MAX_LINE_LENGTH) {
+				bytes += flush(output);
+				if (Thread.interrupted()) {// endless writing stopped
+					throw new InterruptedException();
+				}
+			}
+			if (realTime) {
+				bytes += await(output);
+			}
+			appendLine();
+		}
+		bytes += flush(output);
+		output.flush();
+		return bytes;
+	}
+
+	/**
+	 * append lines to a file, rotating it every {@link #rotationLines}: the file
+	 * is renamed with a ".1" suffix, replacing the previous one, then recreated
+	 *
+	 * @param path
+	 * @param count: lines count, 0 or less writes until the thread is interrupted
+	 * @return written bytes
+	 * @throws IOException:          while writing
+	 * @throws InterruptedException: interrupted while waiting for lines dates in
+	 *                               {@link #realTime} mode
+	 */
+	public long write(Path path, long count) throws IOException, InterruptedException {
+		long bytes = 0;
+		long remaining = count;
+		while (true) {
+			long fileCount = rotationLines <= 0 ? remaining
+					: count <= 0 ? rotationLines : Math.min(remaining, rotationLines);
+			try (OutputStream output = Files.newOutputStream(path, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND)) {
+				bytes += write(output, fileCount);
+			}
+			if (count > 0 && (remaining -= fileCount) <= 0) {
+				return bytes;
+			}
+			// rotate: old file renamed, next lines written to a new one
+			Files.move(path, path.resolveSibling(path.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+			rotationCount++;
+		}
+	}
+
+	/**
+	 * build distributions and pre-encoded values
+	 */
+	private void init() {
+		if (hosts != null) {
+			return;
+		}
+		realStart = System.nanoTime();
+		hostDistribution = getZipfDistribution(hostCount, zipfExponent);
+		userDistribution = getZipfDistribution(userCount, zipfExponent);
+		sectionDistribution = getZipfDistribution(sectionCount, zipfExponent);
+		int weightSum = 0;
+		for (int weight : statusWeights) {
+			weightSum += weight;
+		}
+		statusDistribution = new int[weightSum];
+		for (int i = 0, j = 0; i < statusCodes.length; i++) {
+			for (int k = 0; k < statusWeights[i]; k++) {
+				statusDistribution[j++] = i;
+			}
+		}
+
+		hosts = new byte[hostCount][];
+		for (int i = 0; i < hostCount; i++) {
+			hosts[i] = ascii("10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF));
+		}
+		users = new byte[userCount][];
+		for (int i = 0; i < userCount; i++) {
+			users[i] = ascii(i == 0 ? "-" : "user" + i);
+		}
+		sections = new byte[sectionCount][];
+		for (int i = 0; i < sectionCount; i++) {
+			sections[i] = ascii("/section" + i);
+		}
+		statuses = new byte[statusCodes.length][];
+		for (int i = 0; i < statusCodes.length; i++) {
+			statuses[i] = ascii(Integer.toString(statusCodes[i]));
+		}
+		methods = new byte[METHODS.length][];
+		for (int i = 0; i < METHODS.length; i++) {
+			methods[i] = ascii(METHODS[i]);
+		}
+		badLinesStart = new byte[BAD_LINES.length][];
+		badLinesEnd = new byte[BAD_LINES.length][];
+		for (int i = 0; i < BAD_LINES.length; i++) {
+			int datePosition = BAD_LINES[i].indexOf("%s");
+			badLinesStart[i] = ascii(datePosition < 0 ? BAD_LINES[i] : BAD_LINES[i].substring(0, datePosition));
+			badLinesEnd[i] = ascii(datePosition < 0 ? "" : BAD_LINES[i].substring(datePosition + 2));
+		}
+	}
+
+	/**
+	 * get Zipf cumulative distribution
+	 *
+	 * @param count:    values count
+	 * @param exponent: 0 for uniform
+	 * @return cumulative probabilities of values ranked by frequency
+	 */
+	private static double[] getZipfDistribution(int count, double exponent) {
+		double[] distribution = new double[count];
+		double sum = 0;
+		for (int i = 0; i < count; i++) {
+			sum += 1 / Math.pow(i + 1, exponent);
+			distribution[i] = sum;
+		}
+		for (int i = 0; i < count; i++) {
+			distribution[i] /= sum;
+		}
+		return distribution;
+	}
+
+	/**
+	 * pick a value rank
+	 *
+	 * @param distribution: cumulative distribution
+	 * @return rank
+	 */
+	private int pick(double[] distribution) {
+		int index = Arrays.binarySearch(distribution, random.nextDouble());
+		return Math.min(distribution.length - 1, index >= 0 ? index + 1 : -index - 1);
+	}
+
+	/**
+	 * append next line to the buffer and advance the virtual clock
+	 */
+	private void appendLine() {
+		long time = startTime + (long) (clockNanos / 1_000_000);
+		clockNanos += 1_000_000_000d / getRate(time);
+		updateDate(time / 1000);
+		lineCount++;
+
+		if (badLineRatio > 0 && random.nextDouble() < badLineRatio) {
+			badLineCount++;
+			int badLine = random.nextInt(BAD_LINES.length);
+			append(badLinesStart[badLine]);
+			if (badLinesEnd[badLine].length > 0) {
+				appendDate();
+				append(badLinesEnd[badLine]);
+			}
+			buffer[position++] = '\n';
+			return;
+		}
+
+		// 10.0.0.1 - user1 [09/May/2018:16:00:39 +0000] "GET /section1/page2 HTTP/1.0" 200 123
+		append(hosts[pick(hostDistribution)]);
+		buffer[position++] = ' ';
+		buffer[position++] = '-';
+		buffer[position++] = ' ';
+		append(users[pick(userDistribution)]);
+		buffer[position++] = ' ';
+		appendDate();
+		buffer[position++] = ' ';
+		buffer[position++] = '"';
+		append(methods[random.nextInt(methods.length)]);
+		buffer[position++] = ' ';
+		append(sections[pick(sectionDistribution)]);
+		append(PAGE);
+		appendNumber(random.nextInt(100));
+		append(PROTOCOL);
+		append(statuses[statusDistribution[random.nextInt(statusDistribution.length)]]);
+		buffer[position++] = ' ';
+		appendNumber(random.nextInt(20000));
+		buffer[position++] = '\n';
+	}
+
+	/**
+	 * get lines rate at a date
+	 *
+	 * @param time: epoch milliseconds
+	 * @return lines per second
+	 */
+	private double getRate(long time) {
+		if (burstFactor != 1 && (time - startTime) / 1000 % burstPeriod < burstDuration) {
+			return linesPerSecond * burstFactor;
+		}
+		return linesPerSecond;
+	}
+
+	/**
+	 * format date bytes when the second changes
+	 *
+	 * @param second: epoch seconds
+	 */
+	private void updateDate(long second) {
+		if (second != dateSecond) {
+			dateSecond = second;
+			date = ascii("[" + dateFormat.format(new Date(second * 1000)) + "]");
+		}
+	}
+
+	private void appendDate() {
+		append(date);
+	}
+
+	private void append(byte[] bytes) {
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	/**
+	 * append positive number digits
+	 *
+	 * @param number
+	 */
+	private void appendNumber(int number) {
+		int digits = 1;
+		for (int value = number; value >= 10; value /= 10) {
+			digits++;
+		}
+		int end = position + digits;
+		position = end;
+		do {
+			buffer[--end] = (byte) ('0' + number % 10);
+			number /= 10;
+		} while (number > 0);
+	}
+
+	/**
+	 * wait until the next line date is reached, flushing the buffer first
+	 *
+	 * @param output
+	 * @return flushed bytes
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private long await(OutputStream output) throws IOException, InterruptedException {
+		long waitNanos = (long) clockNanos - (System.nanoTime() - realStart);
+		if (waitNanos <= 0) {
+			return 0;
+		}
+		long bytes = flush(output);
+		output.flush();
+		TimeUnit.NANOSECONDS.sleep(waitNanos);
+		return bytes;
+	}
+
+	/**
+	 * write buffered lines
+	 *
+	 * @param output
+	 * @return written bytes
+	 * @throws IOException
+	 */
+	private long flush(OutputStream output) throws IOException {
+		int bytes = position;
+		output.write(buffer, 0, position);
+		position = 0;
+		return bytes;
+	}
+
+	private static byte[] ascii(String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * {@link #linesPerSecond}
+	 *
+	 * @param linesPerSecond: > 0
+	 */
+	public void setLinesPerSecond(double linesPerSecond) {
+		this.linesPerSecond = linesPerSecond;
+	}
+
+	/**
+	 * {@link #startTime}
+	 *
+	 * @param startTime: first request date (epoch milliseconds)
+	 */
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+	/**
+	 * set values cardinalities, picked with a Zipf distribution
+	 *
+	 * @param hostCount:    remote hosts count
+	 * @param userCount:    users count, the first one is "-"
+	 * @param sectionCount: sections count
+	 * @param zipfExponent: 0 for uniform, 1 for the usual web traffic skew
+	 */
+	public void setCardinality(int hostCount, int userCount, int sectionCount, double zipfExponent) {
+		this.hostCount = hostCount;
+		this.userCount = userCount;
+		this.sectionCount = sectionCount;
+		this.zipfExponent = zipfExponent;
+		this.hosts = null;
+	}
+
+	/**
+	 * set status codes mix
+	 *
+	 * @param statusCodes
+	 * @param statusWeights: positive integer weight of each status code
+	 */
+	public void setStatusMix(int[] statusCodes, int[] statusWeights) {
+		if (statusCodes.length != statusWeights.length || statusCodes.length == 0) {
+			throw new IllegalArgumentException("One weight is expected by status code");
+		}
+		this.statusCodes = statusCodes.clone();
+		this.statusWeights = statusWeights.clone();
+		this.hosts = null;
+	}
+
+	/**
+	 * {@link #badLineRatio}
+	 *
+	 * @param badLineRatio: 0 to 1
+	 */
+	public void setBadLineRatio(double badLineRatio) {
+		this.badLineRatio = badLineRatio;
+	}
+
+	/**
+	 * set traffic bursts: the first burstDuration seconds of every burstPeriod
+	 * have a rate multiplied by burstFactor
+	 *
+	 * @param burstFactor:   rate multiplier, 1 for no burst
+	 * @param burstPeriod:   seconds
+	 * @param burstDuration: seconds
+	 */
+	public void setBursts(double burstFactor, int burstPeriod, int burstDuration) {
+		this.burstFactor = burstFactor;
+		this.burstPeriod = burstPeriod;
+		this.burstDuration = burstDuration;
+	}
+
+	/**
+	 * {@link #rotationLines}
+	 *
+	 * @param rotationLines: 0 for no rotation
+	 */
+	public void setRotationLines(long rotationLines) {
+		this.rotationLines = rotationLines;
+	}
+
+	/**
+	 * {@link #realTime}
+	 *
+	 * @param realTime
+	 */
+	public void setRealTime(boolean realTime) {
+		this.realTime = realTime;
+	}
+
+	/**
+	 * @return generated lines count
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return generated malformed lines count
+	 */
+	public long getBadLineCount() {
+		return badLineCount;
+	}
+
+	/**
+	 * @return file rotations count
+	 */
+	public long getRotationCount() {
+		return rotationCount;
+	}
+
+}
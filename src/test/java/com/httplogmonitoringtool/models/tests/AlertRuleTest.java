@@ -0,0 +1,43 @@
+package com.httplogmonitoringtool.models.tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.AlertMetric;
+import com.httplogmonitoringtool.models.AlertRule;
+
+public class AlertRuleTest {
+
+	@Test
+	public void testParse() {
+		AlertRule rule = AlertRule.parse("errors  status_class_ratio 5 60 5 3");
+		Assert.assertEquals("Bad name", "errors", rule.getName());
+		Assert.assertEquals("Bad metric", AlertMetric.STATUS_CLASS_RATIO, rule.getMetric());
+		Assert.assertEquals("Bad argument", "5", rule.getArgument());
+		Assert.assertEquals("Bad window", 60, rule.getWindowSeconds());
+		Assert.assertEquals("Bad raise threshold", 5, rule.getRaiseThreshold(), 0);
+		Assert.assertEquals("Bad recover threshold", 3, rule.getRecoverThreshold(), 0);
+		Assert.assertEquals("Rule should serialize to its line", rule.toString(),
+				AlertRule.parse(rule.toString()).toString());
+
+		rule = AlertRule.parse("traffic request_rate 120 10");
+		Assert.assertNull("Metric has no argument", rule.getArgument());
+		Assert.assertEquals("Recover threshold should default to raise", 10, rule.getRecoverThreshold(), 0);
+	}
+
+	@Test
+	public void testBadRules() {
+		String[] badLines = { "traffic", "traffic unknown_rate 60 10", "traffic request_rate 60",
+				"traffic request_rate 0 10", "traffic request_rate 60 10 20", "missing status_rate 60 10",
+				"server status_rate 600 60 10", "server status_class_ratio 6 60 10", "bytes bytes_rate 60 1 2 3" };
+		for (String badLine : badLines) {
+			try {
+				AlertRule.parse(badLine);
+				Assert.fail("Rule should be rejected: " + badLine);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+}
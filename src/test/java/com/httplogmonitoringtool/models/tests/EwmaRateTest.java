@@ -0,0 +1,114 @@
+package com.httplogmonitoringtool.models.tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.EwmaRate;
+import com.httplogmonitoringtool.models.TrafficRates;
+
+public class EwmaRateTest {
+
+	/**
+	 * first tick time (epoch milliseconds)
+	 */
+	private final static long START_TIME = 1600000000000l;
+
+	@Test
+	public void testConstantRate() {
+		EwmaRate rate = new EwmaRate(60);
+		rate.tick(START_TIME);
+		Assert.assertEquals("Rate before the first tick should be 0", 0, rate.getRate(), 0);
+		rate.add(START_TIME, 50);
+		rate.tick(START_TIME + EwmaRate.TICK_INTERVAL - 1);
+		Assert.assertEquals("Rate updated before the tick end", 0, rate.getRate(), 0);
+		rate.tick(START_TIME + EwmaRate.TICK_INTERVAL);
+		double alpha = 1 - Math.exp(-5 / 60d);
+		Assert.assertEquals("First tick should move the rate from 0", 10 * alpha, rate.getRate(), 0.001);
+
+		// rate change is followed with the horizon delay
+		long time = START_TIME + EwmaRate.TICK_INTERVAL;
+		for (int tick = 0; tick < 12; tick++) {
+			rate.add(time, 100);
+			time += EwmaRate.TICK_INTERVAL;
+			rate.tick(time);
+		}
+		Assert.assertEquals("Rate after one horizon", 20 - (20 - 10 * alpha) * Math.exp(-1), rate.getRate(),
+				0.001);
+	}
+
+	@Test
+	public void testIdleDecay() {
+		EwmaRate stepped = new EwmaRate(300);
+		EwmaRate skipped = new EwmaRate(300);
+		stepped.tick(START_TIME);
+		skipped.tick(START_TIME);
+		stepped.add(START_TIME, 500);
+		skipped.add(START_TIME, 500);
+		// ticks without events are applied at once
+		for (int tick = 1; tick <= 20; tick++) {
+			stepped.tick(START_TIME + tick * EwmaRate.TICK_INTERVAL);
+		}
+		skipped.tick(START_TIME + 20 * EwmaRate.TICK_INTERVAL + 1);
+		Assert.assertEquals("Skipped ticks should decay the rate", stepped.getRate(), skipped.getRate(), 1e-9);
+		Assert.assertEquals("Bad decayed rate", 100 * (1 - Math.exp(-5 / 300d)) * Math.exp(-19 * 5 / 300d),
+				skipped.getRate(), 1e-9);
+
+		EwmaRate copy = skipped.copy();
+		skipped.add(START_TIME + 20 * EwmaRate.TICK_INTERVAL, 1000);
+		skipped.tick(START_TIME + 21 * EwmaRate.TICK_INTERVAL);
+		Assert.assertEquals("Copy should not change", stepped.getRate(), copy.getRate(), 1e-9);
+	}
+
+	@Test
+	public void testTrafficRates() {
+		TrafficRates rates = new TrafficRates();
+		rates.tick(START_TIME);
+		for (int i = 0; i < 40; i++) {
+			rates.add(START_TIME + i * 100, i % 4 == 0 ? 503 : 200);
+		}
+		rates.add(START_TIME, 42);// unknown status: only counted in all requests
+		rates.tick(START_TIME + EwmaRate.TICK_INTERVAL);
+		TrafficRates copy = rates.copy();
+		rates.tick(START_TIME + 100 * EwmaRate.TICK_INTERVAL);
+		for (int horizon = 0; horizon < TrafficRates.HORIZONS.length; horizon++) {
+			double alpha = 1 - Math.exp(-5d / TrafficRates.HORIZONS[horizon]);
+			Assert.assertEquals("Bad request rate", 8.2 * alpha, copy.getRequestRate(horizon), 0.001);
+			Assert.assertEquals("Bad 2xx rate", 6 * alpha, copy.getStatusClassRate(2, horizon), 0.001);
+			Assert.assertEquals("Bad 5xx rate", 2 * alpha, copy.getStatusClassRate(5, horizon), 0.001);
+			Assert.assertEquals("Bad 4xx rate", 0, copy.getStatusClassRate(4, horizon), 0);
+		}
+		Assert.assertTrue("1 minute rate should decay faster",
+				rates.getRequestRate(0) < rates.getRequestRate(TrafficRates.HORIZONS.length - 1));
+	}
+
+	@Test
+	public void testBacklog() {
+		// 100 seconds of log at 1000 requests/s read before the first tick:
+		// counted by request time, not as one burst
+		TrafficRates replayed = new TrafficRates();
+		long time = START_TIME;
+		for (; time < START_TIME + 100000; time++) {
+			replayed.add(time, 200);
+		}
+		replayed.tick(time);
+		for (int horizon = 0; horizon < TrafficRates.HORIZONS.length; horizon++) {
+			Assert.assertEquals("Bad replayed rate", 1000 * (1 - Math.exp(-100d / TrafficRates.HORIZONS[horizon])),
+					replayed.getRequestRate(horizon), 5);
+		}
+
+		// same backlog read once the rates started: ignored
+		TrafficRates skipped = new TrafficRates();
+		skipped.tick(START_TIME + 100000);
+		for (time = START_TIME; time < START_TIME + 100000 - 2 * EwmaRate.TICK_INTERVAL; time++) {
+			skipped.add(time, 200);
+		}
+		skipped.tick(START_TIME + 100000 + EwmaRate.TICK_INTERVAL);
+		Assert.assertEquals("Backlog should be ignored", 0, skipped.getRequestRate(0), 0);
+
+		// late requests of the previous tick are still counted
+		skipped.add(START_TIME + 100000 + EwmaRate.TICK_INTERVAL - 1, 200);
+		skipped.tick(START_TIME + 100000 + 2 * EwmaRate.TICK_INTERVAL);
+		Assert.assertTrue("Late request should be counted", skipped.getRequestRate(0) > 0);
+	}
+
+}
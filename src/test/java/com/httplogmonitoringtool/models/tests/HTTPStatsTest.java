@@ -0,0 +1,119 @@
+package com.httplogmonitoringtool.models.tests;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.HTTPLogRow;
+import com.httplogmonitoringtool.models.HTTPStats;
+import com.httplogmonitoringtool.models.HTTPStatsStatus;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+
+public class HTTPStatsTest {
+
+	@Test
+	public void testIncrease() {
+		HTTPStats stats = new HTTPStats();
+		Map<HTTPStatsType, Long> statsValues = stats.getStatsValues();
+		stats.increase(HTTPStatsType.TOTAL_REQUESTS);
+		stats.increase(HTTPStatsType.TOTAL_CONTENT, Integer.MAX_VALUE);
+		stats.increase(HTTPStatsType.TOTAL_CONTENT, Integer.MAX_VALUE);
+
+		// views are live
+		Assert.assertEquals("Bad request count", Long.valueOf(1), statsValues.get(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Content should not be truncated", Long.valueOf(2L * Integer.MAX_VALUE),
+				statsValues.get(HTTPStatsType.TOTAL_CONTENT));
+		Assert.assertEquals("Bad view size", HTTPStatsType.values().length, statsValues.size());
+
+		stats.clearTotalContent();
+		Assert.assertEquals("Content not cleared", 0, stats.getStatsValue(HTTPStatsType.TOTAL_CONTENT));
+		Assert.assertEquals("Request count cleared", 1, stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+	}
+
+	@Test
+	public void testIncreaseStatus() {
+		HTTPStats stats = new HTTPStats();
+		stats.increaseStatus(200);
+		stats.increaseStatus(200);
+		stats.increase(HTTPStatsStatus.NOTFOUND_REQUESTS);
+		// codes without HTTPStatsStatus
+		stats.increaseStatus(418);
+		stats.increaseStatus(599);
+		// codes out of range
+		stats.increaseStatus(99);
+		stats.increaseStatus(600);
+		stats.increaseStatus(-1);
+
+		Map<HTTPStatsStatus, Long> statsStatus = stats.getStatsStatus();
+		Assert.assertEquals("Bad view size", HTTPStatsStatus.values().length, statsStatus.size());
+		Assert.assertEquals("Bad 200 count", Long.valueOf(2), statsStatus.get(HTTPStatsStatus.VALID_REQUESTS));
+		Assert.assertEquals("Bad 404 count", Long.valueOf(1), statsStatus.get(HTTPStatsStatus.NOTFOUND_REQUESTS));
+		Assert.assertEquals("Bad 500 count", Long.valueOf(0),
+				statsStatus.get(HTTPStatsStatus.INTERNALSERVERERROR_REQUESTS));
+		Assert.assertEquals("Bad 418 count", 1, stats.getStatusCount(418));
+		Assert.assertEquals("Bad out of range count", 0, stats.getStatusCount(600));
+		Assert.assertEquals("Bad counted codes", "{200=2, 404=1, 418=1, 599=1}", stats.getStatusCounts().toString());
+
+		stats.clear();
+		Assert.assertEquals("Status not cleared", 0, stats.getStatusCount(200));
+	}
+
+	@Test
+	public void testMerge() {
+		HTTPStats stats = new HTTPStats();
+		HTTPStats other = new HTTPStats();
+		stats.increase(HTTPStatsType.TOTAL_REQUESTS);
+		stats.increaseStatus(200);
+		stats.addSection("/api");
+		other.increase(HTTPStatsType.TOTAL_REQUESTS, 2);
+		other.increaseStatus(200);
+		other.increaseStatus(404);
+		other.addSection("/sport");
+		other.addSection("/sport");
+		other.addUser("lily");
+
+		stats.merge(other);
+		Assert.assertEquals("Bad request count", 3, stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Bad counted codes", "{200=2, 404=1}", stats.getStatusCounts().toString());
+		Assert.assertEquals("Bad most hit section", "{/sport=2, /api=1}", stats.getMostHitSection().toString());
+		Assert.assertEquals("Bad top user", "lily", stats.getTopUser());
+	}
+
+	@Test
+	public void testContentSizes() {
+		HTTPStats stats = new HTTPStats(2);
+		HTTPStats other = new HTTPStats(2);
+		HTTPLogRow logRow = new HTTPLogRow();
+		for (int i = 1; i <= 100; i++) {
+			logRow.setReqSection("/api");
+			logRow.setContentLength(i * 100);
+			stats.addLogRow(logRow);
+			logRow.setReqSection("/sport");
+			logRow.setContentLength(50);
+			other.addLogRow(logRow);
+		}
+		Assert.assertEquals("Bad p50", 5000, stats.getContentSizes().getQuantile(0.5), 50);
+		Assert.assertEquals("Bad section p99", 9900, stats.getSectionContentSizes("/api").getQuantile(0.99), 99);
+		Assert.assertNull("Untracked section has no sizes", stats.getSectionContentSizes("/sport"));
+
+		// replaced section starts a new sketch
+		logRow.setReqSection("/new");
+		stats.addLogRow(logRow);
+		logRow.setReqSection("/other");
+		stats.addLogRow(logRow);
+		Assert.assertEquals("Replaced section sizes should be cleared", 1,
+				stats.getSectionContentSizes("/other").getCount());
+		Assert.assertEquals("Tracked section sizes should be kept", 100,
+				stats.getSectionContentSizes("/api").getCount());
+
+		stats.merge(other);
+		Assert.assertEquals("Bad merged sizes count", 202, stats.getContentSizes().getCount());
+		Assert.assertEquals("Bad merged section sizes", 50, stats.getSectionContentSizes("/sport").getQuantile(0.5));
+		Assert.assertEquals("Bad kept section sizes", 100, stats.getSectionContentSizes("/api").getCount());
+
+		stats.clearTotalContent();
+		Assert.assertEquals("Sizes not cleared", 0, stats.getContentSizes().getCount());
+	}
+
+}
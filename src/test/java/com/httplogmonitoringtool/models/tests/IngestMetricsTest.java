@@ -0,0 +1,71 @@
+package com.httplogmonitoringtool.models.tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.IngestMetrics;
+import com.httplogmonitoringtool.models.IngestStats;
+import com.httplogmonitoringtool.models.LatencyHistogram;
+
+public class IngestMetricsTest {
+
+	@Test
+	public void testHistogramBuckets() {
+		Assert.assertEquals("Bad 0 bucket", 0, LatencyHistogram.getBucket(0));
+		Assert.assertEquals("Bad 1 bucket", 1, LatencyHistogram.getBucket(1));
+		Assert.assertEquals("Bad 1000 bucket", 10, LatencyHistogram.getBucket(1000));
+		Assert.assertEquals("Bad 1024 bucket", 11, LatencyHistogram.getBucket(1024));
+		Assert.assertEquals("Bad overflow bucket", LatencyHistogram.BUCKET_COUNT - 1,
+				LatencyHistogram.getBucket(Long.MAX_VALUE));
+		Assert.assertEquals("Bad upper bound", 1024, LatencyHistogram.getBucketUpperBound(10));
+
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals("Bad empty percentile", 0,
+				LatencyHistogram.getPercentile(histogram.getCounts(), 50, histogram.getMax()));
+		for (int i = 0; i < 98; i++) {
+			histogram.record(100);
+		}
+		histogram.record(5000);
+		histogram.record(40000);
+		Assert.assertEquals("Bad sum", 98 * 100 + 5000 + 40000, histogram.getSum());
+		Assert.assertEquals("Bad max", 40000, histogram.getMax());
+		long[] counts = histogram.getCounts();
+		Assert.assertEquals("Bad median", 128, LatencyHistogram.getPercentile(counts, 50, histogram.getMax()));
+		Assert.assertEquals("Bad p99", 8192, LatencyHistogram.getPercentile(counts, 99, histogram.getMax()));
+		// last bucket bounded by the maximum
+		Assert.assertEquals("Bad p100", 40000, LatencyHistogram.getPercentile(counts, 100, histogram.getMax()));
+	}
+
+	@Test
+	public void testSampleRates() {
+		IngestMetrics metrics = new IngestMetrics();
+		long start = System.nanoTime();
+		IngestStats initial = metrics.sample(0, start);
+		Assert.assertEquals("Bad initial lines", 0, initial.getLineCount());
+
+		metrics.addRead(1000, 10);
+		metrics.addRead(500, 5);
+		metrics.setByteLag(300);
+		metrics.recordParse(200);
+		IngestStats stats = metrics.sample(3, start + 2_000_000_000l);
+		Assert.assertEquals("Bad lines", 15, stats.getLineCount());
+		Assert.assertEquals("Bad bytes", 1500, stats.getByteCount());
+		Assert.assertEquals("Bad lines rate", 7.5, stats.getLinesPerSecond(), 0.001);
+		Assert.assertEquals("Bad bytes rate", 750, stats.getBytesPerSecond(), 0.001);
+		Assert.assertEquals("Bad bad lines rate", 1.5, stats.getBadLinesPerSecond(), 0.001);
+		Assert.assertEquals("Bad lag", 300, stats.getByteLag());
+		Assert.assertEquals("Bad parse count", 1, stats.getParseCount());
+		Assert.assertEquals("Bad parse median", 200, stats.getParsePercentile(50));
+
+		// rates since the previous sample
+		metrics.addRead(100, 1);
+		metrics.addByteLag(-100);
+		stats = metrics.sample(3, start + 3_000_000_000l);
+		Assert.assertEquals("Bad lines rate", 1, stats.getLinesPerSecond(), 0.001);
+		Assert.assertEquals("Bad bad lines rate", 0, stats.getBadLinesPerSecond(), 0.001);
+		Assert.assertEquals("Bad lag", 200, stats.getByteLag());
+		Assert.assertTrue("Line should be timed", IngestMetrics.isParseSampled(0));
+		Assert.assertFalse("Line should not be timed", IngestMetrics.isParseSampled(1));
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.httplogmonitoringtool.models.tests;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.QuantileSketch;
+
+public class QuantileSketchTest {
+
+	/**
+	 * log-normal response sizes: median about 5KB
+	 */
+	private static long[] generateSizes(int count, long seed) {
+		Random random = new Random(seed);
+		long[] sizes = new long[count];
+		for (int i = 0; i < count; i++) {
+			sizes[i] = (long) Math.exp(8.5 + 1.5 * random.nextGaussian());
+		}
+		return sizes;
+	}
+
+	private static long exactQuantile(long[] sortedValues, double quantile) {
+		return sortedValues[(int) (quantile * (sortedValues.length - 1))];
+	}
+
+	@Test
+	public void testQuantiles() {
+		QuantileSketch sketch = new QuantileSketch();
+		long[] sizes = generateSizes(100000, 42);
+		for (long size : sizes) {
+			sketch.add(size);
+		}
+		Arrays.sort(sizes);
+		Assert.assertEquals("Bad count", 100000, sketch.getCount());
+		Assert.assertEquals("Bad min", sizes[0], sketch.getMin());
+		Assert.assertEquals("Bad max", sizes[sizes.length - 1], sketch.getMax());
+		for (double quantile : new double[] { 0, 0.5, 0.95, 0.99, 1 }) {
+			long exact = exactQuantile(sizes, quantile);
+			Assert.assertEquals("Bad quantile " + quantile, exact, sketch.getQuantile(quantile),
+					exact * QuantileSketch.DEFAULT_RELATIVE_ACCURACY + 1);
+		}
+	}
+
+	@Test
+	public void testZeroAndEmpty() {
+		QuantileSketch sketch = new QuantileSketch();
+		Assert.assertEquals("Empty sketch quantile should be 0", 0, sketch.getQuantile(0.99));
+		for (int i = 0; i < 60; i++) {
+			sketch.add(0);
+		}
+		for (int i = 0; i < 40; i++) {
+			sketch.add(1000);
+		}
+		sketch.add(-5);
+		Assert.assertEquals("Bad zero median", 0, sketch.getQuantile(0.5));
+		Assert.assertEquals("Bad p99", 1000, sketch.getQuantile(0.99), 10);
+		Assert.assertEquals("Bad min", 0, sketch.getMin());
+		Assert.assertEquals("Bad sum", 40000, sketch.getSum());
+
+		sketch.clear();
+		Assert.assertEquals("Sketch not cleared", 0, sketch.getCount());
+		sketch.add(7);
+		Assert.assertEquals("Bad quantile after clear", 7, sketch.getQuantile(0.5));
+	}
+
+	@Test
+	public void testMerge() {
+		long[] sizes = generateSizes(20000, 7);
+		QuantileSketch all = new QuantileSketch();
+		QuantileSketch first = new QuantileSketch();
+		QuantileSketch second = new QuantileSketch();
+		for (int i = 0; i < sizes.length; i++) {
+			all.add(sizes[i]);
+			(i % 3 == 0 ? first : second).add(sizes[i]);
+		}
+		first.merge(second);
+		Assert.assertEquals("Bad merged count", all.getCount(), first.getCount());
+		Assert.assertEquals("Bad merged max", all.getMax(), first.getMax());
+		for (double quantile : new double[] { 0.1, 0.5, 0.95, 0.99 }) {
+			Assert.assertEquals("Merged sketch should equal the whole sketch", all.getQuantile(quantile),
+					first.getQuantile(quantile));
+		}
+
+		QuantileSketch copy = first.copy();
+		first.add(1l << 40);
+		Assert.assertEquals("Copy should not change", all.getMax(), copy.getMax());
+		Assert.assertEquals("Bad copied p50", all.getQuantile(0.5), copy.getQuantile(0.5));
+
+		try {
+			all.merge(new QuantileSketch(0.05, 100));
+			Assert.fail("Merging sketches of different accuracies should fail");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBoundedBins() {
+		QuantileSketch sketch = new QuantileSketch(0.01, 64);
+		for (long size = 1; size < 1l << 40; size = size * 11 / 10 + 1) {
+			sketch.add(size);
+		}
+		sketch.add(1l << 40);
+		Assert.assertTrue("Bins not bounded", sketch.getBinCount() <= 64);
+		// high quantiles stay accurate, low ones are collapsed
+		Assert.assertEquals("Bad max quantile", 1l << 40, sketch.getQuantile(1), (1l << 40) * 0.01);
+		Assert.assertTrue("Low quantiles should be collapsed", sketch.getQuantile(0) > 1);
+	}
+
+}
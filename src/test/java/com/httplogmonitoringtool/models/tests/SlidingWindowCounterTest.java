@@ -0,0 +1,81 @@
+package com.httplogmonitoringtool.models.tests;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.SlidingWindowCounter;
+
+public class SlidingWindowCounterTest {
+
+	private final static long START = 1543071935000L;
+
+	@Test
+	public void testSlidingSum() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(3);
+		Assert.assertEquals("Bad start", SlidingWindowCounter.NO_TIME, counter.getStartTime());
+		counter.add(START);
+		counter.add(START + 500);
+		counter.add(START + 1000, 3);
+		counter.add(START + 2999);
+		Assert.assertEquals("Bad sum", 6, counter.getSum());
+		Assert.assertEquals("Bad start", START, counter.getStartTime());
+
+		// first second expires
+		counter.advance(START + 3000);
+		Assert.assertEquals("Bad sum after 1 second", 4, counter.getSum());
+		Assert.assertTrue("Expired time accepted", counter.isExpired(START + 999));
+		Assert.assertFalse("Expired time counted", counter.add(START + 999));
+		// late time in window still counted
+		Assert.assertTrue("Late time not counted", counter.add(START + 1500));
+		Assert.assertEquals("Bad sum with late time", 5, counter.getSum());
+
+		// older times never move the window back
+		counter.advance(START);
+		Assert.assertEquals("Window moved back", 5, counter.getSum());
+
+		// whole window expires
+		counter.add(START + 60000);
+		Assert.assertEquals("Bad sum after window", 1, counter.getSum());
+
+		counter.clear();
+		Assert.assertEquals("Not cleared", 0, counter.getSum());
+		Assert.assertEquals("Start not cleared", SlidingWindowCounter.NO_TIME, counter.getStartTime());
+	}
+
+	@Test
+	public void testConstantMemory() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(120);
+		long requests = 0;
+		for (long time = START; time < START + 1000 * 600; time += 1) {
+			counter.add(time);
+			requests++;
+		}
+		Assert.assertEquals("Bad window size", 120, counter.getWindowSeconds());
+		Assert.assertEquals("Bad sum", 120 * 1000, counter.getSum());
+		Assert.assertEquals("Bad request count", 600 * 1000, requests);
+	}
+
+	@Test
+	public void testRestore() {
+		SlidingWindowCounter counter = new SlidingWindowCounter(10);
+		for (int second = 0; second < 8; second++) {
+			counter.add(START + second * 1000, second + 1);
+		}
+		SlidingWindowCounter restored = new SlidingWindowCounter(10);
+		restored.restore(counter.getHeadSecond(), counter.getStartTime(), counter.getCounts());
+		Assert.assertEquals("Bad restored sum", counter.getSum(), restored.getSum());
+		Assert.assertEquals("Bad restored head", counter.getHeadSecond(), restored.getHeadSecond());
+		Assert.assertEquals("Bad restored start", counter.getStartTime(), restored.getStartTime());
+
+		// restored window keeps sliding
+		restored.advance(START + 9000);
+		counter.advance(START + 9000);
+		Assert.assertEquals("Bad slid sum", counter.getSum(), restored.getSum());
+
+		// smaller window keeps seconds 7 (8 requests), 8 and 9 only
+		SlidingWindowCounter smaller = new SlidingWindowCounter(3);
+		smaller.restore(counter.getHeadSecond(), counter.getStartTime(), counter.getCounts());
+		Assert.assertEquals("Bad smaller window sum", 8, smaller.getSum());
+	}
+
+}
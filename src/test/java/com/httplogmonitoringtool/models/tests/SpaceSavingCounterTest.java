@@ -0,0 +1,84 @@
+package com.httplogmonitoringtool.models.tests;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.SpaceSavingCounter;
+import com.httplogmonitoringtool.models.SpaceSavingCounter.Counter;
+
+public class SpaceSavingCounterTest {
+
+	@Test
+	public void testExactCountsUnderCapacity() {
+		SpaceSavingCounter counter = new SpaceSavingCounter(10);
+		String[] keys = new String[] { "/api", "/sport", "/api", "/news", "/api", "/sport" };
+		for (String key : keys) {
+			counter.offer(key);
+		}
+		List<Counter> top = counter.top(10);
+		Assert.assertEquals("Bad counted keys", 3, top.size());
+		Assert.assertEquals("Bad top key", "/api", top.get(0).getKey());
+		Assert.assertEquals("Bad top count", 3, top.get(0).getCount());
+		Assert.assertEquals("Bad second key", "/sport", top.get(1).getKey());
+		Assert.assertEquals("Bad second count", 2, top.get(1).getCount());
+		Assert.assertEquals("Bad error", 0, top.get(2).getError());
+		Assert.assertEquals("Bad limited top", 1, counter.top(1).size());
+		Assert.assertEquals("Bad offered count", keys.length, counter.getOfferedCount());
+
+		counter.clear();
+		Assert.assertTrue("Not cleared", counter.top(10).isEmpty());
+	}
+
+	@Test
+	public void testBoundedHeavyHitters() {
+		SpaceSavingCounter counter = SpaceSavingCounter.withErrorRate(0.01);
+		Assert.assertEquals("Bad capacity", 100, counter.getCapacity());
+		HashMap<String, Long> exactCounts = new HashMap<String, Long>();
+		Random random = new Random(42);
+		int offered = 200000;
+		for (int i = 0; i < offered; i++) {
+			// 3 heavy hitters among many distinct hosts
+			String key = random.nextInt(4) == 0 ? "heavy" + random.nextInt(3) : "host" + random.nextInt(100000);
+			counter.offer(key);
+			exactCounts.merge(key, 1L, Long::sum);
+		}
+		Assert.assertEquals("Memory not bounded", 100, counter.size());
+		List<Counter> top = counter.top(3);
+		for (Counter entry : top) {
+			Assert.assertTrue("Heavy hitter not found: " + entry.getKey(), entry.getKey().startsWith("heavy"));
+			long exact = exactCounts.get(entry.getKey());
+			Assert.assertTrue("Count underestimated", entry.getCount() >= exact);
+			Assert.assertTrue("Error out of bound", entry.getCount() - exact <= entry.getError());
+			Assert.assertTrue("Error over N / capacity", entry.getError() <= offered / counter.getCapacity());
+		}
+	}
+
+	@Test
+	public void testMerge() {
+		SpaceSavingCounter counter = new SpaceSavingCounter(3);
+		SpaceSavingCounter other = new SpaceSavingCounter(3);
+		for (int i = 0; i < 5; i++) {
+			counter.offer("/api");
+			other.offer("/api");
+		}
+		counter.offer("/sport");
+		other.offer("/news");
+		other.offer("/news");
+		counter.merge(other);
+		List<Counter> top = counter.top(3);
+		Assert.assertEquals("Bad top key", "/api", top.get(0).getKey());
+		Assert.assertEquals("Bad merged count", 10, top.get(0).getCount());
+		Assert.assertEquals("Bad second key", "/news", top.get(1).getKey());
+		Assert.assertEquals("Bad third count", 1, top.get(2).getCount());
+		Assert.assertEquals("Bad offered count", 13, counter.getOfferedCount());
+
+		// counter still usable after merge
+		counter.offer("/sport");
+		Assert.assertEquals("Bad count after merge", 2, counter.get("/sport").getCount());
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.httplogmonitoringtool.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.AlertEngine;
+import com.httplogmonitoringtool.models.AlertRule;
+import com.httplogmonitoringtool.models.AlertRuleStatus;
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+
+public class AlertEngineTest {
+
+	private final static String RULES_FILE_PATH = System.getProperty("user.dir") + "/bin/alert_rules_test.txt";
+
+	/**
+	 * requests start time (epoch milliseconds)
+	 */
+	private final static long START_TIME = 1600000000000l;
+
+	@Test
+	public void testHysteresis() {
+		AlertEngine engine = new AlertEngine();
+		engine.addRule(AlertRule.parse("errors status_class_ratio 5 10 50 20"));
+		List<HTTPStatsAlert> alerts = new ArrayList<HTTPStatsAlert>();
+		for (int second = 0; second < 10; second++) {
+			engine.add(START_TIME + second * 1000, second < 6 ? 500 : 200, 100, "/sport");
+		}
+		engine.check(START_TIME + 9000, alerts);
+		Assert.assertTrue("Rule evaluated before its window elapsed", alerts.isEmpty());
+
+		// first second expired: 5 errors of 9 requests
+		engine.check(START_TIME + 10000, alerts);
+		Assert.assertEquals("Rule not raised", 1, alerts.size());
+		Assert.assertEquals("Bad alert type", HTTPStatsAlertType.RULE_RAISED, alerts.get(0).getType());
+		Assert.assertEquals("Bad alert rule", "errors", alerts.get(0).getRule());
+		Assert.assertEquals("Bad alert value", 500.0 / 9, alerts.get(0).getValue(), 0.001);
+
+		// between recover and raise thresholds: stays raised
+		for (int i = 0; i < 10; i++) {
+			engine.add(START_TIME + 10000, 200, 100, "/sport");
+		}
+		engine.check(START_TIME + 10000, alerts);
+		Assert.assertEquals("Rule should stay raised", 1, alerts.size());
+		Assert.assertTrue("Bad rule status", engine.getStatuses().get(0).isRaised());
+
+		for (int i = 0; i < 10; i++) {
+			engine.add(START_TIME + 10000, 200, 100, "/sport");
+		}
+		engine.check(START_TIME + 10000, alerts);
+		Assert.assertEquals("Rule not recovered", 2, alerts.size());
+		Assert.assertEquals("Bad recover type", HTTPStatsAlertType.RULE_RECOVERED, alerts.get(1).getType());
+		Assert.assertFalse("Bad recovered status", engine.getStatuses().get(0).isRaised());
+	}
+
+	@Test
+	public void testSharedSignals() {
+		AlertEngine engine = new AlertEngine();
+		engine.addRule(AlertRule.parse("hot section_rate /hot 10 2"));
+		engine.addRule(AlertRule.parse("traffic request_rate 10 5"));
+		engine.addRule(AlertRule.parse("heavy_traffic request_rate 10 50"));
+		engine.addRule(AlertRule.parse("bytes bytes_rate 10 1000"));
+		engine.addRule(AlertRule.parse("not_found status_rate 404 10 1"));
+		Assert.assertEquals("Counters should be shared", 4, engine.getCounterCount());
+		try {
+			engine.addRule(AlertRule.parse("hot section_rate /cold 10 2"));
+			Assert.fail("Duplicated rule name should be rejected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		for (int i = 0; i < 30; i++) {
+			engine.add(START_TIME + i * 300, 404, 100, "/hot");
+			engine.add(START_TIME + i * 300, 200, 100, "/cold");
+		}
+		// first second expired: 26 requests of each section left
+		List<HTTPStatsAlert> alerts = new ArrayList<HTTPStatsAlert>();
+		engine.check(START_TIME + 10000, alerts);
+		List<AlertRuleStatus> statuses = engine.getStatuses();
+		Assert.assertEquals("Bad statuses count", 5, statuses.size());
+		Assert.assertEquals("Bad section rate", 2.6, statuses.get(0).getValue(), 0.001);
+		Assert.assertEquals("Bad request rate", 5.2, statuses.get(1).getValue(), 0.001);
+		Assert.assertEquals("Bad bytes rate", 520, statuses.get(3).getValue(), 0.001);
+		Assert.assertEquals("Bad status rate", 2.6, statuses.get(4).getValue(), 0.001);
+		Assert.assertEquals("Bad raised rules", Arrays.asList("hot", "traffic", "not_found"),
+				Arrays.asList(alerts.get(0).getRule(), alerts.get(1).getRule(), alerts.get(2).getRule()));
+		Assert.assertEquals("Bad alerts count", 3, alerts.size());
+	}
+
+	@Test
+	public void testMovingRates() {
+		AlertEngine engine = new AlertEngine();
+		engine.addRule(AlertRule.parse("spike ewma_request_rate 60 8 5"));
+		engine.addRule(AlertRule.parse("errors ewma_status_class_rate 5 60 1"));
+		engine.addRule(AlertRule.parse("drift ewma_request_rate 60 100"));
+		Assert.assertEquals("Moving rates should be shared", 2, engine.getCounterCount());
+
+		// 10 requests/s of which 2 errors/s during 2 minutes
+		List<HTTPStatsAlert> alerts = new ArrayList<HTTPStatsAlert>();
+		for (long time = START_TIME; time < START_TIME + 120000; time += 100) {
+			engine.add(time, time % 500 == 0 ? 500 : 200, 100, "/sport");
+			engine.tick(time);
+			engine.check(time, alerts);
+		}
+		// rates start at 0: 23 closed ticks of the 1 minute horizon
+		Assert.assertEquals("Bad request rate", 10 * (1 - Math.exp(-115 / 60d)), engine.getStatuses().get(0).getValue(),
+				0.1);
+		Assert.assertEquals("Bad error rate", 2 * (1 - Math.exp(-115 / 60d)), engine.getStatuses().get(1).getValue(),
+				0.05);
+		// errors rate reaches its threshold first
+		Assert.assertEquals("Bad raised rules", Arrays.asList("errors", "spike"),
+				Arrays.asList(alerts.get(0).getRule(), alerts.get(1).getRule()));
+		Assert.assertEquals("Bad alerts count", 2, alerts.size());
+
+		// no more requests: rates decay
+		engine.check(START_TIME + 240000, alerts);
+		Assert.assertEquals("Rates should only decay when ticked", 2, alerts.size());
+		engine.tick(START_TIME + 240000);
+		engine.check(START_TIME + 240000, alerts);
+		Assert.assertEquals("Rates should decay", 4, alerts.size());
+		Assert.assertEquals("Bad recover type", HTTPStatsAlertType.RULE_RECOVERED, alerts.get(2).getType());
+	}
+
+	@Test
+	public void testRestore() {
+		AlertEngine engine = new AlertEngine();
+		engine.addRule(AlertRule.parse("traffic request_rate 10 5"));
+		engine.addRule(AlertRule.parse("errors status_class_ratio 5 10 5"));
+		engine.restore(Arrays.asList(new HTTPStatsAlert(HTTPStatsAlertType.RULE_RAISED, "traffic", 8, new Date(1000)),
+				new HTTPStatsAlert(HTTPStatsAlertType.RULE_RAISED, "errors", 9, new Date(2000)),
+				new HTTPStatsAlert(HTTPStatsAlertType.HIGH_TRAFFIC, 12, new Date(3000)),
+				new HTTPStatsAlert(HTTPStatsAlertType.RULE_RECOVERED, "traffic", 1, new Date(4000))));
+		Assert.assertFalse("Recovered rule restored as raised", engine.getStatuses().get(0).isRaised());
+		Assert.assertTrue("Raised rule not restored", engine.getStatuses().get(1).isRaised());
+	}
+
+	@Test
+	public void testLoad() throws IOException {
+		Path rulesPath = Paths.get(RULES_FILE_PATH);
+		new File(RULES_FILE_PATH).getParentFile().mkdirs();
+		try {
+			Files.write(rulesPath, Arrays.asList("# server errors", "", "errors status_class_ratio 5 60 5 3",
+					"  hot section_rate /api 30 100"), StandardCharsets.UTF_8);
+			Assert.assertEquals("Bad rules count", 2, AlertEngine.load(rulesPath).getRuleCount());
+
+			Files.write(rulesPath, Arrays.asList("errors status_class_ratio 5 60 5 3", "hot section_rate 30 100"),
+					StandardCharsets.UTF_8);
+			try {
+				AlertEngine.load(rulesPath);
+				Assert.fail("Bad rule should be rejected");
+			} catch (IOException e) {
+				Assert.assertTrue("Bad rule line should be reported", e.getMessage().contains("line 2"));
+			}
+		} finally {
+			Files.deleteIfExists(rulesPath);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.httplogmonitoringtool.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.JsonStatsWriter;
+import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.models.HTTPLogRow;
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+
+public class JsonStatsWriterTest {
+
+	@Test
+	public void testWriteRecords() throws IOException {
+		MonitorLog monitorLogs = new MonitorLog();
+		monitorLogs.setStatsInterval(0);
+		HTTPLogRow logRow = new HTTPLogRow();
+		logRow.setReqSection("/sport");
+		logRow.setReqSatus(200);
+		logRow.setContentLength(10);
+		logRow.setReqEpochMillis(System.currentTimeMillis() - 2000);
+		monitorLogs.consumeLogRow(logRow);
+		logRow.setReqSatus(404);
+		monitorLogs.consumeLogRow(logRow);
+		monitorLogs.consumeBadLogLine();
+		monitorLogs.getRaisedAlerts().add(new HTTPStatsAlert(HTTPStatsAlertType.HIGH_TRAFFIC, 12, new Date(1000)));
+		monitorLogs.getRaisedAlerts()
+				.add(new HTTPStatsAlert(HTTPStatsAlertType.RULE_RAISED, "errors", 7.5, new Date(1500)));
+		monitorLogs.publishStats();
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		JsonStatsWriter jsonStatsWriter = new JsonStatsWriter(monitorLogs, output, 100);
+		Assert.assertTrue("Snapshot not written", jsonStatsWriter.writeSnapshot(monitorLogs.getStatsSnapshot()));
+		Assert.assertFalse("Snapshot written twice", jsonStatsWriter.writeSnapshot(monitorLogs.getStatsSnapshot()));
+		String[] records = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		Assert.assertEquals("Bad records count", 3, records.length);
+		Assert.assertEquals("Bad alert record",
+				"{\"type\":\"alert\",\"alert\":\"HIGH_TRAFFIC\",\"trafficAverage\":12,\"time\":1000}", records[0]);
+		Assert.assertEquals("Bad rule alert record",
+				"{\"type\":\"alert\",\"alert\":\"RULE_RAISED\",\"rule\":\"errors\",\"value\":7.5,\"time\":1500}",
+				records[1]);
+		records = Arrays.copyOfRange(records, 1, records.length);
+		Assert.assertTrue("Bad stats record", records[1].startsWith("{\"type\":\"stats\",\"sequence\":"));
+		Assert.assertTrue("Bad requests", records[1].contains(",\"requests\":2,\"badFormatLogs\":1,"));
+		Assert.assertTrue("Bad content", records[1].contains(",\"intervalContentBytes\":20,"));
+		Assert.assertTrue("Bad content sizes",
+				records[1].contains(",\"contentSize\":{\"count\":2,\"p50\":10,\"p95\":10,\"p99\":10,\"max\":10},"));
+		Assert.assertTrue("Bad section sizes",
+				records[1].contains(",\"sectionContentSizes\":{\"/sport\":{\"count\":2,"));
+		Assert.assertTrue("Bad status", records[1].contains(",\"status\":{\"200\":1,\"404\":1},"));
+		Assert.assertTrue("Bad sections", records[1].contains(",\"sections\":{\"/sport\":2},"));
+		Assert.assertTrue("Missing rates", records[1].contains(",\"rates\":{\"requests\":{\"1m\":"));
+		Assert.assertTrue("Bad alert state", records[1].contains(",\"highTrafficAlert\":true,\"alertRules\":{},"));
+		Assert.assertTrue("Bad record end", records[1].endsWith("}}"));
+
+		// only new alerts are written
+		output.reset();
+		monitorLogs.getRaisedAlerts().add(new HTTPStatsAlert(HTTPStatsAlertType.LOW_TRAFFIC, 3, new Date(2000)));
+		monitorLogs.publishStats();
+		jsonStatsWriter.close();
+		records = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		Assert.assertEquals("Bad records count after close", 2, records.length);
+		Assert.assertEquals("Bad new alert record",
+				"{\"type\":\"alert\",\"alert\":\"LOW_TRAFFIC\",\"trafficAverage\":3,\"time\":2000}", records[0]);
+		Assert.assertEquals("Bad records total", 5, jsonStatsWriter.getRecordCount());
+	}
+
+}
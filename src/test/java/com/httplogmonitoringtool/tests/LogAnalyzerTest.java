@@ -0,0 +1,144 @@
+package com.httplogmonitoringtool.tests;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.LogAnalyzer;
+import com.httplogmonitoringtool.LogAnalyzer.FileAnalysis;
+import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.models.HTTPStats;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+
+public class LogAnalyzerTest {
+
+	private final static String LOG_FILE_PATH = System.getProperty("user.dir") + "/bin/analyzer_test.log";
+
+	private final static String GZIP_LOG_FILE_PATH = LOG_FILE_PATH + ".1.gz";
+
+	private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+	@Before
+	public void setUp() throws IOException {
+		File file = new File(LOG_FILE_PATH);
+		file.getParentFile().mkdirs();
+		if (file.exists()) {
+			file.delete();// delete if already exists
+		}
+		// create test log file
+		file.createNewFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log files
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH));
+		Files.deleteIfExists(Paths.get(GZIP_LOG_FILE_PATH));
+	}
+
+	@Test
+	public void testSameStatsAsMonitor() throws IOException {
+		String date = DATE_FORMAT.format(new Date(System.currentTimeMillis() - 5000));
+		String futureDate = DATE_FORMAT.format(new Date(System.currentTimeMillis() + 1000 * 3600));
+		try (FileWriter writer = new FileWriter(LOG_FILE_PATH, true)) {
+			for (int i = 0; i < 5000; i++) {
+				if (i % 10 == 0) {
+					writer.write("bad line " + i + "\n");
+				} else if (i % 333 == 0) {
+					writer.write("127.0.0.1 - lily [" + futureDate + "] \"GET /future HTTP/1.0\" 200 1\r\n");
+				} else {
+					// skewed values: no tie in top values
+					writer.write("127.0.0." + Integer.numberOfTrailingZeros((i / 3) | 16) + " - user"
+							+ Integer.numberOfTrailingZeros(i | 8) + " [" + date + "] \"GET /section"
+							+ Integer.numberOfTrailingZeros(i | 64) + "/page HTTP/1.0\" " + (i % 4 == 0 ? 404 : 200)
+							+ " " + i + "\n");
+				}
+			}
+		}
+
+		MonitorLog monitorLog = new MonitorLog();
+		monitorLog.setLogFilePath(LOG_FILE_PATH);
+		monitorLog.updateStats();
+		monitorLog.close();
+		HTTPStats reference = monitorLog.getLogStats();
+
+		// small chunks: many chunks to merge
+		LogAnalyzer logAnalyzer = new LogAnalyzer(LOG_FILE_PATH, 4, 4096);
+		HTTPStats stats = logAnalyzer.analyze();
+
+		Assert.assertEquals("Bad analyzed bytes", new File(LOG_FILE_PATH).length(), logAnalyzer.getAnalyzedBytes());
+		for (HTTPStatsType type : HTTPStatsType.values()) {
+			Assert.assertEquals("Bad " + type, reference.getStatsValue(type), stats.getStatsValue(type));
+		}
+		Assert.assertEquals("Bad status counts", reference.getStatusCounts(), stats.getStatusCounts());
+		Assert.assertEquals("Bad most hit sections", reference.getMostHitSection(), stats.getMostHitSection());
+		Assert.assertEquals("Bad top user", reference.getTopUser(), stats.getTopUser());
+		Assert.assertEquals("Bad top remote host", reference.getTopRemoteHost(), stats.getTopRemoteHost());
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		HTTPStats stats = new LogAnalyzer(LOG_FILE_PATH, 2).analyze();
+		Assert.assertEquals("Should not have any request", 0, stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+	}
+
+	@Test
+	public void testCompressedFiles() throws IOException {
+		String date = DATE_FORMAT.format(new Date(System.currentTimeMillis() - 5000));
+		StringBuilder logs = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			if (i % 10 == 0) {
+				logs.append("bad line ").append(i).append('\n');
+			} else {
+				logs.append("127.0.0.1 - user").append(i % 3).append(" [").append(date)
+						.append("] \"GET /section").append(i % 5).append("/page HTTP/1.0\" 200 10\n");
+			}
+		}
+		byte[] bytes = logs.toString().getBytes("UTF-8");
+		Files.write(Paths.get(LOG_FILE_PATH), bytes);
+		try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(Paths.get(GZIP_LOG_FILE_PATH)))) {
+			output.write(bytes);
+		}
+
+		List<Path> paths = Arrays.asList(Paths.get(GZIP_LOG_FILE_PATH), Paths.get(LOG_FILE_PATH));
+		LogAnalyzer logAnalyzer = new LogAnalyzer(paths, 2, 4096);
+		HTTPStats stats = logAnalyzer.analyze();
+
+		// both files are merged
+		Assert.assertEquals("Bad requests", 2 * 2700, stats.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Bad bad lines", 2 * 300, stats.getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG));
+		Assert.assertEquals("Bad content", 2 * 2700 * 10, stats.getStatsValue(HTTPStatsType.TOTAL_CONTENT));
+		Assert.assertEquals("Bad analyzed bytes", 2 * bytes.length, logAnalyzer.getAnalyzedBytes());
+
+		// each file throughput
+		List<FileAnalysis> analyses = logAnalyzer.getFileAnalyses();
+		Assert.assertEquals("Bad file analyses count", 2, analyses.size());
+		FileAnalysis compressed = analyses.get(0);
+		Assert.assertEquals("Bad compressed file lines", 3000, compressed.getLineCount());
+		Assert.assertEquals("Bad decompressed bytes", bytes.length, compressed.getDecompressedBytes());
+		Assert.assertTrue("Compressed file not smaller", compressed.getFileBytes() < bytes.length);
+		Assert.assertEquals("Bad plain file lines", 3000, analyses.get(1).getLineCount());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingFile() throws IOException {
+		new LogAnalyzer(Arrays.asList(Paths.get(LOG_FILE_PATH), Paths.get(GZIP_LOG_FILE_PATH)), 2).analyze();
+	}
+
+}
@@ -0,0 +1,101 @@
+package com.httplogmonitoringtool.tests;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.LogIngestPipeline;
+import com.httplogmonitoringtool.LogIngestPipeline.IngestStage;
+import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.utils.LogFileWatcher;
+
+public class LogIngestPipelineTest {
+
+	private final static String LOG_FILE_PATH = System.getProperty("user.dir") + "/bin/pipeline_test.log";
+
+	private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+	@Before
+	public void setUp() throws IOException {
+		File file = new File(LOG_FILE_PATH);
+		file.getParentFile().mkdirs();
+		if (file.exists()) {
+			file.delete();// delete if already exists
+		}
+		// create test log file
+		file.createNewFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log file
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH));
+	}
+
+	@Test
+	public void testSameStatsAsSingleThread() throws IOException, InterruptedException {
+		int lineCount = 20000;
+		String date = DATE_FORMAT.format(new Date(System.currentTimeMillis() - 5000));
+		try (FileWriter writer = new FileWriter(LOG_FILE_PATH, true)) {
+			for (int i = 0; i < lineCount; i++) {
+				if (i % 10 == 0) {
+					writer.write("bad line " + i + "\n");
+				} else {
+					writer.write("127.0.0." + (i % 7) + " - user" + (i % 3) + " [" + date + "] \"GET /section" + (i % 5)
+							+ "/page HTTP/1.0\" " + (i % 4 == 0 ? 404 : 200) + " " + i + "\n");
+				}
+			}
+		}
+
+		// single thread reference
+		MonitorLog reference = new MonitorLog();
+		reference.setLogFilePath(LOG_FILE_PATH);
+		reference.updateStats();
+		reference.close();
+
+		MonitorLog monitorLog = new MonitorLog();
+		monitorLog.setLogFilePath(LOG_FILE_PATH);
+		// few batches: parsed batches have to be reordered
+		try (LogFileWatcher watcher = new LogFileWatcher(LOG_FILE_PATH, 50);
+				LogIngestPipeline pipeline = new LogIngestPipeline(monitorLog, watcher, 3, 4)) {
+			pipeline.start();
+			IngestStage aggregateStage = pipeline.getStages().get(2);
+			for (int i = 0; i < 100 && aggregateStage.getLineCount() < lineCount; i++) {
+				TimeUnit.MILLISECONDS.sleep(100);
+			}
+			pipeline.checkFailure();
+			Assert.assertEquals("Bad aggregated lines", lineCount, aggregateStage.getLineCount());
+			Assert.assertEquals("Bad read lines", lineCount, pipeline.getStages().get(0).getLineCount());
+			Assert.assertEquals("Bad parsed lines", lineCount, pipeline.getStages().get(1).getLineCount());
+			// read batches are all parsed: no backpressure left
+			Assert.assertEquals("Bad read backlog", 0, pipeline.getStages().get(0).getQueueDepth());
+		} finally {
+			monitorLog.close();
+		}
+
+		// pipeline threads are stopped: statistics can be read
+		for (HTTPStatsType type : HTTPStatsType.values()) {
+			Assert.assertEquals("Bad " + type, reference.getLogStats().getStatsValue(type),
+					monitorLog.getLogStats().getStatsValue(type));
+		}
+		Assert.assertEquals("Bad status counts", reference.getLogStats().getStatusCounts(),
+				monitorLog.getLogStats().getStatusCounts());
+		Assert.assertEquals("Bad most hit sections", reference.getLogStats().getMostHitSection(),
+				monitorLog.getLogStats().getMostHitSection());
+		Assert.assertEquals("Bad top user", reference.getLogStats().getTopUser(),
+				monitorLog.getLogStats().getTopUser());
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.httplogmonitoringtool.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.MetricsServer;
+import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.models.HTTPLogRow;
+
+public class MetricsServerTest {
+
+	@Test
+	public void testScrapeMetrics() throws IOException {
+		MonitorLog monitorLogs = new MonitorLog();
+		monitorLogs.setStatsInterval(0);
+		HTTPLogRow logRow = new HTTPLogRow();
+		logRow.setReqSection("/sport");
+		logRow.setReqSatus(200);
+		logRow.setContentLength(10);
+		logRow.setReqEpochMillis(System.currentTimeMillis() - 2000);
+		monitorLogs.consumeLogRow(logRow);
+		logRow.setReqSatus(404);
+		monitorLogs.consumeLogRow(logRow);
+		monitorLogs.consumeBadLogLine();
+		monitorLogs.publishStats();
+
+		try (MetricsServer metricsServer = new MetricsServer(monitorLogs, 0)) {
+			metricsServer.start();
+			String metrics = scrape(metricsServer.getPort());
+			Assert.assertTrue("Bad requests total", metrics.contains("\nhttp_log_requests_total 2\n"));
+			Assert.assertTrue("Bad bad format total", metrics.contains("\nhttp_log_bad_format_logs_total 1\n"));
+			Assert.assertTrue("Bad content", metrics.contains("\nhttp_log_interval_content_bytes 20\n"));
+			Assert.assertTrue("Bad 200 count", metrics.contains("\nhttp_log_status_requests_total{code=\"200\"} 1\n"));
+			Assert.assertTrue("Bad 404 count", metrics.contains("\nhttp_log_status_requests_total{code=\"404\"} 1\n"));
+			Assert.assertTrue("Bad alert state", metrics.contains("\nhttp_log_alert_high_traffic 0\n"));
+			Assert.assertTrue("Missing type", metrics.contains("# TYPE http_log_requests_total counter\n"));
+			Assert.assertFalse("Bad ingest lag", metrics.contains("\nhttp_log_ingest_lag_seconds 0.0\n"));
+			Assert.assertTrue("Missing parse histogram",
+					metrics.contains("\nhttp_log_parse_duration_seconds_bucket{le=\"+Inf\"} 0\n"));
+			Assert.assertTrue("Missing read lag", metrics.contains("\nhttp_log_ingest_lag_bytes 0\n"));
+			Assert.assertTrue("Missing request rate", metrics.contains("\nhttp_log_request_rate{horizon=\"15m\"} "));
+			Assert.assertTrue("Missing status class rate",
+					metrics.contains("\nhttp_log_status_class_request_rate{class=\"5xx\",horizon=\"1m\"} "));
+			Assert.assertTrue("Bad size quantile",
+					metrics.contains("\nhttp_log_interval_content_size_bytes{quantile=\"0.99\"} 10\n"));
+			Assert.assertTrue("Bad section size count",
+					metrics.contains("\nhttp_log_section_content_size_bytes_count{section=\"/sport\"} 2\n"));
+
+			// rendered once per snapshot
+			Assert.assertSame("Metrics rendered again", metricsServer.getMetrics(), metricsServer.getMetrics());
+			byte[] rendered = metricsServer.getMetrics();
+			monitorLogs.consumeLogRow(logRow);
+			Assert.assertSame("Metrics changed before publishing", rendered, metricsServer.getMetrics());
+			monitorLogs.publishStats();
+			Assert.assertTrue("Metrics not refreshed",
+					scrape(metricsServer.getPort()).contains("\nhttp_log_requests_total 3\n"));
+		}
+	}
+
+	@Test
+	public void testUnknownMethod() throws IOException {
+		try (MetricsServer metricsServer = new MetricsServer(new MonitorLog(), 0)) {
+			metricsServer.start();
+			HttpURLConnection connection = (HttpURLConnection) new URL(
+					"http://localhost:" + metricsServer.getPort() + MetricsServer.METRICS_PATH).openConnection();
+			connection.setRequestMethod("DELETE");
+			Assert.assertEquals("Bad response code", 405, connection.getResponseCode());
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * get metrics endpoint content
+	 *
+	 * @param port
+	 * @return content
+	 * @throws IOException
+	 */
+	private static String scrape(int port) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://localhost:" + port + MetricsServer.METRICS_PATH).openConnection();
+		try (InputStream input = connection.getInputStream()) {
+			Assert.assertEquals("Bad response code", 200, connection.getResponseCode());
+			Assert.assertTrue("Bad content type", connection.getContentType().startsWith("text/plain"));
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = input.read(buffer)) > 0) {
+				content.write(buffer, 0, read);
+			}
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+}
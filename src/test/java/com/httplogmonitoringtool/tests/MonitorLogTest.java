@@ -1,10 +1,13 @@
 package com.httplogmonitoringtool.tests;
 
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
@@ -12,9 +15,16 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.httplogmonitoringtool.AlertEngine;
 import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.models.AlertRule;
+import com.httplogmonitoringtool.models.HTTPLogRow;
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
 import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+import com.httplogmonitoringtool.models.HTTPStatsSnapshot;
 import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.models.IngestStats;
+import com.httplogmonitoringtool.models.MonitorCheckpoint;
 
 public class MonitorLogTest {
 	@Before
@@ -33,6 +43,174 @@ public class MonitorLogTest {
 		Files.delete(Paths.get(TrafficFakeLogThread.LOG_FILE_PATH));
 	}
 
+	@Test
+	public void testConsumeReusedLogRow() {
+		MonitorLog monitorLogs = new MonitorLog();
+		HTTPLogRow logRow = new HTTPLogRow();
+		logRow.setRemoteHost("127.0.0.1");
+		logRow.setAuthUser("lily");
+		logRow.setReqSection("/sport");
+		logRow.setReqSatus(200);
+		logRow.setContentLength(10);
+		logRow.setReqEpochMillis(System.currentTimeMillis() - 1000);
+		Assert.assertTrue("Row should be consumed", monitorLogs.consumeLogRow(logRow));
+
+		// reuse row with a date in the future
+		logRow.setReqEpochMillis(System.currentTimeMillis() + 1000 * 60);
+		Assert.assertFalse("Row should be rejected", monitorLogs.consumeLogRow(logRow));
+
+		Assert.assertEquals("Bad request count", Long.valueOf(1),
+				monitorLogs.getLogStats().getStatsValues().get(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Bad content", Long.valueOf(10),
+				monitorLogs.getLogStats().getStatsValues().get(HTTPStatsType.TOTAL_CONTENT));
+		Assert.assertEquals("Bad bad format count", Long.valueOf(1),
+				monitorLogs.getLogStats().getStatsValues().get(HTTPStatsType.TOTAL_BAD_FORMAT_LOG));
+		Assert.assertEquals("Bad top user", "lily", monitorLogs.getLogStats().getTopUser());
+	}
+
+	@Test
+	public void testRuleRecoversWhileQuiet() throws InterruptedException {
+		MonitorLog monitorLogs = new MonitorLog();
+		AlertEngine alertEngine = new AlertEngine();
+		alertEngine.addRule(AlertRule.parse("burst request_rate 2 5 3"));
+		monitorLogs.setAlertEngine(alertEngine);
+		HTTPLogRow logRow = new HTTPLogRow();
+		logRow.setReqSection("/sport");
+		logRow.setReqSatus(200);
+		long time = System.currentTimeMillis();
+		logRow.setReqEpochMillis(time - 2500);
+		monitorLogs.consumeLogRow(logRow);
+		for (int i = 0; i < 30; i++) {
+			logRow.setReqEpochMillis(time - 100);
+			monitorLogs.consumeLogRow(logRow);
+		}
+		monitorLogs.publishStats();
+		Assert.assertTrue("Rule should be raised", alertEngine.getStatuses().get(0).isRaised());
+
+		// no more lines: the rule is evaluated on each publication
+		TimeUnit.MILLISECONDS.sleep(2100);
+		monitorLogs.publishStats();
+		Assert.assertFalse("Rule should recover without new lines", alertEngine.getStatuses().get(0).isRaised());
+		HTTPStatsAlert lastAlert = monitorLogs.getRaisedAlerts().get(monitorLogs.getRaisedAlerts().size() - 1);
+		Assert.assertEquals("Bad last alert", HTTPStatsAlertType.RULE_RECOVERED, lastAlert.getType());
+	}
+
+	@Test
+	public void testPublishStats() {
+		MonitorLog monitorLogs = new MonitorLog();
+		HTTPStatsSnapshot initial = monitorLogs.getStatsSnapshot();
+		Assert.assertEquals("Bad initial sequence", 0, initial.getSequence());
+
+		HTTPLogRow logRow = new HTTPLogRow();
+		logRow.setAuthUser("lily");
+		logRow.setReqSection("/sport");
+		logRow.setReqSatus(200);
+		logRow.setContentLength(10);
+		logRow.setReqEpochMillis(System.currentTimeMillis() - 1000);
+		monitorLogs.consumeLogRow(logRow);
+		Assert.assertFalse("Published before interval end", monitorLogs.publishStats());
+		Assert.assertSame("Snapshot changed", initial, monitorLogs.getStatsSnapshot());
+
+		// publish on each call
+		monitorLogs.setStatsInterval(0);
+		Assert.assertTrue("Not published", monitorLogs.publishStats());
+		HTTPStatsSnapshot snapshot = monitorLogs.getStatsSnapshot();
+		Assert.assertEquals("Bad sequence", 1, snapshot.getSequence());
+		Assert.assertEquals("Bad request count", 1, snapshot.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Bad content", 10, snapshot.getStatsValue(HTTPStatsType.TOTAL_CONTENT));
+		Assert.assertEquals("Bad top user", "lily", snapshot.getTopUser());
+		Assert.assertEquals("Bad most hit section", "{/sport=1}", snapshot.getMostHitSection().toString());
+
+		// short statistics cleared by the writer, snapshot unchanged
+		Assert.assertEquals("Short statistics not cleared", "", monitorLogs.getLogStats().getTopUser());
+		Assert.assertEquals("Short statistics not cleared", 0,
+				monitorLogs.getLogStats().getStatsValue(HTTPStatsType.TOTAL_CONTENT));
+		monitorLogs.consumeLogRow(logRow);
+		Assert.assertEquals("Snapshot changed", 1, snapshot.getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Snapshot changed", "lily", snapshot.getTopUser());
+	}
+
+	@Test
+	public void testCheckpointResume() throws IOException {
+		String checkpointFilePath = TrafficFakeLogThread.LOG_FILE_PATH + ".checkpoint";
+		String date = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH)
+				.format(new Date(System.currentTimeMillis() - 5000));
+		String logLine = "127.0.0.1 - lily [" + date + "] \"GET /sport HTTP/1.0\" 200 10\n";
+		try (FileWriter writer = new FileWriter(TrafficFakeLogThread.LOG_FILE_PATH, true)) {
+			for (int i = 0; i < 100; i++) {
+				writer.write(logLine);
+			}
+			// partial last line
+			writer.write(logLine.substring(0, 20));
+		}
+		try {
+			MonitorLog monitorLogs = new MonitorLog();
+			monitorLogs.setLogFilePath(TrafficFakeLogThread.LOG_FILE_PATH);
+			monitorLogs.setCheckpointFilePath(checkpointFilePath);
+			monitorLogs.updateStats();
+			monitorLogs.close();
+			MonitorCheckpoint checkpoint = monitorLogs.getCheckpointFile().read();
+			Assert.assertEquals("Partial line committed", logLine.length() * 100, checkpoint.getOffset());
+
+			// complete partial line and append while stopped
+			try (FileWriter writer = new FileWriter(TrafficFakeLogThread.LOG_FILE_PATH, true)) {
+				writer.write(logLine.substring(20));
+				for (int i = 0; i < 49; i++) {
+					writer.write(logLine);
+				}
+			}
+
+			MonitorLog restarted = new MonitorLog();
+			restarted.setLogFilePath(TrafficFakeLogThread.LOG_FILE_PATH);
+			restarted.setCheckpointFilePath(checkpointFilePath);
+			Assert.assertTrue("Reading not resumed", restarted.loadCheckpoint());
+			Assert.assertEquals("Bad restored window", 100, restarted.getAlertMonitoringCounts().getSum());
+			restarted.updateStats();
+			Assert.assertEquals("Bad request count after restart", 150,
+					restarted.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+			Assert.assertEquals("Bad window after restart", 150, restarted.getAlertMonitoringCounts().getSum());
+			Assert.assertEquals("Bad valid requests after restart", Long.valueOf(150),
+					restarted.getLogStats().getStatusCounts().get(200));
+			restarted.close();
+
+			// another log file checkpoint is not restored
+			MonitorLog other = new MonitorLog();
+			other.setLogFilePath(TrafficFakeLogThread.LOG_FILE_PATH + ".other");
+			other.setCheckpointFilePath(checkpointFilePath);
+			Assert.assertFalse("Other file checkpoint restored", other.loadCheckpoint());
+			Assert.assertEquals("Other file counters restored", 0,
+					other.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+		} finally {
+			Files.deleteIfExists(Paths.get(checkpointFilePath));
+		}
+	}
+
+	@Test
+	public void testIngestStats() throws IOException {
+		String date = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH)
+				.format(new Date(System.currentTimeMillis() - 5000));
+		String logLine = "127.0.0.1 - lily [" + date + "] \"GET /sport HTTP/1.0\" 200 10\n";
+		try (FileWriter writer = new FileWriter(TrafficFakeLogThread.LOG_FILE_PATH, true)) {
+			for (int i = 0; i < 40; i++) {
+				writer.write(logLine);
+			}
+			writer.write("bad line\n");
+		}
+		MonitorLog monitorLogs = new MonitorLog();
+		monitorLogs.setLogFilePath(TrafficFakeLogThread.LOG_FILE_PATH);
+		monitorLogs.setStatsInterval(0);
+		monitorLogs.updateStats();
+		IngestStats ingestStats = monitorLogs.getStatsSnapshot().getIngestStats();
+		Assert.assertEquals("Bad read lines", 41, ingestStats.getLineCount());
+		Assert.assertEquals("Bad read bytes", logLine.length() * 40 + 9, ingestStats.getByteCount());
+		Assert.assertEquals("Bad bad lines", 1, ingestStats.getBadLineCount());
+		Assert.assertEquals("Bad lag", 0, ingestStats.getByteLag());
+		// one line out of 16 timed
+		Assert.assertEquals("Bad timed lines", 3, ingestStats.getParseCount());
+		Assert.assertTrue("Bad lines rate", ingestStats.getLinesPerSecond() > 0);
+		monitorLogs.close();
+	}
+
 	@Test
 	public void testFalseLog() {
 
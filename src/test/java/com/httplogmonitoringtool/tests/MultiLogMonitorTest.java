@@ -0,0 +1,165 @@
+package com.httplogmonitoringtool.tests;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.MonitorLog;
+import com.httplogmonitoringtool.MultiLogMonitor;
+import com.httplogmonitoringtool.MultiLogMonitor.LogSource;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+
+public class MultiLogMonitorTest {
+
+	private final static String LOG_DIRECTORY_PATH = System.getProperty("user.dir") + "/bin/multi_test";
+
+	private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z", Locale.ENGLISH);
+
+	@Before
+	public void setUp() throws IOException {
+		tearDown();// delete if already exists
+		// create test log directory
+		new File(LOG_DIRECTORY_PATH).mkdirs();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log files
+		Path directory = Paths.get(LOG_DIRECTORY_PATH);
+		if (Files.exists(directory)) {
+			try (Stream<Path> walk = Files.walk(directory)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	private static void writeLogs(String fileName, int lineCount) throws IOException {
+		String date = DATE_FORMAT.format(new Date(System.currentTimeMillis() - 5000));
+		try (FileWriter writer = new FileWriter(LOG_DIRECTORY_PATH + "/" + fileName, true)) {
+			for (int i = 0; i < lineCount; i++) {
+				if (i % 10 == 0) {
+					writer.write("bad line " + i + "\n");
+				} else {
+					writer.write("127.0.0.1 - user" + (i % 3) + " [" + date + "] \"GET /section" + (i % 5)
+							+ "/page HTTP/1.0\" 200 10\n");
+				}
+			}
+		}
+	}
+
+	private static void awaitRequests(MonitorLog monitorLog, long requests) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			synchronized (monitorLog) {
+				if (monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS) >= requests) {
+					return;
+				}
+			}
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+	}
+
+	@Test
+	public void testAggregateFiles() throws IOException, InterruptedException {
+		writeLogs("a.log", 1000);
+		writeLogs("b.log", 500);
+
+		MonitorLog monitorLog = new MonitorLog();
+		try (MultiLogMonitor monitor = new MultiLogMonitor(monitorLog,
+				Arrays.asList(LOG_DIRECTORY_PATH + "/*.log"), 100, 2, 100)) {
+			monitor.start();
+			awaitRequests(monitorLog, 1350);
+			synchronized (monitorLog) {
+				Assert.assertEquals("Bad aggregated requests", 1350,
+						monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+				Assert.assertEquals("Bad aggregated bad lines", 150,
+						monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_BAD_FORMAT_LOG));
+			}
+			List<LogSource> sources = monitor.getSources();
+			Assert.assertEquals("Bad monitored files count", 2, sources.size());
+			Assert.assertEquals("Bad first file requests", 900, sources.get(0).getRequestCount());
+			Assert.assertEquals("Bad first file bad lines", 100, sources.get(0).getBadLineCount());
+			Assert.assertEquals("Bad second file requests", 450, sources.get(1).getRequestCount());
+
+			// files created later are monitored
+			writeLogs("c.log", 100);
+			writeLogs("a.log", 100);
+			awaitRequests(monitorLog, 1530);
+			synchronized (monitorLog) {
+				Assert.assertEquals("Bad aggregated requests", 1530,
+						monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+			}
+			Assert.assertEquals("New file not monitored", 3, monitor.getSources().size());
+		} finally {
+			monitorLog.close();
+		}
+	}
+
+	@Test
+	public void testRotatedFileNotReadTwice() throws IOException, InterruptedException {
+		writeLogs("access.log", 100);
+
+		MonitorLog monitorLog = new MonitorLog();
+		try (MultiLogMonitor monitor = new MultiLogMonitor(monitorLog,
+				Arrays.asList(LOG_DIRECTORY_PATH + "/access.log*"), 100, 2, 100)) {
+			monitor.start();
+			awaitRequests(monitorLog, 90);
+
+			// rotate: renamed file matches the pattern too
+			Files.move(Paths.get(LOG_DIRECTORY_PATH + "/access.log"), Paths.get(LOG_DIRECTORY_PATH + "/access.log.1"));
+			writeLogs("access.log", 100);
+			awaitRequests(monitorLog, 180);
+			TimeUnit.MILLISECONDS.sleep(500);// let rescans run
+			synchronized (monitorLog) {
+				Assert.assertEquals("Bad aggregated requests", 180,
+						monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+			}
+		} finally {
+			monitorLog.close();
+		}
+	}
+
+	@Test
+	public void testRemovedFileIdentityDropped() throws IOException, InterruptedException {
+		writeLogs("a.log", 100);
+
+		MonitorLog monitorLog = new MonitorLog();
+		try (MultiLogMonitor monitor = new MultiLogMonitor(monitorLog,
+				Arrays.asList(LOG_DIRECTORY_PATH + "/*.log"), 100, 2, 100)) {
+			monitor.start();
+			awaitRequests(monitorLog, 90);
+
+			// file removed, then a file with the same identity created
+			Path moved = Paths.get(LOG_DIRECTORY_PATH + "/a.moved");
+			Files.move(Paths.get(LOG_DIRECTORY_PATH + "/a.log"), moved);
+			for (int i = 0; i < 100 && !monitor.getSources().isEmpty(); i++) {
+				TimeUnit.MILLISECONDS.sleep(50);
+			}
+			Assert.assertTrue("Removed file still monitored", monitor.getSources().isEmpty());
+			Files.move(moved, Paths.get(LOG_DIRECTORY_PATH + "/b.log"));
+			awaitRequests(monitorLog, 180);
+			synchronized (monitorLog) {
+				Assert.assertEquals("New file with a read identity should be read", 180,
+						monitorLog.getLogStats().getStatsValue(HTTPStatsType.TOTAL_REQUESTS));
+			}
+		} finally {
+			monitorLog.close();
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.utils.AsciiStringCache;
+
+public class AsciiStringCacheTest {
+
+	private final AsciiStringCache cache = new AsciiStringCache(16);
+
+	private String get(String line, String field) {
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		int offset = line.substring(0, line.indexOf(field)).getBytes(StandardCharsets.UTF_8).length;
+		return cache.get(bytes, offset, field.getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	@Test
+	public void testAsciiCached() {
+		String section = get("GET /sport/1 HTTP/1.0", "/sport");
+		Assert.assertEquals("Bad string", "/sport", section);
+		Assert.assertSame("Same bytes should return the cached string", section, get("POST /sport", "/sport"));
+		Assert.assertEquals("Bad other string", "/news", get("GET /news/2 HTTP/1.0", "/news"));
+	}
+
+	@Test
+	public void testUtf8Decoded() {
+		String user = get("127.0.0.1 - j\u00e9r\u00f4me [", "j\u00e9r\u00f4me");
+		Assert.assertEquals("UTF-8 bytes should be decoded", "j\u00e9r\u00f4me", user);
+		Assert.assertEquals("Bad section", "/\u65b0\u95fb", get("GET /\u65b0\u95fb/1", "/\u65b0\u95fb"));
+		Assert.assertEquals("Bad string after non-ASCII one", "jerome", get("- jerome [", "jerome"));
+		Assert.assertEquals("Non-ASCII string should be decoded again", user,
+				get("127.0.0.1 - j\u00e9r\u00f4me [", "j\u00e9r\u00f4me"));
+	}
+
+}
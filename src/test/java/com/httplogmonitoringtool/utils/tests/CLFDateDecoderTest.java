@@ -0,0 +1,110 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.utils.CLFDateDecoder;
+
+public class CLFDateDecoderTest {
+
+	private final static String[] ZONES = new String[] { "GMT", "GMT+01:00", "GMT-09:30", "GMT+05:45", "GMT-12:00" };
+
+	/**
+	 * random dates formatted in various zones with their expected epoch
+	 * milliseconds
+	 */
+	private static List<Object[]> randomDates(long seed, int count) {
+		Random random = new Random(seed);
+		List<Object[]> dates = new ArrayList<Object[]>();
+		SimpleDateFormat dateFormat = new SimpleDateFormat("[dd/MMM/yyyy:HH:mm:ss ZZZ]", Locale.ENGLISH);
+		for (int i = 0; i < count; i++) {
+			// seconds between 1970 and 2100
+			long epochSecond = (long) (random.nextDouble() * 4102444800L);
+			dateFormat.setTimeZone(TimeZone.getTimeZone(ZONES[random.nextInt(ZONES.length)]));
+			dates.add(new Object[] { dateFormat.format(new Date(epochSecond * 1000L)), epochSecond * 1000L });
+		}
+		return dates;
+	}
+
+	@Test
+	public void testDecodeSameAsSimpleDateFormat() throws HTTPLogRowFormatException, ParseException {
+		SimpleDateFormat dateFormat = new SimpleDateFormat("[dd/MMM/yyyy:HH:mm:ss ZZZ]", Locale.ENGLISH);
+		for (Object[] date : randomDates(42, 20000)) {
+			String text = (String) date[0];
+			Assert.assertEquals("Bad date " + text, dateFormat.parse(text).getTime(), CLFDateDecoder.decode(text));
+			Assert.assertEquals("Bad expected date " + text, date[1], CLFDateDecoder.decode(text));
+		}
+	}
+
+	@Test
+	public void testDecodeCachedSecond() throws HTTPLogRowFormatException {
+		CLFDateDecoder decoder = new CLFDateDecoder();
+		byte[] line = "x [24/Nov/2018:16:05:35 +0100] [24/Nov/2018:16:05:35 -0100] [24/nov/2018:16:05:36 -0100]"
+				.getBytes(StandardCharsets.US_ASCII);
+		long first = decoder.decodeDate(line, 2, CLFDateDecoder.DATE_LENGTH);
+		Assert.assertEquals("Bad date", 1543071935000L, first);
+		// same second, cached second
+		Assert.assertEquals("Bad cached date", first, decoder.decodeDate(line, 2, CLFDateDecoder.DATE_LENGTH));
+		// same second, other zone
+		Assert.assertEquals("Bad zone", first + 2 * 3600 * 1000L,
+				decoder.decodeDate(line, 31, CLFDateDecoder.DATE_LENGTH));
+		// next second, same zone
+		Assert.assertEquals("Bad next second", first + 2 * 3600 * 1000L + 1000L,
+				decoder.decodeDate(line, 60, CLFDateDecoder.DATE_LENGTH));
+	}
+
+	@Test
+	public void testDecodeFail() {
+		String[] badDates = new String[] { "", "[24/Nov/2018:16:05:35 +0100", "24/Nov/2018:16:05:35 +0100]  ",
+				"[24/Nov/aaaa:16:05:35 +0100]", "[24/Nop/2018:16:05:35 +0100]", "[24/Nov/2018:16:05:35 0100]",
+				"[24/Nov/2018:16:05:35 +2400]", "[24-Nov-2018:16:05:35 +0100]", "[24/Nov/2018:16:05:35 +0100 ]",
+				"[24/Nov/2018:16:05:3\u00e9 +0100]" };
+		for (String badDate : badDates) {
+			try {
+				CLFDateDecoder.decode(badDate);
+				Assert.fail("Should throw Exception: " + badDate);
+			} catch (HTTPLogRowFormatException e) {
+				Assert.assertEquals("Bad exception", "ReqDate bad format", e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void testDecodeConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int thread = 0; thread < 4; thread++) {
+				final List<Object[]> dates = randomDates(thread, 20000);
+				results.add(executor.submit(() -> {
+					for (Object[] date : dates) {
+						if (CLFDateDecoder.decode((String) date[0]) != (Long) date[1]) {
+							return false;
+						}
+					}
+					return true;
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				Assert.assertTrue("Bad date decoded concurrently", result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.HTTPStatsAlert;
+import com.httplogmonitoringtool.models.HTTPStatsAlertType;
+import com.httplogmonitoringtool.models.HTTPStatsType;
+import com.httplogmonitoringtool.models.MonitorCheckpoint;
+import com.httplogmonitoringtool.utils.CheckpointFile;
+
+public class CheckpointFileTest {
+
+	private final static String CHECKPOINT_FILE_PATH = System.getProperty("user.dir") + "/bin/checkpoint_test.bin";
+
+	@Before
+	public void setUp() throws IOException {
+		new File(CHECKPOINT_FILE_PATH).getParentFile().mkdirs();
+		Files.deleteIfExists(Paths.get(CHECKPOINT_FILE_PATH));// delete if already exists
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test checkpoint file
+		Files.deleteIfExists(Paths.get(CHECKPOINT_FILE_PATH));
+	}
+
+	private static MonitorCheckpoint newCheckpoint(long offset) {
+		Map<HTTPStatsType, Long> statsValues = new EnumMap<HTTPStatsType, Long>(HTTPStatsType.class);
+		statsValues.put(HTTPStatsType.TOTAL_REQUESTS, 42l);
+		statsValues.put(HTTPStatsType.TOTAL_BAD_FORMAT_LOG, 3l);
+		Map<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+		statusCounts.put(200, 40l);
+		statusCounts.put(404, 2l);
+		return new MonitorCheckpoint(1000, "/var/log/access.log", "(dev=1,ino=2)", offset, 120, 119500,
+				new long[] { 0, 2, 40 }, statsValues, statusCounts,
+				Collections.singletonList(new HTTPStatsAlert(HTTPStatsAlertType.HIGH_TRAFFIC, 12, new Date(118000))));
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		CheckpointFile checkpointFile = new CheckpointFile(CHECKPOINT_FILE_PATH);
+		Assert.assertNull("Missing file read", checkpointFile.read());
+
+		checkpointFile.write(newCheckpoint(1234));
+		// replaced by next checkpoint
+		checkpointFile.write(newCheckpoint(5678));
+		MonitorCheckpoint checkpoint = checkpointFile.read();
+		Assert.assertEquals("Bad offset", 5678, checkpoint.getOffset());
+		Assert.assertEquals("Bad log file path", "/var/log/access.log", checkpoint.getLogFilePath());
+		Assert.assertEquals("Bad file key", "(dev=1,ino=2)", checkpoint.getFileKey());
+		Assert.assertEquals("Bad window head", 120, checkpoint.getWindowHeadSecond());
+		Assert.assertEquals("Bad window start", 119500, checkpoint.getWindowStartTime());
+		Assert.assertTrue("Bad window counts", Arrays.equals(new long[] { 0, 2, 40 }, checkpoint.getWindowCounts()));
+		Assert.assertEquals("Bad requests", Long.valueOf(42),
+				checkpoint.getStatsValues().get(HTTPStatsType.TOTAL_REQUESTS));
+		Assert.assertEquals("Bad status counts", newCheckpoint(0).getStatusCounts(), checkpoint.getStatusCounts());
+		Assert.assertEquals("Bad alerts count", 1, checkpoint.getRaisedAlerts().size());
+		Assert.assertEquals("Bad alert average", 12, checkpoint.getRaisedAlerts().get(0).getTrafficAverage());
+		Assert.assertFalse("Temporary file left", new File(CHECKPOINT_FILE_PATH + ".tmp").exists());
+	}
+
+	@Test
+	public void testRuleAlerts() throws IOException {
+		CheckpointFile checkpointFile = new CheckpointFile(CHECKPOINT_FILE_PATH);
+		MonitorCheckpoint written = newCheckpoint(1234);
+		checkpointFile.write(new MonitorCheckpoint(1000, "/var/log/access.log", "", 0, 120, 119500, new long[0],
+				written.getStatsValues(), written.getStatusCounts(), Arrays.asList(
+						new HTTPStatsAlert(HTTPStatsAlertType.HIGH_TRAFFIC, 12, new Date(118000)),
+						new HTTPStatsAlert(HTTPStatsAlertType.RULE_RAISED, "errors", 7.5, new Date(119000)))));
+		MonitorCheckpoint checkpoint = checkpointFile.read();
+		Assert.assertEquals("Bad alerts count", 2, checkpoint.getRaisedAlerts().size());
+		Assert.assertNull("Traffic alert has no rule", checkpoint.getRaisedAlerts().get(0).getRule());
+		HTTPStatsAlert ruleAlert = checkpoint.getRaisedAlerts().get(1);
+		Assert.assertEquals("Bad alert type", HTTPStatsAlertType.RULE_RAISED, ruleAlert.getType());
+		Assert.assertEquals("Bad alert rule", "errors", ruleAlert.getRule());
+		Assert.assertEquals("Bad alert value", 7.5, ruleAlert.getValue(), 0);
+	}
+
+	@Test
+	public void testReadVersion1() throws IOException {
+		// version 1 alerts have no rule and value
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0x484C4D43);
+		output.writeInt(1);
+		output.writeLong(1000);
+		output.writeUTF("/var/log/access.log");
+		output.writeUTF("");
+		output.writeLong(1234);
+		output.writeLong(120);
+		output.writeLong(119500);
+		output.writeInt(0);
+		output.writeInt(0);
+		output.writeInt(0);
+		output.writeInt(1);
+		output.writeUTF(HTTPStatsAlertType.HIGH_TRAFFIC.name());
+		output.writeInt(12);
+		output.writeLong(118000);
+		output.flush();
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		output.writeLong(crc.getValue());
+		Files.write(Paths.get(CHECKPOINT_FILE_PATH), bytes.toByteArray());
+
+		MonitorCheckpoint checkpoint = new CheckpointFile(CHECKPOINT_FILE_PATH).read();
+		Assert.assertEquals("Bad offset", 1234, checkpoint.getOffset());
+		Assert.assertEquals("Bad alerts count", 1, checkpoint.getRaisedAlerts().size());
+		Assert.assertEquals("Bad alert average", 12, checkpoint.getRaisedAlerts().get(0).getTrafficAverage());
+		Assert.assertNull("Version 1 alert has no rule", checkpoint.getRaisedAlerts().get(0).getRule());
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptedFile() throws IOException {
+		CheckpointFile checkpointFile = new CheckpointFile(CHECKPOINT_FILE_PATH);
+		checkpointFile.write(newCheckpoint(1234));
+		// flip a byte of the content
+		try (RandomAccessFile file = new RandomAccessFile(CHECKPOINT_FILE_PATH, "rw")) {
+			file.seek(20);
+			int value = file.read();
+			file.seek(20);
+			file.write(value ^ 0xFF);
+		}
+		checkpointFile.read();
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.utils.ConsoleRenderer;
+
+public class ConsoleRendererTest {
+
+	private final static String CSI = "\u001B[";
+
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+	private final List<String> frame = new ArrayList<String>();
+	private final ConsoleRenderer renderer = new ConsoleRenderer(new PrintStream(output), renderer -> {
+		for (String line : frame) {
+			renderer.nextLine().append(line);
+		}
+	}, 100);
+
+	private String render(String... lines) {
+		frame.clear();
+		frame.addAll(Arrays.asList(lines));
+		output.reset();
+		renderer.render();
+		return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void testRepaintChangedLines() {
+		String painted = render("title", "requests: 1", "end");
+		Assert.assertTrue("First frame should clear screen", painted.startsWith(CSI + "2J"));
+		Assert.assertEquals("First frame should paint every line", 3, renderer.getRepaintedLineCount());
+		Assert.assertTrue("Bad line addressing", painted.contains(CSI + "2;1Hrequests: 1" + CSI + "K"));
+
+		painted = render("title", "requests: 2", "end");
+		Assert.assertEquals("Only changed line should be repainted",
+				CSI + "2;1Hrequests: 2" + CSI + "K" + CSI + "4;1H", painted);
+
+		painted = render("title", "requests: 2", "end");
+		Assert.assertEquals("Unchanged frame should only park cursor", CSI + "4;1H", painted);
+		Assert.assertEquals("Bad frames count", 3, renderer.getFrameCount());
+		Assert.assertEquals("Bad repainted lines count", 4, renderer.getRepaintedLineCount());
+	}
+
+	@Test
+	public void testFrameSizeChange() {
+		render("title", "alert", "end");
+		String painted = render("title", "end");
+		Assert.assertEquals("Shorter frame should erase removed lines",
+				CSI + "2;1Hend" + CSI + "K" + CSI + "3;1H" + CSI + "K" + CSI + "3;1H", painted);
+
+		painted = render("title", "end", "new");
+		Assert.assertEquals("Longer frame should paint added lines", CSI + "3;1Hnew" + CSI + "K" + CSI + "4;1H",
+				painted);
+	}
+
+	@Test
+	public void testRendering() {
+		Assert.assertFalse("Should not be rendering outside frame", renderer.isRendering());
+		List<Boolean> rendering = new ArrayList<Boolean>();
+		ConsoleRenderer checkedRenderer = new ConsoleRenderer(new PrintStream(output),
+				r -> rendering.add(r.isRendering()), 100);
+		checkedRenderer.render();
+		Assert.assertEquals("Should be rendering inside frame", Arrays.asList(true), rendering);
+		checkedRenderer.close();
+	}
+
+	@Test
+	public void testAppendFixed() {
+		Assert.assertEquals("Bad rounding", "3.14", ConsoleRenderer.appendFixed(new StringBuilder(), 3.14159, 2)
+				.toString());
+		Assert.assertEquals("Bad fraction zeros", "2.05", ConsoleRenderer.appendFixed(new StringBuilder(), 2.05, 2)
+				.toString());
+		Assert.assertEquals("Bad zero", "0.00", ConsoleRenderer.appendFixed(new StringBuilder(), 0, 2).toString());
+		Assert.assertEquals("Bad rounding up", "10.0", ConsoleRenderer.appendFixed(new StringBuilder(), 9.96, 1)
+				.toString());
+		Assert.assertEquals("Bad no decimals", "1235", ConsoleRenderer.appendFixed(new StringBuilder(), 1234.5, 0)
+				.toString());
+		Assert.assertEquals("Bad negative", "-0.007", ConsoleRenderer.appendFixed(new StringBuilder(), -0.0071, 3)
+				.toString());
+		Assert.assertEquals("Negative zero should not be signed", "0.0",
+				ConsoleRenderer.appendFixed(new StringBuilder(), -0.01, 1).toString());
+		Assert.assertEquals("Should append to line", "rate: 1.50/s",
+				ConsoleRenderer.appendFixed(new StringBuilder("rate: "), 1.5, 2).append("/s").toString());
+	}
+
+}
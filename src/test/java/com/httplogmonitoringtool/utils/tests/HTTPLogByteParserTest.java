@@ -0,0 +1,154 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.HTTPLogFields;
+import com.httplogmonitoringtool.models.HTTPLogRow;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.HTTPLogParser;
+
+public class HTTPLogByteParserTest {
+
+	private final static SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("[dd/MMM/yyyy:HH:mm:ss ZZZ]", Locale.ENGLISH);
+
+	private final static String VALID_ROW = "127.0.0.1 - lily [24/Nov/2222:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 300 8";
+
+	// HTTPLogParserTest rows and format corner cases
+	private final static String[] ROWS = new String[] { VALID_ROW, "",
+			" 127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 300 8",
+			"127.0.0.1  lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 300 8",
+			"127.0.0.1 - lily [24/Nov/aaa:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 300 8",
+			"127.0.0.1 - li ly [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 300 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] DELETE /sport/volleyball HTTP/1.0\" 300 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/ volleyball HTTP/1.0\" 300 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0 300 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" zzz 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 300 gg",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] ",
+			"127.0.0.1 -  [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 66 8",
+			"127.0.0.1 - lily  \"DELETE /sport/volleyball HTTP/1.0\" 66 8",
+			"127.0.0.1 - lala [24/Nov/2018:16:05:35 +0100] \" /sport/volleyball HTTP/1.0\" 66 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE  HTTP/1.0\" 66 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball \" 66 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\"  8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"DELETE /sport/volleyball HTTP/1.0\" 66 ",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"GET sport HTTP/1.0\" 200 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"GET /sport HTTP/1.0\" -200 +8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"GET /sport HTTP/1.0\" 200 99999999999",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"GET /sport HTTP/1.0\" 200 -2147483648",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"GET /sport HTTP/1.0\" 200 -",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] x\"GET /sport HT\"TP/1.0 200 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100] \"GET /sport HTTP/1.0\" 200",
+			"127.0.0.1 \t lily [24/Nov/2018:16:05:35 +0100] \"GET /sport HTTP/1.0\" 200 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 -0930]trail \"GET /a/b/c HTTP/1.0\" 200 8",
+			"127.0.0.1 - lily [24/Nov/2018:16:05:35 +0100 ] \"GET /sport HTTP/1.0\" 200 8",
+			"127.0.0.1 - lily ]x \"GET /sport HTTP/1.0\" 200 8", "ffffffffffffffffffffffffffffffffff",
+			"f zef ef fez ", "5", "127.0.0.1 - robert  [24/Nov/2018:16:05:35 +0100] \"GET /api HTTP/1.0\" 501 9" };
+
+	@Test
+	public void testParseSuccess() {
+		HTTPLogFields fields = new HTTPLogFields();
+		byte[] line = VALID_ROW.getBytes(StandardCharsets.US_ASCII);
+		try {
+			HTTPLogByteParser.parse(line, 0, line.length, fields);
+			Assert.assertEquals("Bad RemoteHost", "127.0.0.1", fields.getRemoteHost());
+			Assert.assertEquals("Bad RemoteHost offset", 0, fields.getRemoteHostOffset());
+			Assert.assertEquals("Bad RemoteHost length", 9, fields.getRemoteHostLength());
+			Assert.assertEquals("Bad AuthUser", "lily", fields.getAuthUser());
+			Assert.assertEquals("Bad ReqDate", DATE_FORMAT.parse("[24/Nov/2222:16:05:35 +0100]").getTime(),
+					fields.getReqEpochMillis());
+			Assert.assertEquals("Bad ReqType", "DELETE", fields.getReqType());
+			Assert.assertEquals("Bad ReqResource", "/sport/volleyball", fields.getReqResource());
+			Assert.assertEquals("Bad ReqSection", "/sport", fields.getReqSection());
+			Assert.assertEquals("Bad ReqProtocol", "HTTP/1.0", fields.getReqProtocol());
+			Assert.assertEquals("Bad ReqStatus", 300, fields.getReqSatus());
+			Assert.assertEquals("Bad ContentLength", 8, fields.getContentLength());
+		} catch (HTTPLogRowFormatException | ParseException e) {
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testParseUtf8Fields() throws HTTPLogRowFormatException {
+		HTTPLogFields fields = new HTTPLogFields();
+		byte[] line = VALID_ROW.replace("lily", "l\u00e9a").replace("/sport/volleyball", "/caf\u00e9/cr\u00e8me")
+				.getBytes(StandardCharsets.UTF_8);
+		HTTPLogByteParser.parse(line, 0, line.length, fields);
+		Assert.assertEquals("Bad AuthUser", "l\u00e9a", fields.getAuthUser());
+		Assert.assertEquals("Bad ReqResource", "/caf\u00e9/cr\u00e8me", fields.getReqResource());
+		Assert.assertEquals("Bad ReqSection", "/caf\u00e9", fields.getReqSection());
+		Assert.assertEquals("Bad ContentLength", 8, fields.getContentLength());
+	}
+
+	@Test
+	public void testParseByteBufferSlice() throws HTTPLogRowFormatException {
+		HTTPLogFields fields = new HTTPLogFields();
+		ByteBuffer buffer = ByteBuffer.wrap(("xx" + VALID_ROW + "\n").getBytes(StandardCharsets.US_ASCII));
+		buffer.position(2).limit(2 + VALID_ROW.length());
+		HTTPLogByteParser.parse(buffer.slice(), fields);
+		Assert.assertEquals("Bad RemoteHost", "127.0.0.1", fields.getRemoteHost());
+		Assert.assertEquals("Bad ContentLength", 8, fields.getContentLength());
+	}
+
+	@Test
+	public void testSameResultAsStringParser() {
+		HTTPLogFields fields = new HTTPLogFields();
+		for (String row : ROWS) {
+			String stringResult;
+			try {
+				HTTPLogRow logRow = HTTPLogParser.parse(row);
+				stringResult = "OK " + logRow.getRemoteHost() + " " + logRow.getAuthUser() + " "
+						+ (logRow.getReqDate() == null ? null : logRow.getReqDate().getTime()) + " "
+						+ logRow.getReqType() + " " + logRow.getReqSection() + " " + logRow.getReqProtocol() + " "
+						+ logRow.getReqSatus() + " " + logRow.getContentLength();
+			} catch (HTTPLogRowFormatException e) {
+				stringResult = e.getMessage();
+			}
+			String byteResult;
+			byte[] line = row.getBytes(StandardCharsets.US_ASCII);
+			try {
+				HTTPLogByteParser.parse(line, 0, line.length, fields);
+				long reqDate = fields.getReqEpochMillis();
+				byteResult = "OK " + fields.getRemoteHost() + " " + fields.getAuthUser() + " "
+						+ (reqDate == HTTPLogFields.NO_DATE ? null : reqDate) + " " + fields.getReqType() + " "
+						+ fields.getReqSection() + " " + fields.getReqProtocol() + " " + fields.getReqSatus() + " "
+						+ fields.getContentLength();
+			} catch (HTTPLogRowFormatException e) {
+				byteResult = e.getMessage();
+			}
+			Assert.assertEquals("Different result for: " + row, stringResult, byteResult);
+		}
+	}
+
+	@Test
+	public void testNoAllocation() throws HTTPLogRowFormatException {
+		if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+			return;// allocation measure not supported
+		}
+		com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		HTTPLogFields fields = new HTTPLogFields();
+		byte[] line = VALID_ROW.getBytes(StandardCharsets.US_ASCII);
+		for (int i = 0; i < 20000; i++) {// warm up
+			HTTPLogByteParser.parse(line, 0, line.length, fields);
+		}
+		long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 100000; i++) {
+			HTTPLogByteParser.parse(line, 0, line.length, fields);
+		}
+		allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+		// less than one byte per line: no object per line
+		Assert.assertTrue("Parsing allocated " + allocatedBytes + " bytes", allocatedBytes < 100000);
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.utils.JsonWriter;
+
+public class JsonWriterTest {
+
+	private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	private String written(JsonWriter jsonWriter) throws IOException {
+		jsonWriter.flush();
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testRecords() throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(output, 1024);
+		jsonWriter.beginObject();
+		jsonWriter.name("type").value("stats");
+		jsonWriter.name("count").value(42);
+		jsonWriter.name("negative").value(-1234567890123L);
+		jsonWriter.name("min").value(Long.MIN_VALUE);
+		jsonWriter.name("alert").value(true);
+		jsonWriter.name("user").value((String) null);
+		jsonWriter.name("codes").beginArray().value(200).value(404).endArray();
+		jsonWriter.name("empty").beginObject().endObject();
+		jsonWriter.endObject().endRecord();
+		jsonWriter.beginArray().endArray().endRecord();
+		Assert.assertEquals("Bad records",
+				"{\"type\":\"stats\",\"count\":42,\"negative\":-1234567890123,\"min\":-9223372036854775808,"
+						+ "\"alert\":true,\"user\":null,\"codes\":[200,404],\"empty\":{}}\n[]\n",
+				written(jsonWriter));
+		Assert.assertEquals("Bad records count", 2, jsonWriter.getRecordCount());
+	}
+
+	@Test
+	public void testDoubles() throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(output, 1024);
+		jsonWriter.beginArray().value(0d).value(1.5).value(0.05).value(-2.0004).value(-0.0004).value(123.456789)
+				.value(Double.NaN).value(Double.POSITIVE_INFINITY).value(1e20).endArray().endRecord();
+		Assert.assertEquals("Bad doubles", "[0,1.5,0.05,-2,0,123.457,null,null,1.0E20]\n", written(jsonWriter));
+	}
+
+	@Test
+	public void testStringEscapes() throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(output, 1024);
+		jsonWriter.beginArray().value("a\"b\\c\nd\te\u0001").value("caf\u00e9 \u20ac \ud83d\ude00").endArray()
+				.endRecord();
+		Assert.assertEquals("Bad escapes", "[\"a\\\"b\\\\c\\nd\\te\\u0001\",\"caf\u00e9 \u20ac \ud83d\ude00\"]\n",
+				written(jsonWriter));
+	}
+
+	@Test
+	public void testBuffering() throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(output, 100);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			jsonWriter.beginObject().name("section").value("/section" + i).name("hits").value(i).endObject()
+					.endRecord();
+			expected.append("{\"section\":\"/section").append(i).append("\",\"hits\":").append(i).append("}\n");
+		}
+		Assert.assertTrue("Full buffers should be written", output.size() > 0);
+		Assert.assertTrue("Records should be batched", output.size() < expected.length());
+		Assert.assertEquals("Bad buffered records", expected.toString(), written(jsonWriter));
+	}
+
+	@Test
+	public void testBadDocument() throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(output, 1024);
+		try {
+			jsonWriter.name("outside");
+			Assert.fail("Name outside object should fail");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		jsonWriter.beginObject().name("count");
+		try {
+			jsonWriter.endObject();
+			Assert.fail("Object without member value should fail");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		jsonWriter.value(1).endObject();
+		try {
+			jsonWriter.value(2);
+			Assert.fail("Value after record should fail");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+}
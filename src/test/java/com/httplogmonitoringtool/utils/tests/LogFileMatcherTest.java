@@ -0,0 +1,89 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.utils.LogFileMatcher;
+
+public class LogFileMatcherTest {
+
+	private final static String LOG_DIRECTORY_PATH = System.getProperty("user.dir") + "/bin/matcher_test";
+
+	@Before
+	public void setUp() throws IOException {
+		tearDown();// delete if already exists
+		// create test log files
+		new File(LOG_DIRECTORY_PATH + "/app1").mkdirs();
+		new File(LOG_DIRECTORY_PATH + "/app2").mkdirs();
+		new File(LOG_DIRECTORY_PATH + "/b.log").createNewFile();
+		new File(LOG_DIRECTORY_PATH + "/a.log").createNewFile();
+		new File(LOG_DIRECTORY_PATH + "/a.txt").createNewFile();
+		new File(LOG_DIRECTORY_PATH + "/app1/access.log").createNewFile();
+		new File(LOG_DIRECTORY_PATH + "/app2/access.log").createNewFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log files
+		Path directory = Paths.get(LOG_DIRECTORY_PATH);
+		if (Files.exists(directory)) {
+			try (Stream<Path> walk = Files.walk(directory)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	@Test
+	public void testIsGlob() {
+		Assert.assertFalse("Plain path is glob", LogFileMatcher.isGlob("/var/log/access.log"));
+		Assert.assertTrue("Star is not glob", LogFileMatcher.isGlob("/var/log/*.log"));
+		Assert.assertTrue("Question mark is not glob", LogFileMatcher.isGlob("/var/log/access?.log"));
+		Assert.assertTrue("Braces are not glob", LogFileMatcher.isGlob("/var/log/{a,b}.log"));
+	}
+
+	@Test
+	public void testMatch() throws IOException {
+		LogFileMatcher matcher = new LogFileMatcher(Arrays.asList(LOG_DIRECTORY_PATH + "/*.log"));
+		Set<Path> paths = matcher.match();
+		Assert.assertEquals("Bad matched files count", 2, paths.size());
+		Iterator<Path> iterator = paths.iterator();
+		Assert.assertEquals("Bad first file", "a.log", iterator.next().getFileName().toString());
+		Assert.assertEquals("Bad second file", "b.log", iterator.next().getFileName().toString());
+
+		// files created later are matched again
+		new File(LOG_DIRECTORY_PATH + "/c.log").createNewFile();
+		Assert.assertEquals("New file not matched", 3, matcher.match().size());
+	}
+
+	@Test
+	public void testMatchRecursive() {
+		Set<Path> paths = new LogFileMatcher(Arrays.asList(LOG_DIRECTORY_PATH + "/**/access.log")).match();
+		Assert.assertEquals("Bad matched files count", 2, paths.size());
+		paths = new LogFileMatcher(Arrays.asList(LOG_DIRECTORY_PATH + "/app*/access.log")).match();
+		Assert.assertEquals("Bad matched files count", 2, paths.size());
+	}
+
+	@Test
+	public void testMatchPaths() {
+		// plain paths are kept when existing, duplicates are matched once
+		Set<Path> paths = new LogFileMatcher(Arrays.asList(LOG_DIRECTORY_PATH + "/a.txt",
+				LOG_DIRECTORY_PATH + "/missing.log", LOG_DIRECTORY_PATH + "/*.txt")).match();
+		Assert.assertEquals("Bad matched files count", 1, paths.size());
+		Assert.assertTrue("Missing directory matched",
+				new LogFileMatcher(Arrays.asList(LOG_DIRECTORY_PATH + "/missing/*.log")).match().isEmpty());
+	}
+
+}
@@ -0,0 +1,216 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.utils.LogFileTailer;
+
+public class LogFileTailerTest {
+
+	private final static String LOG_FILE_PATH = System.getProperty("user.dir") + "/bin/tailer_test.log";
+
+	private final List<String> lines = new ArrayList<String>();
+
+	@Before
+	public void setUp() throws IOException {
+		File file = new File(LOG_FILE_PATH);
+		file.getParentFile().mkdirs();
+		if (file.exists()) {
+			file.delete();// delete if already exists
+		}
+		// create test log file
+		file.createNewFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log files
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH));
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH + ".1"));
+	}
+
+	private void append(String content) throws IOException {
+		try (FileWriter writer = new FileWriter(LOG_FILE_PATH, true)) {
+			writer.write(content);
+		}
+	}
+
+	private long poll(LogFileTailer tailer) throws IOException {
+		return tailer.poll((buffer, offset, length) -> lines
+				.add(new String(buffer, offset, length, StandardCharsets.US_ASCII)));
+	}
+
+	@Test
+	public void testIncrementalRead() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH)) {
+			append("first\nsecond\n");
+			Assert.assertEquals("Bad read count", 13, poll(tailer));
+			Assert.assertEquals("Bad lines", 2, lines.size());
+			Assert.assertEquals("Bad line", "first", lines.get(0));
+			Assert.assertEquals("Bad line", "second", lines.get(1));
+
+			// nothing appended
+			Assert.assertEquals("Should not read anything", 0, poll(tailer));
+			Assert.assertEquals("Bad lines", 2, lines.size());
+
+			append("third\r\n");
+			poll(tailer);
+			Assert.assertEquals("Bad lines", 3, lines.size());
+			Assert.assertEquals("CR not removed", "third", lines.get(2));
+			Assert.assertEquals("Bad offset", 20, tailer.getOffset());
+		}
+	}
+
+	@Test
+	public void testPartialLine() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH)) {
+			append("complete\nparti");
+			poll(tailer);
+			Assert.assertEquals("Partial line should be kept", 1, lines.size());
+			Assert.assertEquals("Bad pending", 5, tailer.getPending());
+
+			append("al\n");
+			poll(tailer);
+			Assert.assertEquals("Bad lines", 2, lines.size());
+			Assert.assertEquals("Bad joined line", "partial", lines.get(1));
+			Assert.assertEquals("Bad pending", 0, tailer.getPending());
+		}
+	}
+
+	@Test
+	public void testLineLongerThanBuffer() throws IOException {
+		StringBuilder longLine = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			longLine.append("0123456789");
+		}
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH, 16)) {
+			append("a\n" + longLine + "\nb\n");
+			poll(tailer);
+			Assert.assertEquals("Bad lines", 3, lines.size());
+			Assert.assertEquals("Bad long line", longLine.toString(), lines.get(1));
+			Assert.assertEquals("Bad line", "b", lines.get(2));
+		}
+	}
+
+	@Test
+	public void testRotationCreateMode() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH)) {
+			append("old1\n");
+			poll(tailer);
+
+			// rotate: rename, old file still receives data before the new one is created
+			Files.move(Paths.get(LOG_FILE_PATH), Paths.get(LOG_FILE_PATH + ".1"));
+			try (FileWriter writer = new FileWriter(LOG_FILE_PATH + ".1", true)) {
+				writer.write("old2\n");
+			}
+			poll(tailer);
+			Assert.assertEquals("Old file not drained", 2, lines.size());
+			Assert.assertEquals("Should not be rotated yet", 0, tailer.getRotationCount());
+
+			append("new1\nnew2\n");
+			poll(tailer);
+			Assert.assertEquals("Bad rotation count", 1, tailer.getRotationCount());
+			Assert.assertEquals("Bad lines", 4, lines.size());
+			Assert.assertEquals("Bad line", "old2", lines.get(1));
+			Assert.assertEquals("Bad line", "new1", lines.get(2));
+			Assert.assertEquals("Bad offset", 10, tailer.getOffset());
+
+			// no double counting
+			poll(tailer);
+			Assert.assertEquals("Bad lines", 4, lines.size());
+		}
+	}
+
+	@Test
+	public void testRotatedFileReadUntilIdle() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH)) {
+			append("old1\n");
+			poll(tailer);
+
+			// rotate: new file created while the renamed one is still written
+			Files.move(Paths.get(LOG_FILE_PATH), Paths.get(LOG_FILE_PATH + ".1"));
+			append("new1\n");
+			try (FileWriter writer = new FileWriter(LOG_FILE_PATH + ".1", true)) {
+				writer.write("old2\n");
+			}
+			poll(tailer);
+			Assert.assertEquals("Should not be rotated while old file is written", 0, tailer.getRotationCount());
+			try (FileWriter writer = new FileWriter(LOG_FILE_PATH + ".1", true)) {
+				writer.write("old3\n");
+			}
+			poll(tailer);
+			Assert.assertEquals("Old file not drained", 3, lines.size());
+			Assert.assertEquals("Bad line", "old3", lines.get(2));
+
+			// old file idle: switch to new file
+			poll(tailer);
+			Assert.assertEquals("Bad rotation count", 1, tailer.getRotationCount());
+			Assert.assertEquals("Bad lines", 4, lines.size());
+			Assert.assertEquals("Bad line", "new1", lines.get(3));
+		}
+	}
+
+	@Test
+	public void testTruncatedAndWrittenAgain() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH)) {
+			append("old1\nold2\n");
+			poll(tailer);
+
+			// copytruncate, then more bytes than read appended before next poll
+			try (RandomAccessFile file = new RandomAccessFile(LOG_FILE_PATH, "rw")) {
+				file.setLength(0);
+			}
+			append("new1\nnew2\nnew3\n");
+			poll(tailer);
+			Assert.assertEquals("Bad truncation count", 1, tailer.getTruncationCount());
+			Assert.assertEquals("Bad lines", 5, lines.size());
+			Assert.assertEquals("Bad line", "new1", lines.get(2));
+			Assert.assertEquals("Bad offset", 15, tailer.getOffset());
+
+			// appended: not truncated
+			append("new4\n");
+			poll(tailer);
+			Assert.assertEquals("Append seen as truncation", 1, tailer.getTruncationCount());
+			Assert.assertEquals("Bad lines", 6, lines.size());
+		}
+	}
+
+	@Test
+	public void testRotationCopyTruncateMode() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH)) {
+			append("old1\nold2\n");
+			poll(tailer);
+
+			// copytruncate: truncate in place then append
+			try (RandomAccessFile file = new RandomAccessFile(LOG_FILE_PATH, "rw")) {
+				file.setLength(0);
+			}
+			append("new1\n");
+			poll(tailer);
+			Assert.assertEquals("Bad truncation count", 1, tailer.getTruncationCount());
+			Assert.assertEquals("Bad lines", 3, lines.size());
+			Assert.assertEquals("Bad line", "new1", lines.get(2));
+			Assert.assertEquals("Bad offset", 5, tailer.getOffset());
+		}
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testFileNotFound() throws IOException {
+		try (LogFileTailer tailer = new LogFileTailer(LOG_FILE_PATH + ".missing")) {
+			poll(tailer);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.IngestMetrics;
+import com.httplogmonitoringtool.models.IngestStats;
+import com.httplogmonitoringtool.utils.LogFileWatcher;
+
+public class LogFileWatcherTest {
+
+	private final static String LOG_FILE_PATH = System.getProperty("user.dir") + "/bin/watcher_test.log";
+
+	@Before
+	public void setUp() throws IOException {
+		File file = new File(LOG_FILE_PATH);
+		file.getParentFile().mkdirs();
+		if (file.exists()) {
+			file.delete();// delete if already exists
+		}
+		// create test log file
+		file.createNewFile();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log file
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH));
+	}
+
+	private void append(String content) throws IOException {
+		try (FileWriter writer = new FileWriter(LOG_FILE_PATH, true)) {
+			writer.write(content);
+		}
+	}
+
+	@Test
+	public void testEventWakeUp() throws IOException, InterruptedException {
+		try (LogFileWatcher watcher = new LogFileWatcher(LOG_FILE_PATH, 100)) {
+			watcher.start();
+			Assume.assumeTrue("File system events not supported", watcher.isEventDriven());
+
+			append("line\n");
+			// event delivery may take a few timeouts
+			boolean changed = false;
+			for (int i = 0; i < 50 && !changed; i++) {
+				changed = watcher.awaitChange();
+			}
+			Assert.assertTrue("Append should wake up through an event", changed);
+			Assert.assertEquals("Bad event wake-ups", 1, watcher.getEventWakeUpCount());
+			Assert.assertEquals("Bad wake-ups", watcher.getTimeoutWakeUpCount() + 1, watcher.getWakeUpCount());
+
+			// counters are published through ingest statistics
+			IngestMetrics ingestMetrics = new IngestMetrics();
+			Assert.assertFalse("Should not be watched yet", ingestMetrics.sample(0, System.nanoTime()).isWatched());
+			watcher.copyTo(ingestMetrics);
+			IngestStats ingestStats = ingestMetrics.sample(0, System.nanoTime());
+			Assert.assertTrue("Should be watched", ingestStats.isWatched());
+			Assert.assertEquals("Bad published event wake-ups", 1, ingestStats.getEventWakeUpCount());
+			Assert.assertEquals("Bad published wake-ups", watcher.getWakeUpCount(), ingestStats.getWakeUpCount());
+		}
+	}
+
+	@Test
+	public void testIdleBackoff() throws InterruptedException {
+		try (LogFileWatcher watcher = new LogFileWatcher(LOG_FILE_PATH, 80)) {
+			watcher.start();
+			Assert.assertEquals("Bad initial poll interval", 10, watcher.getPollInterval());
+
+			// poll interval doubles on each idle wake-up up to its maximum
+			long[] expectedIntervals = { 20, 40, 80, 80 };
+			for (int i = 0; i < expectedIntervals.length; i++) {
+				Assert.assertFalse("Idle file should not change", watcher.awaitChange());
+				Assert.assertEquals("Bad poll interval", expectedIntervals[i], watcher.getPollInterval());
+				Assert.assertEquals("Bad timeout wake-ups", i + 1, watcher.getTimeoutWakeUpCount());
+			}
+			Assert.assertEquals("Should not wake up through an event", 0, watcher.getEventWakeUpCount());
+
+			watcher.reset();
+			Assert.assertEquals("Reset should come back to the minimum", 10, watcher.getPollInterval());
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.utils.RingBufferQueue;
+
+public class RingBufferQueueTest {
+
+	@Test
+	public void testBounded() {
+		RingBufferQueue<Integer> queue = new RingBufferQueue<Integer>(3);
+		Assert.assertEquals("Bad capacity", 4, queue.getCapacity());
+		Assert.assertNull("Should be empty", queue.poll());
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue("Offer refused", queue.offer(i));
+		}
+		Assert.assertFalse("Should be full", queue.offer(4));
+		Assert.assertEquals("Bad size", 4, queue.size());
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals("Bad order", Integer.valueOf(i), queue.poll());
+		}
+		Assert.assertTrue("Should be empty", queue.isEmpty());
+		// next lap
+		Assert.assertTrue("Offer refused", queue.offer(5));
+		Assert.assertEquals("Bad element", Integer.valueOf(5), queue.poll());
+	}
+
+	@Test
+	public void testConcurrentProducersConsumers() throws InterruptedException {
+		RingBufferQueue<Long> queue = new RingBufferQueue<Long>(16);
+		int producers = 3;
+		int consumers = 3;
+		long perProducer = 100000;
+		AtomicLong consumedSum = new AtomicLong();
+		AtomicLong consumedCount = new AtomicLong();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int p = 0; p < producers; p++) {
+			threads.add(new Thread(() -> {
+				for (long i = 1; i <= perProducer; i++) {
+					while (!queue.offer(i)) {
+						Thread.yield();
+					}
+				}
+			}));
+		}
+		for (int c = 0; c < consumers; c++) {
+			threads.add(new Thread(() -> {
+				while (consumedCount.get() < producers * perProducer) {
+					Long element = queue.poll();
+					if (element == null) {
+						Thread.yield();
+						continue;
+					}
+					consumedSum.addAndGet(element);
+					consumedCount.incrementAndGet();
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join(30000);
+		}
+		Assert.assertEquals("Lost elements", producers * perProducer, consumedCount.get());
+		Assert.assertEquals("Bad elements", producers * perProducer * (perProducer + 1) / 2, consumedSum.get());
+		Assert.assertTrue("Should be empty", queue.isEmpty());
+	}
+
+}
@@ -0,0 +1,235 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.models.TrafficRollup;
+import com.httplogmonitoringtool.utils.RollupStore;
+import com.httplogmonitoringtool.utils.RollupStore.Tier;
+
+public class RollupStoreTest {
+
+	private final static String STORE_DIRECTORY_PATH = System.getProperty("user.dir") + "/bin/store_test";
+
+	// minute aligned
+	private final static long START = 1543071960000L;
+
+	@Before
+	public void setUp() throws IOException {
+		tearDown();// delete if already exists
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test store
+		Path directory = Paths.get(STORE_DIRECTORY_PATH);
+		if (Files.exists(directory)) {
+			try (Stream<Path> walk = Files.walk(directory)) {
+				walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+
+	/**
+	 * record 10 requests per second: 8 valid and 2 not found
+	 */
+	private static void recordTraffic(RollupStore store, long start, int seconds) {
+		for (long time = start; time < start + seconds * 1000l; time += 100) {
+			boolean notFound = time % 1000 >= 800;
+			store.record(time, notFound ? 404 : 200, 10, notFound ? "/missing" : "/sport");
+			store.advance(time);
+		}
+	}
+
+	@Test
+	public void testTiers() throws IOException {
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, START, 180);
+		}
+		RollupStore store = new RollupStore(STORE_DIRECTORY_PATH);
+		long from = START / 1000;
+		List<TrafficRollup> seconds = store.query(Tier.SECOND, from, from + 180, 1);
+		Assert.assertEquals("Bad seconds count", 180, seconds.size());
+		Assert.assertEquals("Bad second requests", 10, seconds.get(42).getRequests());
+		Assert.assertEquals("Bad second 2xx", 8, seconds.get(42).getStatusClassCount(2));
+		Assert.assertEquals("Bad second 4xx", 2, seconds.get(42).getStatusClassCount(4));
+
+		List<TrafficRollup> minutes = store.query(Tier.MINUTE, from, from + 180, 60);
+		Assert.assertEquals("Bad minutes count", 3, minutes.size());
+		Assert.assertEquals("Bad minute requests", 600, minutes.get(1).getRequests());
+		Assert.assertEquals("Bad minute bytes", 6000, minutes.get(1).getBytes());
+		Assert.assertEquals("Bad minute top section", "/sport",
+				minutes.get(1).getTopSections(1).keySet().iterator().next());
+
+		// rollups starting in range only
+		long hour = from / 3600 * 3600;
+		Assert.assertTrue("Hour started before range", store.query(Tier.HOUR, from, from + 3600, 3600).isEmpty());
+		List<TrafficRollup> hours = store.query(Tier.HOUR, hour, hour + 3600, 3600);
+		Assert.assertEquals("Bad hours count", 1, hours.size());
+		Assert.assertEquals("Bad hour requests", 1800, hours.get(0).getRequests());
+
+		// seconds merged into buckets
+		List<TrafficRollup> buckets = store.query(Tier.SECOND, from + 30, from + 90, 30);
+		Assert.assertEquals("Bad buckets count", 2, buckets.size());
+		Assert.assertEquals("Bad bucket start", from + 60, buckets.get(1).getStartSecond());
+		Assert.assertEquals("Bad bucket requests", 300, buckets.get(1).getRequests());
+	}
+
+	@Test
+	public void testOutOfOrder() throws IOException {
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			store.record(START + 2000, 200, 1, "/a");
+			store.record(START, 200, 1, "/a");
+			store.record(START + 1000, 500, 1, "/a");
+			// far later second: previous ones are written
+			store.record(START + 60000, 200, 1, "/b");
+			// too late: counted in the oldest kept second
+			store.record(START + 3000, 200, 1, "/a");
+		}
+		List<TrafficRollup> seconds = new RollupStore(STORE_DIRECTORY_PATH).query(Tier.SECOND, START / 1000,
+				START / 1000 + 120, 1);
+		Assert.assertEquals("Bad seconds count", 5, seconds.size());
+		Assert.assertEquals("Bad second 1 5xx", 1, seconds.get(1).getStatusClassCount(5));
+		long total = 0;
+		for (TrafficRollup second : seconds) {
+			total += second.getRequests();
+		}
+		Assert.assertEquals("Bad total requests", 5, total);
+	}
+
+	@Test
+	public void testRecoverPartialRecord() throws IOException {
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, START, 10);
+		}
+		// partially written record
+		Path segment = Files.list(Paths.get(STORE_DIRECTORY_PATH, "second")).findFirst().get();
+		long size = Files.size(segment);
+		Files.write(segment, new byte[] { 1, 10, (byte) 0x80 }, StandardOpenOption.APPEND);
+
+		RollupStore store = new RollupStore(STORE_DIRECTORY_PATH);
+		Assert.assertEquals("Partial record read", 10, store.query(Tier.SECOND, START / 1000, START / 1000 + 60, 1).size());
+		recordTraffic(store, START + 10000, 10);
+		store.close();
+		Assert.assertTrue("Partial record not dropped", Files.size(segment) > size);
+		Assert.assertEquals("Bad seconds count after recovery", 20,
+				store.query(Tier.SECOND, START / 1000, START / 1000 + 60, 1).size());
+	}
+
+	@Test
+	public void testCompactRecords() throws IOException {
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, START, 600);
+		}
+		Path segment = Files.list(Paths.get(STORE_DIRECTORY_PATH, "second")).findFirst().get();
+		// delta time, counts and 2 sections: about 30 bytes per second
+		Assert.assertTrue("Records too large: " + Files.size(segment), Files.size(segment) < 600 * 40);
+	}
+
+	@Test
+	public void testQueryRecentTraffic() throws IOException {
+		long now = System.currentTimeMillis();
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, now - 20000, 10);
+		}
+		// recent range is read from the second tier
+		List<TrafficRollup> buckets = new RollupStore(STORE_DIRECTORY_PATH).query(now / 1000 - 60, now / 1000 + 1,
+				60);
+		Assert.assertEquals("Bad buckets count", 1, buckets.size());
+		Assert.assertEquals("Bad recent requests", 100, buckets.get(0).getRequests());
+	}
+
+	@Test
+	public void testQueryUnalignedRange() throws IOException {
+		// minute aligned, 10 minutes ago
+		long start = (System.currentTimeMillis() / 60000 - 10) * 60000;
+		long from = start / 1000;
+		RollupStore store = new RollupStore(STORE_DIRECTORY_PATH);
+		try {
+			recordTraffic(store, start, 180);
+			// range starting within a minute: the first partial minute is read from the second tier
+			List<TrafficRollup> buckets = store.query(from + 30, from + 180, 60);
+			Assert.assertEquals("Bad unaligned buckets count", 3, buckets.size());
+			Assert.assertEquals("Bad partial first bucket", 600, buckets.get(0).getRequests());
+
+			// last minute is not over: read from the second tier, up to the reordered seconds
+			buckets = store.query(from, from + 240, 60);
+			Assert.assertEquals("Bad aligned buckets count", 3, buckets.size());
+			Assert.assertEquals("Bad closed minute", 600, buckets.get(1).getRequests());
+			Assert.assertEquals("Bad open minute", 550, buckets.get(2).getRequests());
+		} finally {
+			store.close();
+		}
+	}
+
+	@Test
+	public void testQueryExpiredSeconds() throws IOException {
+		// minute aligned, 3 days ago
+		long start = (System.currentTimeMillis() / 60000 - 3 * 24 * 60) * 60000;
+		long from = start / 1000;
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, start, 180);
+			// recent traffic: the old seconds segments are deleted
+			recordTraffic(store, System.currentTimeMillis() - 60000, 10);
+		}
+		// range starting within a minute no longer held by the second tier
+		List<TrafficRollup> buckets = new RollupStore(STORE_DIRECTORY_PATH).query(from + 30, from + 180, 60);
+		Assert.assertEquals("Bad buckets count", 3, buckets.size());
+		Assert.assertEquals("Range should start at the minute start", from, buckets.get(0).getStartSecond());
+		Assert.assertEquals("Bad first minute", 600, buckets.get(0).getRequests());
+	}
+
+	@Test
+	public void testBacklogBinned() throws IOException {
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			// old log lines read while the current time goes on
+			for (long time = START; time < START + 20000; time += 100) {
+				store.record(time, 200, 10, "/sport");
+				store.advance(System.currentTimeMillis());
+			}
+			// idle: the store clock moves with the current time
+			long now = System.currentTimeMillis();
+			store.advance(now);
+			store.advance(now + (60 + 5) * 1000);
+			List<TrafficRollup> seconds = new RollupStore(STORE_DIRECTORY_PATH).query(Tier.SECOND, START / 1000,
+					START / 1000 + 60, 1);
+			Assert.assertEquals("Idle seconds should be written", 20, seconds.size());
+			for (TrafficRollup second : seconds) {
+				Assert.assertEquals("Backlog binned in a wrong second", 10, second.getRequests());
+			}
+			Assert.assertEquals("Idle minute should be written", 1,
+					new RollupStore(STORE_DIRECTORY_PATH).query(Tier.MINUTE, START / 1000, START / 1000 + 60, 60)
+							.size());
+		}
+	}
+
+	@Test
+	public void testReadAgain() throws IOException {
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, START, 10);
+		}
+		// log read again from the beginning after a restart
+		try (RollupStore store = new RollupStore(STORE_DIRECTORY_PATH)) {
+			recordTraffic(store, START, 12);
+		}
+		List<TrafficRollup> seconds = new RollupStore(STORE_DIRECTORY_PATH).query(Tier.SECOND, START / 1000,
+				START / 1000 + 60, 1);
+		Assert.assertEquals("Bad seconds count", 12, seconds.size());
+		for (TrafficRollup second : seconds) {
+			Assert.assertEquals("Second stored twice", 10, second.getRequests());
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.httplogmonitoringtool.utils.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.httplogmonitoringtool.exceptions.HTTPLogRowFormatException;
+import com.httplogmonitoringtool.models.HTTPLogFields;
+import com.httplogmonitoringtool.utils.HTTPLogByteParser;
+import com.httplogmonitoringtool.utils.SyntheticLogGenerator;
+
+public class SyntheticLogGeneratorTest {
+
+	private final static String LOG_FILE_PATH = System.getProperty("user.dir") + "/bin/synthetic_test.log";
+
+	private final static long START = 1543071935000L;
+
+	@After
+	public void tearDown() throws IOException {
+		// delete test log files
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH));
+		Files.deleteIfExists(Paths.get(LOG_FILE_PATH + ".1"));
+	}
+
+	private static String generate(SyntheticLogGenerator generator, int count)
+			throws IOException, InterruptedException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		long bytes = generator.write(output, count);
+		Assert.assertEquals("Bad written bytes", output.size(), bytes);
+		return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	private static SyntheticLogGenerator newGenerator(long seed) {
+		SyntheticLogGenerator generator = new SyntheticLogGenerator(seed);
+		generator.setStartTime(START);
+		generator.setLinesPerSecond(100);
+		return generator;
+	}
+
+	@Test
+	public void testDeterministic() throws IOException, InterruptedException {
+		String lines = generate(newGenerator(7), 10000);
+		Assert.assertEquals("Same seed should generate same lines", lines, generate(newGenerator(7), 10000));
+		Assert.assertNotEquals("Other seed should generate other lines", lines, generate(newGenerator(8), 10000));
+		Assert.assertEquals("Bad lines count", 10000, lines.split("\n").length);
+	}
+
+	@Test
+	public void testTraffic() throws IOException, InterruptedException, HTTPLogRowFormatException {
+		SyntheticLogGenerator generator = newGenerator(42);
+		generator.setCardinality(100, 10, 20, 1);
+		generator.setStatusMix(new int[] { 200, 500 }, new int[] { 9, 1 });
+		generator.setBadLineRatio(0.1);
+		String[] lines = generate(generator, 20000).split("\n");
+
+		// every line parses but malformed ones
+		HTTPLogFields fields = new HTTPLogFields();
+		Map<String, Integer> sections = new HashMap<String, Integer>();
+		int badLines = 0;
+		int errors = 0;
+		long lastDate = 0;
+		for (String line : lines) {
+			byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+			try {
+				HTTPLogByteParser.parse(bytes, 0, bytes.length, fields);
+			} catch (HTTPLogRowFormatException e) {
+				badLines++;
+				continue;
+			}
+			Assert.assertTrue("Bad date", fields.getReqEpochMillis() >= START);
+			lastDate = fields.getReqEpochMillis();
+			if (fields.getReqSatus() == 500) {
+				errors++;
+			}
+			sections.merge(fields.getReqSection(), 1, Integer::sum);
+		}
+		Assert.assertEquals("Bad malformed lines count", generator.getBadLineCount(), badLines);
+		Assert.assertEquals("Bad malformed lines ratio", 0.1, badLines / 20000d, 0.01);
+		Assert.assertEquals("Bad status mix", 0.1, errors / (20000d - badLines), 0.01);
+		Assert.assertEquals("Bad sections cardinality", 20, sections.size());
+		// Zipf: first section twice as frequent as the second one
+		Assert.assertEquals("Bad Zipf distribution", 2, sections.get("/section0") / (double) sections.get("/section1"),
+				0.3);
+
+		// 100 lines per second
+		Assert.assertEquals("Bad last date", START + 200 * 1000, lastDate, 1000);
+	}
+
+	@Test
+	public void testBursts() throws IOException, InterruptedException {
+		SyntheticLogGenerator generator = newGenerator(42);
+		// 10 seconds at 1000 lines/s, then 90 seconds at 100 lines/s
+		generator.setBursts(10, 100, 10);
+		String[] lines = generate(generator, 10000 + 9000).split("\n");
+		Assert.assertTrue("Bad burst end", lines[9999].contains("15:05:44 +0000]"));
+		Assert.assertTrue("Burst too long", lines[10000].contains("15:05:45 +0000]"));
+		Assert.assertTrue("Bad rate after burst", lines[10100].contains("15:05:46 +0000]"));
+		Assert.assertTrue("Bad period end", lines[18999].contains("15:07:14 +0000]"));
+	}
+
+	@Test
+	public void testRotation() throws IOException, InterruptedException {
+		Path path = Paths.get(LOG_FILE_PATH);
+		SyntheticLogGenerator generator = newGenerator(42);
+		generator.setRotationLines(1000);
+		generator.write(path, 2500);
+		Assert.assertEquals("Bad rotations count", 2, generator.getRotationCount());
+		List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+		Assert.assertEquals("Bad current file lines", 500, lines.size());
+		Assert.assertEquals("Bad rotated file lines", 1000,
+				Files.readAllLines(Paths.get(LOG_FILE_PATH + ".1"), StandardCharsets.US_ASCII).size());
+	}
+
+}